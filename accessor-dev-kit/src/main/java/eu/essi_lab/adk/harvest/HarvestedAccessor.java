@@ -22,12 +22,16 @@ package eu.essi_lab.adk.harvest;
  */
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import eu.essi_lab.cdk.harvest.IHarvestedQueryConnector;
 import eu.essi_lab.cfga.gs.setting.accessor.AccessorSetting;
 import eu.essi_lab.cfga.gs.setting.connector.HarvestedConnectorSetting;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.lib.utils.SharedExecutor;
 import eu.essi_lab.messages.JobStatus.JobPhase;
 import eu.essi_lab.messages.listrecords.ListRecordsRequest;
 import eu.essi_lab.messages.listrecords.ListRecordsResponse;
@@ -62,6 +66,18 @@ public abstract class HarvestedAccessor<C extends IHarvestedQueryConnector> impl
      * 
      */
     private static final String NO_LIST_RECORDS_ERROR_RESPONSE_ERROR = "NO_LIST_RECORDS_ERROR_RESPONSE";
+    /**
+     * 
+     */
+    private static final String MAPPING_INTERRUPTED_ERROR = "HARVESTED_ACCESSOR_MAPPING_INTERRUPTED_ERROR";
+    /**
+     * 
+     */
+    private static final String MAPPING_CALLER = "HarvestedAccessorMapping";
+    /**
+     * System property which sets the number of threads mapping the records of a page; 1 maps them sequentially
+     */
+    public static final String MAPPING_THREADS_PROPERTY = "harvestedAccessor.mappingThreads";
 
     private AccessorSetting setting;
     private C connector;
@@ -214,39 +230,127 @@ public abstract class HarvestedAccessor<C extends IHarvestedQueryConnector> impl
 	//
 	//
 
-	GSLoggerFactory.getLogger(getClass()).debug("Mapping of {} resources STARTED", driverResponse.getRecordsAsList().size());
+	List<OriginalMetadata> originals = driverResponse.getRecordsAsList();
+
+	GSLoggerFactory.getLogger(getClass()).debug("Mapping of {} resources STARTED", originals.size());
 
 	ListRecordsResponse<GSResource> response = new ListRecordsResponse<>();
 
 	response.setResumptionToken(driverResponse.getResumptionToken());
 
-	driverResponse.getRecords().forEachRemaining(original -> {
+	//
+	// the records are mapped in parallel if all their mappers support it, and added to the response in the
+	// original order
+	//
+	List<Callable<GSResource>> tasks = originals.stream().//
+		map(original -> (Callable<GSResource>) () -> map(original)).//
+		collect(Collectors.toList());
 
-	    try {
+	List<Future<GSResource>> futures = null;
 
-		IResourceMapper mapper = getMapper(original.getSchemeURI());
+	try {
 
-		GSResource resource = mapper.map(original, getSource());
+	    int threads = isParallelMappingSupported(originals) ? getMappingThreads() : 1;
 
-		if (resource != null) {
+	    futures = SharedExecutor.invokeAll(MAPPING_CALLER, tasks, threads, 0);
 
-		    response.addRecord(resource);
+	} catch (InterruptedException ex) {
 
-		} else {
+	    Thread.currentThread().interrupt();
+
+	    throw GSException.createException(getClass(), MAPPING_INTERRUPTED_ERROR, ex);
+	}
 
-		    GSLoggerFactory.getLogger(getClass()).warn("Mapped resource is null");
+	for (Future<GSResource> future : futures) {
+
+	    try {
+
+		GSResource resource = future.get();
+
+		if (resource != null) {
+
+		    response.addRecord(resource);
 		}
+
 	    } catch (Exception e) {
 
 		GSLoggerFactory.getLogger(getClass()).error(e);
 	    }
-	});
+	}
 
-	GSLoggerFactory.getLogger(getClass()).debug("Mapping of {} resources ENDED", driverResponse.getRecordsAsList().size());
+	GSLoggerFactory.getLogger(getClass()).debug("Mapping of {} resources ENDED", originals.size());
 
 	return response;
     }
 
+    /**
+     * @param originals
+     * @return <code>true</code> if the mappers of all the given records support the parallel mapping
+     */
+    private boolean isParallelMappingSupported(List<OriginalMetadata> originals) {
+
+	List<String> schemes = originals.stream().//
+		map(OriginalMetadata::getSchemeURI).//
+		distinct().//
+		collect(Collectors.toList());
+
+	for (String scheme : schemes) {
+
+	    try {
+
+		IResourceMapper mapper = getMapper(scheme);
+
+		if (mapper == null || !mapper.isParallelMappingSupported()) {
+
+		    return false;
+		}
+
+	    } catch (Exception e) {
+
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * @param original
+     * @return the mapped resource, or <code>null</code> if the mapping failed
+     */
+    private GSResource map(OriginalMetadata original) {
+
+	try {
+
+	    IResourceMapper mapper = getMapper(original.getSchemeURI());
+
+	    GSResource resource = mapper.map(original, getSource());
+
+	    if (resource == null) {
+
+		GSLoggerFactory.getLogger(getClass()).warn("Mapped resource is null");
+	    }
+
+	    return resource;
+
+	} catch (Exception e) {
+
+	    GSLoggerFactory.getLogger(getClass()).error(e);
+	}
+
+	return null;
+    }
+
+    /**
+     * @return the number of threads mapping the records of a page whose mappers support the parallel mapping (see
+     *         {@link IResourceMapper#isParallelMappingSupported()}), set with the {@value #MAPPING_THREADS_PROPERTY}
+     *         system property. Default is the number of available processors
+     */
+    protected int getMappingThreads() {
+
+	return Integer.getInteger(MAPPING_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public List<String> listMetadataFormats() throws GSException {
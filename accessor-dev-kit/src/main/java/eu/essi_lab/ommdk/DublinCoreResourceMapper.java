@@ -514,4 +514,15 @@ public class DublinCoreResourceMapper extends FileIdentifierMapper {
 	}
 	return false;
     }
+
+    /**
+     * The mapper has no fields, each record is parsed by its own {@link XMLDocumentReader} and the callbacks only
+     * write the resource being mapped, so the records can be mapped in parallel. Subclasses can customize the mapping
+     * with their own state, so they must opt in explicitly
+     */
+    @Override
+    public boolean isParallelMappingSupported() {
+
+	return getClass() == DublinCoreResourceMapper.class;
+    }
 }
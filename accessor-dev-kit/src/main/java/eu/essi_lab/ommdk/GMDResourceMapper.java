@@ -126,4 +126,14 @@ public class GMDResourceMapper extends FileIdentifierMapper {
 	}
 	return false;
     }
+
+    /**
+     * The mapper has no fields and each record is unmarshalled with its own JAXB unmarshaller, so the records can be
+     * mapped in parallel. Subclasses can customize the mapping with their own state, so they must opt in explicitly
+     */
+    @Override
+    public boolean isParallelMappingSupported() {
+
+	return getClass() == GMDResourceMapper.class;
+    }
 }
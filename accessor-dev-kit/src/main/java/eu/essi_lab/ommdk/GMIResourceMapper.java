@@ -62,4 +62,13 @@ public class GMIResourceMapper extends GMDResourceMapper {
 	}
 	return false;
     }
+
+    /**
+     * Like {@link GMDResourceMapper}, only the unmarshalled type changes
+     */
+    @Override
+    public boolean isParallelMappingSupported() {
+
+	return getClass() == GMIResourceMapper.class;
+    }
 }
@@ -70,4 +70,15 @@ public interface IResourceMapper extends Pluggable {
      * @return
      */
     public Boolean supportsOriginalMetadata(OriginalMetadata originalMD);
+
+    /**
+     * Returns <code>true</code> if this mapper can map several records at the same time from different threads, e.g.
+     * because it has no mutable shared state. Default is <code>false</code>, the records are mapped sequentially
+     * 
+     * @return
+     */
+    public default boolean isParallelMappingSupported() {
+
+	return false;
+    }
 }
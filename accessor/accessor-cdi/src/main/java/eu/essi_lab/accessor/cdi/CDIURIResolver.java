@@ -48,6 +48,8 @@ public class CDIURIResolver implements javax.xml.transform.URIResolver {
     public CDIURIResolver() {
 	cache.setDuration(600000);
 	cache.setMaxSize(100);
+	// at most 64 MB of cached documents
+	cache.setMaxWeight(64L * 1024 * 1024);
     }
 
     @Override
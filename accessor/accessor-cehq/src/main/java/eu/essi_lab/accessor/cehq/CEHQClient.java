@@ -417,6 +417,8 @@ public class CEHQClient {
 	downloadCache = new ExpiringCache<>();
 	downloadCache.setDuration(240000);
 	downloadCache.setMaxSize(50);
+	// at most 32 MB of cached pages
+	downloadCache.setMaxWeight(32L * 1024 * 1024);
     }
 
     private synchronized XMLDocumentReader readHTMLPage(String url) throws Exception {
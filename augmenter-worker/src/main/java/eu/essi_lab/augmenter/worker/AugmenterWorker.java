@@ -62,6 +62,7 @@ import eu.essi_lab.messages.DiscoveryMessage;
 import eu.essi_lab.messages.JobStatus.JobPhase;
 import eu.essi_lab.messages.Page;
 import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.SearchAfter;
 import eu.essi_lab.messages.bond.BondFactory;
 import eu.essi_lab.messages.bond.BondOperator;
 import eu.essi_lab.messages.bond.LogicalBond;
@@ -241,12 +242,18 @@ public class AugmenterWorker extends SchedulerWorker<AugmenterWorkerSetting> {
 
 	boolean errorOccurred = false;
 
+	//
+	// the pages are retrieved by cursor if supported by the finder, by offset otherwise
+	//
+	SearchAfter searchAfter = new SearchAfter(start);
+
 	do {
 
 	    logger.iterationStarted();
 
 	    Page page = new Page(start, pageSize);
 	    message.setPage(page);
+	    message.setSearchAfter(searchAfter);
 
 	    ResultSet<GSResource> response = finder.discover(message);
 
@@ -303,6 +310,8 @@ public class AugmenterWorker extends SchedulerWorker<AugmenterWorkerSetting> {
 
 	    start += pageSize;
 
+	    searchAfter = response.getSearchAfter().orElse(new SearchAfter(start));
+
 	    logger.iterationEnded();
 
 	    properties.setStart(start);
@@ -31,8 +31,7 @@ import java.util.stream.Collectors;
 import org.quartz.JobExecutionContext;
 
 import eu.essi_lab.cfga.Configuration;
-import eu.essi_lab.cfga.ConfigurationChangeListener;
-import eu.essi_lab.cfga.ConfigurationUtils;
+import eu.essi_lab.cfga.ConfigurationSnapshot;
 import eu.essi_lab.cfga.gs.DefaultConfiguration.MainSettingsIdentifier;
 import eu.essi_lab.cfga.gs.setting.CredentialsSetting;
 import eu.essi_lab.cfga.gs.setting.DownloadSetting;
@@ -104,28 +103,6 @@ public class ConfigurationWrapper {
     public static void setConfiguration(Configuration config) {
 
 	configuration = config;
-	configuration.addChangeEventListener(new ConfigurationChangeListener() {
-
-	    @Override
-	    public void configurationChanged(ConfigurationChangeEvent event) {
-		int eventType = event.getEventType();
-		switch (eventType) {
-		case ConfigurationChangeEvent.SETTING_PUT:
-		case ConfigurationChangeEvent.SETTING_REMOVED:
-		case ConfigurationChangeEvent.SETTING_REPLACED:
-		case ConfigurationChangeEvent.CONFIGURATION_CLEARED:
-		case ConfigurationChangeEvent.CONFIGURATION_AUTO_RELOADED:
-		case ConfigurationChangeEvent.CONFIGURATION_FLUSHED:
-		    allSourcesCache = getSources(null, false);
-		    break;
-		default:
-		    break;
-		}
-	    }
-
-	});
-
-	allSourcesCache = getSources(null, false);
     }
 
     /**
@@ -350,23 +327,11 @@ public class ConfigurationWrapper {
      */
     private static List<AccessorSetting> getAccessorSettings(BrokeringStrategy strategy) {
 
-	List<AccessorSetting> mapped = new ArrayList<>();
-
-	ConfigurationUtils.deepMap(configuration, s -> {
-
-	    if (s.getObject().getString("settingClass").equals(AccessorSetting.class.getName())) { //
-
-		if (strategy == null || s.getObject().getString("brokeringStrategy").equals(strategy.getLabel())) {
-
-		    return new AccessorSetting(s.getObject().toString());
-		}
-	    }
-
-	    return null;
-
-	}, mapped);
-
-	return mapped;
+	return getSourcesIndex().accessorSettings.//
+		stream().//
+		filter(s -> strategy == null || s.getObject().getString("brokeringStrategy").equals(strategy.getLabel())).//
+		map(s -> new AccessorSetting(s.getObject().toString())).//
+		collect(Collectors.toList());
     }
 
     /**
@@ -399,12 +364,8 @@ public class ConfigurationWrapper {
      */
     public static Optional<AccessorSetting> getAccessorSetting(GSSource source) {
 
-	return getAccessorSettings().//
-		stream().//
-		filter(s -> s.getSource().getUniqueIdentifier() != null
-			&& s.getSource().getUniqueIdentifier().equals(source.getUniqueIdentifier()))
-		.//
-		findFirst();
+	return Optional.ofNullable(getSourcesIndex().accessorSettingsBySource.get(source.getUniqueIdentifier())).//
+		map(s -> new AccessorSetting(s.getObject().toString()));
     }
 
     //
@@ -445,8 +406,6 @@ public class ConfigurationWrapper {
 	return collect;
     }
 
-    private static List<GSSource> allSourcesCache = null;
-
     /**
      * Retrieves all the {@link GSSource}s defined by the current configuration: brokered, harvested, mixed
      *
@@ -454,8 +413,14 @@ public class ConfigurationWrapper {
      * @throws GSException
      */
     public static List<GSSource> getAllSources() {
-	return allSourcesCache;
 
+	if (configuration == null) {
+
+	    // no configuration set yet
+	    return null;
+	}
+
+	return new ArrayList<>(getSourcesIndex().sources);
     }
 
     /**
@@ -572,48 +537,110 @@ public class ConfigurationWrapper {
      */
     private static List<GSSource> getSources(BrokeringStrategy strategy, boolean harvestedAndMixed) {
 
-	List<GSSource> mapped = new ArrayList<>();
+	return getSourcesIndex().sources.//
+		stream().//
+		filter(s -> strategy == null && !harvestedAndMixed || //
 
-	ConfigurationUtils.deepMap(configuration, s -> {
+			strategy == null && harvestedAndMixed && //
+				(s.getBrokeringStrategy() == BrokeringStrategy.HARVESTED || //
+					s.getBrokeringStrategy() == BrokeringStrategy.MIXED)
+			||
 
-	    if (s.getObject().getString("settingClass").equals(GSSourceSetting.class.getName()) && //
+			strategy != null && s.getBrokeringStrategy() == strategy)
+		.//
+		collect(Collectors.toList());
+    }
 
-		    (strategy == null && !harvestedAndMixed ||
+    /**
+     * @param sourceIdentifier
+     * @return
+     * @throws GSException
+     */
+    public static GSSource getSource(String sourceIdentifier) {
 
-			    strategy == null && harvestedAndMixed
-				    && (s.getObject().getString("brokeringStrategy").equals(BrokeringStrategy.HARVESTED.getLabel())
-					    || s.getObject().getString("brokeringStrategy").equals(BrokeringStrategy.MIXED.getLabel()))
-			    ||
+	return getSourcesIndex().sourcesById.get(sourceIdentifier);
+    }
 
-			    strategy != null && s.getObject().getString("brokeringStrategy").equals(strategy.getLabel())
+    /**
+     * The sources and the accessor settings of a configuration snapshot
+     * 
+     * @author Fabrizio
+     */
+    private static class SourcesIndex {
 
-		    ) //
+	private final List<GSSource> sources;
+	private final HashMap<String, GSSource> sourcesById;
+	private final List<AccessorSetting> accessorSettings;
+	private final HashMap<String, AccessorSetting> accessorSettingsBySource;
 
-	    ) {
+	/**
+	 * An empty index
+	 */
+	private SourcesIndex() {
 
-		return new GSSourceSetting(s.getObject().toString()).asSource();
-	    }
+	    sources = new ArrayList<>();
+	    sourcesById = new HashMap<>();
+	    accessorSettings = new ArrayList<>();
+	    accessorSettingsBySource = new HashMap<>();
+	}
 
-	    return null;
+	/**
+	 * @param snapshot
+	 */
+	private SourcesIndex(ConfigurationSnapshot snapshot) {
+
+	    this();
+
+	    snapshot.getSettings().forEach(setting -> SettingUtils.deepMap(setting, s -> {
 
-	}, mapped);
+		if (s.getObject().getString("settingClass").equals(GSSourceSetting.class.getName())) {
+
+		    return new GSSourceSetting(s.getObject().toString()).asSource();
+		}
+
+		return null;
+
+	    }, sources));
+
+	    snapshot.getSettings().forEach(setting -> SettingUtils.deepMap(setting, s -> {
+
+		if (s.getObject().getString("settingClass").equals(AccessorSetting.class.getName())) {
+
+		    return new AccessorSetting(s.getObject().toString());
+		}
 
-	return mapped;
+		return null;
+
+	    }, accessorSettings));
+
+	    sources.forEach(s -> sourcesById.putIfAbsent(s.getUniqueIdentifier(), s));
+
+	    accessorSettings.forEach(s -> {
+
+		String sourceId = s.getSource().getUniqueIdentifier();
+
+		if (sourceId != null) {
+
+		    accessorSettingsBySource.putIfAbsent(sourceId, s);
+		}
+	    });
+	}
     }
 
     /**
-     * @param sourceIdentifier
-     * @return
-     * @throws GSException
+     * @return the sources index of the current configuration snapshot, built once per snapshot, or an empty index if
+     *         no configuration is set
      */
-    public static GSSource getSource(String sourceIdentifier) {
+    private static SourcesIndex getSourcesIndex() {
 
-	return getAllSources().//
-		stream().//
-		filter(s -> s.getUniqueIdentifier().equals(sourceIdentifier)).//
-		findFirst().//
-		orElse(null);
+	Configuration current = configuration;
+
+	if (current == null) {
+
+	    return new SourcesIndex();
+	}
 
+	return current.getSnapshot().getIndex(SourcesIndex.class.getName(), SourcesIndex::new);
     }
 
     /**
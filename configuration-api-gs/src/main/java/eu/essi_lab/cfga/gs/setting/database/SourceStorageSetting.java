@@ -69,6 +69,11 @@ public class SourceStorageSetting extends Setting implements EditableSetting {
      */
     private final static String SMART_STORAGE_KEY = "smartStorage";
 
+    /**
+     * 
+     */
+    private final static String BULK_STORAGE_KEY = "bulkStorage";
+
     public SourceStorageSetting() {
 
 	setName("Source storage settings");
@@ -133,6 +138,23 @@ public class SourceStorageSetting extends Setting implements EditableSetting {
 
 	addOption(smartStorageDisabledOption);
 
+	Option<String> bulkStorageOption = StringOptionBuilder.get().//
+		withLabel("Bulk storage").//
+		withDescription("Per default this feature is disabled for all the sources. "
+			+ " Enable this option and add source identifiers to store the harvested records of the given sources in bulk requests"
+			+ " and to refresh the index only at the end of the harvesting."
+			+ " Records with the same original identifier provided by the source during the same harvesting"
+			+ " are detected as duplicated only if they are not in the same bulk request."
+			+ " Disable this option to disable the feature for all the sources (default)."
+			+ " Single source identifier per row")
+		.//
+		withKey(BULK_STORAGE_KEY).//
+		disabled().//
+		withTextArea().//
+		build();
+
+	addOption(bulkStorageOption);
+
 	//
 	// set the validator
 	//
@@ -184,6 +206,14 @@ public class SourceStorageSetting extends Setting implements EditableSetting {
 		validationResponse.getErrors().add("One or more source identifier must be set for the 'Disable smart storage' feature");
 	    }
 
+	    Optional<Option<String>> bulkOption = srcStrSetting.getOption(BULK_STORAGE_KEY, String.class);
+	    if (bulkOption.isPresent() && bulkOption.get().isEnabled()
+		    && (!bulkOption.get().getOptionalValue().isPresent() || bulkOption.get().getValue().isEmpty())) {
+
+		validationResponse.setResult(ValidationResult.VALIDATION_FAILED);
+		validationResponse.getErrors().add("One or more source identifier must be set for the 'Bulk storage' feature");
+	    }
+
 	    return validationResponse;
 	}
     }
@@ -322,6 +352,39 @@ public class SourceStorageSetting extends Setting implements EditableSetting {
 	addIdentifier(SMART_STORAGE_KEY, sourceIdentifiers);
     }
 
+    /**
+     * @param sourceIdentifier
+     * @return
+     */
+    public Boolean isBulkStorageSet(String sourceIdentifier) {
+
+	//
+	// this option is missing in the configurations created before its introduction
+	//
+	if (getOption(BULK_STORAGE_KEY, String.class).isEmpty()) {
+
+	    return false;
+	}
+
+	return test(BULK_STORAGE_KEY, sourceIdentifier);
+    }
+
+    /**
+     * @param sourceIdentifiers
+     */
+    public void setBulkStorage(String... sourceIdentifiers) {
+
+	addIdentifier(BULK_STORAGE_KEY, sourceIdentifiers);
+    }
+
+    /**
+     * @param sourceIdentifiers
+     */
+    public void removeBulkStorage(String... sourceIdentifiers) {
+
+	removeIdentifier(BULK_STORAGE_KEY, sourceIdentifiers);
+    }
+
     /**
      * @param optionKey
      * @param sourceIdentifiers
@@ -408,4 +471,12 @@ public class SourceStorageSetting extends Setting implements EditableSetting {
 	getOption(SMART_STORAGE_KEY, String.class).get().setEnabled(false);
     }
 
+    /**
+     * 
+     */
+    public void disableBulkStorage() {
+
+	getOption(BULK_STORAGE_KEY, String.class).ifPresent(o -> o.setEnabled(false));
+    }
+
 }
@@ -42,6 +42,7 @@ public class SourceStorageSettingTest {
 	setting.setRecoverResourceTags("source1", "source2", "source3");
 	setting.setTestISOCompliance("source1", "source2", "source3");
 	setting.setDisableSmartStorage("source1", "source2", "source3");
+	setting.setBulkStorage("source1", "source2", "source3");
 
 	test2(setting);
 	test2(new SourceStorageSetting(setting.getObject()));
@@ -59,6 +60,8 @@ public class SourceStorageSettingTest {
 	setting.removeSmartStorageDisabledSet("source1");
 	setting.removeSmartStorageDisabledSet("source3");
 
+	setting.removeBulkStorage("source2");
+
 	Assert.assertFalse(setting.isMarkDeletedOption("source1"));
 	Assert.assertTrue(setting.isMarkDeletedOption("source2"));
 	Assert.assertTrue(setting.isMarkDeletedOption("source3"));
@@ -75,6 +78,10 @@ public class SourceStorageSettingTest {
 	Assert.assertTrue(setting.isSmartStorageDisabledSet("source2"));
 	Assert.assertFalse(setting.isSmartStorageDisabledSet("source3"));
 
+	Assert.assertTrue(setting.isBulkStorageSet("source1"));
+	Assert.assertFalse(setting.isBulkStorageSet("source2"));
+	Assert.assertTrue(setting.isBulkStorageSet("source3"));
+
 	//
 	//
 	//
@@ -83,6 +90,7 @@ public class SourceStorageSettingTest {
 	setting.disableRecoverResourceTags();
 	setting.disableTestISOCompliance();
 	setting.enableSmartStorage();
+	setting.disableBulkStorage();
 
 	test1(setting);
 	test1(new SourceStorageSetting(setting.getObject()));
@@ -154,6 +162,14 @@ public class SourceStorageSettingTest {
 
 	smartStorageDisabled = setting.isSmartStorageDisabledSet("source3");
 	Assert.assertFalse(smartStorageDisabled);
+
+	//
+	//
+	//
+
+	Assert.assertFalse(setting.isBulkStorageSet("source1"));
+	Assert.assertFalse(setting.isBulkStorageSet("source2"));
+	Assert.assertFalse(setting.isBulkStorageSet("source3"));
     }
 
     /**
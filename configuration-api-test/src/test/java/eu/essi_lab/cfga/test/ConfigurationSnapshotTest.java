@@ -0,0 +1,259 @@
+package eu.essi_lab.cfga.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.cfga.Configuration;
+import eu.essi_lab.cfga.ConfigurationSnapshot;
+import eu.essi_lab.cfga.setting.Setting;
+
+/**
+ * @author Fabrizio
+ */
+public class ConfigurationSnapshotTest {
+
+    /**
+     * The number of reads of the benchmark can be set with the <code>snapshot.benchmarkReads</code> property, e.g.
+     * -Dsnapshot.benchmarkReads=100000
+     */
+    private static final int BENCHMARK_READS = Integer.getInteger("snapshot.benchmarkReads", 2000);
+
+    @Test
+    public void snapshotTest() {
+
+	Configuration configuration = new Configuration();
+
+	configuration.put(createSetting("id1"));
+
+	ConfigurationSnapshot snapshot = configuration.getSnapshot();
+
+	// the snapshot is reused until the next change
+	Assert.assertSame(snapshot, configuration.getSnapshot());
+
+	Assert.assertEquals(1, snapshot.getSettings().size());
+	Assert.assertTrue(snapshot.get("id1").isPresent());
+	Assert.assertFalse(snapshot.get("id2").isPresent());
+
+	// the class lists are memoized
+	Assert.assertSame(snapshot.list(Setting.class, false), snapshot.list(Setting.class, false));
+
+	try {
+	    snapshot.getSettings().add(createSetting("id3"));
+
+	    Assert.fail("Exception not thrown");
+
+	} catch (UnsupportedOperationException ex) {
+	}
+
+	//
+	// a change publishes a new snapshot, the previous one is not modified
+	//
+
+	configuration.put(createSetting("id2"));
+
+	ConfigurationSnapshot next = configuration.getSnapshot();
+
+	Assert.assertNotSame(snapshot, next);
+	Assert.assertTrue(next.getVersion() > snapshot.getVersion());
+
+	Assert.assertEquals(1, snapshot.getSettings().size());
+	Assert.assertEquals(2, next.getSettings().size());
+	Assert.assertEquals(2, next.list(Setting.class, false).size());
+
+	//
+	// the snapshot settings are not the live settings
+	//
+
+	next.get("id1").get().setName("changed");
+
+	Assert.assertNotEquals("changed", configuration.get("id1").get().getName());
+    }
+
+    @Test
+    public void indexTest() {
+
+	Configuration configuration = new Configuration();
+
+	configuration.put(createSetting("id1"));
+
+	AtomicInteger builds = new AtomicInteger();
+
+	Integer size = configuration.getSnapshot().getIndex("size", s -> {
+
+	    builds.incrementAndGet();
+	    return s.getSettings().size();
+	});
+
+	Assert.assertEquals(Integer.valueOf(1), size);
+
+	// the index is built once per snapshot
+	configuration.getSnapshot().getIndex("size", s -> builds.incrementAndGet());
+
+	Assert.assertEquals(1, builds.get());
+
+	//
+	// after a change the index is rebuilt
+	//
+
+	configuration.remove("id1");
+
+	size = configuration.getSnapshot().getIndex("size", s -> {
+
+	    builds.incrementAndGet();
+	    return s.getSettings().size();
+	});
+
+	Assert.assertEquals(Integer.valueOf(0), size);
+	Assert.assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void concurrencyTest() throws Exception {
+
+	Configuration configuration = new Configuration();
+
+	int writes = 500;
+	int readers = 4;
+
+	AtomicBoolean done = new AtomicBoolean();
+
+	ExecutorService executor = Executors.newFixedThreadPool(readers);
+
+	List<Future<Integer>> futures = new ArrayList<>();
+
+	for (int i = 0; i < readers; i++) {
+
+	    futures.add(executor.submit(() -> {
+
+		long lastVersion = -1;
+		int reads = 0;
+
+		while (!done.get()) {
+
+		    ConfigurationSnapshot snapshot = configuration.getSnapshot();
+
+		    // each put increments the version, so a consistent snapshot has as many settings as its version
+		    Assert.assertEquals(snapshot.getVersion(), snapshot.getSettings().size());
+		    Assert.assertEquals(snapshot.getSettings().size(), snapshot.list(Setting.class, false).size());
+		    Assert.assertTrue(snapshot.getVersion() >= lastVersion);
+
+		    lastVersion = snapshot.getVersion();
+
+		    configuration.list();
+		    configuration.list(Setting.class, false);
+
+		    reads++;
+		}
+
+		return reads;
+	    }));
+	}
+
+	for (int i = 0; i < writes; i++) {
+
+	    configuration.put(createSetting("id" + i));
+	}
+
+	done.set(true);
+
+	for (Future<Integer> future : futures) {
+
+	    // rethrows the assertion errors of the readers
+	    Assert.assertTrue(future.get() > 0);
+	}
+
+	executor.shutdown();
+	executor.awaitTermination(1, TimeUnit.MINUTES);
+
+	Assert.assertEquals(writes, configuration.getSnapshot().getSettings().size());
+	Assert.assertEquals(writes, configuration.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void benchmarkTest() throws Exception {
+
+	Configuration configuration = new Configuration();
+
+	for (int i = 0; i < 200; i++) {
+
+	    configuration.put(createSetting("id" + i));
+	}
+
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	//
+	// cloning reads
+	//
+
+	long cloning = read(threads, () -> configuration.get("id199").get());
+
+	//
+	// snapshot reads
+	//
+
+	long snapshot = read(threads, () -> configuration.getSnapshot().get("id199").get());
+
+	System.out.println("Settings: 200, reads: " + BENCHMARK_READS + ", threads: " + threads);
+	System.out.println("Cloning reads: " + cloning + " reads/s");
+	System.out.println("Snapshot reads: " + snapshot + " reads/s");
+    }
+
+    /**
+     * @param threads
+     * @param reader
+     * @return the reads per second
+     * @throws Exception
+     */
+    private long read(int threads, Runnable reader) throws Exception {
+
+	ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+	long start = System.nanoTime();
+
+	List<Future<?>> futures = new ArrayList<>();
+
+	for (int i = 0; i < threads; i++) {
+
+	    futures.add(executor.submit(() -> {
+
+		for (int j = 0; j < BENCHMARK_READS; j++) {
+
+		    reader.run();
+		}
+	    }));
+	}
+
+	for (Future<?> future : futures) {
+
+	    future.get();
+	}
+
+	long time = Math.max(1, System.nanoTime() - start);
+
+	executor.shutdown();
+
+	return (long) threads * BENCHMARK_READS * 1000000000L / time;
+    }
+
+    /**
+     * @param id
+     * @return
+     */
+    private Setting createSetting(String id) {
+
+	Setting setting = new Setting();
+	setting.setIdentifier(id);
+	setting.setName(id);
+
+	return setting;
+    }
+}
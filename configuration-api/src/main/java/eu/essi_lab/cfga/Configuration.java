@@ -42,6 +42,11 @@ import eu.essi_lab.cfga.source.FileSource;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 
 /**
+ * The read methods of the configuration do not lock, they read the current {@link ConfigurationSnapshot} which is
+ * published with a volatile reference and rebuilt only after a change; the write methods are synchronized and discard
+ * the current snapshot.<br>
+ * The read methods return cloned settings, the settings of {@link #getSnapshot()} are shared and not cloned
+ * 
  * @author Fabrizio
  */
 public class Configuration {
@@ -66,9 +71,11 @@ public class Configuration {
     private boolean dirty;
     private TimeUnit unit;
     private Integer interval;
-    private boolean writable;
+    private volatile boolean writable;
     private List<ConfigurationChangeListener> listenerList;
     private boolean autoreloadPaused;
+    private volatile ConfigurationSnapshot snapshot;
+    private long version;
 
     /**
      * Creates an empty, in-memory only configuration with no related source.<br>
@@ -205,6 +212,8 @@ public class Configuration {
 
 	    list = source.list();
 
+	    invalidate();
+
 	    dispatchEvent(ConfigurationChangeEvent.CONFIGURATION_AUTO_RELOADED);
 
 	    return true;
@@ -245,22 +254,52 @@ public class Configuration {
 	return listenerList;
     }
 
+    /**
+     * Returns the current snapshot of this configuration; the snapshot is built with the first invocation after a
+     * change, the following invocations return the same snapshot without locking
+     * 
+     * @return
+     */
+    public ConfigurationSnapshot getSnapshot() {
+
+	ConfigurationSnapshot current = snapshot;
+
+	if (current == null) {
+
+	    synchronized (this) {
+
+		if (snapshot == null) {
+
+		    ArrayList<Setting> clones = new ArrayList<Setting>();
+
+		    list.forEach(setting -> clones.add(setting.clone()));
+
+		    snapshot = new ConfigurationSnapshot(version, clones);
+		}
+
+		current = snapshot;
+	    }
+	}
+
+	return current;
+    }
+
     /**
      * @param settingId
      * @return
      */
-    public synchronized boolean exists(String settingId) {
+    public boolean exists(String settingId) {
 
-	return SettingUtils.get(list, settingId).isPresent();
+	return getSnapshot().get(settingId).isPresent();
     }
 
     /**
      * @param setting
      * @return
      */
-    public synchronized boolean contains(Setting setting) {
+    public boolean contains(Setting setting) {
 
-	Optional<Setting> optional = SettingUtils.get(list, setting.getIdentifier());
+	Optional<Setting> optional = getSnapshot().get(setting.getIdentifier());
 
 	return optional.get().equals(setting);
     }
@@ -275,9 +314,9 @@ public class Configuration {
      * @see #clear()
      * @param settingId
      */
-    public synchronized Optional<Setting> get(String settingId) {
+    public Optional<Setting> get(String settingId) {
 
-	return SettingUtils.get(list, settingId).map(s -> s.clone());
+	return getSnapshot().get(settingId).map(s -> s.clone());
     }
 
     /**
@@ -293,7 +332,7 @@ public class Configuration {
      * @return
      * @throws RuntimeException
      */
-    public synchronized <T extends Setting> Optional<T> get(String settingId, Class<T> settingClass) throws RuntimeException {
+    public <T extends Setting> Optional<T> get(String settingId, Class<T> settingClass) throws RuntimeException {
 
 	return get(settingId, settingClass, true);
     }
@@ -311,15 +350,10 @@ public class Configuration {
      * @return
      * @throws RuntimeException
      */
-    public synchronized <T extends Setting> Optional<T> get(String settingId, Class<T> settingClass, boolean exactClassMatch)
+    public <T extends Setting> Optional<T> get(String settingId, Class<T> settingClass, boolean exactClassMatch)
 	    throws RuntimeException {
 
-	Optional<T> findFirst = list(settingClass, exactClassMatch).//
-		stream().//
-		filter(s -> s.getIdentifier().equals(settingId)).//
-		findFirst();
-
-	return findFirst;
+	return getSnapshot().get(settingId, settingClass, exactClassMatch).map(s -> cloneSetting(s));
     }
 
     /**
@@ -332,16 +366,19 @@ public class Configuration {
      * @see #clear()
      * @return
      */
-    public synchronized List<Setting> list() {
+    public List<Setting> list() {
 
 	if (writable) {
 
-	    return list;
+	    synchronized (this) {
+
+		return list;
+	    }
 	}
 
 	ArrayList<Setting> out = new ArrayList<Setting>();
 
-	list.forEach(setting -> out.add(setting.clone()));
+	getSnapshot().getSettings().forEach(setting -> out.add(setting.clone()));
 
 	return out;
     }
@@ -362,9 +399,13 @@ public class Configuration {
      * @param exactClassMatch
      * @return
      */
-    public synchronized <T extends Setting> List<T> list(Class<T> settingClass, boolean exactClassMatch) {
+    public <T extends Setting> List<T> list(Class<T> settingClass, boolean exactClassMatch) {
 
-	return SettingUtils.list(list, settingClass, exactClassMatch, true);
+	return getSnapshot().//
+		list(settingClass, exactClassMatch).//
+		stream().//
+		map(s -> cloneSetting(s)).//
+		collect(Collectors.toList());
     }
 
     /**
@@ -377,15 +418,16 @@ public class Configuration {
      * <br>
      * For performance reasons, using this list method instead of {@link #list()} with a possible stream is recommended
      * since the {@link #list()} method returns a clone of the <i>entire</i> list while this method creates a stream of
-     * the original list. It is responsibility of the given <code>mapper</code> to clone the the resulting items
+     * the original list. It is responsibility of the given <code>mapper</code> to clone the the resulting items, since
+     * the mapped settings are the shared settings of the current {@link ConfigurationSnapshot}
      * 
      * @param settingClass
      * @param mapper
      * @return
      */
-    public synchronized <T extends Setting> List<T> list(Class<T> settingClass, Function<Setting, T> mapper) {
+    public <T extends Setting> List<T> list(Class<T> settingClass, Function<Setting, T> mapper) {
 
-	List<T> result = list.//
+	List<T> result = getSnapshot().getSettings().//
 
 		stream().//
 
@@ -412,7 +454,7 @@ public class Configuration {
      * @param settingClass
      * @return
      */
-    public synchronized <T extends Setting> List<T> list(Class<T> settingClass) {
+    public <T extends Setting> List<T> list(Class<T> settingClass) {
 
 	return list(settingClass, true);
     }
@@ -421,9 +463,9 @@ public class Configuration {
      * @param settingClass
      * @return
      */
-    public synchronized int size(Class<?> settingClass) {
+    public int size(Class<?> settingClass) {
 
-	return (int) list.//
+	return (int) getSnapshot().getSettings().//
 		stream().//
 		filter(s -> s.getObject().getString("settingClass").equals(settingClass.getName())).//
 		count();
@@ -439,7 +481,7 @@ public class Configuration {
      */
     public synchronized boolean put(Setting setting) {
 
-	if (exists(setting.getIdentifier())) {
+	if (SettingUtils.get(list, setting.getIdentifier()).isPresent()) {
 
 	    return false;
 	}
@@ -447,6 +489,8 @@ public class Configuration {
 	this.list.add(setting.clone());
 	this.dirty = true;
 
+	invalidate();
+
 	dispatchEvent(setting, ConfigurationChangeEvent.SETTING_PUT);
 
 	return true;
@@ -464,12 +508,14 @@ public class Configuration {
      */
     public synchronized boolean replace(Setting setting) {
 
-	if (!exists(setting.getIdentifier())) {
+	Optional<Setting> current = SettingUtils.get(list, setting.getIdentifier());
+
+	if (!current.isPresent()) {
 
 	    return false;
 	}
 
-	if (contains(setting)) {
+	if (current.get().equals(setting)) {
 
 	    return false;
 	}
@@ -479,6 +525,8 @@ public class Configuration {
 	this.list.add(setting.clone());
 	this.dirty = true;
 
+	invalidate();
+
 	dispatchEvent(setting, ConfigurationChangeEvent.SETTING_REPLACED);
 
 	return true;
@@ -536,7 +584,7 @@ public class Configuration {
 
 	List<Setting> toRemove = settingIds.//
 		stream().//
-		map(id -> get(id)).//
+		map(id -> SettingUtils.get(list, id)).//
 		filter(opt -> opt.isPresent()).//
 		map(opt -> opt.get()).//
 		collect(Collectors.toList());
@@ -546,6 +594,8 @@ public class Configuration {
 	    this.list.removeAll(toRemove);
 	    this.dirty = true;
 
+	    invalidate();
+
 	    if (dispatchEvent) {
 		dispatchEvent(toRemove, ConfigurationChangeEvent.SETTING_REMOVED);
 	    }
@@ -564,6 +614,8 @@ public class Configuration {
 	this.list.clear();
 	this.dirty = true;
 
+	invalidate();
+
 	dispatchEvent(ConfigurationChangeEvent.CONFIGURATION_CLEARED);
     }
 
@@ -677,11 +729,34 @@ public class Configuration {
     }
 
     /**
+     * While writable, the settings of {@link #list()} are modified in place, so the snapshot is discarded
+     * 
      * @param writable
      */
-    void setWritable(boolean writable) {
+    synchronized void setWritable(boolean writable) {
 
 	this.writable = writable;
+
+	invalidate();
+    }
+
+    /**
+     * Discards the current snapshot; to be called holding the lock after each change of the settings list
+     */
+    private void invalidate() {
+
+	this.version++;
+	this.snapshot = null;
+    }
+
+    /**
+     * @param setting
+     * @return a clone of the given <code>setting</code> with the same class
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Setting> T cloneSetting(T setting) {
+
+	return SettingUtils.downCast(setting, (Class<T>) setting.getClass(), true);
     }
 
     /**
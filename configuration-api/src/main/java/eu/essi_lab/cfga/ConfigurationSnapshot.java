@@ -0,0 +1,154 @@
+package eu.essi_lab.cfga;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import eu.essi_lab.cfga.setting.Setting;
+import eu.essi_lab.cfga.setting.SettingUtils;
+
+/**
+ * An immutable view of the {@link Setting}s of a {@link Configuration} at a given version, published by
+ * {@link Configuration#getSnapshot()}. Readers of a snapshot never lock and never clone the settings; the lists of
+ * settings by class and the indexes built with {@link #getIndex(String, Function)} are computed once per snapshot.<br>
+ * <br>
+ * The settings of a snapshot are shared by all the readers and <i>must not be modified</i>; use the
+ * {@link Configuration} read methods to get settings which can be modified
+ * 
+ * @author Fabrizio
+ */
+public class ConfigurationSnapshot {
+
+    private final long version;
+    private final List<Setting> settings;
+    private final Map<String, Setting> idIndex;
+    private final ConcurrentHashMap<String, List<? extends Setting>> classIndex;
+    private final ConcurrentHashMap<String, Object> indexes;
+
+    /**
+     * @param version
+     * @param settings the settings of the snapshot, not referenced by the configuration
+     */
+    ConfigurationSnapshot(long version, List<Setting> settings) {
+
+	this.version = version;
+	this.settings = Collections.unmodifiableList(new ArrayList<>(settings));
+
+	HashMap<String, Setting> idIndex = new HashMap<>();
+	settings.forEach(s -> idIndex.putIfAbsent(s.getIdentifier(), s));
+
+	this.idIndex = Collections.unmodifiableMap(idIndex);
+	this.classIndex = new ConcurrentHashMap<>();
+	this.indexes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the version of the configuration, incremented by each change
+     */
+    public long getVersion() {
+
+	return version;
+    }
+
+    /**
+     * @return the unmodifiable list of settings
+     */
+    public List<Setting> getSettings() {
+
+	return settings;
+    }
+
+    /**
+     * @param settingId
+     * @return
+     */
+    public Optional<Setting> get(String settingId) {
+
+	return Optional.ofNullable(idIndex.get(settingId));
+    }
+
+    /**
+     * @param settingId
+     * @param settingClass
+     * @param exactClassMatch
+     * @return
+     */
+    public <T extends Setting> Optional<T> get(String settingId, Class<T> settingClass, boolean exactClassMatch) {
+
+	return list(settingClass, exactClassMatch).//
+		stream().//
+		filter(s -> s.getIdentifier().equals(settingId)).//
+		findFirst();
+    }
+
+    /**
+     * Returns the unmodifiable list of settings of the given class, computed once per snapshot
+     * 
+     * @param settingClass
+     * @param exactClassMatch
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Setting> List<T> list(Class<T> settingClass, boolean exactClassMatch) {
+
+	return (List<T>) classIndex.computeIfAbsent(//
+		settingClass.getName() + "_" + exactClassMatch, //
+		k -> Collections.unmodifiableList(SettingUtils.list(settings, settingClass, exactClassMatch, false)));
+    }
+
+    /**
+     * Returns the index with the given <code>key</code>, built by <code>builder</code> with the first invocation.
+     * Indexes are discarded together with the snapshot, so they are rebuilt only after a configuration change.<br>
+     * The builder can read other indexes of the snapshot; concurrent first invocations can build the index more than
+     * once, but all the callers get the same instance
+     * 
+     * @param key
+     * @param builder a builder of a non <code>null</code> index
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIndex(String key, Function<ConfigurationSnapshot, T> builder) {
+
+	Object index = indexes.get(key);
+
+	if (index == null) {
+
+	    index = builder.apply(this);
+
+	    Object previous = indexes.putIfAbsent(key, index);
+
+	    if (previous != null) {
+
+		index = previous;
+	    }
+	}
+
+	return (T) index;
+    }
+}
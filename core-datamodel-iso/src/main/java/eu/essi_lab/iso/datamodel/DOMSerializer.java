@@ -32,23 +32,28 @@ import java.nio.charset.StandardCharsets;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
-import eu.essi_lab.lib.xml.XMLFactories;
+import eu.essi_lab.lib.xml.JAXBPool;
+import eu.essi_lab.lib.xml.JAXBPool.Lease;
 
+/**
+ * Marshals the element of the subclasses to streams, strings and documents.<br>
+ * The marshallers returned by {@link #createMarshaller()} are pooled per class and per configuration, so
+ * {@link #createMarshaller()} must not depend on the instance state
+ */
 public abstract class DOMSerializer {
 
     public void toStream(OutputStream out, boolean omitXMLdeclaration) throws JAXBException {
 
-	Marshaller marshaller = createMarshaller();
-	marshaller.setProperty(Marshaller.JAXB_FRAGMENT, omitXMLdeclaration);
-	marshaller.marshal(getElement(), out);
+	try (Lease<Marshaller> lease = leaseMarshaller(omitXMLdeclaration, null)) {
+
+	    lease.get().marshal(getElement(), out);
+	}
     }
 
     public void toStream(OutputStream out) throws JAXBException {
@@ -56,13 +61,26 @@ public abstract class DOMSerializer {
 	toStream(out, false);
     }
 
-    public String asString(boolean omitXMLdeclaration) throws JAXBException, UnsupportedEncodingException {
+    /**
+     * @param out
+     * @param omitXMLdeclaration
+     * @param formattedOutput if <code>false</code> the element is marshalled without indentation, regardless of the
+     *        marshaller configuration
+     * @throws JAXBException
+     */
+    public void toStream(OutputStream out, boolean omitXMLdeclaration, boolean formattedOutput) throws JAXBException {
+
+	try (Lease<Marshaller> lease = leaseMarshaller(omitXMLdeclaration, formattedOutput)) {
 
-	Marshaller marshaller = createMarshaller();
-	marshaller.setProperty(Marshaller.JAXB_FRAGMENT, omitXMLdeclaration);
+	    lease.get().marshal(getElement(), out);
+	}
+    }
+
+    public String asString(boolean omitXMLdeclaration) throws JAXBException, UnsupportedEncodingException {
 
 	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-	marshaller.marshal(getElement(), outputStream);
+
+	toStream(outputStream, omitXMLdeclaration);
 
 	return outputStream.toString("UTF-8").trim();
     }
@@ -77,15 +95,26 @@ public abstract class DOMSerializer {
 	return asStream(false);
     }
 
+    /**
+     * Marshals the element directly into a new document, without indentation
+     *
+     * @param omitXMLdeclaration ignored, a document has no XML declaration
+     * @return
+     * @throws ParserConfigurationException
+     * @throws JAXBException
+     * @throws SAXException
+     * @throws IOException
+     */
     public Document asDocument(boolean omitXMLdeclaration) throws ParserConfigurationException, JAXBException, SAXException, IOException {
 
-	InputStream asStream = asStream(omitXMLdeclaration);
+	Document document = JAXBPool.newDocument();
 
-	DocumentBuilderFactory dbf = XMLFactories.newDocumentBuilderFactory();
-	
-	DocumentBuilder builder = dbf.newDocumentBuilder();
+	try (Lease<Marshaller> lease = leaseMarshaller(true, false)) {
 
-	return builder.parse(asStream);
+	    lease.get().marshal(getElement(), document);
+	}
+
+	return document;
     }
 
     public abstract Object fromStream(InputStream stream) throws JAXBException;
@@ -98,4 +127,26 @@ public abstract class DOMSerializer {
 
     protected abstract Object getElement() throws JAXBException;
 
+    /**
+     * @param fragment
+     * @param formattedOutput if <code>null</code>, the value set by {@link #createMarshaller()} is kept
+     * @return
+     * @throws JAXBException
+     */
+    private Lease<Marshaller> leaseMarshaller(boolean fragment, Boolean formattedOutput) throws JAXBException {
+
+	String key = getClass().getName() + ":" + fragment + ":" + formattedOutput;
+
+	return JAXBPool.lease(key, () -> {
+
+	    Marshaller marshaller = createMarshaller();
+	    marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+
+	    if (formattedOutput != null) {
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formattedOutput);
+	    }
+
+	    return marshaller;
+	});
+    }
 }
@@ -46,6 +46,17 @@ public class GSPropertyHandler implements Serializable {
 	properties = new HashMap<String, GSProperty<?>>();
     }
 
+    /**
+     * Creates a new handler with the same properties of the given <code>handler</code>. The properties can then be
+     * added or removed without affecting the given handler
+     * 
+     * @param handler
+     */
+    public GSPropertyHandler(GSPropertyHandler handler) {
+
+	properties = new HashMap<String, GSProperty<?>>(handler.properties);
+    }
+
     /**
      * @param properties
      * @return
@@ -0,0 +1,87 @@
+package eu.essi_lab.model;
+
+import java.io.InputStream;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import eu.essi_lab.lib.xml.XMLFactories;
+import eu.essi_lab.model.resource.GSResource;
+
+/**
+ * Compares the time needed to get the document of a resource by parsing its serialized form, like
+ * <code>asDocument</code> used to do, with the time needed to marshal it directly into the DOM.<br>
+ * The number of iterations is set with the {@value #ITERATIONS_PROPERTY} system property
+ *
+ * @author Fabrizio
+ */
+public class DOMSerializerBenchmarkTest {
+
+    private static final String ITERATIONS_PROPERTY = "domSerializer.benchmarkIterations";
+
+    private static final int WARM_UP = 50;
+
+    @Test
+    public void test() throws Exception {
+
+	int iterations = Integer.getInteger(ITERATIONS_PROPERTY, 500);
+
+	InputStream stream = getClass().getClassLoader().getResourceAsStream("dataset1.xml");
+	GSResource resource = GSResource.createOrNull(stream);
+
+	Assert.assertNotNull(resource);
+
+	//
+	// both the documents represent the same resource
+	//
+	Document parsed = parse(resource);
+	Document direct = resource.asDocument(true);
+
+	Assert.assertEquals(//
+		GSResource.create(parsed).asString(true), //
+		GSResource.create(direct).asString(true));
+
+	for (int i = 0; i < WARM_UP; i++) {
+
+	    parse(resource);
+	    resource.asDocument(true);
+	}
+
+	long start = System.nanoTime();
+
+	for (int i = 0; i < iterations; i++) {
+
+	    parse(resource);
+	}
+
+	long parseTime = (System.nanoTime() - start) / 1_000_000;
+
+	start = System.nanoTime();
+
+	for (int i = 0; i < iterations; i++) {
+
+	    resource.asDocument(true);
+	}
+
+	long directTime = (System.nanoTime() - start) / 1_000_000;
+
+	System.out.println("Iterations: " + iterations);
+	System.out.println("Marshal and parse: " + parseTime + " ms");
+	System.out.println("Direct DOM marshalling: " + directTime + " ms");
+    }
+
+    /**
+     * @param resource
+     * @return
+     * @throws Exception
+     */
+    private Document parse(GSResource resource) throws Exception {
+
+	DocumentBuilder builder = XMLFactories.newDocumentBuilderFactory().newDocumentBuilder();
+
+	return builder.parse(resource.asStream(true));
+    }
+}
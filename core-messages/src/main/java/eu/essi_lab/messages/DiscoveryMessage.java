@@ -48,6 +48,7 @@ import eu.essi_lab.messages.bond.parser.DiscoveryBondHandler;
 import eu.essi_lab.messages.bond.parser.DiscoveryBondParser;
 import eu.essi_lab.messages.stats.StatisticsMessage;
 import eu.essi_lab.model.GSProperty;
+import eu.essi_lab.model.GSPropertyHandler;
 import eu.essi_lab.model.GSSource;
 import eu.essi_lab.model.OrderingDirection;
 import eu.essi_lab.model.Queryable;
@@ -134,6 +135,8 @@ public class DiscoveryMessage extends QueryInitializerMessage {
     private static final String RESULTS_PRIORITY = "RESULTS_PRIORITY"; // UNSET, DATASET, COLLECTION,
     private static final String TF_TARGETS = "TF_TARGETS";
     private static final String EIFFEL_DISCOVERY_OPTION = "EIFFEL_DISCOVERY_OPTION";
+    private static final String SEARCH_AFTER = "SEARCH_AFTER";
+    private static final String TOTAL_HITS_TRACKING = "TOTAL_HITS_TRACKING";
 
     /**
      * 
@@ -164,6 +167,23 @@ public class DiscoveryMessage extends QueryInitializerMessage {
 	getPayload().add(new GSProperty<>(PARENTS_GSRESOURCE, parents));
     }
 
+    /**
+     * Creates a copy of the given <code>message</code> with the same header and payload properties. The properties of
+     * the copy can be replaced, e.g. with {@link #setPage(Page)}, without affecting the given message, while their
+     * values are shared
+     * 
+     * @param message
+     */
+    public DiscoveryMessage(DiscoveryMessage message) {
+
+	header = new GSPropertyHandler(message.getHeader());
+	payload = new GSPropertyHandler(message.getPayload());
+
+	parents = message.parents;
+
+	setRequestId(message.getRequestId());
+    }
+
     /**
      * Creates a new instance of {@link DiscoveryMessage} sharing the following properties with the supplied
      * <code>accessMessage</code>:
@@ -462,6 +482,52 @@ public class DiscoveryMessage extends QueryInitializerMessage {
 	return Optional.ofNullable(getHeader().get(ORDERING_PROPERTY, Queryable.class));
     }
 
+    /**
+     * Enables the cursor paging of the results. Finders which support it use the given cursor instead of the page
+     * start, and provide the cursor of the next page with {@link ResultSet#getSearchAfter()}
+     * 
+     * @param searchAfter the cursor, or <code>null</code> to disable the cursor paging
+     */
+    public void setSearchAfter(SearchAfter searchAfter) {
+
+	if (searchAfter == null) {
+
+	    getHeader().remove(SEARCH_AFTER);
+
+	} else {
+
+	    getHeader().add(new GSProperty<SearchAfter>(SEARCH_AFTER, searchAfter));
+	}
+    }
+
+    /**
+     * @return
+     */
+    public Optional<SearchAfter> getSearchAfter() {
+
+	return Optional.ofNullable(getHeader().get(SEARCH_AFTER, SearchAfter.class));
+    }
+
+    /**
+     * Sets how accurately the results are counted, by default the count is exact
+     * 
+     * @param tracking
+     */
+    public void setTotalHitsTracking(TotalHitsTracking tracking) {
+
+	getHeader().add(new GSProperty<TotalHitsTracking>(TOTAL_HITS_TRACKING, tracking));
+    }
+
+    /**
+     * @return
+     */
+    public TotalHitsTracking getTotalHitsTracking() {
+
+	TotalHitsTracking tracking = getHeader().get(TOTAL_HITS_TRACKING, TotalHitsTracking.class);
+
+	return tracking != null ? tracking : TotalHitsTracking.exact();
+    }
+
     /**
      * @return
      */
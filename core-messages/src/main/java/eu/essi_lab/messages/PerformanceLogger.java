@@ -66,6 +66,7 @@ public class PerformanceLogger {
 	OPENSEARCH_WRAPPER_TO_NODE_LIST,//
 	OPENSEARCH_WRAPPER_TO_STRING_LIST,//
 	OPENSEARCH_FINDER_RESOURCES_CREATION, //
+	OPENSEARCH_FINDER_COUNT_AND_DISCOVER, //
 
 	ITERATED_WORKFLOW;
 
@@ -86,6 +87,25 @@ public class PerformanceLogger {
     public void logPerformance(Logger logger) {
 	Double elapsedTime = chronometer.getElapsedTimeMillis() / 1000.0;
 
+	logger.info("Performance [{}] [{}] [{}] [{}] [{}]", phase, elapsedTime, "secs", rid, getQueryString());
+    }
+
+    /**
+     * Logs the time saved by this phase with respect to the execution it replaces
+     * 
+     * @param logger
+     * @param savedTimeMillis
+     */
+    public void logSavedTime(Logger logger, long savedTimeMillis) {
+
+	logger.info("Performance [{}] [{}] [{}] [{}] [{}]", phase, savedTimeMillis / 1000.0, "secs saved", rid, getQueryString());
+    }
+
+    /**
+     * @return
+     */
+    private String getQueryString() {
+
 	String queryString = "N/A";
 
 	if (qs.isPresent()) {
@@ -97,7 +117,7 @@ public class PerformanceLogger {
 	    queryString = queryString.substring(0, 100) + "...";
 	}
 
-	logger.info("Performance [{}] [{}] [{}] [{}] [{}]", phase, elapsedTime, "secs", rid, queryString);
+	return queryString;
     }
 
     public static void main(String[] args) {
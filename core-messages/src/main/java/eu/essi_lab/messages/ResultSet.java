@@ -62,6 +62,7 @@ import eu.essi_lab.model.resource.data.DataObject;
 public class ResultSet<T> extends MessageResponse<T, CountSet> {
 
     private XMLInputFactory factory;
+    private SearchAfter searchAfter;
 
     /**
      * 
@@ -274,6 +275,7 @@ public class ResultSet<T> extends MessageResponse<T, CountSet> {
     public ResultSet(ResultSet<?> resultSet) {
 	setException(resultSet.getException());
 	setCountResponse(resultSet.getCountResponse());
+	setSearchAfter(resultSet.getSearchAfter().orElse(null));
     }
 
     /**
@@ -287,6 +289,24 @@ public class ResultSet<T> extends MessageResponse<T, CountSet> {
 	setCountResponse(resultSet.getCountResponse());
     }
 
+    /**
+     * @return the cursor of the next page, if the results have been paged with a {@link SearchAfter} cursor and other
+     *         results are available
+     * @see DiscoveryMessage#setSearchAfter(SearchAfter)
+     */
+    public Optional<SearchAfter> getSearchAfter() {
+
+	return Optional.ofNullable(searchAfter);
+    }
+
+    /**
+     * @param searchAfter
+     */
+    public void setSearchAfter(SearchAfter searchAfter) {
+
+	this.searchAfter = searchAfter;
+    }
+
     @Override
     public String getName() {
 
@@ -0,0 +1,181 @@
+package eu.essi_lab.messages;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A cursor to page through the results of a {@link DiscoveryMessage} without an offset. The cursor of the next page
+ * is provided by the {@link ResultSet} of the current page, see {@link ResultSet#getSearchAfter()}; finders which do
+ * not support the cursor paging ignore it and use the message {@link Page}.<br>
+ * The {@link #getStart()} value is the start of the page the cursor points to, so a finder can fall back to the
+ * offset paging when the cursor cannot be used (e.g. if the page start does not match or if the point in time
+ * expired)
+ *
+ * @author Fabrizio
+ */
+public class SearchAfter implements Serializable {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -5640413012583727411L;
+
+    private static final String START = "start";
+    private static final String VALUES = "values";
+    private static final String POINT_IN_TIME = "pit";
+
+    private int start;
+    private String pointInTimeId;
+    private ArrayList<Object> values;
+
+    /**
+     * Creates the cursor of the first page
+     */
+    public SearchAfter() {
+
+	this(1);
+    }
+
+    /**
+     * Creates a cursor without sort values, the page with the given <code>start</code> is retrieved by offset and
+     * the following pages by cursor
+     * 
+     * @param start an integer >= 1
+     */
+    public SearchAfter(int start) {
+
+	this(start, null, new ArrayList<>());
+    }
+
+    /**
+     * @param start the start of the page this cursor points to, an integer >= 1
+     * @param pointInTimeId the optional identifier of the point in time of the paged search
+     * @param values the sort values of the last result of the previous page
+     */
+    public SearchAfter(int start, String pointInTimeId, List<Object> values) {
+
+	if (start < 1) {
+	    throw new IllegalArgumentException("start < 1");
+	}
+
+	this.start = start;
+	this.pointInTimeId = pointInTimeId;
+	this.values = new ArrayList<>(values);
+    }
+
+    /**
+     * @return the start of the page this cursor points to
+     */
+    public int getStart() {
+
+	return start;
+    }
+
+    /**
+     * @return
+     */
+    public Optional<String> getPointInTimeId() {
+
+	return Optional.ofNullable(pointInTimeId);
+    }
+
+    /**
+     * @return the sort values of the last result of the previous page, empty if the page must be retrieved by offset
+     */
+    public List<Object> getValues() {
+
+	return values;
+    }
+
+    /**
+     * Encodes this cursor in a string which can be safely used as path segment or query parameter
+     * 
+     * @see #decode(String)
+     * @return
+     */
+    public String encode() {
+
+	JSONObject object = new JSONObject();
+	object.put(START, start);
+	object.put(VALUES, new JSONArray(values));
+
+	if (pointInTimeId != null) {
+	    object.put(POINT_IN_TIME, pointInTimeId);
+	}
+
+	return Base64.getUrlEncoder().withoutPadding().encodeToString(object.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param encoded
+     * @see #encode()
+     * @return the decoded cursor, or an empty optional if <code>encoded</code> is not a valid cursor
+     */
+    public static Optional<SearchAfter> decode(String encoded) {
+
+	try {
+
+	    JSONObject object = new JSONObject(new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8));
+
+	    return Optional.of(new SearchAfter(//
+		    object.getInt(START), //
+		    object.optString(POINT_IN_TIME, null), //
+		    object.getJSONArray(VALUES).toList()));
+
+	} catch (Exception ex) {
+
+	    return Optional.empty();
+	}
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+	if (o instanceof SearchAfter) {
+
+	    return ((SearchAfter) o).encode().equals(encode());
+	}
+
+	return false;
+    }
+
+    @Override
+    public int hashCode() {
+
+	return encode().hashCode();
+    }
+
+    @Override
+    public String toString() {
+
+	return "start: " + start + ", values: " + values + ", pit: " + pointInTimeId;
+    }
+}
@@ -0,0 +1,146 @@
+package eu.essi_lab.messages;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Defines how accurately the total number of results of a {@link DiscoveryMessage} is counted. An
+ * {@link Mode#EXACT} count is always accurate, while an {@link Mode#APPROXIMATE} or a {@link Mode#THRESHOLD} count is
+ * accurate only up to the database default threshold or to the given one, and it is a lower bound of the total
+ * beyond it. Counting only up to a threshold is faster with large result sets, when the exact total is not required
+ * (e.g. to know if a next page exists).<br>
+ * Finders which do not support it always provide an exact count
+ *
+ * @author Fabrizio
+ */
+public class TotalHitsTracking implements Serializable {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 2469133867010744125L;
+
+    /**
+     * @author Fabrizio
+     */
+    public enum Mode {
+
+	/**
+	 * 
+	 */
+	EXACT,
+	/**
+	 * 
+	 */
+	APPROXIMATE,
+	/**
+	 * 
+	 */
+	THRESHOLD
+    }
+
+    private Mode mode;
+    private int threshold;
+
+    /**
+     * @param mode
+     * @param threshold
+     */
+    private TotalHitsTracking(Mode mode, int threshold) {
+
+	this.mode = mode;
+	this.threshold = threshold;
+    }
+
+    /**
+     * @return
+     */
+    public static TotalHitsTracking exact() {
+
+	return new TotalHitsTracking(Mode.EXACT, 0);
+    }
+
+    /**
+     * @return
+     */
+    public static TotalHitsTracking approximate() {
+
+	return new TotalHitsTracking(Mode.APPROXIMATE, 0);
+    }
+
+    /**
+     * @param threshold an integer >= 0
+     * @return
+     */
+    public static TotalHitsTracking threshold(int threshold) {
+
+	if (threshold < 0) {
+
+	    throw new IllegalArgumentException("Negative threshold: " + threshold);
+	}
+
+	return new TotalHitsTracking(Mode.THRESHOLD, threshold);
+    }
+
+    /**
+     * @return
+     */
+    public Mode getMode() {
+
+	return mode;
+    }
+
+    /**
+     * @return the threshold of the {@link Mode#THRESHOLD} mode
+     */
+    public int getThreshold() {
+
+	return threshold;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+
+	if (object instanceof TotalHitsTracking) {
+
+	    TotalHitsTracking other = (TotalHitsTracking) object;
+
+	    return other.mode == mode && other.threshold == threshold;
+	}
+
+	return false;
+    }
+
+    @Override
+    public int hashCode() {
+
+	return Objects.hash(mode, threshold);
+    }
+
+    @Override
+    public String toString() {
+
+	return mode == Mode.THRESHOLD ? mode + ":" + threshold : mode.toString();
+    }
+}
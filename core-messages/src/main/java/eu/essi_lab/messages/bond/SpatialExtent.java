@@ -21,6 +21,8 @@ package eu.essi_lab.messages.bond;
  * #L%
  */
 
+import java.util.Objects;
+
 public class SpatialExtent implements SpatialEntity {
 
     private double west;
@@ -78,15 +80,25 @@ public class SpatialExtent implements SpatialEntity {
     public boolean equals(Object obj) {
 	if (obj instanceof SpatialExtent) {
 	    SpatialExtent spatialExtent = (SpatialExtent) obj;
-	    double tol = 0.000000001;
-	    return Math.abs(getEast() - spatialExtent.getEast()) < tol && //
-		    Math.abs(getNorth() - spatialExtent.getNorth()) < tol && //
-		    Math.abs(getSouth() - spatialExtent.getSouth()) < tol && //
-		    Math.abs(getWest() - spatialExtent.getWest()) < tol;
+	    return quantize(getEast()) == quantize(spatialExtent.getEast()) && //
+		    quantize(getNorth()) == quantize(spatialExtent.getNorth()) && //
+		    quantize(getSouth()) == quantize(spatialExtent.getSouth()) && //
+		    quantize(getWest()) == quantize(spatialExtent.getWest());
 	}
 	return super.equals(obj);
     }
 
+    @Override
+    public int hashCode() {
+
+	// consistent with equals, the coordinates are quantized to the same grid
+	return Objects.hash(//
+		quantize(getSouth()), //
+		quantize(getWest()), //
+		quantize(getNorth()), //
+		quantize(getEast()));
+    }
+
     @Override
     public SpatialExtent clone() {
 
@@ -101,4 +113,16 @@ public class SpatialExtent implements SpatialEntity {
 
     }
 
+    /**
+     * Two extents are equal if their coordinates are equal on a grid of 1e-9 degrees. Unlike a tolerance, the grid
+     * makes equals transitive and consistent with {@link #hashCode()}
+     *
+     * @param coordinate
+     * @return
+     */
+    private static long quantize(double coordinate) {
+
+	return Math.round(coordinate * 1_000_000_000);
+    }
+
 }
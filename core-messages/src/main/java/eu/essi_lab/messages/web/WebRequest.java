@@ -139,6 +139,12 @@ public class WebRequest implements RuntimeInfoProvider, Serializable {
      */
     public static final String HTTP_SERVLET_REQUEST_ID_PROPERTY = "webRequestId";
 
+    /**
+     * Attribute of the servlet request which holds the {@link WebRequest} created by the servlet filters, so that a
+     * single {@link WebRequest} is created for each request
+     */
+    public static final String HTTP_SERVLET_REQUEST_WEB_REQUEST_ATTRIBUTE = "webRequest";
+
     /**
      * 
      */
@@ -0,0 +1,72 @@
+package eu.essi_lab.messages.test;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.SearchAfter;
+
+/**
+ * @author Fabrizio
+ */
+public class SearchAfterTest {
+
+    @Test
+    public void encodeDecodeTest() {
+
+	SearchAfter searchAfter = new SearchAfter(51, "pit/id+==", Arrays.asList(12345, "value"));
+
+	String encoded = searchAfter.encode();
+
+	// can be used as path segment of the OAI-PMH resumption token
+	Assert.assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+
+	SearchAfter decoded = SearchAfter.decode(encoded).get();
+
+	Assert.assertEquals(51, decoded.getStart());
+	Assert.assertEquals("pit/id+==", decoded.getPointInTimeId().get());
+	Assert.assertEquals(Arrays.asList(12345, "value"), decoded.getValues());
+	Assert.assertEquals(searchAfter, decoded);
+    }
+
+    @Test
+    public void firstPageTest() {
+
+	SearchAfter searchAfter = SearchAfter.decode(new SearchAfter().encode()).get();
+
+	Assert.assertEquals(1, searchAfter.getStart());
+	Assert.assertFalse(searchAfter.getPointInTimeId().isPresent());
+	Assert.assertTrue(searchAfter.getValues().isEmpty());
+    }
+
+    @Test
+    public void invalidTest() {
+
+	Assert.assertFalse(SearchAfter.decode("invalid").isPresent());
+	Assert.assertFalse(SearchAfter.decode("").isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidStartTest() {
+
+	new SearchAfter(0);
+    }
+
+    @Test
+    public void messageTest() {
+
+	DiscoveryMessage message = new DiscoveryMessage();
+
+	Assert.assertFalse(message.getSearchAfter().isPresent());
+
+	message.setSearchAfter(new SearchAfter(11));
+
+	Assert.assertEquals(11, message.getSearchAfter().get().getStart());
+
+	message.setSearchAfter(null);
+
+	Assert.assertFalse(message.getSearchAfter().isPresent());
+    }
+}
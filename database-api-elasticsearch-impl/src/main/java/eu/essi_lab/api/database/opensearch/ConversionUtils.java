@@ -25,6 +25,7 @@ package eu.essi_lab.api.database.opensearch;
  */
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
@@ -38,7 +39,6 @@ import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import javax.xml.bind.JAXBException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -65,6 +65,7 @@ import org.xml.sax.SAXException;
 
 import eu.essi_lab.api.database.DatabaseFolder.FolderEntry;
 import eu.essi_lab.api.database.opensearch.index.IndexData;
+import eu.essi_lab.api.database.opensearch.index.ResourceCodec;
 import eu.essi_lab.api.database.opensearch.index.SourceWrapper;
 import eu.essi_lab.lib.utils.ClonableInputStream;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
@@ -205,8 +206,7 @@ public class ConversionUtils {
 	List<InputStream> list = toList(searchResponse, hit -> {
 
 	    SourceWrapper wrapper = new SourceWrapper(toJSONObject(hit.source()));
-	    String binaryValue = wrapper.getBinaryValue();
-	    return decode(binaryValue);
+	    return decode(wrapper);
 	});
 
 	return list;
@@ -226,8 +226,7 @@ public class ConversionUtils {
 	List<String> list = toList(searchResponse, hit -> {
 
 	    SourceWrapper wrapper = new SourceWrapper(toJSONObject(hit.source()));
-	    String binaryValue = wrapper.getBinaryValue();
-	    return decodeToString(binaryValue);
+	    return decodeToString(wrapper.getBinaryValue(), wrapper.getBinaryCodec());
 	});
 
 	pl.logPerformance(GSLoggerFactory.getLogger(OpenSearchWrapper.class));
@@ -249,9 +248,8 @@ public class ConversionUtils {
 	List<Node> list = toList(searchResponse, hit -> {
 
 	    SourceWrapper wrapper = new SourceWrapper(toJSONObject(hit.source()));
-	    String binaryValue = wrapper.getBinaryValue();
 
-	    InputStream stream = decode(binaryValue);
+	    InputStream stream = decode(wrapper);
 
 	    return toNodeOrNull(stream);
 	});
@@ -316,19 +314,20 @@ public class ConversionUtils {
     }
 
     /**
+     * Encodes the unformatted XML of the given <code>resource</code> with the given <code>codec</code>
+     * 
      * @param resource
+     * @param codec
      * @return
-     * @throws IOException
-     * @throws SAXException
-     * @throws JAXBException
-     * @throws ParserConfigurationException
-     * @throws TransformerException
      */
-    public static String encode(GSResource resource) {
+    public static String encode(GSResource resource, ResourceCodec codec) {
 
 	try {
-	    byte[] bytes = toString(resource.asDocument(false)).getBytes();
-	    return Base64.getEncoder().encodeToString(bytes);
+	    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	    resource.toStream(outputStream, false, false);
+
+	    return codec.encode(outputStream.toByteArray());
+
 	} catch (Exception ex) {
 
 	    GSLoggerFactory.getLogger(ConversionUtils.class).error(ex);
@@ -382,6 +381,37 @@ public class ConversionUtils {
 	return new String(decoded);
     }
 
+    /**
+     * @param binaryData
+     * @param codec
+     * @return
+     */
+    public static InputStream decode(String binaryData, ResourceCodec codec) {
+
+	return new ByteArrayInputStream(codec.decode(binaryData));
+    }
+
+    /**
+     * @param binaryData
+     * @param codec
+     * @return
+     */
+    public static String decodeToString(String binaryData, ResourceCodec codec) {
+
+	return new String(codec.decode(binaryData));
+    }
+
+    /**
+     * Decodes the binary value of the wrapped source with its codec
+     * 
+     * @param wrapper
+     * @return
+     */
+    public static InputStream decode(SourceWrapper wrapper) {
+
+	return decode(wrapper.getBinaryValue(), wrapper.getBinaryCodec());
+    }
+
     /**
      * @param source
      * @return
@@ -453,10 +483,7 @@ public class ConversionUtils {
      */
     public static InputStream toStream(JSONObject source) {
 
-	String binaryProperty = source.getString("binaryProperty");
-	String binaryData = source.getString(binaryProperty);
-
-	return decode(binaryData);
+	return decode(new SourceWrapper(source));
     }
 
     /**
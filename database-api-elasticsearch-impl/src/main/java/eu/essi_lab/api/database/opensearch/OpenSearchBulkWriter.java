@@ -0,0 +1,715 @@
+package eu.essi_lab.api.database.opensearch;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.generic.Requests;
+import org.opensearch.client.opensearch.generic.Response;
+
+import eu.essi_lab.api.database.DatabaseWriter.StoreFailure;
+import eu.essi_lab.api.database.opensearch.index.IndexData;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+
+/**
+ * Buffers the {@link IndexData} stored in the folders under harvesting and sends them with <code>_bulk</code>
+ * requests.<br>
+ * <br>
+ * The buffer is flushed when it holds {@link #getMaxActions()} entries, when it exceeds {@link #getMaxBytes()} or
+ * when the oldest entry has been waiting for more than {@link #getFlushInterval()} milliseconds.<br>
+ * Size and byte flushes are executed by the thread which adds the entry, and only one bulk request at a time is sent;
+ * this way the harvesters cannot produce entries faster than the cluster can index them. The entries rejected because
+ * the cluster is overloaded are buffered again, and the flush waits an exponential backoff before returning, so the
+ * harvesters slow down until the cluster recovers.<br>
+ * <br>
+ * While at least one folder is under harvesting, the periodic refresh of the written indexes is relaxed to
+ * {@value #BULK_REFRESH_INTERVAL}, instead of being disabled, since the indexes are shared with the other folders and
+ * with the other JVMs; it is restored, and an explicit refresh is executed, when the last folder of this writer ends
+ * its harvesting. Since the relaxed refresh remains if a JVM dies during a bulk harvesting, the harvestings which do
+ * not use bulk requests restore it when they begin (see {@link #restoreRefresh(OpenSearchFolder)})<br>
+ * <br>
+ * The entries which cannot be stored are collected per folder, see {@link #drainFailures(String)}
+ *
+ * @author Fabrizio
+ */
+public class OpenSearchBulkWriter {
+
+    /**
+     *
+     */
+    private static final int DEFAULT_MAX_ACTIONS = 500;
+
+    /**
+     *
+     */
+    private static final long DEFAULT_MAX_BYTES = 5 * 1024 * 1024;
+
+    /**
+     *
+     */
+    private static final long DEFAULT_FLUSH_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * HTTP status returned for the items rejected because the cluster is overloaded
+     */
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Backoff after the first rejected or failed bulk request, doubled for each consecutive one
+     */
+    private static final long BASE_BACKOFF = 100;
+
+    /**
+     *
+     */
+    private static final long MAX_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Number of flushes tried by {@link #end(OpenSearchFolder)} before failing
+     */
+    private static final int END_FLUSH_ATTEMPTS = 10;
+
+    /**
+     * Refresh interval of the indexes while a folder is under bulk harvesting
+     */
+    private static final String BULK_REFRESH_INTERVAL = "30s";
+
+    private OpenSearchClient client;
+    private OpenSearchWrapper wrapper;
+
+    private int maxActions;
+    private long maxBytes;
+    private long flushInterval;
+
+    private LinkedHashMap<String, List<BufferedEntry>> buffers;
+    private int bufferedActions;
+    private long bufferedBytes;
+    private long oldestEntryTime;
+
+    private Object bufferLock;
+    private Object flushLock;
+    private Map<String, String> bulkFolders;
+    private int consecutiveRejections;
+    private Map<String, ConcurrentLinkedQueue<StoreFailure>> failures;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param client
+     */
+    public OpenSearchBulkWriter(OpenSearchClient client) {
+
+	this.client = client;
+	this.wrapper = new OpenSearchWrapper(client);
+
+	this.maxActions = DEFAULT_MAX_ACTIONS;
+	this.maxBytes = DEFAULT_MAX_BYTES;
+	this.flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	this.buffers = new LinkedHashMap<>();
+	this.bufferLock = new Object();
+	this.flushLock = new Object();
+	this.bulkFolders = new ConcurrentHashMap<>();
+	this.failures = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private static class BufferedEntry {
+
+	private String folderName;
+	private IndexData indexData;
+
+	/**
+	 * @param folderName
+	 * @param indexData
+	 */
+	private BufferedEntry(String folderName, IndexData indexData) {
+
+	    this.folderName = folderName;
+	    this.indexData = indexData;
+	}
+    }
+
+    /**
+     * Enables the bulk requests for the given <code>folder</code> and relaxes the periodic refresh of the index
+     * where its entries are stored
+     *
+     * @param folder
+     * @throws IOException
+     */
+    public void begin(OpenSearchFolder folder) throws IOException {
+
+	GSLoggerFactory.getLogger(getClass()).info("Bulk storage of folder {} STARTED", folder.getName());
+
+	String index = IndexData.detectIndex(folder);
+
+	synchronized (bulkFolders) {
+
+	    bulkFolders.put(folder.getName(), index);
+
+	    try {
+
+		// the refresh is relaxed at each begin, also if another folder of the same index is under harvesting
+		putRefreshInterval(index, "\"" + BULK_REFRESH_INTERVAL + "\"");
+
+	    } catch (IOException ex) {
+
+		bulkFolders.remove(folder.getName());
+
+		if (!bulkFolders.containsValue(index)) {
+
+		    restoreRefresh(index);
+		}
+
+		throw ex;
+	    }
+	}
+
+	startScheduler();
+    }
+
+    /**
+     * Sends the buffered entries, disables the bulk requests for the given <code>folder</code> and, if no other
+     * folder of this writer is under harvesting in the same index, restores the periodic refresh of the index. When
+     * this method returns, all the entries stored in the folder are searchable.<br>
+     * The buffered entries are sent with up to {@value #END_FLUSH_ATTEMPTS} flushes, waiting an exponential backoff
+     * between them; the refresh is restored also if they fail. The failures of the folder not yet drained, including
+     * the ones of the final flushes, are logged and discarded
+     *
+     * @param folder
+     * @throws IOException if some entries cannot be sent, so that the harvesting fails
+     */
+    public void end(OpenSearchFolder folder) throws IOException {
+
+	try {
+
+	    flushAll();
+
+	} finally {
+
+	    String index = IndexData.detectIndex(folder);
+
+	    synchronized (bulkFolders) {
+
+		bulkFolders.remove(folder.getName());
+
+		if (!bulkFolders.containsValue(index)) {
+
+		    restoreRefresh(index);
+		}
+	    }
+
+	    if (bulkFolders.isEmpty()) {
+
+		stopScheduler();
+	    }
+
+	    for (StoreFailure failure : drainFailures(folder.getName())) {
+
+		GSLoggerFactory.getLogger(getClass()).error("Unable to store resource {}: {}", failure.getKey(), failure.getReason());
+	    }
+
+	    failures.remove(folder.getName());
+
+	    wrapper.synch();
+
+	    GSLoggerFactory.getLogger(getClass()).info("Bulk storage of folder {} ENDED", folder.getName());
+	}
+    }
+
+    /**
+     * Restores the periodic refresh of the index of the given <code>folder</code>, unless a folder of this writer is
+     * under bulk harvesting in the same index. To be invoked when a harvesting without bulk requests begins, so the
+     * refresh disabled by a bulk harvesting of a dead JVM is restored
+     *
+     * @param folder
+     * @throws IOException
+     */
+    public void restoreRefresh(OpenSearchFolder folder) throws IOException {
+
+	String index = IndexData.detectIndex(folder);
+
+	synchronized (bulkFolders) {
+
+	    if (!bulkFolders.containsValue(index)) {
+
+		restoreRefresh(index);
+	    }
+	}
+    }
+
+    /**
+     * @param folderName
+     * @return <code>true</code> if the entries stored in the folder with the given name are sent in bulk requests
+     */
+    public boolean isBulkFolder(String folderName) {
+
+	return bulkFolders.containsKey(folderName);
+    }
+
+    /**
+     * Buffers the given <code>indexData</code> stored in the folder with the given name, flushing the buffer if it is
+     * full
+     *
+     * @param folderName
+     * @param indexData
+     * @throws IOException if the bulk request cannot be executed. In this case the buffered entries are preserved and
+     *         sent again with the next flush
+     */
+    public void add(String folderName, IndexData indexData) throws IOException {
+
+	boolean full = false;
+
+	synchronized (bufferLock) {
+
+	    if (bufferedActions == 0) {
+
+		oldestEntryTime = System.currentTimeMillis();
+	    }
+
+	    buffers.computeIfAbsent(indexData.getIndex(), k -> new ArrayList<>()).add(new BufferedEntry(folderName, indexData));
+
+	    bufferedActions++;
+	    bufferedBytes += indexData.getData().length();
+
+	    full = bufferedActions >= maxActions || bufferedBytes >= maxBytes;
+	}
+
+	if (full) {
+
+	    flush();
+	}
+    }
+
+    /**
+     * Sends all the buffered entries
+     *
+     * @throws IOException if the bulk request cannot be executed. In this case the buffered entries are preserved and
+     *         sent again with the next flush
+     */
+    public void flush() throws IOException {
+
+	synchronized (flushLock) {
+
+	    LinkedHashMap<String, List<BufferedEntry>> pending = null;
+
+	    synchronized (bufferLock) {
+
+		if (bufferedActions == 0) {
+
+		    return;
+		}
+
+		pending = buffers;
+
+		buffers = new LinkedHashMap<>();
+		bufferedActions = 0;
+		bufferedBytes = 0;
+	    }
+
+	    List<BufferedEntry> entries = new ArrayList<>();
+	    pending.values().forEach(entries::addAll);
+
+	    List<BufferedEntry> rejected = null;
+
+	    try {
+
+		rejected = send(entries);
+
+	    } catch (IOException ex) {
+
+		requeue(entries);
+
+		throw ex;
+	    }
+
+	    if (rejected.isEmpty()) {
+
+		consecutiveRejections = 0;
+
+		return;
+	    }
+
+	    GSLoggerFactory.getLogger(getClass()).warn("{} entries rejected by the cluster, they will be sent with the next flush",
+		    rejected.size());
+
+	    requeue(rejected);
+
+	    //
+	    // the flush lock is held while waiting, so the harvesters adding entries to a full buffer wait as well
+	    //
+	    backoff(++consecutiveRejections);
+	}
+    }
+
+    /**
+     * @return the number of buffered entries
+     */
+    public int getBufferedActions() {
+
+	synchronized (bufferLock) {
+
+	    return bufferedActions;
+	}
+    }
+
+    /**
+     * Flushes the buffer until it is empty, waiting an exponential backoff after each failure
+     *
+     * @throws IOException if entries remain after {@value #END_FLUSH_ATTEMPTS} flushes
+     */
+    private void flushAll() throws IOException {
+
+	IOException error = null;
+
+	for (int attempt = 1; attempt <= END_FLUSH_ATTEMPTS; attempt++) {
+
+	    try {
+
+		flush();
+
+		error = null;
+
+	    } catch (IOException ex) {
+
+		error = ex;
+
+		GSLoggerFactory.getLogger(getClass()).warn("Bulk flush attempt {} failed: {}", attempt, ex.getMessage());
+
+		backoff(attempt);
+	    }
+
+	    if (getBufferedActions() == 0) {
+
+		return;
+	    }
+	}
+
+	IOException ex = new IOException(getBufferedActions() + " entries not sent after " + END_FLUSH_ATTEMPTS + " flushes");
+
+	if (error != null) {
+
+	    ex.initCause(error);
+	}
+
+	throw ex;
+    }
+
+    /**
+     * @param attempt
+     * @throws IOException if interrupted
+     */
+    private void backoff(int attempt) throws IOException {
+
+	long wait = Math.min(MAX_BACKOFF, BASE_BACKOFF << Math.min(attempt - 1, 20));
+
+	try {
+
+	    Thread.sleep(wait);
+
+	} catch (InterruptedException ex) {
+
+	    Thread.currentThread().interrupt();
+
+	    throw new IOException("Bulk flush interrupted", ex);
+	}
+    }
+
+    /**
+     * Returns and removes the failures of the entries of the folder with the given name, sent so far
+     *
+     * @param folderName
+     * @return
+     */
+    public List<StoreFailure> drainFailures(String folderName) {
+
+	List<StoreFailure> out = new ArrayList<>();
+
+	ConcurrentLinkedQueue<StoreFailure> queue = failures.get(folderName);
+
+	if (queue != null) {
+
+	    StoreFailure failure = null;
+	    while ((failure = queue.poll()) != null) {
+
+		out.add(failure);
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * @return
+     */
+    public int getMaxActions() {
+
+	return maxActions;
+    }
+
+    /**
+     * @param maxActions
+     */
+    public void setMaxActions(int maxActions) {
+
+	this.maxActions = maxActions;
+    }
+
+    /**
+     * @return
+     */
+    public long getMaxBytes() {
+
+	return maxBytes;
+    }
+
+    /**
+     * @param maxBytes
+     */
+    public void setMaxBytes(long maxBytes) {
+
+	this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return
+     */
+    public long getFlushInterval() {
+
+	return flushInterval;
+    }
+
+    /**
+     * @param flushInterval
+     */
+    public void setFlushInterval(long flushInterval) {
+
+	this.flushInterval = flushInterval;
+    }
+
+    /**
+     * @param entries
+     * @return the entries rejected because the cluster is overloaded
+     * @throws IOException
+     */
+    private List<BufferedEntry> send(List<BufferedEntry> entries) throws IOException {
+
+	StringBuilder builder = new StringBuilder();
+
+	for (BufferedEntry bufferedEntry : entries) {
+
+	    IndexData entry = bufferedEntry.indexData;
+
+	    JSONObject action = new JSONObject();
+	    action.put("index", new JSONObject().//
+		    put("_index", entry.getIndex()).//
+		    put("_id", entry.getEntryId()));
+
+	    builder.append(action.toString());
+	    builder.append('\n');
+	    builder.append(entry.getData());
+	    builder.append('\n');
+	}
+
+	Response response = client.generic().execute(//
+		Requests.builder().//
+			endpoint("_bulk").//
+			method("POST").//
+			json(builder.toString()).//
+			build());
+
+	String body = response.getBody().isPresent() ? response.getBody().get().bodyAsString() : "{}";
+
+	if (response.getStatus() >= 300) {
+
+	    throw new IOException("Bulk request failed with status " + response.getStatus() + ": " + body);
+	}
+
+	List<BufferedEntry> rejected = new ArrayList<>();
+
+	JSONObject responseObject = new JSONObject(body);
+
+	if (!responseObject.optBoolean("errors", false)) {
+
+	    return rejected;
+	}
+
+	JSONArray items = responseObject.getJSONArray("items");
+
+	for (int i = 0; i < items.length(); i++) {
+
+	    JSONObject item = items.getJSONObject(i).getJSONObject("index");
+
+	    if (!item.has("error")) {
+
+		continue;
+	    }
+
+	    if (item.optInt("status") == TOO_MANY_REQUESTS) {
+
+		rejected.add(entries.get(i));
+
+	    } else {
+
+		JSONObject error = item.optJSONObject("error");
+
+		String reason = error != null ? error.optString("type") + ": " + error.optString("reason") : item.get("error").toString();
+
+		BufferedEntry entry = entries.get(i);
+
+		failures.computeIfAbsent(entry.folderName, k -> new ConcurrentLinkedQueue<>()).//
+			add(new StoreFailure(entry.indexData.getEntryId(), reason));
+	    }
+	}
+
+	return rejected;
+    }
+
+    /**
+     * @param entries
+     */
+    private void requeue(List<BufferedEntry> entries) {
+
+	synchronized (bufferLock) {
+
+	    LinkedHashMap<String, List<BufferedEntry>> merged = new LinkedHashMap<>();
+
+	    for (BufferedEntry entry : entries) {
+
+		merged.computeIfAbsent(entry.indexData.getIndex(), k -> new ArrayList<>()).add(entry);
+
+		bufferedBytes += entry.indexData.getData().length();
+	    }
+
+	    buffers.forEach((index, list) -> merged.computeIfAbsent(index, k -> new ArrayList<>()).addAll(list));
+
+	    if (bufferedActions == 0) {
+
+		oldestEntryTime = System.currentTimeMillis();
+	    }
+
+	    bufferedActions += entries.size();
+	    buffers = merged;
+	}
+    }
+
+    /**
+     * @param index
+     * @throws IOException
+     */
+    private void restoreRefresh(String index) throws IOException {
+
+	// null restores the default interval
+	putRefreshInterval(index, "null");
+    }
+
+    /**
+     * @param index
+     * @param interval
+     * @throws IOException
+     */
+    private void putRefreshInterval(String index, String interval) throws IOException {
+
+	Response response = client.generic().execute(//
+		Requests.builder().//
+			endpoint(index + "/_settings").//
+			method("PUT").//
+			json("{\"index\":{\"refresh_interval\":" + interval + "}}").//
+			build());
+
+	if (response.getStatus() >= 300) {
+
+	    GSLoggerFactory.getLogger(getClass()).warn("Unable to set refresh interval {} of index {}, status: {}", //
+		    interval, //
+		    index, //
+		    response.getStatus());
+	}
+    }
+
+    /**
+     *
+     */
+    private synchronized void startScheduler() {
+
+	if (scheduler != null) {
+
+	    return;
+	}
+
+	scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+
+	    Thread thread = new Thread(r, "opensearch-bulk-flusher");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+
+	long period = Math.max(1, flushInterval / 2);
+
+	scheduler.scheduleWithFixedDelay(() -> {
+
+	    boolean expired = false;
+
+	    synchronized (bufferLock) {
+
+		expired = bufferedActions > 0 && System.currentTimeMillis() - oldestEntryTime >= flushInterval;
+	    }
+
+	    if (expired) {
+
+		try {
+
+		    flush();
+
+		} catch (Exception ex) {
+
+		    GSLoggerFactory.getLogger(getClass()).error("Scheduled bulk flush failed: {}", ex.getMessage(), ex);
+		}
+	    }
+
+	}, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     *
+     */
+    private synchronized void stopScheduler() {
+
+	if (scheduler != null) {
+
+	    scheduler.shutdown();
+	    scheduler = null;
+	}
+    }
+}
@@ -4,10 +4,12 @@
 package eu.essi_lab.api.database.opensearch;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.apache.commons.lang3.NotImplementedException;
 import org.apache.http.HttpHost;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.json.JSONObject;
@@ -16,6 +18,7 @@ import org.opensearch.client.RestClientBuilder;
 import org.opensearch.client.json.jackson.JacksonJsonpMapper;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.mapping.TypeMapping;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
 import org.opensearch.client.opensearch.generic.Requests;
 import org.opensearch.client.opensearch.generic.Response;
 import org.opensearch.client.opensearch.indices.CreateIndexRequest;
@@ -49,12 +52,17 @@ import org.opensearch.client.transport.rest_client.RestClientTransport;
 
 import eu.essi_lab.api.database.Database;
 import eu.essi_lab.api.database.DatabaseFolder;
+import eu.essi_lab.api.database.IdentifierDiff;
+import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
 import eu.essi_lab.api.database.opensearch.index.mappings.IndexMapping;
+import eu.essi_lab.api.database.opensearch.query.OpenSearchQueryBuilder;
 import eu.essi_lab.cfga.gs.setting.database.DatabaseSetting;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.model.StorageInfo;
 import eu.essi_lab.model.exceptions.ErrorInfo;
 import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.resource.MetadataElement;
+import eu.essi_lab.model.resource.ResourceProperty;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
@@ -64,6 +72,8 @@ import software.amazon.awssdk.regions.Region;
  */
 public class OpenSearchDatabase extends Database {
 
+    private static final int IDENTIFIERS_PAGE_SIZE = 5000;
+
     private OpenSearchClient client;
     private String identifier;
     private DatabaseSetting setting;
@@ -71,6 +81,7 @@ public class OpenSearchDatabase extends Database {
     private SdkHttpClient httpClient;
     private boolean initialized;
     private StorageInfo storageInfo;
+    private OpenSearchBulkWriter bulkWriter;
 
     /**
      * @return
@@ -334,14 +345,64 @@ public class OpenSearchDatabase extends Database {
 	return false;
     }
 
-    //
-    // NOT IMPLEMENTED AT THE MOMENT. Used in deprecated SourceStorageWorker testISOCompliance, recoverTags and
-    // testISCompliance methods
-    //
     @Override
     public List<String> getIdentifiers(IdentifierType type, String folderName, boolean excludDeleted) throws GSException {
 
-	throw new NotImplementedException();
+	try (Stream<String> stream = streamIdentifiers(type, folderName, excludDeleted)) {
+
+	    return stream.collect(Collectors.toList());
+
+	} catch (UncheckedIOException ex) {
+
+	    GSLoggerFactory.getLogger(OpenSearchDatabase.class).error(ex);
+
+	    throw GSException.createException(getClass(), "OpenSearchDatabaseGetIdentifiersError", ex);
+	}
+    }
+
+    /**
+     * Scrolls the identifiers of the resources in the given folder, {@value #IDENTIFIERS_PAGE_SIZE} at a time. The
+     * scroll context expires if the next page is not requested within a minute, so the stream must be read without
+     * doing other work between two identifiers; {@link IdentifierDiff} reads it entirely before handling the results
+     */
+    @Override
+    public Stream<String> streamIdentifiers(IdentifierType type, String folderName, boolean excludDeleted) throws GSException {
+
+	String field = null;
+
+	switch (type) {
+	case OAI_HEADER:
+	    field = ResourceProperty.OAI_PMH_HEADER_ID.getName();
+	    break;
+	case ORIGINAL:
+	    field = ResourceProperty.ORIGINAL_ID.getName();
+	    break;
+	case PRIVATE:
+	    field = ResourceProperty.PRIVATE_ID.getName();
+	    break;
+	case PUBLIC:
+	    field = MetadataElement.IDENTIFIER.getName();
+	    break;
+	}
+
+	OpenSearchFolder folder = new OpenSearchFolder(this, folderName);
+
+	Query query = OpenSearchQueryBuilder.buildSearchResourcesQuery(folder, excludDeleted);
+
+	try {
+
+	    return new OpenSearchWrapper(getClient()).scrollField(//
+		    DataFolderMapping.get().getIndex(), //
+		    query, //
+		    field, //
+		    IDENTIFIERS_PAGE_SIZE);
+
+	} catch (Exception ex) {
+
+	    GSLoggerFactory.getLogger(OpenSearchDatabase.class).error(ex);
+
+	    throw GSException.createException(getClass(), "OpenSearchDatabaseGetIdentifiersError", ex);
+	}
     }
 
     @Override
@@ -407,6 +468,19 @@ public class OpenSearchDatabase extends Database {
 	return client;
     }
 
+    /**
+     * @return the writer which sends the entries of the folders under bulk harvesting
+     */
+    public synchronized OpenSearchBulkWriter getBulkWriter() {
+
+	if (bulkWriter == null) {
+
+	    bulkWriter = new OpenSearchBulkWriter(getClient());
+	}
+
+	return bulkWriter;
+    }
+
     /**
      * @param mapping
      * @throws GSException
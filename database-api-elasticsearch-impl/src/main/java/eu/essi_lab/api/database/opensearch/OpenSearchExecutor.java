@@ -28,16 +28,21 @@ import java.util.Arrays;
  * #L%
  */
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
 import org.w3c.dom.Node;
 
 import eu.essi_lab.api.database.Database;
 import eu.essi_lab.api.database.DatabaseExecutor;
 import eu.essi_lab.api.database.DatabaseExecutor.WMSClusterResponse;
+import eu.essi_lab.api.database.opensearch.query.StatisticsAggregationBuilder;
 import eu.essi_lab.cfga.gs.ConfigurationWrapper;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.lib.utils.IOStreamUtils;
@@ -46,9 +51,12 @@ import eu.essi_lab.messages.DiscoveryMessage;
 import eu.essi_lab.messages.bond.Bond;
 import eu.essi_lab.messages.bond.SpatialExtent;
 import eu.essi_lab.messages.bond.parser.DiscoveryBondParser;
+import eu.essi_lab.messages.stats.ResponseItem;
 import eu.essi_lab.messages.stats.StatisticsMessage;
+import eu.essi_lab.messages.stats.StatisticsMessage.GroupByPeriod;
 import eu.essi_lab.messages.stats.StatisticsResponse;
 import eu.essi_lab.messages.termfrequency.TermFrequencyMap;
+import eu.essi_lab.model.Queryable;
 import eu.essi_lab.model.StorageInfo;
 import eu.essi_lab.model.exceptions.GSException;
 import eu.essi_lab.model.resource.Dataset;
@@ -59,6 +67,15 @@ import eu.essi_lab.model.resource.MetadataElement;
  */
 public class OpenSearchExecutor implements DatabaseExecutor {
 
+    /**
+     * Number of <code>composite</code> buckets requested for each page when grouping by target
+     */
+    static final int COMPOSITE_PAGE_SIZE = 1000;
+
+    private OpenSearchDatabase database;
+    private OpenSearchWrapper wrapper;
+    private OpenSearchFinder finder;
+
     @Override
     public boolean supports(StorageInfo dbUri) {
     	return OpenSearchDatabase.isSupported(dbUri);
@@ -67,12 +84,17 @@ public class OpenSearchExecutor implements DatabaseExecutor {
     @Override
     public void setDatabase(Database dataBase) {
 
+	this.database = (OpenSearchDatabase) dataBase;
+	this.wrapper = new OpenSearchWrapper(this.database.getClient());
+
+	this.finder = new OpenSearchFinder();
+	this.finder.setDatabase(dataBase);
     }
 
     @Override
-    public Database getDatabase() {
+    public OpenSearchDatabase getDatabase() {
 
-	return null;
+	return database;
     }
 
     @Override
@@ -89,7 +111,170 @@ public class OpenSearchExecutor implements DatabaseExecutor {
     @Override
     public StatisticsResponse compute(StatisticsMessage message) throws GSException {
 
-	return null;
+	try {
+
+	    Query query = finder.builQuery(new DiscoveryMessage(message), true);
+
+	    StatisticsAggregationBuilder builder = new StatisticsAggregationBuilder(message);
+
+	    Optional<Queryable> groupByTarget = message.getGroupByTarget();
+	    Optional<GroupByPeriod> groupByPeriod = message.getGroupByPeriod();
+
+	    if (groupByTarget.isPresent()) {
+
+		return computeGroupByTarget(message, query, builder);
+	    }
+
+	    if (groupByPeriod.isPresent()) {
+
+		return computeGroupByPeriod(message, query, builder);
+	    }
+
+	    JSONObject aggregations = wrapper.aggregate(query, builder.buildItemAggregations());
+
+	    StatisticsResponse response = new StatisticsResponse();
+	    response.setItemsCount(1);
+	    response.getItems().add(builder.toResponseItem(null, aggregations));
+
+	    return response;
+
+	} catch (GSException ex) {
+
+	    throw ex;
+
+	} catch (Exception ex) {
+
+	    GSLoggerFactory.getLogger(getClass()).error(ex);
+
+	    throw GSException.createException(getClass(), "OpenSearchExecutorComputeError", ex);
+	}
+    }
+
+    /**
+     * The buckets before the requested start index are skipped by paging the <code>composite</code> aggregation without
+     * the item aggregations, then the requested buckets are computed
+     *
+     * @param message
+     * @param query
+     * @param builder
+     * @return
+     * @throws IOException
+     */
+    private StatisticsResponse computeGroupByTarget(StatisticsMessage message, Query query, StatisticsAggregationBuilder builder)
+	    throws IOException {
+
+	StatisticsResponse response = new StatisticsResponse(message.getGroupByTarget().get().getName());
+
+	int skip = message.getPage().getStart() - 1;
+	int size = message.getPage().getSize();
+
+	JSONObject afterKey = null;
+	boolean exhausted = false;
+	boolean first = true;
+
+	while (!exhausted && (skip > 0 || size > 0)) {
+
+	    boolean skipping = skip > 0;
+
+	    int pageSize = Math.min(skipping ? skip : size, COMPOSITE_PAGE_SIZE);
+
+	    JSONObject aggs = builder.buildGroupByTargetAggregation(afterKey, pageSize, !skipping);
+
+	    if (first) {
+
+		aggs.put(StatisticsAggregationBuilder.ITEMS_COUNT_AGG, builder.buildItemsCountAggregation());
+	    }
+
+	    JSONObject aggregations = wrapper.aggregate(query, aggs);
+
+	    if (first) {
+
+		response.setItemsCount(aggregations.getJSONObject(StatisticsAggregationBuilder.ITEMS_COUNT_AGG).getInt("value"));
+		first = false;
+	    }
+
+	    JSONObject group = aggregations.getJSONObject(StatisticsAggregationBuilder.GROUP_AGG);
+	    JSONArray buckets = group.getJSONArray("buckets");
+
+	    if (skipping) {
+
+		skip -= buckets.length();
+
+	    } else {
+
+		for (int i = 0; i < buckets.length(); i++) {
+
+		    JSONObject bucket = buckets.getJSONObject(i);
+
+		    String groupedBy = bucket.getJSONObject("key").get(StatisticsAggregationBuilder.GROUP_SOURCE).toString();
+
+		    response.getItems().add(builder.toResponseItem(groupedBy, bucket));
+		}
+
+		size -= buckets.length();
+	    }
+
+	    afterKey = group.optJSONObject("after_key");
+
+	    exhausted = buckets.length() < pageSize || afterKey == null;
+	}
+
+	return response;
+    }
+
+    /**
+     * The sub-periods of the requested page are computed with a single <code>date_histogram</code> aggregation, whose
+     * buckets are restricted to the page by a <code>filter</code> aggregation
+     *
+     * @param message
+     * @param query
+     * @param builder
+     * @return
+     * @throws IOException
+     */
+    private StatisticsResponse computeGroupByPeriod(StatisticsMessage message, Query query, StatisticsAggregationBuilder builder)
+	    throws IOException {
+
+	GroupByPeriod groupByPeriod = message.getGroupByPeriod().get();
+
+	StatisticsResponse response = new StatisticsResponse(groupByPeriod.getTarget().getName());
+
+	int fraction = StatisticsAggregationBuilder.getFraction(groupByPeriod);
+	long subPeriod = StatisticsAggregationBuilder.getSubPeriod(groupByPeriod);
+
+	response.setItemsCount(fraction);
+
+	int firstPeriod = message.getPage().getStart() - 1;
+	int lastPeriod = Math.min(fraction, firstPeriod + message.getPage().getSize());
+
+	if (firstPeriod >= lastPeriod) {
+
+	    return response;
+	}
+
+	long from = groupByPeriod.getStartTime() + firstPeriod * subPeriod;
+	long to = groupByPeriod.getStartTime() + lastPeriod * subPeriod;
+
+	JSONObject aggregations = wrapper.aggregate(query, builder.buildGroupByPeriodAggregation(from, to));
+
+	JSONArray buckets = aggregations.//
+		getJSONObject(StatisticsAggregationBuilder.PERIOD_FILTER_AGG).//
+		getJSONObject(StatisticsAggregationBuilder.GROUP_AGG).//
+		getJSONArray("buckets");
+
+	for (int i = 0; i < buckets.length(); i++) {
+
+	    JSONObject bucket = buckets.getJSONObject(i);
+
+	    long key = bucket.getLong("key");
+
+	    if (key >= from && key < to) {
+
+		response.getItems().add(builder.toResponseItem(key + ResponseItem.ITEMS_RANGE_SEPARATOR + (key + subPeriod), bucket));
+	    }
+	}
+
+	return response;
     }
 
     @Override
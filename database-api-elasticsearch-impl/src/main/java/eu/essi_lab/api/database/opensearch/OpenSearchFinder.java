@@ -3,6 +3,9 @@
  */
 package eu.essi_lab.api.database.opensearch;
 
+import java.io.IOException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -11,9 +14,11 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.opensearch.client.opensearch._types.aggregations.Aggregate;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.MsearchResponse;
 import org.opensearch.client.opensearch.core.SearchResponse;
 
 /*-
@@ -41,8 +46,10 @@ import org.w3c.dom.Node;
 
 import eu.essi_lab.api.database.Database;
 import eu.essi_lab.api.database.DatabaseFinder;
+import eu.essi_lab.api.database.opensearch.index.SourceWrapper;
 import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
 import eu.essi_lab.api.database.opensearch.index.mappings.MetaFolderMapping;
+import eu.essi_lab.api.database.opensearch.query.CompiledQueryCache;
 import eu.essi_lab.api.database.opensearch.query.OpenSearchBondHandler;
 import eu.essi_lab.api.database.opensearch.query.OpenSearchQueryBuilder;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
@@ -51,6 +58,7 @@ import eu.essi_lab.messages.DiscoveryMessage;
 import eu.essi_lab.messages.PerformanceLogger;
 import eu.essi_lab.messages.RequestMessage;
 import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.SearchAfter;
 import eu.essi_lab.messages.bond.parser.DiscoveryBondParser;
 import eu.essi_lab.messages.count.DiscoveryCountResponse;
 import eu.essi_lab.messages.termfrequency.TermFrequencyMap;
@@ -92,44 +100,7 @@ public class OpenSearchFinder implements DatabaseFinder {
 
 	try {
 
-	    SearchResponse<Object> searchResponse = discover_(message, true);
-
-	    Map<String, Aggregate> aggregations = searchResponse.aggregations();
-
-	    int total = 0;
-
-	    Optional<Queryable> element = message.getDistinctValuesElement();
-
-	    if (element.isPresent()) {
-
-		total = getCardinalityValue(aggregations, element);
-
-	    } else {
-
-		total = (int) searchResponse.hits().total().value();
-	    }
-
-	    DiscoveryCountResponse response = new DiscoveryCountResponse();
-
-	    if (message.isOutputSources()) {
-
-		response.setCount(message.getSources().size());
-
-	    } else {
-
-		response.setCount(total);
-	    }
-
-	    if (element.isEmpty()) {
-
-		TermFrequencyMapType mapType = ConversionUtils.fromAgg(aggregations);
-
-		TermFrequencyMap tfMap = new TermFrequencyMap(mapType);
-
-		response.setTermFrequencyMap(tfMap);
-	    }
-
-	    return response;
+	    return toCountResponse(message, discover_(message, true));
 
 	} catch (Exception ex) {
 
@@ -161,39 +132,14 @@ public class OpenSearchFinder implements DatabaseFinder {
 
 	    } else {
 
-		SearchResponse<Object> response = discover_(message, false);
+		List<JSONObject> sources = isSearchAfter(message) ? //
+			discoverAfter(message, resultSet) : //
+			ConversionUtils.toJSONSourcesList(discover_(message, false));
 
-		PerformanceLogger pl = new PerformanceLogger(//
-			PerformanceLogger.PerformancePhase.OPENSEARCH_FINDER_RESOURCES_CREATION, //
-			message.getRequestId(), //
-			Optional.ofNullable(message.getWebRequest()));
-
-		resources = ConversionUtils.toJSONSourcesList(response).//
-			stream().//
-			map(s -> ConversionUtils.toGSResource(s).orElse(null)).//
-			filter(Objects::nonNull).//
-			collect(Collectors.toList());
-
-		pl.logPerformance(GSLoggerFactory.getLogger(getClass()));
+		resources = toResources(message, sources);
 	    }
 
-	    //
-	    //
-	    //
-
-	    if (message.isOutputSources()) {
-
-		List<GSResource> list = resources.//
-			stream().//
-			filter(StreamUtils.distinctBy(GSResource::getSource)).//
-			collect(Collectors.toList());
-
-		resultSet.setResultsList(list);
-
-	    } else {
-
-		resultSet.setResultsList(resources);
-	    }
+	    resultSet.setResultsList(filterSources(message, resources));
 
 	    return resultSet;
 
@@ -212,9 +158,13 @@ public class OpenSearchFinder implements DatabaseFinder {
 
 	try {
 
-	    SearchResponse<Object> response = discover_(message, false);
-
-	    List<Node> nodes = ConversionUtils.toNodeList(response);
+	    List<Node> nodes = isSearchAfter(message) ? //
+		    discoverAfter(message, resultSet).//
+			    stream().//
+			    map(s -> ConversionUtils.toNodeOrNull(ConversionUtils.decode(new SourceWrapper(s)))).//
+			    collect(Collectors.toList())
+		    : //
+		    ConversionUtils.toNodeList(discover_(message, false));
 
 	    resultSet.setResultsList(nodes);
 
@@ -235,9 +185,17 @@ public class OpenSearchFinder implements DatabaseFinder {
 
 	try {
 
-	    SearchResponse<Object> response = discover_(message, false);
+	    List<String> nodes = isSearchAfter(message) ? //
+		    discoverAfter(message, resultSet).//
+			    stream().//
+			    map(s -> {
 
-	    List<String> nodes = ConversionUtils.toStringList(response);
+				SourceWrapper sourceWrapper = new SourceWrapper(s);
+				return ConversionUtils.decodeToString(sourceWrapper.getBinaryValue(), sourceWrapper.getBinaryCodec());
+			    }).//
+			    collect(Collectors.toList())
+		    : //
+		    ConversionUtils.toStringList(discover_(message, false));
 
 	    resultSet.setResultsList(nodes);
 
@@ -251,6 +209,326 @@ public class OpenSearchFinder implements DatabaseFinder {
 	}
     }
 
+    /**
+     * Executes the count and the discovery of the message page with a single multi search, which also provides the term
+     * frequency aggregations of the count. The count query and the discovery query differ (the latter ranks the
+     * results and does not exclude the deleted resources), so they cannot be fused in a single search.<br>
+     * The distinct values and the cursor paging have their own discovery, in these cases (and with an empty page) the
+     * count and the discovery are executed separately
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> SimpleEntry<DiscoveryCountResponse, ResultSet<T>> countAndDiscover(DiscoveryMessage message, Class<T> clazz)
+	    throws GSException {
+
+	if (!clazz.equals(GSResource.class) && !clazz.equals(Node.class) && !clazz.equals(String.class)) {
+
+	    throw new IllegalArgumentException("Unsupported result type: " + clazz.getName());
+	}
+
+	if (message.getDistinctValuesElement().isPresent() || isSearchAfter(message) || message.getPage().getSize() == 0) {
+
+	    return DatabaseFinder.super.countAndDiscover(message, clazz);
+	}
+
+	HashMap<String, String> map = getSourceDataFolderMap(message);
+
+	Query countQuery = builQuery(message, map, true);
+	Query searchQuery = builQuery(message, map, false);
+
+	try {
+
+	    PerformanceLogger pl = new PerformanceLogger(//
+		    PerformanceLogger.PerformancePhase.OPENSEARCH_FINDER_COUNT_AND_DISCOVER, //
+		    message.getRequestId(), //
+		    Optional.ofNullable(message.getWebRequest()));
+
+	    long time = System.currentTimeMillis();
+
+	    MsearchResponse<Object> response = wrapper.countAndSearch(//
+		    countQuery, //
+		    searchQuery, //
+		    message, //
+		    message.getPage().getStart() - 1, //
+		    message.getPage().getSize());
+
+	    long elapsed = System.currentTimeMillis() - time;
+
+	    SearchResponse<Object> countResponse = response.responses().get(0).result();
+	    SearchResponse<Object> searchResponse = response.responses().get(1).result();
+
+	    pl.logPerformance(GSLoggerFactory.getLogger(getClass()));
+
+	    //
+	    // with separated requests both the searches pay the round trip and they are executed one after the other,
+	    // while the multi search executes them at the same time
+	    //
+	    long overhead = Math.max(0, elapsed - response.took());
+
+	    pl.logSavedTime(GSLoggerFactory.getLogger(getClass()), //
+		    Math.min(countResponse.took(), searchResponse.took()) + overhead);
+
+	    ResultSet<?> resultSet = null;
+
+	    if (clazz.equals(GSResource.class)) {
+
+		List<GSResource> resources = toResources(message, ConversionUtils.toJSONSourcesList(searchResponse));
+
+		resultSet = new ResultSet<>(filterSources(message, resources));
+
+	    } else if (clazz.equals(Node.class)) {
+
+		resultSet = new ResultSet<>(ConversionUtils.toNodeList(searchResponse));
+
+	    } else {
+
+		resultSet = new ResultSet<>(ConversionUtils.toStringList(searchResponse));
+	    }
+
+	    return new SimpleEntry<>(toCountResponse(message, countResponse), (ResultSet<T>) resultSet);
+
+	} catch (Exception ex) {
+
+	    GSLoggerFactory.getLogger(OpenSearchDatabase.class).error(ex);
+
+	    throw GSException.createException(getClass(), "OpenSearchFinderCountAndDiscoverError", ex);
+	}
+    }
+
+    @Override
+    public boolean isSearchAfterSupported() {
+
+	return true;
+    }
+
+    @Override
+    public Optional<Long> getResourcesVersion() {
+
+	try {
+
+	    return Optional.of(wrapper.getIndexVersion(DataFolderMapping.get().getIndex()));
+
+	} catch (Exception ex) {
+
+	    GSLoggerFactory.getLogger(getClass()).warn("Unable to read resources version: {}", ex.getMessage());
+
+	    return Optional.empty();
+	}
+    }
+
+    /**
+     * @param message
+     * @return
+     */
+    private boolean isSearchAfter(DiscoveryMessage message) {
+
+	return message.getSearchAfter().isPresent() && message.getPage().getSize() > 0;
+    }
+
+    /**
+     * Retrieves the message page with the point in time and the sort values of the message cursor. If the cursor
+     * does not point to the page start, has no sort values or its point in time is expired, the page is retrieved by
+     * offset in a (new) point in time. If the page is full, the cursor of the next page is set in the given
+     * <code>resultSet</code>, otherwise the point in time is closed.<br>
+     * If the point in time cannot be opened, e.g. because the cluster does not support it, the page is retrieved by
+     * offset without a point in time, and no cursor is set
+     *
+     * @param message
+     * @param resultSet
+     * @return the sources of the page hits
+     * @throws Exception
+     */
+    private List<JSONObject> discoverAfter(DiscoveryMessage message, ResultSet<?> resultSet) throws Exception {
+
+	SearchAfter cursor = message.getSearchAfter().get();
+
+	Query query = builQuery(message, false);
+
+	int start = message.getPage().getStart();
+	int size = message.getPage().getSize();
+
+	List<Object> values = cursor.getStart() == start ? cursor.getValues() : new ArrayList<>();
+
+	String pointInTimeId = cursor.getPointInTimeId().orElse(null);
+
+	Optional<JSONObject> response = Optional.empty();
+
+	if (pointInTimeId != null) {
+
+	    response = wrapper.searchAfter(query, pointInTimeId, values, start - 1, size);
+
+	    if (response.isEmpty()) {
+
+		GSLoggerFactory.getLogger(getClass()).warn("Point in time expired, retrieving page [{}] by offset", start);
+	    }
+	}
+
+	if (response.isEmpty()) {
+
+	    try {
+
+		pointInTimeId = wrapper.openPointInTime();
+
+	    } catch (Exception ex) {
+
+		GSLoggerFactory.getLogger(getClass()).warn("Unable to open point in time, retrieving page [{}] by offset: {}", start,
+			ex.getMessage());
+
+		return discoverByOffset(query, start, size);
+	    }
+
+	    response = wrapper.searchAfter(query, pointInTimeId, new ArrayList<>(), start - 1, size);
+
+	    if (response.isEmpty()) {
+
+		throw new IOException("Point in time " + pointInTimeId + " not found");
+	    }
+	}
+
+	// the point in time id can change between the requests
+	pointInTimeId = response.get().optString("pit_id", pointInTimeId);
+
+	JSONArray hits = response.get().getJSONObject("hits").getJSONArray("hits");
+
+	List<JSONObject> out = new ArrayList<>();
+
+	for (int i = 0; i < hits.length(); i++) {
+
+	    out.add(hits.getJSONObject(i).getJSONObject("_source"));
+	}
+
+	if (hits.length() == size) {
+
+	    List<Object> lastSort = hits.getJSONObject(hits.length() - 1).getJSONArray("sort").toList();
+
+	    resultSet.setSearchAfter(new SearchAfter(start + size, pointInTimeId, lastSort));
+
+	} else {
+
+	    try {
+		wrapper.closePointInTime(pointInTimeId);
+	    } catch (IOException ex) {
+
+		GSLoggerFactory.getLogger(getClass()).warn("Unable to close point in time: {}", ex.getMessage());
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * @param query
+     * @param start
+     * @param size
+     * @return the sources of the page hits, retrieved by offset
+     * @throws IOException
+     */
+    private List<JSONObject> discoverByOffset(Query query, int start, int size) throws IOException {
+
+	List<JSONObject> out = new ArrayList<>();
+
+	Optional<JSONObject> response = wrapper.searchAfter(query, null, new ArrayList<>(), start - 1, size);
+
+	if (response.isPresent()) {
+
+	    JSONArray hits = response.get().getJSONObject("hits").getJSONArray("hits");
+
+	    for (int i = 0; i < hits.length(); i++) {
+
+		out.add(hits.getJSONObject(i).getJSONObject("_source"));
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * @param message
+     * @param searchResponse
+     * @return
+     */
+    private DiscoveryCountResponse toCountResponse(DiscoveryMessage message, SearchResponse<Object> searchResponse) {
+
+	Map<String, Aggregate> aggregations = searchResponse.aggregations();
+
+	int total = 0;
+
+	Optional<Queryable> element = message.getDistinctValuesElement();
+
+	if (element.isPresent()) {
+
+	    total = getCardinalityValue(aggregations, element);
+
+	} else {
+
+	    total = (int) searchResponse.hits().total().value();
+	}
+
+	DiscoveryCountResponse response = new DiscoveryCountResponse();
+
+	if (message.isOutputSources()) {
+
+	    response.setCount(message.getSources().size());
+
+	} else {
+
+	    response.setCount(total);
+	}
+
+	if (element.isEmpty()) {
+
+	    TermFrequencyMapType mapType = ConversionUtils.fromAgg(aggregations);
+
+	    TermFrequencyMap tfMap = new TermFrequencyMap(mapType);
+
+	    response.setTermFrequencyMap(tfMap);
+	}
+
+	return response;
+    }
+
+    /**
+     * @param message
+     * @param sources
+     * @return
+     */
+    private List<GSResource> toResources(DiscoveryMessage message, List<JSONObject> sources) {
+
+	PerformanceLogger pl = new PerformanceLogger(//
+		PerformanceLogger.PerformancePhase.OPENSEARCH_FINDER_RESOURCES_CREATION, //
+		message.getRequestId(), //
+		Optional.ofNullable(message.getWebRequest()));
+
+	List<GSResource> resources = sources.//
+		stream().//
+		map(s -> ConversionUtils.toGSResource(s).orElse(null)).//
+		filter(Objects::nonNull).//
+		collect(Collectors.toList());
+
+	pl.logPerformance(GSLoggerFactory.getLogger(getClass()));
+
+	return resources;
+    }
+
+    /**
+     * @param message
+     * @param resources
+     * @return if the message requires the output of the sources, a resource for each source, otherwise the given
+     *         <code>resources</code>
+     */
+    private List<GSResource> filterSources(DiscoveryMessage message, List<GSResource> resources) {
+
+	if (message.isOutputSources()) {
+
+	    return resources.//
+		    stream().//
+		    filter(StreamUtils.distinctBy(GSResource::getSource)).//
+		    collect(Collectors.toList());
+	}
+
+	return resources;
+    }
+
     /**
      * @param aggregations
      * @param element
@@ -324,9 +602,33 @@ public class OpenSearchFinder implements DatabaseFinder {
      * @return
      * @throws GSException
      */
-    private Query builQuery(DiscoveryMessage message, boolean count) throws GSException {
+    Query builQuery(DiscoveryMessage message, boolean count) throws GSException {
 
-	HashMap<String, String> map = getSourceDataFolderMap(message);
+	return builQuery(message, getSourceDataFolderMap(message), count);
+    }
+
+    /**
+     * @param message
+     * @param map
+     * @param count
+     * @return
+     * @throws GSException
+     */
+    private Query builQuery(DiscoveryMessage message, HashMap<String, String> map, boolean count) throws GSException {
+
+	CompiledQueryCache cache = CompiledQueryCache.getInstance();
+
+	Optional<String> key = cache.createKey(message, map, count);
+
+	if (key.isPresent()) {
+
+	    Optional<Query> cached = cache.get(key.get());
+
+	    if (cached.isPresent()) {
+
+		return cached.get();
+	    }
+	}
 
 	DiscoveryBondParser bondParser = new DiscoveryBondParser(message.getPermittedBond());
 
@@ -334,7 +636,11 @@ public class OpenSearchFinder implements DatabaseFinder {
 
 	bondParser.parse(handler);
 
-	return handler.getQuery(count);
+	Query query = handler.getQuery(count);
+
+	key.ifPresent(k -> cache.put(k, query));
+
+	return query;
     }
 
     /**
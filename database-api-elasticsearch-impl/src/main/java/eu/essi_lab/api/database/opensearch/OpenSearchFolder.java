@@ -76,6 +76,15 @@ public class OpenSearchFolder implements DatabaseFolder {
 
 	IndexData indexData = IndexData.of(this, key, entry, type);
 
+	OpenSearchBulkWriter bulkWriter = database.getBulkWriter();
+
+	if (type == EntryType.GS_RESOURCE && bulkWriter.isBulkFolder(getName())) {
+
+	    bulkWriter.add(getName(), indexData);
+
+	    return true;
+	}
+
 	boolean stored = wrapper.storeWithGenericClient(indexData);
 
 	wrapper.synch();
@@ -141,6 +150,8 @@ public class OpenSearchFolder implements DatabaseFolder {
     @Override
     public boolean remove(String key) throws Exception {
 
+	flushBulkWriter();
+
 	String index = IndexData.detectIndex(this);
 
 	String id = getEntryId(this, key);
@@ -199,6 +210,8 @@ public class OpenSearchFolder implements DatabaseFolder {
     @Override
     public void clear() throws Exception {
 
+	flushBulkWriter();
+
 	String index = IndexData.detectIndex(this);
 
 	Query query = OpenSearchQueryBuilder.buildSearchEntriesQuery(this);
@@ -254,6 +267,21 @@ public class OpenSearchFolder implements DatabaseFolder {
 	return new SourceWrapper(_getSource(key).orElse(null));
     }
 
+    /**
+     * Buffered entries must be sent before removing entries, otherwise they could be stored again
+     * 
+     * @throws Exception
+     */
+    private void flushBulkWriter() throws Exception {
+
+	OpenSearchBulkWriter bulkWriter = database.getBulkWriter();
+
+	if (bulkWriter.isBulkFolder(getName())) {
+
+	    bulkWriter.flush();
+	}
+    }
+
     /**
      * @param key
      * @return
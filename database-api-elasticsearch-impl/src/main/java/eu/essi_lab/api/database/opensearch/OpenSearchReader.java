@@ -24,13 +24,17 @@ package eu.essi_lab.api.database.opensearch;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.NotImplementedException;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchResponse;
 
 import eu.essi_lab.api.database.Database;
 import eu.essi_lab.api.database.Database.IdentifierType;
@@ -56,6 +60,16 @@ import eu.essi_lab.model.resource.ResourceProperty;
  */
 public class OpenSearchReader implements DatabaseReader {
 
+    /**
+     * Maximum number of identifiers resolved with a single query
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Expected maximum number of resources with the same identifier
+     */
+    private static final int HITS_PER_IDENTIFIER = 10;
+
     private OpenSearchDatabase database;
     private OpenSearchWrapper wrapper;
 
@@ -155,25 +169,9 @@ public class OpenSearchReader implements DatabaseReader {
     @Override
     public List<GSResource> getResources(IdentifierType type, String identifier) throws GSException {
 
-	Queryable property = null;
-	switch (type) {
-	case OAI_HEADER:
-	    property = ResourceProperty.OAI_PMH_HEADER_ID;
-	    break;
-	case ORIGINAL:
-	    property = ResourceProperty.ORIGINAL_ID;
-	    break;
-	case PRIVATE:
-	    property = ResourceProperty.PRIVATE_ID;
-	    break;
-	case PUBLIC:
-	    property = MetadataElement.IDENTIFIER;
-	    break;
-	}
-
 	Query query = OpenSearchQueryBuilder.buildSearchQuery(//
 		database.getIdentifier(), //
-		property.getName(), //
+		getProperty(type).getName(), //
 		identifier);
 
 	try {
@@ -191,6 +189,117 @@ public class OpenSearchReader implements DatabaseReader {
 	}
     }
 
+    @Override
+    public Map<String, List<GSResource>> getResources(IdentifierType type, List<String> identifiers) throws GSException {
+
+	Map<String, List<GSResource>> out = new HashMap<>();
+
+	List<String> distinct = identifiers.stream().distinct().collect(Collectors.toList());
+
+	distinct.forEach(id -> out.put(id, new ArrayList<>()));
+
+	for (int start = 0; start < distinct.size(); start += BATCH_SIZE) {
+
+	    List<String> chunk = distinct.subList(start, Math.min(distinct.size(), start + BATCH_SIZE));
+
+	    Query query = OpenSearchQueryBuilder.buildSearchQuery(//
+		    database.getIdentifier(), //
+		    getProperty(type).getName(), //
+		    chunk);
+
+	    int size = chunk.size() * HITS_PER_IDENTIFIER;
+
+	    try {
+
+		SearchResponse<Object> response = wrapper.search(DataFolderMapping.get().getIndex(), query, 0, size);
+
+		if (response.hits().total().value() > size) {
+
+		    //
+		    // some identifiers have more hits than expected, they are resolved one by one
+		    //
+		    GSLoggerFactory.getLogger(getClass()).warn("Too many hits for a batch of {} identifiers, resolving them one by one",
+			    chunk.size());
+
+		    for (String id : chunk) {
+
+			out.put(id, getResources(type, id));
+		    }
+
+		    continue;
+		}
+
+		ConversionUtils.toJSONSourcesList(response).//
+			stream().//
+			map(s -> ConversionUtils.toGSResource(s).orElse(null)).//
+			filter(Objects::nonNull).//
+			forEach(resource -> {
+
+			    //
+			    // the match phrase query can also match identifiers which are not equal to the requested ones
+			    //
+			    List<String> list = readIdentifier(resource, type).map(out::get).orElse(null);
+
+			    if (list != null) {
+
+				list.add(resource);
+			    }
+			});
+
+	    } catch (GSException ex) {
+
+		throw ex;
+
+	    } catch (Exception ex) {
+
+		GSLoggerFactory.getLogger(OpenSearchDatabase.class).error(ex);
+
+		throw GSException.createException(getClass(), "OpenSearchReaderGetResourcesBatchError", ex);
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * @param type
+     * @return
+     */
+    private Queryable getProperty(IdentifierType type) {
+
+	switch (type) {
+	case OAI_HEADER:
+	    return ResourceProperty.OAI_PMH_HEADER_ID;
+	case ORIGINAL:
+	    return ResourceProperty.ORIGINAL_ID;
+	case PRIVATE:
+	    return ResourceProperty.PRIVATE_ID;
+	case PUBLIC:
+	default:
+	    return MetadataElement.IDENTIFIER;
+	}
+    }
+
+    /**
+     * @param resource
+     * @param type
+     * @return
+     */
+    private Optional<String> readIdentifier(GSResource resource, IdentifierType type) {
+
+	switch (type) {
+	case OAI_HEADER:
+	    return resource.getPropertyHandler().getOAIPMHHeaderIdentifier();
+	case ORIGINAL:
+	    return resource.getOriginalId();
+	case PRIVATE:
+	    return Optional.ofNullable(resource.getPrivateId());
+	case PUBLIC:
+	default:
+	    return Optional.ofNullable(resource.getPublicId());
+	}
+    }
+
     //
     // NOT IMPLEMENTED. implementation not required since this method call is deprecated
     //
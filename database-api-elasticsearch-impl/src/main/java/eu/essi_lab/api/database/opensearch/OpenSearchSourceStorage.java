@@ -24,9 +24,14 @@ package eu.essi_lab.api.database.opensearch;
  * #L%
  */
 
+import java.util.Optional;
+
 import eu.essi_lab.api.database.Database;
+import eu.essi_lab.api.database.DatabaseFolder;
 import eu.essi_lab.api.database.SourceStorage;
+import eu.essi_lab.api.database.SourceStorageWorker;
 import eu.essi_lab.cfga.gs.ConfigurationWrapper;
+import eu.essi_lab.cfga.scheduler.SchedulerJobStatus;
 import eu.essi_lab.model.StorageInfo;
 
 /**
@@ -67,4 +72,33 @@ public class OpenSearchSourceStorage extends SourceStorage {
 
 	return "OpenSearchSourceStorage";
     }
+
+    @Override
+    protected void writingStarted(SourceStorageWorker worker, Optional<SchedulerJobStatus> status) throws Exception {
+
+	OpenSearchFolder folder = (OpenSearchFolder) worker.getWritingFolder(status);
+
+	if (getSetting() != null && getSetting().isBulkStorageSet(worker.getSourceId())) {
+
+	    getDatabase().getBulkWriter().begin(folder);
+
+	} else {
+
+	    // the refresh can be relaxed by a bulk harvesting of a dead JVM
+	    getDatabase().getBulkWriter().restoreRefresh(folder);
+	}
+    }
+
+    @Override
+    protected void writingEnded(SourceStorageWorker worker, Optional<SchedulerJobStatus> status) throws Exception {
+
+	DatabaseFolder folder = worker.getWritingFolder(status);
+
+	OpenSearchBulkWriter bulkWriter = getDatabase().getBulkWriter();
+
+	if (bulkWriter.isBulkFolder(folder.getName())) {
+
+	    bulkWriter.end((OpenSearchFolder) folder);
+	}
+    }
 }
@@ -26,20 +26,30 @@ package eu.essi_lab.api.database.opensearch;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.ErrorCause;
 import org.opensearch.client.opensearch._types.ErrorResponse;
 import org.opensearch.client.opensearch._types.OpenSearchException;
 import org.opensearch.client.opensearch._types.Result;
+import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.Time;
 import org.opensearch.client.opensearch._types.aggregations.Aggregate;
 import org.opensearch.client.opensearch._types.aggregations.Aggregation;
 import org.opensearch.client.opensearch._types.aggregations.CardinalityAggregation;
@@ -60,12 +70,16 @@ import org.opensearch.client.opensearch.core.IndexRequest;
 import org.opensearch.client.opensearch.core.IndexResponse;
 import org.opensearch.client.opensearch.core.MsearchRequest;
 import org.opensearch.client.opensearch.core.MsearchResponse;
+import org.opensearch.client.opensearch.core.ScrollResponse;
 import org.opensearch.client.opensearch.core.SearchResponse;
 import org.opensearch.client.opensearch.core.msearch.MultiSearchResponseItem;
+import org.opensearch.client.opensearch.core.msearch.MultisearchBody;
+import org.opensearch.client.opensearch.core.msearch.MultisearchHeader;
 import org.opensearch.client.opensearch.core.msearch.RequestItem;
 import org.opensearch.client.opensearch.core.search.Hit;
 import org.opensearch.client.opensearch.core.search.HitsMetadata;
 import org.opensearch.client.opensearch.core.search.SourceFilter;
+import org.opensearch.client.opensearch.core.search.TrackHits;
 import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
 import org.opensearch.client.opensearch.generic.Requests;
 import org.opensearch.client.opensearch.generic.Response;
@@ -74,7 +88,9 @@ import eu.essi_lab.api.database.opensearch.index.IndexData;
 import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
 import eu.essi_lab.api.database.opensearch.index.mappings.IndexMapping;
 import eu.essi_lab.api.database.opensearch.query.OpenSearchQueryBuilder;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.TotalHitsTracking;
 import eu.essi_lab.model.Queryable;
 
 /**
@@ -82,6 +98,13 @@ import eu.essi_lab.model.Queryable;
  */
 public class OpenSearchWrapper {
 
+    private static final Time SCROLL_KEEP_ALIVE = Time.of(t -> t.time("1m"));
+
+    /**
+     * The keep alive of the points in time opened for the cursor paging, extended at each page request
+     */
+    public static final String POINT_IN_TIME_KEEP_ALIVE = "10m";
+
     private OpenSearchClient client;
 
     /**
@@ -119,10 +142,7 @@ public class OpenSearchWrapper {
 
     /**
      * @param searchQuery
-     * @param start
-     * @param size
-     * @param tfTargets
-     * @param maxItems
+     * @param message
      * @return
      * @throws Exception
      */
@@ -133,57 +153,137 @@ public class OpenSearchWrapper {
 	// UUID.randomUUID().toString(), //
 	// Optional.empty());
 
-	Optional<Queryable> element = message.getDistinctValuesElement();
-	SearchResponse<Object> response = null;
+	Optional<TrackHits> trackHits = toTrackHits(message);
 
-	if (element.isPresent()) {
+	SearchResponse<Object> response = client.search(builder -> {
 
-	    CardinalityAggregation agg = CardinalityAggregation.of(a -> a.field(
+	    builder.aggregations(buildCountAggregations(message));
 
-		    DataFolderMapping.toAggField(element.get().getName())));
+	    trackHits.ifPresent(builder::trackTotalHits);
 
-	    Aggregation aggregation = Aggregation.of(a -> a.cardinality(agg));
+	    builder.query(searchQuery).//
+		    index(DataFolderMapping.get().getIndex()).//
+		    size(0);
 
-	    response = client.search(builder -> {
+	    return builder;
 
-		builder.aggregations(DataFolderMapping.toAggField(element.get().getName()), aggregation);
+	}, Object.class);
 
-		builder.query(searchQuery).//
-			index(DataFolderMapping.get().getIndex()).//
-			size(0);
+	// pl.logPerformance(GSLoggerFactory.getLogger(getClass()));
 
-		return builder;
+	return response;
+    }
 
-	    }, Object.class);
+    /**
+     * Executes with a single multi search the count of the given <code>countQuery</code>, with the same aggregations
+     * of {@link #count(Query, DiscoveryMessage)}, and the search of the given <code>searchQuery</code> page. The
+     * responses are in this order
+     * 
+     * @param countQuery
+     * @param searchQuery
+     * @param message
+     * @param start
+     * @param size
+     * @return
+     * @throws Exception if the multi search or one of its searches fails
+     */
+    public MsearchResponse<Object> countAndSearch(Query countQuery, Query searchQuery, DiscoveryMessage message, int start, int size)
+	    throws Exception {
 
-	} else {
+	MultisearchBody.Builder countBody = new MultisearchBody.Builder().//
+		query(countQuery).//
+		aggregations(buildCountAggregations(message)).//
+		size(0);
 
-	    List<Queryable> targets = message.getTermFrequencyTargets();
-	    int maxItems = message.getMaxFrequencyMapItems();
+	toTrackHits(message).ifPresent(countBody::trackTotalHits);
 
-	    response = client.search(builder -> {
+	MultisearchBody searchBody = new MultisearchBody.Builder().//
+		query(searchQuery).//
+		from(start).//
+		size(size).//
+		build();
 
-		targets.forEach(trg -> {
+	MultisearchHeader header = new MultisearchHeader.Builder().//
+		index(DataFolderMapping.get().getIndex()).//
+		build();
 
-		    builder.aggregations(trg.getName(), agg -> agg.terms(t -> t.field(
+	MsearchResponse<Object> response = client.msearch(
 
-			    DataFolderMapping.toAggField(trg.getName())))).size(maxItems);
-		});
+		new MsearchRequest.Builder().//
+			searches(//
+				new RequestItem.Builder().header(header).body(countBody.build()).build(), //
+				new RequestItem.Builder().header(header).body(searchBody).build())
+			.//
+			build(),
 
-		builder.query(searchQuery).//
-			index(DataFolderMapping.get().getIndex()).//
-			size(0);
+		Object.class);
 
-		return builder;
+	for (MultiSearchResponseItem<Object> item : response.responses()) {
 
-	    }, Object.class);
-	}
+	    if (item.isFailure()) {
 
-	// pl.logPerformance(GSLoggerFactory.getLogger(getClass()));
+		throw new IOException("Multi search failed: " + item.failure().error().reason());
+	    }
+	}
 
 	return response;
     }
 
+    /**
+     * @param message
+     * @return the cardinality aggregation of the distinct values element, if present, otherwise the terms
+     *         aggregations of the term frequency targets
+     */
+    private Map<String, Aggregation> buildCountAggregations(DiscoveryMessage message) {
+
+	Map<String, Aggregation> out = new HashMap<>();
+
+	Optional<Queryable> element = message.getDistinctValuesElement();
+
+	if (element.isPresent()) {
+
+	    String field = DataFolderMapping.toAggField(element.get().getName());
+
+	    out.put(field, Aggregation.of(a -> a.cardinality(CardinalityAggregation.of(c -> c.field(field)))));
+
+	} else {
+
+	    message.getTermFrequencyTargets().forEach(trg -> {
+
+		out.put(trg.getName(), Aggregation.of(a -> a.terms(t -> t.field(
+
+			DataFolderMapping.toAggField(trg.getName())))));
+	    });
+	}
+
+	return out;
+    }
+
+    /**
+     * @param message
+     * @return the total hits tracking of the message count, or an empty optional to use the OpenSearch default
+     *         threshold. The distinct values count relies on the cardinality aggregation, so the hits are not tracked
+     */
+    private Optional<TrackHits> toTrackHits(DiscoveryMessage message) {
+
+	if (message.getDistinctValuesElement().isPresent()) {
+
+	    return Optional.of(TrackHits.of(t -> t.enabled(false)));
+	}
+
+	TotalHitsTracking tracking = message.getTotalHitsTracking();
+
+	switch (tracking.getMode()) {
+	case EXACT:
+	    return Optional.of(TrackHits.of(t -> t.enabled(true)));
+	case THRESHOLD:
+	    return Optional.of(TrackHits.of(t -> t.count(tracking.getThreshold())));
+	case APPROXIMATE:
+	default:
+	    return Optional.empty();
+	}
+    }
+
     /**
      * @param searchQuery
      * @param target
@@ -405,6 +505,151 @@ public class OpenSearchWrapper {
 		collect(Collectors.toList());
     }
 
+    /**
+     * Streams the values of the given <code>field</code> of all the entries matching the <code>searchQuery</code>,
+     * fetching them page by page with the scroll API. The returned stream must be closed in order to release the
+     * scroll context
+     * 
+     * @param index
+     * @param searchQuery
+     * @param field
+     * @param pageSize
+     * @return
+     * @throws OpenSearchException
+     * @throws IOException
+     */
+    public Stream<String> scrollField(String index, Query searchQuery, String field, int pageSize) throws OpenSearchException, IOException {
+
+	SearchResponse<Object> response = client.search(builder -> {
+
+	    builder.query(searchQuery).//
+		    index(index).//
+		    size(pageSize).//
+		    scroll(SCROLL_KEEP_ALIVE).//
+		    // the index order is the cheapest one. No tiebreaker is needed since the pages are not requested with
+		    // search_after values, the scroll context keeps the position of each shard
+		    sort(sort -> sort.field(f -> f.field("_doc").order(SortOrder.Asc))).//
+		    source(src -> src.filter(new SourceFilter.Builder().includes(field).//
+			    build()));
+
+	    return builder;
+
+	}, Object.class);
+
+	ScrollCursor cursor = new ScrollCursor(field, response.scrollId(), response.hits().hits());
+
+	return StreamSupport.stream(//
+		Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), //
+		false).//
+		onClose(cursor::close);
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private class ScrollCursor implements Iterator<String> {
+
+	private final String field;
+	private String scrollId;
+	private Iterator<Hit<Object>> hits;
+	private boolean lastPage;
+	private String next;
+
+	/**
+	 * @param field
+	 * @param scrollId
+	 * @param hits
+	 */
+	private ScrollCursor(String field, String scrollId, List<Hit<Object>> hits) {
+
+	    this.field = field;
+	    this.scrollId = scrollId;
+	    this.hits = hits.iterator();
+	    this.lastPage = hits.isEmpty();
+	}
+
+	@Override
+	public boolean hasNext() {
+
+	    while (next == null) {
+
+		if (hits.hasNext()) {
+
+		    JSONObject source = ConversionUtils.toJSONObject(hits.next().source());
+
+		    next = source.optString(field, null);
+
+		} else if (lastPage) {
+
+		    return false;
+
+		} else {
+
+		    fetch();
+		}
+	    }
+
+	    return true;
+	}
+
+	@Override
+	public String next() {
+
+	    if (!hasNext()) {
+		throw new NoSuchElementException();
+	    }
+
+	    String out = next;
+	    next = null;
+
+	    return out;
+	}
+
+	/**
+	 * 
+	 */
+	private void fetch() {
+
+	    try {
+
+		ScrollResponse<Object> response = client.scroll(builder -> builder.//
+			scrollId(scrollId).//
+			scroll(SCROLL_KEEP_ALIVE), Object.class);
+
+		scrollId = response.scrollId();
+
+		List<Hit<Object>> list = response.hits().hits();
+
+		hits = list.iterator();
+		lastPage = list.isEmpty();
+
+	    } catch (IOException ex) {
+
+		throw new UncheckedIOException(ex);
+	    }
+	}
+
+	/**
+	 * 
+	 */
+	private void close() {
+
+	    if (scrollId != null) {
+
+		try {
+
+		    client.clearScroll(builder -> builder.scrollId(scrollId));
+
+		} catch (Exception ex) {
+
+		    GSLoggerFactory.getLogger(getClass()).warn("Unable to clear scroll: {}", ex.getMessage());
+		}
+
+		scrollId = null;
+	    }
+	}
+    }
+
     /**
      * See <a href=
      * "https://stackoverflow.com/questions/74823431/how-to-implement-nested-aggregations-using-opensearch-java-client">Nested
@@ -445,6 +690,210 @@ public class OpenSearchWrapper {
 	return aggregations.get("1").min().value();
     }
 
+    /**
+     * Executes a search of the data folder index which returns no hits, but only the results of the given
+     * <code>aggregations</code>. The request is sent with the generic client since the aggregations are built as
+     * JSON objects
+     *
+     * @param searchQuery
+     * @param aggregations
+     * @return the <code>aggregations</code> object of the response
+     * @throws IOException
+     */
+    public JSONObject aggregate(Query searchQuery, JSONObject aggregations) throws IOException {
+
+	JSONObject body = new JSONObject();
+	body.put("size", 0);
+	body.put("track_total_hits", false);
+	body.put("query", ConversionUtils.toJSONObject(searchQuery));
+
+	if (!aggregations.isEmpty()) {
+
+	    body.put("aggs", aggregations);
+	}
+
+	Response response = client.generic().execute(//
+		Requests.builder().//
+			endpoint(DataFolderMapping.get().getIndex() + "/_search").//
+			method("POST").//
+			json(body.toString()).build());
+
+	String bodyAsString = response.getBody().//
+		get().//
+		bodyAsString();
+
+	if (response.getStatus() >= 300) {
+
+	    throw new IOException("Aggregation search failed with status " + response.getStatus() + ": " + bodyAsString);
+	}
+
+	JSONObject responseObject = new JSONObject(bodyAsString);
+
+	return responseObject.has("aggregations") ? responseObject.getJSONObject("aggregations") : new JSONObject();
+    }
+
+    /**
+     * Opens a point in time of the data folder index, which keeps the index state until it is closed or until
+     * {@link #POINT_IN_TIME_KEEP_ALIVE} elapses without being used
+     *
+     * @return the point in time id
+     * @throws IOException
+     */
+    public String openPointInTime() throws IOException {
+
+	Response response = client.generic().execute(//
+		Requests.builder().//
+			endpoint(DataFolderMapping.get().getIndex() + "/_search/point_in_time?keep_alive=" + POINT_IN_TIME_KEEP_ALIVE).//
+			method("POST").//
+			build());
+
+	String bodyAsString = response.getBody().//
+		get().//
+		bodyAsString();
+
+	if (response.getStatus() >= 300) {
+
+	    throw new IOException("Point in time creation failed with status " + response.getStatus() + ": " + bodyAsString);
+	}
+
+	return new JSONObject(bodyAsString).getString("pit_id");
+    }
+
+    /**
+     * Returns a version of the given index, computed from the document counts and from the indexing operations of its
+     * primary shards. The indexing operations change as soon as a document is written, the document counts when it
+     * becomes searchable, so the version changes in both cases
+     *
+     * @param index
+     * @return
+     * @throws IOException
+     */
+    public long getIndexVersion(String index) throws IOException {
+
+	Response response = client.generic().execute(//
+		Requests.builder().//
+			endpoint(index + "/_stats/docs,indexing").//
+			method("GET").//
+			build());
+
+	String bodyAsString = response.getBody().//
+		get().//
+		bodyAsString();
+
+	if (response.getStatus() >= 300) {
+
+	    throw new IOException("Index stats request failed with status " + response.getStatus() + ": " + bodyAsString);
+	}
+
+	JSONObject primaries = new JSONObject(bodyAsString).getJSONObject("_all").getJSONObject("primaries");
+
+	JSONObject docs = primaries.getJSONObject("docs");
+	JSONObject indexing = primaries.getJSONObject("indexing");
+
+	long version = docs.getLong("count");
+	version = 31 * version + docs.getLong("deleted");
+	version = 31 * version + indexing.getLong("index_total");
+	version = 31 * version + indexing.getLong("delete_total");
+
+	return version;
+    }
+
+    /**
+     * @param pointInTimeId
+     * @throws IOException
+     */
+    public void closePointInTime(String pointInTimeId) throws IOException {
+
+	JSONObject body = new JSONObject();
+	body.put("pit_id", new JSONArray().put(pointInTimeId));
+
+	Response response = client.generic().execute(//
+		Requests.builder().//
+			endpoint("_search/point_in_time").//
+			method("DELETE").//
+			json(body.toString()).build());
+
+	if (response.getStatus() >= 300 && response.getStatus() != 404) {
+
+	    throw new IOException("Point in time deletion failed with status " + response.getStatus());
+	}
+    }
+
+    /**
+     * Searches the given point in time of the data folder index. The hits are sorted by <code>_shard_doc</code>, the
+     * index order of the point in time: unlike <code>_doc</code>, which is unique only within a shard, it is a unique
+     * tiebreaker for the <code>search_after</code> values across the shards.<br>
+     * If <code>searchAfter</code> is empty the page starts at <code>from</code>, otherwise it starts after the hit
+     * with the given sort values and <code>from</code> is ignored.<br>
+     * If <code>pointInTimeId</code> is <code>null</code>, the data folder index is searched by offset, sorting the
+     * hits by <code>_doc</code>
+     *
+     * @param searchQuery
+     * @param pointInTimeId the point in time id, or <code>null</code> to search the index by offset
+     * @param searchAfter the <code>sort</code> values of the last hit of the previous page, possibly empty
+     * @param from
+     * @param size
+     * @return the search response, or an empty optional if the point in time is expired or the index is missing
+     * @throws IOException
+     */
+    public Optional<JSONObject> searchAfter(Query searchQuery, String pointInTimeId, List<Object> searchAfter, int from, int size)
+	    throws IOException {
+
+	JSONObject body = new JSONObject();
+	body.put("size", size);
+	body.put("track_total_hits", false);
+	body.put("query", ConversionUtils.toJSONObject(searchQuery));
+
+	// the index must not be set if a point in time is used, the point in time refers to it
+	String endpoint = "_search";
+
+	if (pointInTimeId != null) {
+
+	    body.put("pit", new JSONObject().//
+		    put("id", pointInTimeId).//
+		    put("keep_alive", POINT_IN_TIME_KEEP_ALIVE));
+
+	    body.put("sort", new JSONArray().put(new JSONObject().put("_shard_doc", "asc")));
+
+	} else {
+
+	    endpoint = DataFolderMapping.get().getIndex() + "/_search";
+
+	    body.put("sort", new JSONArray().put(new JSONObject().put("_doc", "asc")));
+	}
+
+	if (searchAfter.isEmpty() || pointInTimeId == null) {
+
+	    body.put("from", from);
+
+	} else {
+
+	    body.put("search_after", new JSONArray(searchAfter));
+	}
+
+	Response response = client.generic().execute(//
+		Requests.builder().//
+			endpoint(endpoint).//
+			method("POST").//
+			json(body.toString()).build());
+
+	if (response.getStatus() == 404) {
+
+	    return Optional.empty();
+	}
+
+	String bodyAsString = response.getBody().//
+		get().//
+		bodyAsString();
+
+	if (response.getStatus() >= 300) {
+
+	    throw new IOException("Search after failed with status " + response.getStatus() + ": " + bodyAsString);
+	}
+
+	return Optional.of(new JSONObject(bodyAsString));
+    }
+
     /**
      * @param index
      * @param searchQuery
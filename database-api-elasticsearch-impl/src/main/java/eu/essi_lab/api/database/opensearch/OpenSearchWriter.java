@@ -3,6 +3,8 @@
  */
 package eu.essi_lab.api.database.opensearch;
 
+import java.util.List;
+
 import org.apache.commons.lang3.NotImplementedException;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
 import org.opensearch.client.opensearch.core.DeleteByQueryRequest;
@@ -33,6 +35,7 @@ import org.w3c.dom.Node;
 
 import eu.essi_lab.api.database.Database;
 import eu.essi_lab.api.database.DatabaseWriter;
+import eu.essi_lab.api.database.SourceStorageWorker;
 import eu.essi_lab.api.database.opensearch.index.IndexData;
 import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
 import eu.essi_lab.api.database.opensearch.query.OpenSearchQueryBuilder;
@@ -72,6 +75,8 @@ public class OpenSearchWriter extends DatabaseWriter {
     public void remove(GSResource resource) throws GSException {
 
 	remove(IndexData.ENTRY_NAME, resource.getPrivateId());
+
+	resourceChanged(resource);
     }
 
     @Override
@@ -86,12 +91,19 @@ public class OpenSearchWriter extends DatabaseWriter {
 	DeleteByQueryRequest request = wrapper.buildDeleteByQueryRequest(DataFolderMapping.get().getIndex(), query);
 
 	try {
+	    //
+	    // the resources to remove could be still buffered
+	    //
+	    getDatabase().getBulkWriter().flush();
+
 	    DeleteByQueryResponse response = wrapper.deleteByQuery(request);
 
 	    Long deleted = response.deleted();
 
 	    GSLoggerFactory.getLogger(OpenSearchDatabase.class).debug("Deleted count: {}", deleted);
 
+	    resourcesChanged();
+
 	} catch (Exception ex) {
 
 	    GSLoggerFactory.getLogger(OpenSearchDatabase.class).error(ex);
@@ -100,6 +112,19 @@ public class OpenSearchWriter extends DatabaseWriter {
 	}
     }
 
+    @Override
+    public List<StoreFailure> drainStoreFailures(String sourceIdentifier) {
+
+	OpenSearchBulkWriter bulkWriter = getDatabase().getBulkWriter();
+
+	String folderName = getDatabase().getIdentifier() + "_" + sourceIdentifier;
+
+	List<StoreFailure> out = bulkWriter.drainFailures(folderName + SourceStorageWorker.DATA_1_POSTFIX);
+	out.addAll(bulkWriter.drainFailures(folderName + SourceStorageWorker.DATA_2_POSTFIX));
+
+	return out;
+    }
+
     //
     // NOT IMPLEMENTED AT THE MOMENT
     //
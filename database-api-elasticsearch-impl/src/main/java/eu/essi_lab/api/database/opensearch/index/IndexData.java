@@ -138,6 +138,7 @@ public class IndexData {
     public static final String ENTRY_NAME = "entryName";
     public static final String BINARY_PROPERTY = "binaryProperty";
     public static final String DATA_TYPE = "dataType";
+    public static final String BINARY_CODEC = "binaryCodec"; // see ResourceCodec
 
     //
     //
@@ -323,9 +324,12 @@ public class IndexData {
 	    // clear the indexes (all but the bbox) before storing the binary property
 	    indexesMd.clear(false);
 
-	    encodedString = ConversionUtils.encode(gsResource);
+	    ResourceCodec codec = ResourceCodec.getDefault();
+
+	    encodedString = ConversionUtils.encode(gsResource, codec);
 
 	    indexData.put(BINARY_PROPERTY, DataFolderMapping.GS_RESOURCE);
+	    indexData.put(BINARY_CODEC, codec.getTag());
 	    indexData.put(DataFolderMapping.GS_RESOURCE, encodedString);
 
 	    indexData.mapping = DataFolderMapping.get();
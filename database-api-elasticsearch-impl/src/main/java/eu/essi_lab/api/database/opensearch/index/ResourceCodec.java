@@ -0,0 +1,212 @@
+/**
+ * 
+ */
+package eu.essi_lab.api.database.opensearch.index;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.JSONObject;
+
+/**
+ * Encodes and decodes the binary values stored in the indexes.<br>
+ * <br>
+ * The codec used to encode a binary value is identified by a tag stored with the source in the
+ * {@link IndexData#BINARY_CODEC} property. Sources without the tag have been stored before the introduction of the
+ * codecs and their binary value is decoded with the {@link #PLAIN} codec, so that existing indexes are still readable.
+ * <br>
+ * <br>
+ * The encoded value is always a Base64 string since the binary fields are transferred with JSON documents.<br>
+ * Other codecs can be added with {@link #register(ResourceCodec)}; the tag of a registered codec should never be
+ * reused for a different format, since documents encoded with that tag could be still stored
+ * 
+ * @author Fabrizio
+ */
+public abstract class ResourceCodec {
+
+    /**
+     * Base64 of the plain bytes; this is the format of the sources without codec tag
+     */
+    public static final ResourceCodec PLAIN = new ResourceCodec("plain") {
+
+	@Override
+	public String encode(byte[] bytes) {
+
+	    return Base64.getEncoder().encodeToString(bytes);
+	}
+
+	@Override
+	public byte[] decode(String value) {
+
+	    return Base64.getDecoder().decode(value);
+	}
+    };
+
+    /**
+     * Base64 of the GZIP compressed bytes
+     */
+    public static final ResourceCodec GZIP = new ResourceCodec("gzip-v1") {
+
+	@Override
+	public String encode(byte[] bytes) {
+
+	    ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(512, bytes.length / 4));
+
+	    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+
+		gzip.write(bytes);
+
+	    } catch (IOException ex) {
+
+		// in memory streams
+		throw new UncheckedIOException(ex);
+	    }
+
+	    return Base64.getEncoder().encodeToString(out.toByteArray());
+	}
+
+	@Override
+	public byte[] decode(String value) {
+
+	    byte[] compressed = Base64.getDecoder().decode(value);
+
+	    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+
+		return gzip.readAllBytes();
+
+	    } catch (IOException ex) {
+
+		throw new UncheckedIOException("Unable to decode " + getTag() + " value", ex);
+	    }
+	}
+    };
+
+    private static final Map<String, ResourceCodec> CODECS = new ConcurrentHashMap<>();
+
+    private static ResourceCodec defaultCodec = GZIP;
+
+    static {
+
+	register(PLAIN);
+	register(GZIP);
+    }
+
+    private String tag;
+
+    /**
+     * @param tag
+     */
+    protected ResourceCodec(String tag) {
+
+	this.tag = tag;
+    }
+
+    /**
+     * @return the tag which identifies this codec
+     */
+    public String getTag() {
+
+	return tag;
+    }
+
+    /**
+     * @param bytes
+     * @return the Base64 encoded value to store
+     */
+    public abstract String encode(byte[] bytes);
+
+    /**
+     * @param value a value encoded by {@link #encode(byte[])}
+     * @return
+     */
+    public abstract byte[] decode(String value);
+
+    /**
+     * @param codec
+     */
+    public static void register(ResourceCodec codec) {
+
+	CODECS.put(codec.getTag(), codec);
+    }
+
+    /**
+     * @param tag
+     * @return
+     * @throws IllegalArgumentException if no codec with the given <code>tag</code> is registered
+     */
+    public static ResourceCodec forTag(String tag) {
+
+	ResourceCodec codec = CODECS.get(tag);
+
+	if (codec == null) {
+
+	    throw new IllegalArgumentException("Unknown resource codec: " + tag);
+	}
+
+	return codec;
+    }
+
+    /**
+     * @param source
+     * @return the codec of the binary value of the given <code>source</code>, or {@link #PLAIN} if the source has no
+     *         codec tag
+     */
+    public static ResourceCodec of(JSONObject source) {
+
+	String tag = source.optString(IndexData.BINARY_CODEC, null);
+
+	return tag == null ? PLAIN : forTag(tag);
+    }
+
+    /**
+     * @return the codec used to encode the GS resources
+     */
+    public static ResourceCodec getDefault() {
+
+	return defaultCodec;
+    }
+
+    /**
+     * @param codec the codec to use to encode the GS resources; it is also registered
+     */
+    public static void setDefault(ResourceCodec codec) {
+
+	register(codec);
+
+	defaultCodec = codec;
+    }
+
+    @Override
+    public String toString() {
+
+	return getTag();
+    }
+}
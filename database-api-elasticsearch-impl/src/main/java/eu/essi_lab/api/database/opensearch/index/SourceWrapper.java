@@ -134,6 +134,14 @@ public class SourceWrapper {
 	return source.getString(source.getString(IndexData.BINARY_PROPERTY));
     }
 
+    /**
+     * - the codec of the binary value, see {@link ResourceCodec#of(JSONObject)}
+     */
+    public ResourceCodec getBinaryCodec() {
+
+	return ResourceCodec.of(source);
+    }
+
     /**
      * - possible values: see {@link DataType}
      */
@@ -318,7 +326,7 @@ public class SourceWrapper {
 
     /**
      * - 'data-folder-index' property<br>
-     * - base64 encoded
+     * - base64 encoded, see {@link #getBinaryCodec()}
      */
     public Optional<String> getGSResource() {
 
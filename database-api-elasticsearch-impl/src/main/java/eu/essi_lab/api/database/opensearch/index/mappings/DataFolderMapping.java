@@ -9,6 +9,7 @@ import java.util.List;
 import org.opensearch.client.opensearch._types.mapping.FieldType;
 
 import eu.essi_lab.api.database.SourceStorageWorker;
+import eu.essi_lab.api.database.opensearch.index.IndexData;
 import eu.essi_lab.indexes.IndexedElements;
 import eu.essi_lab.model.Queryable.ContentType;
 import eu.essi_lab.model.index.jaxb.BoundingBox;
@@ -70,6 +71,7 @@ public class DataFolderMapping extends IndexMapping {
 
 	addProperty(GS_RESOURCE, FieldType.Binary.jsonValue());
 	addProperty(WRITING_FOLDER_TAG, FieldType.Binary.jsonValue());
+	addProperty(IndexData.BINARY_CODEC, FieldType.Keyword.jsonValue());
 
 	addProperty(MetaFolderMapping.DATA_FOLDER, FieldType.Text.jsonValue());
 
@@ -0,0 +1,200 @@
+/**
+ * 
+ */
+package eu.essi_lab.api.database.opensearch.query;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+
+import eu.essi_lab.lib.utils.ExpiringCache;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.bond.Bond;
+import eu.essi_lab.messages.bond.BondOperator;
+import eu.essi_lab.messages.bond.LogicalBond;
+import eu.essi_lab.messages.bond.ResourcePropertyBond;
+import eu.essi_lab.model.resource.ResourceProperty;
+
+/**
+ * Cache of the queries compiled by {@link OpenSearchBondHandler}.<br>
+ * <br>
+ * The key is made of a normalized form of the bond, where the operands of the logical bonds are sorted, together with
+ * the other message properties which affect the query (ranking strategy, deleted resources and count). The data
+ * folder of each source referenced by the bond is part of the key, so a query is compiled again when the data folder
+ * of one of its sources changes.<br>
+ * <br>
+ * Bonds whose query depends on the database content (min/max bonds) or on the configuration (GEOSS Data Core bond)
+ * are not cached
+ * 
+ * @author Fabrizio
+ */
+public class CompiledQueryCache {
+
+    private static final int DEFAULT_MAX_SIZE = 500;
+    private static final long DEFAULT_DURATION = 10 * 60 * 1000;
+
+    private static final CompiledQueryCache INSTANCE = new CompiledQueryCache();
+
+    private ExpiringCache<Query> cache;
+
+    /**
+     * @return
+     */
+    public static CompiledQueryCache getInstance() {
+
+	return INSTANCE;
+    }
+
+    private CompiledQueryCache() {
+
+	cache = new ExpiringCache<>();
+	cache.setMaxSize(DEFAULT_MAX_SIZE);
+	cache.setDuration(DEFAULT_DURATION);
+    }
+
+    /**
+     * @param message
+     * @param dataFolderMap
+     * @param count
+     * @return the key of the query compiled from the message permitted bond, or an empty optional if the query
+     *         cannot be cached
+     */
+    public Optional<String> createKey(DiscoveryMessage message, HashMap<String, String> dataFolderMap, boolean count) {
+
+	StringBuilder builder = new StringBuilder();
+
+	if (!normalize(message.getPermittedBond(), dataFolderMap, builder)) {
+
+	    return Optional.empty();
+	}
+
+	builder.append("|");
+	builder.append(message.getRankingStrategy());
+	builder.append("|");
+	builder.append(message.isDeletedIncluded());
+	builder.append("|");
+	builder.append(count);
+
+	return Optional.of(builder.toString());
+    }
+
+    /**
+     * @param key
+     * @return
+     */
+    public Optional<Query> get(String key) {
+
+	return Optional.ofNullable(cache.get(key));
+    }
+
+    /**
+     * @param key
+     * @param query
+     */
+    public void put(String key, Query query) {
+
+	cache.put(key, query);
+    }
+
+    /**
+     * 
+     */
+    public void clear() {
+
+	cache.clear();
+    }
+
+    /**
+     * @param bond
+     * @param dataFolderMap
+     * @param builder
+     * @return <code>false</code> if the bond cannot be cached
+     */
+    static boolean normalize(Bond bond, HashMap<String, String> dataFolderMap, StringBuilder builder) {
+
+	if (bond == null) {
+
+	    builder.append("null");
+	    return true;
+	}
+
+	if (bond instanceof LogicalBond) {
+
+	    LogicalBond logicalBond = (LogicalBond) bond;
+
+	    List<String> operands = new ArrayList<>();
+
+	    for (Bond operand : logicalBond.getOperands()) {
+
+		StringBuilder operandBuilder = new StringBuilder();
+
+		if (!normalize(operand, dataFolderMap, operandBuilder)) {
+
+		    return false;
+		}
+
+		operands.add(operandBuilder.toString());
+	    }
+
+	    Collections.sort(operands);
+
+	    builder.append(logicalBond.getLogicalOperator());
+	    builder.append("(");
+	    builder.append(String.join(",", operands));
+	    builder.append(")");
+
+	    return true;
+	}
+
+	if (bond instanceof ResourcePropertyBond) {
+
+	    ResourcePropertyBond rpBond = (ResourcePropertyBond) bond;
+
+	    if (rpBond.getOperator() == BondOperator.MIN || //
+		    rpBond.getOperator() == BondOperator.MAX || //
+		    rpBond.getProperty() == ResourceProperty.IS_GEOSS_DATA_CORE) {
+
+		return false;
+	    }
+
+	    if (rpBond.getProperty() == ResourceProperty.SOURCE_ID) {
+
+		builder.append("[");
+		builder.append(dataFolderMap.get(rpBond.getPropertyValue()));
+		builder.append("]");
+	    }
+	}
+
+	builder.append(bond.getClass().getSimpleName());
+	builder.append("[");
+	builder.append(bond);
+	builder.append("]");
+
+	return true;
+    }
+}
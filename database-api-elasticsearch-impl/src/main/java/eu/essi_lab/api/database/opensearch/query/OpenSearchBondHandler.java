@@ -24,9 +24,14 @@ package eu.essi_lab.api.database.opensearch.query;
  * #L%
  */
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 
+import org.opensearch.client.opensearch._types.query_dsl.BoolQuery;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
 
 import eu.essi_lab.api.database.opensearch.OpenSearchWrapper;
@@ -35,6 +40,7 @@ import eu.essi_lab.messages.DiscoveryMessage;
 import eu.essi_lab.messages.bond.Bond;
 import eu.essi_lab.messages.bond.BondOperator;
 import eu.essi_lab.messages.bond.LogicalBond;
+import eu.essi_lab.messages.bond.LogicalBond.LogicalOperator;
 import eu.essi_lab.messages.bond.QueryableBond;
 import eu.essi_lab.messages.bond.ResourcePropertyBond;
 import eu.essi_lab.messages.bond.RuntimeInfoElementBond;
@@ -48,6 +54,9 @@ import eu.essi_lab.model.resource.MetadataElement;
 import eu.essi_lab.model.resource.ResourceProperty;
 
 /**
+ * Compiles the parsed bond into a {@link Query}. The clauses of each logical bond are collected in a stack of frames,
+ * and when the logical bond ends they are added to a {@link BoolQuery} which becomes a clause of the enclosing frame
+ * 
  * @author Fabrizio
  */
 public class OpenSearchBondHandler implements DiscoveryBondHandler {
@@ -56,6 +65,7 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
     private Optional<OrderingDirection> orderingDirection;
     private Optional<Queryable> orderingProperty;
     private OpenSearchQueryBuilder queryBuilder;
+    private Deque<List<Query>> frames;
 
     /**
      * @param wrapper
@@ -71,39 +81,39 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
 		wrapper, message.getRankingStrategy(), //
 		map, //
 		message.isDeletedIncluded());
+
+	this.frames = new ArrayDeque<>();
+	this.frames.push(new ArrayList<>());
     }
 
     @Override
     public void startLogicalBond(LogicalBond bond) {
 
-	switch (bond.getLogicalOperator()) {
-	case AND:
-	    queryBuilder.appendBoolMustOpenTag();
-	    break;
-	case OR:
-	    queryBuilder.appendBoolShouldOpenTag();
-	    break;
-	case NOT:
-	    queryBuilder.appendBoolMustNotOpenTag();
-	    break;
-	}
+	frames.push(new ArrayList<>());
     }
 
     @Override
     public void endLogicalBond(LogicalBond bond) {
 
-	switch (bond.getLogicalOperator()) {
+	List<Query> clauses = frames.pop();
+
+	BoolQuery.Builder builder = new BoolQuery.Builder();
+
+	LogicalOperator operator = bond.getLogicalOperator();
+
+	switch (operator) {
 	case AND:
-	    queryBuilder.appendClosingTag(false);
+	    builder.must(clauses);
 	    break;
 	case OR:
-	    queryBuilder.appendClosingTag(true);
+	    builder.should(clauses).minimumShouldMatch("1");
 	    break;
-
 	case NOT:
-	    queryBuilder.appendClosingTag(false);
+	    builder.mustNot(clauses);
 	    break;
 	}
+
+	append(builder.build().toQuery());
     }
 
     @Override
@@ -117,13 +127,13 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
 
 	if (operator == BondOperator.EXISTS) {
 
-	    queryBuilder.append(OpenSearchQueryBuilder.buildExistsFieldQuery(name));
+	    append(OpenSearchQueryBuilder.buildExistsFieldQuery(name));
 	    return;
 	}
 
 	if (operator == BondOperator.NOT_EXISTS) {
 
-	    queryBuilder.append(OpenSearchQueryBuilder.buildNotExistsFieldQuery(name));
+	    append(OpenSearchQueryBuilder.buildNotExistsFieldQuery(name));
 	    return;
 	}
 
@@ -136,7 +146,7 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
 
 		try {
 
-		    queryBuilder.append(queryBuilder.buildMinMaxResourceTimeStampValue(value, bond.getOperator()));
+		    append(queryBuilder.buildMinMaxResourceTimeStampValue(value, bond.getOperator()));
 		    return;
 
 		} catch (Exception ex) {
@@ -155,7 +165,7 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
 		case ISO8601_DATE_TIME:
 
 		    try {
-			queryBuilder.append(queryBuilder.buildMinMaxValueQuery(name, operator == BondOperator.MAX, true));
+			append(queryBuilder.buildMinMaxValueQuery(name, operator == BondOperator.MAX, true));
 			return;
 
 		    } catch (Exception ex) {
@@ -172,17 +182,17 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
 	switch (property) {
 	case SOURCE_ID:
 
-	    queryBuilder.append(queryBuilder.buildSourceIdQuery(bond));
+	    append(queryBuilder.buildSourceIdQuery(bond));
 	    return;
 
 	case IS_GEOSS_DATA_CORE:
 
-	    queryBuilder.append(OpenSearchQueryBuilder.buildIsGDCQuery(value));
+	    append(OpenSearchQueryBuilder.buildIsGDCQuery(value));
 	    return;
 
 	default:
 
-	    queryBuilder.append(OpenSearchQueryBuilder.buildRangeQuery(name, operator, value));
+	    append(OpenSearchQueryBuilder.buildRangeQuery(name, operator, value));
 	}
     }
 
@@ -203,19 +213,17 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
 		    bond.getPropertyValue());
 	}
 
-	queryBuilder.append(query);
+	append(query);
     }
 
     @Override
     public void separator() {
-
-	queryBuilder.appendSeparator();
     }
 
     @Override
     public void spatialBond(SpatialBond bond) {
 
-	queryBuilder.append(OpenSearchQueryBuilder.buildGeoShapeQuery(bond));
+	append(OpenSearchQueryBuilder.buildGeoShapeQuery(bond));
     }
 
     @Override
@@ -240,6 +248,29 @@ public class OpenSearchBondHandler implements DiscoveryBondHandler {
      */
     public Query getQuery(boolean count) {
 
-	return queryBuilder.build(count);
+	List<Query> root = frames.peekLast();
+
+	Query searchQuery = null;
+
+	switch (root.size()) {
+	case 0:
+	    searchQuery = OpenSearchQueryBuilder.buildMatchAllQuery();
+	    break;
+	case 1:
+	    searchQuery = root.get(0);
+	    break;
+	default:
+	    searchQuery = new BoolQuery.Builder().must(root).build().toQuery();
+	}
+
+	return queryBuilder.build(searchQuery, count);
+    }
+
+    /**
+     * @param query
+     */
+    private void append(Query query) {
+
+	frames.peek().add(query);
     }
 }
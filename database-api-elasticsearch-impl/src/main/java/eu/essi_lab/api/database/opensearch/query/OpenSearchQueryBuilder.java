@@ -54,7 +54,6 @@ import org.opensearch.client.opensearch.core.msearch.MultisearchBody;
 import org.opensearch.client.opensearch.core.msearch.MultisearchHeader;
 import org.opensearch.client.opensearch.core.msearch.RequestItem;
 
-import eu.essi_lab.api.database.opensearch.ConversionUtils;
 import eu.essi_lab.api.database.opensearch.OpenSearchFolder;
 import eu.essi_lab.api.database.opensearch.OpenSearchWrapper;
 import eu.essi_lab.api.database.opensearch.index.IndexData;
@@ -80,7 +79,6 @@ import eu.essi_lab.model.resource.ResourceProperty;
 public class OpenSearchQueryBuilder {
 
     private HashMap<String, String> dfMap;
-    private StringBuilder builder;
     private RankingStrategy ranking;
     private boolean deletedIncluded;
     private OpenSearchWrapper wrapper;
@@ -96,62 +94,6 @@ public class OpenSearchQueryBuilder {
 	this.ranking = ranking;
 	this.dfMap = dataFolderMap;
 	this.deletedIncluded = deletedIncluded;
-	this.builder = new StringBuilder();
-    }
-
-    /**
-     * @param query
-     */
-    public void append(Query query) {
-
-	builder.append(ConversionUtils.toJSONObject(query).toString(3));
-    }
-
-    /**
-     * 
-     */
-    public void appendSeparator() {
-
-	builder.append(", \n");
-    }
-
-    /**
-     *  
-     */
-    public void appendBoolMustOpenTag() {
-
-	builder.append("{ \"bool\": \n{ \"must\": [ \n ");
-    }
-
-    /**
-     *  
-     */
-    public void appendBoolShouldOpenTag() {
-
-	builder.append("{ \"bool\": \n{ \"should\": [ \n ");
-    }
-
-    /**
-     *  
-     */
-    public void appendBoolMustNotOpenTag() {
-
-	builder.append("{ \"bool\": \n{ \"mustNot\": [ \n ");
-    }
-
-    /**
-     * @param minimumShouldMatch
-     */
-    public void appendClosingTag(boolean minimumShouldMatch) {
-
-	if (minimumShouldMatch) {
-
-	    builder.append("\n], \"minimum_should_match\": \"1\" \n} \n}");
-
-	} else {
-
-	    builder.append("\n] \n} \n}");
-	}
     }
 
     /**
@@ -298,11 +240,11 @@ public class OpenSearchQueryBuilder {
     }
 
     /**
+     * @param searchQuery the query compiled from the bond
+     * @param count
      * @return
      */
-    public Query build(boolean count) {
-
-	Query searchQuery = ConversionUtils.toQuery(new JSONObject(builder.toString()));
+    public Query build(Query searchQuery, boolean count) {
 
 	Query basicQuery = buildBasicQuery(count);
 
@@ -420,6 +362,34 @@ public class OpenSearchQueryBuilder {
 	return boolQuery.toQuery();
     }
 
+    /**
+     * Builds a query which searches the resources of the given data <code>folder</code>.<br>
+     * <b>Constraints</b>: databaseId = getDatabase().getIdentifier() AND folderName = getName() AND index = data-folder
+     * [AND isDeleted = false]
+     * 
+     * @param folder
+     * @param excludeDeleted
+     * @return
+     */
+    public static Query buildSearchResourcesQuery(OpenSearchFolder folder, boolean excludeDeleted) {
+
+	List<Query> filters = new ArrayList<>();
+
+	filters.add(buildDatabaseIdQuery(folder.getDatabase().getIdentifier()));
+	filters.add(buildFolderNameQuery(folder));
+	filters.add(buildIndexQuery(DataFolderMapping.get().getIndex()));
+
+	if (excludeDeleted) {
+
+	    filters.add(buildDeletedExcludedQuery());
+	}
+
+	return new BoolQuery.Builder().//
+		filter(filters).//
+		build().//
+		toQuery();
+    }
+
     /**
      * @param databaseId
      * @param sourceId
@@ -927,7 +897,7 @@ public class OpenSearchQueryBuilder {
     /**
      * @return
      */
-    private Query buildDeletedExcludedQuery() {
+    private static Query buildDeletedExcludedQuery() {
 
 	Query missingField = createNotQuery(buildExistsFieldQuery(ResourceProperty.IS_DELETED.getName()));
 
@@ -0,0 +1,637 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.opensearch.query;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import eu.essi_lab.api.database.opensearch.ConversionUtils;
+import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
+import eu.essi_lab.indexes.IndexedElements;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.lib.utils.ISO8601DateTimeUtils;
+import eu.essi_lab.lib.utils.StringUtils;
+import eu.essi_lab.messages.bond.BondFactory;
+import eu.essi_lab.messages.bond.BondOperator;
+import eu.essi_lab.messages.bond.SpatialExtent;
+import eu.essi_lab.messages.stats.ComputationResult;
+import eu.essi_lab.messages.stats.RegionsManager;
+import eu.essi_lab.messages.stats.ResponseItem;
+import eu.essi_lab.messages.stats.StatisticsMessage;
+import eu.essi_lab.messages.stats.StatisticsMessage.GroupByPeriod;
+import eu.essi_lab.model.Queryable;
+import eu.essi_lab.model.Queryable.ContentType;
+import eu.essi_lab.model.RuntimeInfoElement;
+import eu.essi_lab.model.resource.MetadataElement;
+
+/**
+ * Compiles a {@link StatisticsMessage} into the aggregations of a single OpenSearch search request, and converts the
+ * aggregation results in the {@link ResponseItem}s of the statistics response.<br>
+ * <br>
+ * The computations of each response item are expressed as sibling aggregations: <code>stats</code> for min, max, sum and
+ * avg, <code>cardinality</code> for count distinct, <code>terms</code> (or <code>filters</code> of the regions, in case of
+ * bounding box) for frequency, <code>geo_bounds</code> for the bbox union and <code>min/max</code> for the temporal
+ * extent union.<br>
+ * When a group by target is set, they become sub-aggregations of a <code>composite</code> aggregation which is paged with
+ * its <code>after_key</code>; when a group by period is set, they become sub-aggregations of a
+ * <code>date_histogram</code> with a fixed interval equal to the sub-period
+ *
+ * @author Fabrizio
+ */
+public class StatisticsAggregationBuilder {
+
+    /**
+     * Name of the grouping aggregation, either <code>composite</code> or <code>date_histogram</code>
+     */
+    public static final String GROUP_AGG = "group";
+
+    /**
+     * Name of the <code>filter</code> aggregation which restricts the grouping by period to the requested page
+     */
+    public static final String PERIOD_FILTER_AGG = "periodFilter";
+
+    /**
+     * Name of the <code>cardinality</code> aggregation which counts the items grouped by target
+     */
+    public static final String ITEMS_COUNT_AGG = "itemsCount";
+
+    /**
+     * Name of the <code>composite</code> aggregation source
+     */
+    public static final String GROUP_SOURCE = "value";
+
+    private static final String STATS_PREFIX = "stats_";
+    private static final String MIN_PREFIX = "min_";
+    private static final String MAX_PREFIX = "max_";
+    private static final String COUNT_DISTINCT_PREFIX = "countDistinct_";
+    private static final String FREQUENCY_PREFIX = "frequency_";
+    private static final String BBOX_UNION = "bboxUnion";
+    private static final String TEMP_EXTENT_BEGIN_MIN = "tmpExtentBeginMin";
+    private static final String TEMP_EXTENT_END_MAX = "tmpExtentEndMax";
+    private static final String TEMP_EXTENT_END_NOW = "tmpExtentEndNow";
+
+    private static final String BBOX_UNION_TARGET = "bbox";
+    private static final String TEMP_EXTENT_UNION_TARGET = "tmpExtent";
+
+    /**
+     * Max value supported by the <code>cardinality</code> aggregation, below which the counts are expected to be close
+     * to accurate
+     */
+    private static final int PRECISION_THRESHOLD = 40000;
+    private static final int DEFAULT_MAX_FREQUENCY_ITEMS = 10;
+
+    private StatisticsMessage message;
+    private JSONObject itemAggregations;
+
+    /**
+     * @param message
+     */
+    public StatisticsAggregationBuilder(StatisticsMessage message) {
+
+	this.message = message;
+
+	if (message.isQueryBboxUnionComputationSet() || message.isQueryTempExtentUnionComputationSet()) {
+
+	    GSLoggerFactory.getLogger(getClass()).warn("Query bbox and temporal extent unions are not supported, ignoring them");
+	}
+    }
+
+    /**
+     * Builds the aggregations which compute the results of a single response item. They are built once and shared by
+     * all the buckets of the grouping aggregations
+     *
+     * @return
+     */
+    public JSONObject buildItemAggregations() {
+
+	if (itemAggregations != null) {
+
+	    return itemAggregations;
+	}
+
+	JSONObject aggs = new JSONObject();
+
+	if (message.isBboxUnionComputationSet()) {
+
+	    aggs.put(BBOX_UNION, agg("geo_bounds", new JSONObject().put("field", MetadataElement.BOUNDING_BOX.getName())));
+	}
+
+	if (message.isTempExtentUnionComputationSet()) {
+
+	    aggs.put(TEMP_EXTENT_BEGIN_MIN, agg("min", field(MetadataElement.TEMP_EXTENT_BEGIN.getName())));
+	    aggs.put(TEMP_EXTENT_END_MAX, agg("max", field(MetadataElement.TEMP_EXTENT_END.getName())));
+
+	    aggs.put(TEMP_EXTENT_END_NOW, agg("filter", new JSONObject().put("term", //
+		    new JSONObject().put(IndexedElements.TEMP_EXTENT_END_NOW.getElementName(), true))));
+	}
+
+	for (Queryable target : message.getCountDistinctTargets().orElse(new ArrayList<>())) {
+
+	    aggs.put(COUNT_DISTINCT_PREFIX + target.getName(), agg("cardinality", //
+		    field(toAggregationField(target)).put("precision_threshold", PRECISION_THRESHOLD)));
+	}
+
+	int maxItems = message.getMaxFrequencyItems().orElse(DEFAULT_MAX_FREQUENCY_ITEMS);
+
+	for (Queryable target : message.getFrequencyTargets().orElse(new ArrayList<>())) {
+
+	    if (target == MetadataElement.BOUNDING_BOX) {
+
+		aggs.put(FREQUENCY_PREFIX + target.getName(), buildRegionsAggregation());
+
+	    } else if (target == RuntimeInfoElement.DISCOVERY_MESSAGE_BBOX) {
+
+		GSLoggerFactory.getLogger(getClass()).warn("Frequency of {} not supported, ignoring it", target.getName());
+
+	    } else {
+
+		aggs.put(FREQUENCY_PREFIX + target.getName(), agg("terms", //
+			field(toAggregationField(target)).put("size", maxItems)));
+	    }
+	}
+
+	for (Queryable target : getFunctionTargets()) {
+
+	    if (isNumeric(target)) {
+
+		aggs.put(STATS_PREFIX + target.getName(), agg("stats", field(target.getName())));
+
+	    } else {
+
+		//
+		// min and max of textual values are the first and last terms in lexicographic order
+		//
+		aggs.put(MIN_PREFIX + target.getName(), buildFirstTermAggregation(target, "asc"));
+		aggs.put(MAX_PREFIX + target.getName(), buildFirstTermAggregation(target, "desc"));
+	    }
+	}
+
+	itemAggregations = aggs;
+
+	return aggs;
+    }
+
+    /**
+     * Builds the <code>composite</code> aggregation which groups the items by the group by target
+     *
+     * @param afterKey the <code>after_key</code> of the previous page, or <code>null</code> for the first page
+     * @param size
+     * @param computeItems if <code>false</code> the item aggregations are omitted, which is the case of the pages
+     *        skipped to reach the requested start index
+     * @return
+     */
+    public JSONObject buildGroupByTargetAggregation(JSONObject afterKey, int size, boolean computeItems) {
+
+	Queryable target = message.getGroupByTarget().get();
+
+	JSONObject source = new JSONObject().put(GROUP_SOURCE, //
+		agg("terms", field(toAggregationField(target))));
+
+	JSONObject composite = new JSONObject();
+	composite.put("size", size);
+	composite.put("sources", new JSONArray().put(source));
+
+	if (afterKey != null) {
+
+	    composite.put("after", afterKey);
+	}
+
+	JSONObject group = agg("composite", composite);
+
+	if (computeItems) {
+
+	    group.put("aggs", buildItemAggregations());
+	}
+
+	return new JSONObject().put(GROUP_AGG, group);
+    }
+
+    /**
+     * Builds the <code>cardinality</code> aggregation which counts the items grouped by the group by target
+     *
+     * @return
+     */
+    public JSONObject buildItemsCountAggregation() {
+
+	Queryable target = message.getGroupByTarget().get();
+
+	return agg("cardinality", field(toAggregationField(target)).put("precision_threshold", PRECISION_THRESHOLD));
+    }
+
+    /**
+     * Builds the <code>date_histogram</code> aggregation which groups the items of the sub-periods from
+     * <code>from</code> (inclusive) to <code>to</code> (exclusive)
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    public JSONObject buildGroupByPeriodAggregation(long from, long to) {
+
+	GroupByPeriod groupByPeriod = message.getGroupByPeriod().get();
+
+	String target = groupByPeriod.getTarget().getName();
+
+	long subPeriod = getSubPeriod(groupByPeriod);
+
+	JSONObject histogram = new JSONObject();
+	histogram.put("field", target);
+	histogram.put("fixed_interval", subPeriod + "ms");
+	histogram.put("offset", Math.floorMod(from, subPeriod) + "ms");
+	histogram.put("min_doc_count", 0);
+	histogram.put("extended_bounds", new JSONObject().put("min", from).put("max", to - 1));
+
+	JSONObject group = agg("date_histogram", histogram);
+	group.put("aggs", buildItemAggregations());
+
+	JSONObject range = new JSONObject().put("range", new JSONObject().put(target, //
+		new JSONObject().put("gte", from).put("lt", to)));
+
+	JSONObject filter = agg("filter", range);
+	filter.put("aggs", new JSONObject().put(GROUP_AGG, group));
+
+	return new JSONObject().put(PERIOD_FILTER_AGG, filter);
+    }
+
+    /**
+     * @param groupByPeriod
+     * @return the number of sub-periods
+     */
+    public static int getFraction(GroupByPeriod groupByPeriod) {
+
+	return Math.max(1, (int) Math.ceil(groupByPeriod.getFraction()));
+    }
+
+    /**
+     * @param groupByPeriod
+     * @return the length in milliseconds of each sub-period
+     */
+    public static long getSubPeriod(GroupByPeriod groupByPeriod) {
+
+	return Math.max(1, groupByPeriod.getPeriod() / getFraction(groupByPeriod));
+    }
+
+    /**
+     * Converts the results of the aggregations built by {@link #buildItemAggregations()}
+     *
+     * @param groupedBy the grouped by value, or <code>null</code> if the items are not grouped
+     * @param aggregations the object containing the results, either the response <code>aggregations</code> or a
+     *        bucket of the grouping aggregation
+     * @return
+     */
+    public ResponseItem toResponseItem(String groupedBy, JSONObject aggregations) {
+
+	ResponseItem item = new ResponseItem(groupedBy);
+
+	if (message.isBboxUnionComputationSet()) {
+
+	    ComputationResult result = new ComputationResult();
+	    result.setTarget(BBOX_UNION_TARGET);
+	    result.setValue("");
+
+	    JSONObject bounds = aggregations.getJSONObject(BBOX_UNION).optJSONObject("bounds");
+
+	    if (bounds != null) {
+
+		JSONObject topLeft = bounds.getJSONObject("top_left");
+		JSONObject bottomRight = bounds.getJSONObject("bottom_right");
+
+		// west south east north
+		result.setValue(topLeft.get("lon") + " " + bottomRight.get("lat") + " " + bottomRight.get("lon") + " " + topLeft.get("lat"));
+	    }
+
+	    item.setBBoxUnion(result);
+	}
+
+	if (message.isTempExtentUnionComputationSet()) {
+
+	    ComputationResult result = new ComputationResult();
+	    result.setTarget(TEMP_EXTENT_UNION_TARGET);
+
+	    Optional<Double> begin = getValue(aggregations.getJSONObject(TEMP_EXTENT_BEGIN_MIN));
+	    Optional<Double> end = getValue(aggregations.getJSONObject(TEMP_EXTENT_END_MAX));
+
+	    String endValue = end.map(v -> toISO8601(v)).orElse("");
+
+	    if (aggregations.getJSONObject(TEMP_EXTENT_END_NOW).getLong("doc_count") > 0) {
+
+		endValue = ISO8601DateTimeUtils.getISO8601DateTime();
+	    }
+
+	    result.setValue(begin.map(v -> toISO8601(v)).orElse("") + " " + endValue);
+
+	    item.setTempExtentUnion(result);
+	}
+
+	for (Queryable target : message.getCountDistinctTargets().orElse(new ArrayList<>())) {
+
+	    JSONObject agg = aggregations.getJSONObject(COUNT_DISTINCT_PREFIX + target.getName());
+
+	    item.addCountDistinct(createResult(target, String.valueOf(agg.getLong("value"))));
+	}
+
+	for (Queryable target : message.getFrequencyTargets().orElse(new ArrayList<>())) {
+
+	    JSONObject agg = aggregations.optJSONObject(FREQUENCY_PREFIX + target.getName());
+
+	    if (agg != null) {
+
+		item.addFrequency(createResult(target, toFrequencyValue(target, agg)));
+	    }
+	}
+
+	message.getMaxTargets().ifPresent(list -> list.forEach(target -> {
+
+	    item.addMax(createResult(target, getFunctionValue(target, "max", aggregations)));
+	}));
+
+	message.getMinTargets().ifPresent(list -> list.forEach(target -> {
+
+	    item.addMin(createResult(target, getFunctionValue(target, "min", aggregations)));
+	}));
+
+	message.getSumTargets().ifPresent(list -> list.forEach(target -> {
+
+	    item.addSum(createResult(target, getFunctionValue(target, "sum", aggregations)));
+	}));
+
+	message.getAvgTargets().ifPresent(list -> list.forEach(target -> {
+
+	    item.addAvg(createResult(target, getFunctionValue(target, "avg", aggregations)));
+	}));
+
+	return item;
+    }
+
+    /**
+     * @param target
+     * @return the name of the field to aggregate, which is the keyword version of the field in case of textual
+     *         targets
+     */
+    public static String toAggregationField(Queryable target) {
+
+	DataFolderMapping.get();
+
+	if (DataFolderMapping.AGGREGABLE_FIELDS.contains(target.getName())) {
+
+	    return DataFolderMapping.toAggField(target.getName());
+	}
+
+	return target.getName();
+    }
+
+    /**
+     * @return
+     */
+    private List<Queryable> getFunctionTargets() {
+
+	LinkedHashMap<String, Queryable> targets = new LinkedHashMap<>();
+
+	message.getMaxTargets().ifPresent(list -> list.forEach(t -> targets.put(t.getName(), t)));
+	message.getMinTargets().ifPresent(list -> list.forEach(t -> targets.put(t.getName(), t)));
+	message.getSumTargets().ifPresent(list -> list.forEach(t -> targets.put(t.getName(), t)));
+	message.getAvgTargets().ifPresent(list -> list.forEach(t -> targets.put(t.getName(), t)));
+
+	return new ArrayList<>(targets.values());
+    }
+
+    /**
+     * @param target
+     * @param function one of <code>min</code>, <code>max</code>, <code>sum</code> and <code>avg</code>
+     * @param aggregations
+     * @return
+     */
+    private String getFunctionValue(Queryable target, String function, JSONObject aggregations) {
+
+	if (isNumeric(target)) {
+
+	    JSONObject stats = aggregations.getJSONObject(STATS_PREFIX + target.getName());
+
+	    if (stats.getLong("count") == 0 || stats.isNull(function)) {
+
+		return "";
+	    }
+
+	    double value = stats.getDouble(function);
+
+	    switch (target.getContentType()) {
+	    case ISO8601_DATE:
+	    case ISO8601_DATE_TIME:
+
+		return function.equals("sum") ? String.valueOf((long) value) : toISO8601(value);
+
+	    case INTEGER:
+	    case LONG:
+
+		return function.equals("avg") ? String.valueOf(value) : String.valueOf((long) value);
+
+	    default:
+
+		return String.valueOf(value);
+	    }
+	}
+
+	switch (function) {
+	case "min":
+	case "max":
+
+	    JSONArray buckets = aggregations.//
+		    getJSONObject((function.equals("min") ? MIN_PREFIX : MAX_PREFIX) + target.getName()).//
+		    getJSONArray("buckets");
+
+	    return buckets.length() == 0 ? "" : buckets.getJSONObject(0).get("key").toString();
+
+	default:
+
+	    // sum and avg of textual values
+	    return "";
+	}
+    }
+
+    /**
+     * @param target
+     * @param agg
+     * @return
+     */
+    private String toFrequencyValue(Queryable target, JSONObject agg) {
+
+	if (target == MetadataElement.BOUNDING_BOX) {
+
+	    //
+	    // keyed filters, one for each region
+	    //
+	    JSONObject buckets = agg.getJSONObject("buckets");
+
+	    return buckets.keySet().//
+		    stream().//
+		    map(region -> region + ComputationResult.FREQUENCY_ITEM_SEP + buckets.getJSONObject(region).getLong("doc_count")).//
+		    collect(Collectors.joining(" "));
+	}
+
+	JSONArray buckets = agg.getJSONArray("buckets");
+
+	List<String> items = new ArrayList<>();
+
+	for (int i = 0; i < buckets.length(); i++) {
+
+	    JSONObject bucket = buckets.getJSONObject(i);
+
+	    String term = bucket.get("key").toString();
+
+	    if (!term.isEmpty()) {
+
+		items.add(StringUtils.URLEncodeUTF8(term) + ComputationResult.FREQUENCY_ITEM_SEP + bucket.getLong("doc_count"));
+	    }
+	}
+
+	return String.join(" ", items);
+    }
+
+    /**
+     * The keys of the filters are the regions bboxes in the form 'south,west,north,east', as expected by
+     * {@link RegionsManager#getLocation(String)}
+     *
+     * @return
+     */
+    private JSONObject buildRegionsAggregation() {
+
+	JSONObject filters = new JSONObject();
+
+	JSONArray regions = RegionsManager.getRegions();
+
+	for (int i = 0; i < regions.length(); i++) {
+
+	    JSONObject region = regions.getJSONObject(i);
+
+	    String south = region.get("south").toString();
+	    String west = region.get("west").toString();
+	    String north = region.get("north").toString();
+	    String east = region.get("east").toString();
+
+	    SpatialExtent extent = new SpatialExtent(//
+		    Double.valueOf(south), //
+		    Double.valueOf(west), //
+		    Double.valueOf(north), //
+		    Double.valueOf(east));
+
+	    JSONObject query = ConversionUtils.toJSONObject(//
+		    OpenSearchQueryBuilder.buildGeoShapeQuery(BondFactory.createSpatialExtentBond(BondOperator.CONTAINS, extent)));
+
+	    filters.put(south + "," + west + "," + north + "," + east, query);
+	}
+
+	return agg("filters", new JSONObject().put("filters", filters));
+    }
+
+    /**
+     * @param target
+     * @param order
+     * @return
+     */
+    private JSONObject buildFirstTermAggregation(Queryable target, String order) {
+
+	return agg("terms", field(toAggregationField(target)).//
+		put("size", 1).//
+		put("order", new JSONObject().put("_key", order)));
+    }
+
+    /**
+     * @param target
+     * @param value
+     * @return
+     */
+    private ComputationResult createResult(Queryable target, String value) {
+
+	ComputationResult result = new ComputationResult();
+	result.setTarget(target.getName());
+	result.setValue(value);
+
+	return result;
+    }
+
+    /**
+     * @param target
+     * @return
+     */
+    private boolean isNumeric(Queryable target) {
+
+	ContentType type = target.getContentType();
+
+	return type == ContentType.DOUBLE || //
+		type == ContentType.INTEGER || //
+		type == ContentType.LONG || //
+		type == ContentType.ISO8601_DATE || //
+		type == ContentType.ISO8601_DATE_TIME;
+    }
+
+    /**
+     * @param agg
+     * @return
+     */
+    private Optional<Double> getValue(JSONObject agg) {
+
+	if (agg.isNull("value")) {
+
+	    return Optional.empty();
+	}
+
+	return Optional.of(agg.getDouble("value"));
+    }
+
+    /**
+     * @param millis
+     * @return
+     */
+    private String toISO8601(double millis) {
+
+	return ISO8601DateTimeUtils.getISO8601DateTime(new Date((long) millis));
+    }
+
+    /**
+     * @param type
+     * @param body
+     * @return
+     */
+    private static JSONObject agg(String type, JSONObject body) {
+
+	return new JSONObject().put(type, body);
+    }
+
+    /**
+     * @param field
+     * @return
+     */
+    private static JSONObject field(String field) {
+
+	return new JSONObject().put("field", field);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * 
+ */
+package eu.essi_lab.api.database.opensearch.codec.test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.api.database.opensearch.ConversionUtils;
+import eu.essi_lab.api.database.opensearch.index.IndexData;
+import eu.essi_lab.api.database.opensearch.index.ResourceCodec;
+import eu.essi_lab.api.database.opensearch.index.SourceWrapper;
+import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+
+/**
+ * @author Fabrizio
+ */
+public class ResourceCodecTest {
+
+    @Test
+    public void roundTripTest() {
+
+	byte[] bytes = "<gs:Dataset>test</gs:Dataset>".getBytes(StandardCharsets.UTF_8);
+
+	Assert.assertArrayEquals(bytes, ResourceCodec.PLAIN.decode(ResourceCodec.PLAIN.encode(bytes)));
+	Assert.assertArrayEquals(bytes, ResourceCodec.GZIP.decode(ResourceCodec.GZIP.encode(bytes)));
+
+	Assert.assertEquals(ResourceCodec.GZIP, ResourceCodec.forTag(ResourceCodec.GZIP.getTag()));
+	Assert.assertEquals(ResourceCodec.PLAIN, ResourceCodec.forTag(ResourceCodec.PLAIN.getTag()));
+
+	try {
+	    ResourceCodec.forTag("unknown");
+	    Assert.fail("Exception not thrown");
+
+	} catch (IllegalArgumentException ex) {
+	}
+    }
+
+    @Test
+    public void legacySourceTest() throws Exception {
+
+	Dataset dataset = createDataset();
+
+	//
+	// sources stored before the codecs have no tag and a plain Base64 value
+	//
+
+	JSONObject legacy = createSource(Base64.getEncoder().encodeToString(dataset.asString(false).getBytes(StandardCharsets.UTF_8)));
+
+	Assert.assertEquals(ResourceCodec.PLAIN, new SourceWrapper(legacy).getBinaryCodec());
+
+	Optional<GSResource> resource = ConversionUtils.toGSResource(legacy);
+
+	Assert.assertTrue(resource.isPresent());
+	Assert.assertEquals(dataset.getPrivateId(), resource.get().getPrivateId());
+	Assert.assertEquals("Title", resource.get().getHarmonizedMetadata().getCoreMetadata().getTitle());
+    }
+
+    @Test
+    public void gzipSourceTest() throws Exception {
+
+	Dataset dataset = createDataset();
+
+	String encoded = ConversionUtils.encode(dataset, ResourceCodec.GZIP);
+
+	JSONObject source = createSource(encoded);
+	source.put(IndexData.BINARY_CODEC, ResourceCodec.GZIP.getTag());
+
+	Assert.assertEquals(ResourceCodec.GZIP, new SourceWrapper(source).getBinaryCodec());
+
+	Optional<GSResource> resource = ConversionUtils.toGSResource(source);
+
+	Assert.assertTrue(resource.isPresent());
+	Assert.assertEquals(dataset.getPrivateId(), resource.get().getPrivateId());
+	Assert.assertEquals("Title", resource.get().getHarmonizedMetadata().getCoreMetadata().getTitle());
+
+	//
+	// the compressed and unformatted value is smaller than the formatted one
+	//
+
+	ByteArrayOutputStream formatted = new ByteArrayOutputStream();
+	dataset.toStream(formatted);
+
+	String plain = ResourceCodec.PLAIN.encode(formatted.toByteArray());
+
+	Assert.assertTrue(encoded.length() < plain.length());
+    }
+
+    /**
+     * @param encoded
+     * @return
+     */
+    private JSONObject createSource(String encoded) {
+
+	JSONObject source = new JSONObject();
+	source.put(IndexData.BINARY_PROPERTY, DataFolderMapping.GS_RESOURCE);
+	source.put(DataFolderMapping.GS_RESOURCE, encoded);
+
+	return source;
+    }
+
+    /**
+     * @return
+     */
+    private Dataset createDataset() {
+
+	Dataset dataset = new Dataset();
+	dataset.setPrivateId("privateId");
+	dataset.getHarmonizedMetadata().getCoreMetadata().setTitle("Title");
+	dataset.getHarmonizedMetadata().getCoreMetadata().setAbstract("Abstract");
+
+	return dataset;
+    }
+}
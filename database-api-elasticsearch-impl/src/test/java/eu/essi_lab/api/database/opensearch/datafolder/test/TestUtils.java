@@ -81,7 +81,7 @@ public class TestUtils {
 	Assert.assertTrue(optResource.isPresent());
 
 	String base64resource = optResource.get();
-	InputStream decoded = ConversionUtils.decode(base64resource);
+	InputStream decoded = ConversionUtils.decode(base64resource, wrapper.getBinaryCodec());
 
 	// this resource has no indexes, they must be added
 	GSResource decodedResource = GSResource.create(decoded);
@@ -0,0 +1,190 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.opensearch.finder.test;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import eu.essi_lab.api.database.DatabaseFolder.EntryType;
+import eu.essi_lab.api.database.DatabaseFolder.FolderEntry;
+import eu.essi_lab.api.database.opensearch.OpenSearchDatabase;
+import eu.essi_lab.api.database.opensearch.OpenSearchFinder;
+import eu.essi_lab.api.database.opensearch.OpenSearchFolder;
+import eu.essi_lab.api.database.opensearch.datafolder.test.TestUtils;
+import eu.essi_lab.api.database.opensearch.test.OpenSearchTest;
+import eu.essi_lab.indexes.IndexedElementsWriter;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.TotalHitsTracking;
+import eu.essi_lab.messages.count.DiscoveryCountResponse;
+import eu.essi_lab.messages.termfrequency.TermFrequencyMap.TermFrequencyTarget;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.Queryable;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.model.resource.ResourceProperty;
+
+/**
+ * @author Fabrizio
+ */
+public class OpenSearchFinderCountAndDiscoverTest extends OpenSearchTest {
+
+    private static final int RESOURCES = 250;
+    private static final int PAGE_SIZE = 20;
+
+    @Test
+    public void countAndDiscoverTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(RESOURCES);
+
+	DiscoveryMessage message = createMessage(new Page(41, PAGE_SIZE));
+	message.setTermFrequencyTargets(Arrays.asList(ResourceProperty.SOURCE_ID));
+
+	SimpleEntry<DiscoveryCountResponse, ResultSet<GSResource>> pair = finder.countAndDiscover(message, GSResource.class);
+
+	DiscoveryCountResponse countResponse = finder.count(message);
+	ResultSet<GSResource> resultSet = finder.discover(message);
+
+	Assert.assertEquals(RESOURCES, pair.getKey().getCount());
+	Assert.assertEquals(countResponse.getCount(), pair.getKey().getCount());
+
+	Assert.assertEquals(1, pair.getKey().getTermFrequencyMap().get().getItemsCount(TermFrequencyTarget.SOURCE));
+	Assert.assertEquals(//
+		countResponse.getTermFrequencyMap().get().getItems(TermFrequencyTarget.SOURCE).get(0).getFreq(), //
+		pair.getKey().getTermFrequencyMap().get().getItems(TermFrequencyTarget.SOURCE).get(0).getFreq());
+
+	Assert.assertEquals(toIds(resultSet), toIds(pair.getValue()));
+	Assert.assertEquals(PAGE_SIZE, pair.getValue().getResultsList().size());
+    }
+
+    @Test
+    public void nodesAndStringsTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(RESOURCES);
+
+	DiscoveryMessage message = createMessage(new Page(1, PAGE_SIZE));
+
+	SimpleEntry<DiscoveryCountResponse, ResultSet<Node>> nodes = finder.countAndDiscover(message, Node.class);
+
+	Assert.assertEquals(RESOURCES, nodes.getKey().getCount());
+	Assert.assertEquals(PAGE_SIZE, nodes.getValue().getResultsList().size());
+
+	SimpleEntry<DiscoveryCountResponse, ResultSet<String>> strings = finder.countAndDiscover(message, String.class);
+
+	Assert.assertEquals(RESOURCES, strings.getKey().getCount());
+	Assert.assertEquals(PAGE_SIZE, strings.getValue().getResultsList().size());
+    }
+
+    @Test
+    public void totalHitsTrackingTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(RESOURCES);
+
+	DiscoveryMessage message = createMessage(new Page(1, PAGE_SIZE));
+
+	message.setTotalHitsTracking(TotalHitsTracking.exact());
+
+	Assert.assertEquals(RESOURCES, finder.count(message).getCount());
+	Assert.assertEquals(RESOURCES, finder.countAndDiscover(message, GSResource.class).getKey().getCount());
+
+	// below the default threshold the approximate count is exact
+	message.setTotalHitsTracking(TotalHitsTracking.approximate());
+
+	Assert.assertEquals(RESOURCES, finder.count(message).getCount());
+
+	// the count stops at the threshold
+	message.setTotalHitsTracking(TotalHitsTracking.threshold(100));
+
+	Assert.assertEquals(100, finder.count(message).getCount());
+	Assert.assertEquals(100, finder.countAndDiscover(message, GSResource.class).getKey().getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedTypeTest() throws Exception {
+
+	OpenSearchFinder finder = new OpenSearchFinder();
+	finder.setDatabase(OpenSearchDatabase.createLocalService());
+
+	finder.countAndDiscover(createMessage(new Page(1, PAGE_SIZE)), Integer.class);
+    }
+
+    /**
+     * @param resultSet
+     * @return
+     */
+    private List<String> toIds(ResultSet<GSResource> resultSet) {
+
+	return resultSet.getResultsList().//
+		stream().//
+		map(GSResource::getPrivateId).//
+		collect(Collectors.toList());
+    }
+
+    /**
+     * @param page
+     * @return
+     */
+    private DiscoveryMessage createMessage(Page page) {
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setSources(new ArrayList<>());
+	message.setPage(page);
+	message.setTermFrequencyTargets(new ArrayList<Queryable>());
+
+	return message;
+    }
+
+    /**
+     * @param resources
+     * @return
+     * @throws Exception
+     */
+    private OpenSearchFinder createFinder(int resources) throws Exception {
+
+	OpenSearchDatabase database = OpenSearchDatabase.createLocalService();
+
+	OpenSearchFolder folder = new OpenSearchFolder(database, TestUtils.getDataFolderName(database));
+
+	GSSource source = new GSSource();
+	source.setUniqueIdentifier("source");
+
+	database.getBulkWriter().begin(folder);
+
+	try {
+
+	    for (int i = 0; i < resources; i++) {
+
+		Dataset dataset = new Dataset();
+		dataset.setSource(source);
+		dataset.setPrivateId("id-" + i);
+		dataset.setPublicId("id-" + i);
+		dataset.setOriginalId("original-" + i);
+		dataset.getHarmonizedMetadata().getCoreMetadata().setTitle("title " + i);
+
+		IndexedElementsWriter.write(dataset);
+
+		folder.store(dataset.getPrivateId(), //
+			FolderEntry.of(dataset.asDocument(true)), //
+			EntryType.GS_RESOURCE);
+	    }
+
+	} finally {
+
+	    database.getBulkWriter().end(folder);
+	}
+
+	OpenSearchFinder finder = new OpenSearchFinder();
+	finder.setDatabase(database);
+
+	return finder;
+    }
+}
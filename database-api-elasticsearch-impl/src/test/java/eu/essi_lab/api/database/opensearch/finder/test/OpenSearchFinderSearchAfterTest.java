@@ -0,0 +1,286 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.opensearch.finder.test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.api.database.DatabaseFolder.EntryType;
+import eu.essi_lab.api.database.DatabaseFolder.FolderEntry;
+import eu.essi_lab.api.database.opensearch.OpenSearchDatabase;
+import eu.essi_lab.api.database.opensearch.OpenSearchFinder;
+import eu.essi_lab.api.database.opensearch.OpenSearchFolder;
+import eu.essi_lab.api.database.opensearch.OpenSearchWrapper;
+import eu.essi_lab.api.database.opensearch.datafolder.test.TestUtils;
+import eu.essi_lab.api.database.opensearch.test.OpenSearchTest;
+import eu.essi_lab.indexes.IndexedElementsWriter;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.SearchAfter;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.Queryable;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+
+/**
+ * @author Fabrizio
+ */
+public class OpenSearchFinderSearchAfterTest extends OpenSearchTest {
+
+    private static final int RESOURCES = 250;
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * The number of resources of the benchmark can be set with the <code>paging.benchmarkResources</code> property,
+     * e.g. -Dpaging.benchmarkResources=1000000
+     */
+    private static final int BENCHMARK_RESOURCES = Integer.getInteger("paging.benchmarkResources", 20000);
+
+    /**
+     * The <code>from</code> + <code>size</code> limit of the offset paging
+     */
+    private static final int MAX_RESULT_WINDOW = 10000;
+
+    @Test
+    public void pageThroughTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(RESOURCES);
+
+	List<List<String>> pages = pageThrough(finder, PAGE_SIZE);
+
+	// 12 full pages and a last page of 10 resources
+	Assert.assertEquals(13, pages.size());
+	Assert.assertEquals(10, pages.get(12).size());
+
+	List<String> ids = pages.stream().flatMap(List::stream).collect(Collectors.toList());
+
+	Assert.assertEquals(RESOURCES, ids.size());
+	Assert.assertEquals(RESOURCES, new HashSet<>(ids).size());
+    }
+
+    @Test
+    public void expiredPointInTimeTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(RESOURCES);
+
+	List<List<String>> pages = pageThrough(finder, PAGE_SIZE);
+
+	DiscoveryMessage message = createMessage(new Page(1, PAGE_SIZE));
+	message.setSearchAfter(new SearchAfter());
+
+	SearchAfter cursor = finder.discover(message).getSearchAfter().get();
+
+	new OpenSearchWrapper(finder.getDatabase().getClient()).closePointInTime(cursor.getPointInTimeId().get());
+
+	//
+	// the second page is retrieved by offset in a new point in time
+	//
+
+	message.setPage(new Page(cursor.getStart(), PAGE_SIZE));
+	message.setSearchAfter(cursor);
+
+	ResultSet<GSResource> resultSet = finder.discover(message);
+
+	Assert.assertEquals(pages.get(1), toIds(resultSet));
+
+	SearchAfter next = resultSet.getSearchAfter().get();
+
+	Assert.assertEquals(2 * PAGE_SIZE + 1, next.getStart());
+	Assert.assertNotEquals(cursor.getPointInTimeId().get(), next.getPointInTimeId().get());
+    }
+
+    @Test
+    public void startMismatchTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(RESOURCES);
+
+	List<List<String>> pages = pageThrough(finder, PAGE_SIZE);
+
+	DiscoveryMessage message = createMessage(new Page(1, PAGE_SIZE));
+	message.setSearchAfter(new SearchAfter());
+
+	SearchAfter cursor = finder.discover(message).getSearchAfter().get();
+
+	//
+	// the cursor points to the second page, the third page is retrieved by offset in the cursor point in time
+	//
+
+	message.setPage(new Page(2 * PAGE_SIZE + 1, PAGE_SIZE));
+	message.setSearchAfter(cursor);
+
+	ResultSet<GSResource> resultSet = finder.discover(message);
+
+	Assert.assertEquals(pages.get(2), toIds(resultSet));
+	Assert.assertEquals(3 * PAGE_SIZE + 1, resultSet.getSearchAfter().get().getStart());
+    }
+
+    @Test
+    public void stringsTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(RESOURCES);
+
+	DiscoveryMessage message = createMessage(new Page(1, PAGE_SIZE));
+	message.setSearchAfter(new SearchAfter());
+
+	ResultSet<String> resultSet = finder.discoverStrings(message);
+
+	Assert.assertEquals(PAGE_SIZE, resultSet.getResultsList().size());
+	Assert.assertTrue(resultSet.getResultsList().get(0).contains("id-"));
+
+	message.setPage(new Page(resultSet.getSearchAfter().get().getStart(), PAGE_SIZE));
+	message.setSearchAfter(resultSet.getSearchAfter().get());
+
+	Assert.assertEquals(PAGE_SIZE, finder.discoverNodes(message).getResultsList().size());
+    }
+
+    @Test
+    public void benchmarkTest() throws Exception {
+
+	OpenSearchFinder finder = createFinder(BENCHMARK_RESOURCES);
+
+	int pageSize = 100;
+
+	//
+	// cursor paging of all the resources
+	//
+
+	long time = System.currentTimeMillis();
+
+	List<List<String>> pages = pageThrough(finder, pageSize);
+
+	long cursorTime = System.currentTimeMillis() - time;
+
+	Assert.assertEquals(BENCHMARK_RESOURCES, pages.stream().mapToInt(List::size).sum());
+
+	//
+	// offset paging, limited by the max result window
+	//
+
+	int offsetResources = Math.min(BENCHMARK_RESOURCES, MAX_RESULT_WINDOW);
+
+	time = System.currentTimeMillis();
+
+	long lastPageTime = 0;
+
+	for (int start = 1; start <= offsetResources - pageSize + 1; start += pageSize) {
+
+	    long pageTime = System.currentTimeMillis();
+
+	    finder.discover(createMessage(new Page(start, pageSize)));
+
+	    lastPageTime = System.currentTimeMillis() - pageTime;
+	}
+
+	long offsetTime = System.currentTimeMillis() - time;
+
+	System.out.println("Resources: " + BENCHMARK_RESOURCES + ", page size: " + pageSize);
+	System.out.println("Cursor paging of " + BENCHMARK_RESOURCES + " resources: " + cursorTime + " ms");
+	System.out.println("Offset paging of " + offsetResources + " resources: " + offsetTime + " ms (last page: " + lastPageTime + " ms)");
+    }
+
+    /**
+     * @param finder
+     * @param pageSize
+     * @return
+     * @throws Exception
+     */
+    private List<List<String>> pageThrough(OpenSearchFinder finder, int pageSize) throws Exception {
+
+	List<List<String>> pages = new ArrayList<>();
+
+	Optional<SearchAfter> cursor = Optional.of(new SearchAfter());
+
+	while (cursor.isPresent()) {
+
+	    DiscoveryMessage message = createMessage(new Page(cursor.get().getStart(), pageSize));
+	    message.setSearchAfter(cursor.get());
+
+	    ResultSet<GSResource> resultSet = finder.discover(message);
+
+	    pages.add(toIds(resultSet));
+
+	    cursor = resultSet.getSearchAfter();
+	}
+
+	return pages;
+    }
+
+    /**
+     * @param resultSet
+     * @return
+     */
+    private List<String> toIds(ResultSet<GSResource> resultSet) {
+
+	return resultSet.getResultsList().//
+		stream().//
+		map(GSResource::getPrivateId).//
+		collect(Collectors.toList());
+    }
+
+    /**
+     * @param page
+     * @return
+     */
+    private DiscoveryMessage createMessage(Page page) {
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setSources(new ArrayList<>());
+	message.setPage(page);
+	message.setTermFrequencyTargets(new ArrayList<Queryable>());
+
+	return message;
+    }
+
+    /**
+     * @param resources
+     * @return
+     * @throws Exception
+     */
+    private OpenSearchFinder createFinder(int resources) throws Exception {
+
+	OpenSearchDatabase database = OpenSearchDatabase.createLocalService();
+
+	OpenSearchFolder folder = new OpenSearchFolder(database, TestUtils.getDataFolderName(database));
+
+	GSSource source = new GSSource();
+	source.setUniqueIdentifier("source");
+
+	database.getBulkWriter().begin(folder);
+
+	try {
+
+	    for (int i = 0; i < resources; i++) {
+
+		Dataset dataset = new Dataset();
+		dataset.setSource(source);
+		dataset.setPrivateId("id-" + i);
+		dataset.setPublicId("id-" + i);
+		dataset.setOriginalId("original-" + i);
+		dataset.getHarmonizedMetadata().getCoreMetadata().setTitle("title " + i);
+
+		IndexedElementsWriter.write(dataset);
+
+		folder.store(dataset.getPrivateId(), //
+			FolderEntry.of(dataset.asDocument(true)), //
+			EntryType.GS_RESOURCE);
+	    }
+
+	} finally {
+
+	    database.getBulkWriter().end(folder);
+	}
+
+	OpenSearchFinder finder = new OpenSearchFinder();
+	finder.setDatabase(database);
+
+	return finder;
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * 
+ */
+package eu.essi_lab.api.database.opensearch.query.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensearch.client.opensearch._types.query_dsl.BoolQuery;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+
+import eu.essi_lab.api.database.opensearch.ConversionUtils;
+import eu.essi_lab.api.database.opensearch.query.CompiledQueryCache;
+import eu.essi_lab.api.database.opensearch.query.OpenSearchBondHandler;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.bond.Bond;
+import eu.essi_lab.messages.bond.BondFactory;
+import eu.essi_lab.messages.bond.BondOperator;
+import eu.essi_lab.messages.bond.SpatialExtent;
+import eu.essi_lab.messages.bond.parser.DiscoveryBondParser;
+import eu.essi_lab.model.resource.MetadataElement;
+
+/**
+ * Checks the structure of the compiled queries and compares the time needed to compile a realistic view bond with the
+ * time needed to retrieve it from the {@link CompiledQueryCache}
+ * 
+ * @author Fabrizio
+ */
+public class OpenSearchBondHandlerTest {
+
+    @Test
+    public void logicalBondsTest() {
+
+	Bond bond = BondFactory.createAndBond(//
+		BondFactory.createSimpleValueBond(BondOperator.LIKE, MetadataElement.TITLE, "water"), //
+		BondFactory.createOrBond(//
+			BondFactory.createSourceIdentifierBond("source1"), //
+			BondFactory.createSourceIdentifierBond("source2")), //
+		BondFactory.createNotBond(//
+			BondFactory.createSimpleValueBond(BondOperator.EQUAL, MetadataElement.KEYWORD, "sea")));
+
+	JSONObject searchQuery = getSearchQuery(compile(bond, false));
+
+	JSONArray and = searchQuery.getJSONObject("bool").getJSONArray("must");
+	Assert.assertEquals(3, and.length());
+
+	JSONObject or = and.getJSONObject(1).getJSONObject("bool");
+	Assert.assertEquals(2, or.getJSONArray("should").length());
+	Assert.assertEquals("1", or.get("minimum_should_match").toString());
+
+	JSONObject not = and.getJSONObject(2).getJSONObject("bool");
+	Assert.assertEquals(1, not.getJSONArray("must_not").length());
+    }
+
+    @Test
+    public void emptyBondTest() {
+
+	JSONObject searchQuery = getSearchQuery(compile(null, true));
+
+	Assert.assertTrue(searchQuery.has("match_all"));
+    }
+
+    @Test
+    public void cacheKeyTest() {
+
+	HashMap<String, String> map = createDataFolderMap();
+
+	Bond bond1 = BondFactory.createOrBond(//
+		BondFactory.createSourceIdentifierBond("source1"), //
+		BondFactory.createSourceIdentifierBond("source2"));
+
+	Bond bond2 = BondFactory.createOrBond(//
+		BondFactory.createSourceIdentifierBond("source2"), //
+		BondFactory.createSourceIdentifierBond("source1"));
+
+	Optional<String> key1 = CompiledQueryCache.getInstance().createKey(createMessage(bond1), map, false);
+	Optional<String> key2 = CompiledQueryCache.getInstance().createKey(createMessage(bond2), map, false);
+
+	// the operands order is normalized
+	Assert.assertEquals(key1.get(), key2.get());
+
+	// count and discovery queries are different
+	Assert.assertNotEquals(key1.get(), CompiledQueryCache.getInstance().createKey(createMessage(bond1), map, true).get());
+
+	// a data folder change invalidates the key
+	map.put("source1", "data-2");
+	Assert.assertNotEquals(key1.get(), CompiledQueryCache.getInstance().createKey(createMessage(bond1), map, false).get());
+
+	// min/max bonds depend on the index content
+	Bond minMax = BondFactory.createMinMaxResourceTimeStampBond(BondOperator.MAX, "source1");
+	Assert.assertFalse(CompiledQueryCache.getInstance().createKey(createMessage(minMax), map, false).isPresent());
+    }
+
+    @Test
+    public void benchmarkTest() {
+
+	Bond bond = createViewBond(50);
+
+	HashMap<String, String> map = createDataFolderMap();
+
+	DiscoveryMessage message = createMessage(bond);
+
+	int warmup = 200;
+	int iterations = 2000;
+
+	for (int i = 0; i < warmup; i++) {
+
+	    replayStringPath(compile(message, map));
+	}
+
+	//
+	// the previous string based path: the clauses are serialized to pretty-printed JSON, assembled with the bool
+	// tags, parsed and deserialized for each request
+	//
+
+	long start = System.nanoTime();
+
+	for (int i = 0; i < iterations; i++) {
+
+	    replayStringPath(compile(message, map));
+	}
+
+	long string = (System.nanoTime() - start) / iterations;
+
+	//
+	// the bond compiled directly to the query
+	//
+
+	start = System.nanoTime();
+
+	for (int i = 0; i < iterations; i++) {
+
+	    compile(message, map);
+	}
+
+	long compiled = (System.nanoTime() - start) / iterations;
+
+	CompiledQueryCache cache = CompiledQueryCache.getInstance();
+	cache.clear();
+
+	String key = cache.createKey(message, map, false).get();
+	cache.put(key, compile(message, map));
+
+	start = System.nanoTime();
+
+	for (int i = 0; i < iterations; i++) {
+
+	    Optional<String> optKey = cache.createKey(message, map, false);
+	    Assert.assertTrue(cache.get(optKey.get()).isPresent());
+	}
+
+	long cached = (System.nanoTime() - start) / iterations;
+
+	GSLoggerFactory.getLogger(getClass()).info("String based query: {} ns/op", string);
+	GSLoggerFactory.getLogger(getClass()).info("Compiled query: {} ns/op", compiled);
+	GSLoggerFactory.getLogger(getClass()).info("Cached query: {} ns/op", cached);
+    }
+
+    /**
+     * Rebuilds the given query as the previous <code>OpenSearchQueryBuilder</code> did: the leaf clauses are built in
+     * the same way by both paths, so only the string assembly, the parsing and the deserialization are added
+     * 
+     * @param compiled
+     * @return
+     */
+    private Query replayStringPath(Query compiled) {
+
+	StringBuilder builder = new StringBuilder();
+
+	appendAsString(builder, compiled);
+
+	return ConversionUtils.toQuery(new JSONObject(builder.toString()));
+    }
+
+    /**
+     * @param builder
+     * @param query
+     */
+    private void appendAsString(StringBuilder builder, Query query) {
+
+	if (!query.isBool()) {
+
+	    builder.append(ConversionUtils.toJSONObject(query).toString(3));
+	    return;
+	}
+
+	BoolQuery bool = query.bool();
+
+	List<Query> clauses = bool.must();
+	String occur = "must";
+
+	if (!bool.should().isEmpty()) {
+
+	    clauses = bool.should();
+	    occur = "should";
+
+	} else if (!bool.mustNot().isEmpty()) {
+
+	    clauses = bool.mustNot();
+	    occur = "must_not";
+	}
+
+	builder.append("{ \"bool\": \n{ \"" + occur + "\": [ \n ");
+
+	for (int i = 0; i < clauses.size(); i++) {
+
+	    if (i > 0) {
+
+		builder.append(", \n");
+	    }
+
+	    appendAsString(builder, clauses.get(i));
+	}
+
+	if (occur.equals("should")) {
+
+	    builder.append("\n], \"minimum_should_match\": \"1\" \n} \n}");
+
+	} else {
+
+	    builder.append("\n] \n} \n}");
+	}
+    }
+
+    /**
+     * @param sources
+     * @return
+     */
+    private Bond createViewBond(int sources) {
+
+	List<Bond> sourceBonds = new ArrayList<>();
+
+	for (int i = 0; i < sources; i++) {
+	    sourceBonds.add(BondFactory.createSourceIdentifierBond("source" + i));
+	}
+
+	return BondFactory.createAndBond(//
+		BondFactory.createOrBond(sourceBonds), //
+		BondFactory.createOrBond(//
+			BondFactory.createSimpleValueBond(BondOperator.LIKE, MetadataElement.TITLE, "water"), //
+			BondFactory.createSimpleValueBond(BondOperator.LIKE, MetadataElement.ABSTRACT, "water"), //
+			BondFactory.createSimpleValueBond(BondOperator.LIKE, MetadataElement.KEYWORD, "water")), //
+		BondFactory.createSpatialExtentBond(BondOperator.INTERSECTS, new SpatialExtent(-10, -20, 10, 20)), //
+		BondFactory.createSimpleValueBond(BondOperator.GREATER_OR_EQUAL, MetadataElement.TEMP_EXTENT_BEGIN,
+			"2000-01-01T00:00:00Z"), //
+		BondFactory.createNotBond(//
+			BondFactory.createSimpleValueBond(BondOperator.EQUAL, MetadataElement.KEYWORD, "test")));
+    }
+
+    /**
+     * @return
+     */
+    private HashMap<String, String> createDataFolderMap() {
+
+	HashMap<String, String> map = new HashMap<>();
+
+	for (int i = 0; i < 50; i++) {
+	    map.put("source" + i, "data-1");
+	}
+
+	return map;
+    }
+
+    /**
+     * @param bond
+     * @return
+     */
+    private DiscoveryMessage createMessage(Bond bond) {
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setPermittedBond(bond);
+
+	return message;
+    }
+
+    /**
+     * @param message
+     * @param map
+     * @return
+     */
+    private Query compile(DiscoveryMessage message, HashMap<String, String> map) {
+
+	OpenSearchBondHandler handler = new OpenSearchBondHandler(null, message, map);
+
+	new DiscoveryBondParser(message.getPermittedBond()).parse(handler);
+
+	return handler.getQuery(false);
+    }
+
+    /**
+     * @param bond
+     * @param count
+     * @return
+     */
+    private Query compile(Bond bond, boolean count) {
+
+	DiscoveryMessage message = createMessage(bond);
+
+	OpenSearchBondHandler handler = new OpenSearchBondHandler(null, message, createDataFolderMap());
+
+	new DiscoveryBondParser(bond).parse(handler);
+
+	return handler.getQuery(count);
+    }
+
+    /**
+     * @param query
+     * @return the compiled bond, that is the first clause of the outer query
+     */
+    private JSONObject getSearchQuery(Query query) {
+
+	return ConversionUtils.toJSONObject(query).//
+		getJSONObject("bool").//
+		getJSONArray("must").//
+		getJSONObject(0);
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.opensearch.query.test;
+
+import java.util.Arrays;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
+import eu.essi_lab.api.database.opensearch.query.StatisticsAggregationBuilder;
+import eu.essi_lab.lib.utils.ISO8601DateTimeUtils;
+import eu.essi_lab.messages.stats.ResponseItem;
+import eu.essi_lab.messages.stats.StatisticsMessage;
+import eu.essi_lab.messages.stats.StatisticsMessage.GroupByPeriod;
+import eu.essi_lab.model.resource.MetadataElement;
+import eu.essi_lab.model.resource.ResourceProperty;
+
+/**
+ * Checks the structure of the aggregations compiled from a statistics message, and the conversion of their results
+ *
+ * @author Fabrizio
+ */
+public class StatisticsAggregationBuilderTest {
+
+    @Test
+    public void itemAggregationsTest() {
+
+	JSONObject aggs = new StatisticsAggregationBuilder(createMessage()).buildItemAggregations();
+
+	JSONObject stats = aggs.getJSONObject("stats_" + MetadataElement.TEMP_EXTENT_END.getName()).getJSONObject("stats");
+	Assert.assertEquals(MetadataElement.TEMP_EXTENT_END.getName(), stats.getString("field"));
+
+	// textual max is the last term
+	JSONObject max = aggs.getJSONObject("max_" + MetadataElement.TITLE.getName()).getJSONObject("terms");
+	Assert.assertEquals(DataFolderMapping.toAggField(MetadataElement.TITLE.getName()), max.getString("field"));
+	Assert.assertEquals(1, max.getInt("size"));
+	Assert.assertEquals("desc", max.getJSONObject("order").getString("_key"));
+
+	JSONObject cardinality = aggs.getJSONObject("countDistinct_" + ResourceProperty.SOURCE_ID.getName()).getJSONObject("cardinality");
+	Assert.assertEquals(DataFolderMapping.toAggField(ResourceProperty.SOURCE_ID.getName()), cardinality.getString("field"));
+
+	JSONObject terms = aggs.getJSONObject("frequency_" + MetadataElement.KEYWORD.getName()).getJSONObject("terms");
+	Assert.assertEquals(DataFolderMapping.toAggField(MetadataElement.KEYWORD.getName()), terms.getString("field"));
+	Assert.assertEquals(5, terms.getInt("size"));
+
+	Assert.assertEquals(MetadataElement.BOUNDING_BOX.getName(),
+		aggs.getJSONObject("bboxUnion").getJSONObject("geo_bounds").getString("field"));
+
+	Assert.assertTrue(aggs.has("tmpExtentBeginMin"));
+	Assert.assertTrue(aggs.has("tmpExtentEndMax"));
+	Assert.assertTrue(aggs.has("tmpExtentEndNow"));
+    }
+
+    @Test
+    public void groupByTargetTest() {
+
+	StatisticsMessage message = createMessage();
+	message.groupBy(ResourceProperty.SOURCE_ID);
+
+	StatisticsAggregationBuilder builder = new StatisticsAggregationBuilder(message);
+
+	JSONObject afterKey = new JSONObject().put(StatisticsAggregationBuilder.GROUP_SOURCE, "source1");
+
+	JSONObject group = builder.buildGroupByTargetAggregation(afterKey, 10, true).getJSONObject(StatisticsAggregationBuilder.GROUP_AGG);
+
+	JSONObject composite = group.getJSONObject("composite");
+	Assert.assertEquals(10, composite.getInt("size"));
+	Assert.assertEquals("source1", composite.getJSONObject("after").getString(StatisticsAggregationBuilder.GROUP_SOURCE));
+
+	JSONArray sources = composite.getJSONArray("sources");
+	Assert.assertEquals(DataFolderMapping.toAggField(ResourceProperty.SOURCE_ID.getName()), //
+		sources.getJSONObject(0).getJSONObject(StatisticsAggregationBuilder.GROUP_SOURCE).getJSONObject("terms").getString("field"));
+
+	Assert.assertTrue(group.getJSONObject("aggs").has("bboxUnion"));
+
+	//
+	// the skipped pages do not compute the items
+	//
+	group = builder.buildGroupByTargetAggregation(null, 10, false).getJSONObject(StatisticsAggregationBuilder.GROUP_AGG);
+
+	Assert.assertFalse(group.has("aggs"));
+	Assert.assertFalse(group.getJSONObject("composite").has("after"));
+    }
+
+    @Test
+    public void groupByPeriodTest() {
+
+	long day = 24 * 60 * 60 * 1000;
+
+	GroupByPeriod groupByPeriod = new GroupByPeriod();
+	groupByPeriod.setTarget(MetadataElement.TEMP_EXTENT_BEGIN);
+	groupByPeriod.setStartTime(day / 2);
+	groupByPeriod.setPeriod(10 * day);
+	groupByPeriod.setFraction(10);
+
+	StatisticsMessage message = createMessage();
+	message.groupBy(groupByPeriod);
+
+	Assert.assertEquals(10, StatisticsAggregationBuilder.getFraction(groupByPeriod));
+	Assert.assertEquals(day, StatisticsAggregationBuilder.getSubPeriod(groupByPeriod));
+
+	long from = day / 2 + 2 * day;
+	long to = from + 3 * day;
+
+	JSONObject filter = new StatisticsAggregationBuilder(message).//
+		buildGroupByPeriodAggregation(from, to).//
+		getJSONObject(StatisticsAggregationBuilder.PERIOD_FILTER_AGG);
+
+	JSONObject range = filter.getJSONObject("filter").getJSONObject("range").getJSONObject(MetadataElement.TEMP_EXTENT_BEGIN.getName());
+	Assert.assertEquals(from, range.getLong("gte"));
+	Assert.assertEquals(to, range.getLong("lt"));
+
+	JSONObject histogram = filter.getJSONObject("aggs").getJSONObject(StatisticsAggregationBuilder.GROUP_AGG).getJSONObject("date_histogram");
+	Assert.assertEquals(day + "ms", histogram.getString("fixed_interval"));
+	Assert.assertEquals((day / 2) + "ms", histogram.getString("offset"));
+	Assert.assertEquals(0, histogram.getInt("min_doc_count"));
+	Assert.assertEquals(to - 1, histogram.getJSONObject("extended_bounds").getLong("max"));
+    }
+
+    @Test
+    public void responseItemTest() {
+
+	long begin = ISO8601DateTimeUtils.parseISO8601ToDate("2000-01-01T00:00:00Z").get().getTime();
+	long end = ISO8601DateTimeUtils.parseISO8601ToDate("2010-01-01T00:00:00Z").get().getTime();
+
+	JSONObject aggregations = new JSONObject();
+
+	aggregations.put("stats_" + MetadataElement.TEMP_EXTENT_END.getName(), new JSONObject().//
+		put("count", 2).//
+		put("min", begin).//
+		put("max", end).//
+		put("avg", (begin + end) / 2.0).//
+		put("sum", begin + end));
+
+	aggregations.put("min_" + MetadataElement.TITLE.getName(), buckets(new JSONObject().put("key", "a").put("doc_count", 1)));
+	aggregations.put("max_" + MetadataElement.TITLE.getName(), buckets(new JSONObject().put("key", "z").put("doc_count", 1)));
+
+	aggregations.put("countDistinct_" + ResourceProperty.SOURCE_ID.getName(), new JSONObject().put("value", 3));
+
+	aggregations.put("frequency_" + MetadataElement.KEYWORD.getName(), buckets(//
+		new JSONObject().put("key", "sea water").put("doc_count", 3), //
+		new JSONObject().put("key", "air").put("doc_count", 2)));
+
+	aggregations.put("bboxUnion", new JSONObject().put("bounds", new JSONObject().//
+		put("top_left", new JSONObject().put("lat", 50.0).put("lon", -10.0)).//
+		put("bottom_right", new JSONObject().put("lat", 30.0).put("lon", 20.0))));
+
+	aggregations.put("tmpExtentBeginMin", new JSONObject().put("value", begin));
+	aggregations.put("tmpExtentEndMax", new JSONObject().put("value", end));
+	aggregations.put("tmpExtentEndNow", new JSONObject().put("doc_count", 0));
+
+	ResponseItem item = new StatisticsAggregationBuilder(createMessage()).toResponseItem("group", aggregations);
+
+	Assert.assertEquals("group", item.getGroupedBy().get());
+
+	Assert.assertEquals("2010-01-01T00:00:00Z", item.getMax(MetadataElement.TEMP_EXTENT_END).get().getValue());
+	Assert.assertEquals("z", item.getMax(MetadataElement.TITLE).get().getValue());
+	Assert.assertEquals("2005-01-01T12:00:00Z", item.getAvg(MetadataElement.TEMP_EXTENT_END).get().getValue());
+
+	Assert.assertEquals("3", item.getCountDistinct(ResourceProperty.SOURCE_ID).get().getValue());
+
+	Assert.assertEquals("sea+waterITEMSEP3 airITEMSEP2", item.getFrequency(MetadataElement.KEYWORD).get().getValue());
+	Assert.assertEquals("sea water", item.getFrequency(MetadataElement.KEYWORD).get().getFrequencyItems().get(0).getTerm());
+
+	// west south east north
+	Assert.assertEquals("-10.0 30.0 20.0 50.0", item.getBBoxUnion().getValue());
+
+	Assert.assertEquals("2000-01-01T00:00:00Z 2010-01-01T00:00:00Z", item.getTempExtentUnion().getValue());
+    }
+
+    @Test
+    public void emptyResultsTest() {
+
+	JSONObject aggregations = new JSONObject();
+
+	aggregations.put("stats_" + MetadataElement.TEMP_EXTENT_END.getName(), new JSONObject().//
+		put("count", 0).//
+		put("min", JSONObject.NULL).//
+		put("max", JSONObject.NULL).//
+		put("avg", JSONObject.NULL).//
+		put("sum", 0.0));
+
+	aggregations.put("min_" + MetadataElement.TITLE.getName(), buckets());
+	aggregations.put("max_" + MetadataElement.TITLE.getName(), buckets());
+	aggregations.put("countDistinct_" + ResourceProperty.SOURCE_ID.getName(), new JSONObject().put("value", 0));
+	aggregations.put("frequency_" + MetadataElement.KEYWORD.getName(), buckets());
+	aggregations.put("bboxUnion", new JSONObject());
+	aggregations.put("tmpExtentBeginMin", new JSONObject().put("value", JSONObject.NULL));
+	aggregations.put("tmpExtentEndMax", new JSONObject().put("value", JSONObject.NULL));
+	aggregations.put("tmpExtentEndNow", new JSONObject().put("doc_count", 0));
+
+	ResponseItem item = new StatisticsAggregationBuilder(createMessage()).toResponseItem(null, aggregations);
+
+	Assert.assertEquals("", item.getMax(MetadataElement.TEMP_EXTENT_END).get().getValue());
+	Assert.assertEquals("", item.getMax(MetadataElement.TITLE).get().getValue());
+	Assert.assertEquals("0", item.getCountDistinct(ResourceProperty.SOURCE_ID).get().getValue());
+	Assert.assertTrue(item.getFrequency(MetadataElement.KEYWORD).get().getFrequencyItems().isEmpty());
+	Assert.assertFalse(item.getBBoxUnion().getCardinalValues().isPresent());
+    }
+
+    /**
+     * @return
+     */
+    private StatisticsMessage createMessage() {
+
+	StatisticsMessage message = new StatisticsMessage();
+
+	message.computeMax(Arrays.asList(MetadataElement.TEMP_EXTENT_END, MetadataElement.TITLE));
+	message.computeAvg(Arrays.asList(MetadataElement.TEMP_EXTENT_END));
+	message.countDistinct(Arrays.asList(ResourceProperty.SOURCE_ID));
+	message.computeFrequency(Arrays.asList(MetadataElement.KEYWORD), 5);
+	message.computeBboxUnion();
+	message.computeTempExtentUnion();
+
+	return message;
+    }
+
+    /**
+     * @param buckets
+     * @return
+     */
+    private JSONObject buckets(JSONObject... buckets) {
+
+	return new JSONObject().put("buckets", new JSONArray(Arrays.asList(buckets)));
+    }
+}
@@ -0,0 +1,367 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.opensearch.stats.test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.api.database.DatabaseFolder.EntryType;
+import eu.essi_lab.api.database.DatabaseFolder.FolderEntry;
+import eu.essi_lab.api.database.opensearch.OpenSearchDatabase;
+import eu.essi_lab.api.database.opensearch.OpenSearchExecutor;
+import eu.essi_lab.api.database.opensearch.OpenSearchFolder;
+import eu.essi_lab.api.database.opensearch.OpenSearchWrapper;
+import eu.essi_lab.api.database.opensearch.datafolder.test.TestUtils;
+import eu.essi_lab.api.database.opensearch.index.mappings.DataFolderMapping;
+import eu.essi_lab.api.database.opensearch.query.OpenSearchQueryBuilder;
+import eu.essi_lab.api.database.opensearch.test.OpenSearchTest;
+import eu.essi_lab.indexes.IndexedElementsWriter;
+import eu.essi_lab.iso.datamodel.classes.GeographicBoundingBox;
+import eu.essi_lab.lib.utils.ISO8601DateTimeUtils;
+import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.stats.ComputationResult;
+import eu.essi_lab.messages.stats.ResponseItem;
+import eu.essi_lab.messages.stats.StatisticsMessage;
+import eu.essi_lab.messages.stats.StatisticsMessage.GroupByPeriod;
+import eu.essi_lab.messages.stats.StatisticsResponse;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.MetadataElement;
+import eu.essi_lab.model.resource.ResourceProperty;
+
+/**
+ * Computes the statistics of the resources stored in the data folder, and compares the aggregation-backed computation
+ * with the client-side computation of the same values
+ *
+ * @author Fabrizio
+ */
+public class OpenSearchStatisticsTest extends OpenSearchTest {
+
+    private static final int RESOURCES = 300;
+
+    /**
+     * The number of resources of the benchmark can be set with the <code>statistics.benchmarkResources</code>
+     * property
+     */
+    private static final int BENCHMARK_RESOURCES = Integer.getInteger("statistics.benchmarkResources", 2000);
+
+    @Test
+    public void computeTest() throws Exception {
+
+	OpenSearchDatabase database = OpenSearchDatabase.createLocalService();
+
+	storeResources(database, RESOURCES);
+
+	OpenSearchExecutor executor = new OpenSearchExecutor();
+	executor.setDatabase(database);
+
+	StatisticsMessage message = createMessage();
+	message.computeMax(Arrays.asList(MetadataElement.TEMP_EXTENT_END, MetadataElement.TITLE));
+	message.computeFrequency(Arrays.asList(MetadataElement.KEYWORD), 10);
+	message.computeBboxUnion();
+	message.computeTempExtentUnion();
+
+	StatisticsResponse response = executor.compute(message);
+
+	Assert.assertEquals(1, response.getItemsCount());
+
+	ResponseItem item = response.getItems().get(0);
+
+	Assert.assertEquals("3", item.getCountDistinct(ResourceProperty.SOURCE_ID).get().getValue());
+	Assert.assertEquals("5", item.getCountDistinct(MetadataElement.KEYWORD).get().getValue());
+
+	Assert.assertEquals("1999-12-31T00:00:00Z", item.getMax(MetadataElement.TEMP_EXTENT_END).get().getValue());
+	Assert.assertEquals("title 99", item.getMax(MetadataElement.TITLE).get().getValue());
+
+	ComputationResult frequency = item.getFrequency(MetadataElement.KEYWORD).get();
+
+	Assert.assertEquals(5, frequency.getFrequencyItems().size());
+	Assert.assertTrue(frequency.getFrequencyItems().stream().allMatch(i -> i.getFreq() == RESOURCES / 5));
+
+	Assert.assertEquals("1950-01-01T00:00:00Z 1999-12-31T00:00:00Z", item.getTempExtentUnion().getValue());
+
+	// the union of the boxes from (0, 0, 1, 1) to (9, 9, 10, 10), the shapes coordinates are encoded with a
+	// precision of about 1e-7 degrees
+	String[] bbox = item.getBBoxUnion().getValue().split(" ");
+
+	Assert.assertEquals(0, Double.valueOf(bbox[0]), 0.0001);
+	Assert.assertEquals(0, Double.valueOf(bbox[1]), 0.0001);
+	Assert.assertEquals(10, Double.valueOf(bbox[2]), 0.0001);
+	Assert.assertEquals(10, Double.valueOf(bbox[3]), 0.0001);
+    }
+
+    @Test
+    public void groupByTargetTest() throws Exception {
+
+	OpenSearchDatabase database = OpenSearchDatabase.createLocalService();
+
+	storeResources(database, RESOURCES);
+
+	OpenSearchExecutor executor = new OpenSearchExecutor();
+	executor.setDatabase(database);
+
+	StatisticsMessage message = createMessage();
+	message.groupBy(ResourceProperty.SOURCE_ID);
+	message.setPage(new Page(2, 2));
+
+	StatisticsResponse response = executor.compute(message);
+
+	Assert.assertEquals(3, response.getItemsCount());
+
+	List<ResponseItem> items = response.getItems();
+
+	Assert.assertEquals(2, items.size());
+
+	Assert.assertEquals("source1", items.get(0).getGroupedBy().get());
+	Assert.assertEquals("source2", items.get(1).getGroupedBy().get());
+
+	Assert.assertEquals("1", items.get(0).getCountDistinct(ResourceProperty.SOURCE_ID).get().getValue());
+	Assert.assertEquals("5", items.get(0).getCountDistinct(MetadataElement.KEYWORD).get().getValue());
+    }
+
+    @Test
+    public void groupByPeriodTest() throws Exception {
+
+	OpenSearchDatabase database = OpenSearchDatabase.createLocalService();
+
+	storeResources(database, RESOURCES);
+
+	OpenSearchExecutor executor = new OpenSearchExecutor();
+	executor.setDatabase(database);
+
+	long start = ISO8601DateTimeUtils.parseISO8601ToDate("1950-01-01T00:00:00Z").get().getTime();
+	long end = ISO8601DateTimeUtils.parseISO8601ToDate("2000-01-01T00:00:00Z").get().getTime();
+
+	GroupByPeriod groupByPeriod = new GroupByPeriod();
+	groupByPeriod.setTarget(MetadataElement.TEMP_EXTENT_BEGIN);
+	groupByPeriod.setStartTime(start);
+	groupByPeriod.setPeriod(end - start);
+	groupByPeriod.setFraction(5);
+
+	StatisticsMessage message = createMessage();
+	message.groupBy(groupByPeriod);
+	message.setPage(new Page(1, 10));
+
+	StatisticsResponse response = executor.compute(message);
+
+	Assert.assertEquals(5, response.getItemsCount());
+
+	List<ResponseItem> items = response.getItems();
+
+	Assert.assertEquals(5, items.size());
+
+	long subPeriod = (end - start) / 5;
+
+	Assert.assertEquals(start + ResponseItem.ITEMS_RANGE_SEPARATOR + (start + subPeriod), items.get(0).getGroupedBy().get());
+
+	// the first decade includes the resources with index % 50 from 0 to 9, so all the keywords
+	Assert.assertEquals("5", items.get(0).getCountDistinct(MetadataElement.KEYWORD).get().getValue());
+	Assert.assertEquals("3", items.get(0).getCountDistinct(ResourceProperty.SOURCE_ID).get().getValue());
+    }
+
+    @Test
+    public void benchmarkTest() throws Exception {
+
+	OpenSearchDatabase database = OpenSearchDatabase.createLocalService();
+
+	OpenSearchFolder folder = storeResources(database, BENCHMARK_RESOURCES);
+
+	OpenSearchExecutor executor = new OpenSearchExecutor();
+	executor.setDatabase(database);
+
+	StatisticsMessage message = createMessage();
+	message.groupBy(ResourceProperty.SOURCE_ID);
+	message.computeMax(Arrays.asList(MetadataElement.TEMP_EXTENT_END));
+
+	//
+	// aggregation-backed computation
+	//
+
+	long time = System.currentTimeMillis();
+
+	StatisticsResponse response = executor.compute(message);
+
+	long aggregationTime = System.currentTimeMillis() - time;
+
+	//
+	// client-side computation of the same values, from the sources of all the resources
+	//
+
+	time = System.currentTimeMillis();
+
+	OpenSearchWrapper wrapper = new OpenSearchWrapper(database.getClient());
+
+	Map<String, Set<String>> keywords = new TreeMap<>();
+	Map<String, Long> maxEnd = new HashMap<>();
+
+	int pageSize = 1000;
+
+	for (int start = 0; start < BENCHMARK_RESOURCES; start += pageSize) {
+
+	    List<JSONObject> sources = wrapper.searchSources(//
+		    DataFolderMapping.get().getIndex(), //
+		    OpenSearchQueryBuilder.buildSearchResourcesQuery(folder, true), //
+		    start, //
+		    pageSize);
+
+	    for (JSONObject source : sources) {
+
+		String sourceId = getValues(source, ResourceProperty.SOURCE_ID.getName()).get(0);
+
+		keywords.computeIfAbsent(sourceId, k -> new HashSet<>()).//
+			addAll(getValues(source, MetadataElement.KEYWORD.getName()));
+
+		for (String value : getValues(source, MetadataElement.TEMP_EXTENT_END.getName())) {
+
+		    maxEnd.merge(sourceId, Long.valueOf(value), Math::max);
+		}
+	    }
+	}
+
+	long clientTime = System.currentTimeMillis() - time;
+
+	System.out.println("Resources: " + BENCHMARK_RESOURCES);
+	System.out.println("Aggregation time: " + aggregationTime + " ms");
+	System.out.println("Client-side time: " + clientTime + " ms");
+
+	//
+	// same results
+	//
+
+	Assert.assertEquals(keywords.size(), response.getItemsCount());
+
+	List<ResponseItem> items = response.getItems();
+
+	Assert.assertEquals(new ArrayList<>(keywords.keySet()), //
+		items.stream().map(i -> i.getGroupedBy().get()).collect(Collectors.toList()));
+
+	for (ResponseItem item : items) {
+
+	    String sourceId = item.getGroupedBy().get();
+
+	    Assert.assertEquals(String.valueOf(keywords.get(sourceId).size()), //
+		    item.getCountDistinct(MetadataElement.KEYWORD).get().getValue());
+
+	    Assert.assertEquals(ISO8601DateTimeUtils.getISO8601DateTime(new Date(maxEnd.get(sourceId))), //
+		    item.getMax(MetadataElement.TEMP_EXTENT_END).get().getValue());
+	}
+    }
+
+    /**
+     * @return
+     */
+    private StatisticsMessage createMessage() {
+
+	StatisticsMessage message = new StatisticsMessage();
+	message.setSources(new ArrayList<>());
+	message.setPage(new Page(1, 10));
+
+	message.countDistinct(Arrays.asList(ResourceProperty.SOURCE_ID, MetadataElement.KEYWORD));
+
+	return message;
+    }
+
+    /**
+     * @param database
+     * @param count
+     * @return
+     * @throws Exception
+     */
+    private OpenSearchFolder storeResources(OpenSearchDatabase database, int count) throws Exception {
+
+	OpenSearchFolder folder = new OpenSearchFolder(database, TestUtils.getDataFolderName(database));
+
+	database.getBulkWriter().begin(folder);
+
+	try {
+
+	    for (int i = 0; i < count; i++) {
+
+		Dataset dataset = create(i);
+
+		folder.store(dataset.getPrivateId(), //
+			FolderEntry.of(dataset.asDocument(true)), //
+			EntryType.GS_RESOURCE);
+	    }
+
+	} finally {
+
+	    database.getBulkWriter().end(folder);
+	}
+
+	return folder;
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    private Dataset create(int index) {
+
+	GSSource source = new GSSource();
+	source.setUniqueIdentifier("source" + (index % 3));
+
+	Dataset dataset = new Dataset();
+	dataset.setSource(source);
+	dataset.setPrivateId("id-" + index);
+	dataset.setPublicId("id-" + index);
+	dataset.setOriginalId("original-" + index);
+
+	dataset.getHarmonizedMetadata().getCoreMetadata().setTitle("title " + index);
+	dataset.getHarmonizedMetadata().getCoreMetadata().getDataIdentification().addKeyword("k" + (index % 5));
+	dataset.getHarmonizedMetadata().getCoreMetadata().getDataIdentification().addTemporalExtent(//
+		(1950 + index % 50) + "-01-01T00:00:00Z", //
+		(1950 + index % 50) + "-12-31T00:00:00Z");
+
+	GeographicBoundingBox box = new GeographicBoundingBox();
+
+	box.setBigDecimalSouth(new BigDecimal(index % 10));
+	box.setBigDecimalWest(new BigDecimal(index % 10));
+	box.setBigDecimalNorth(new BigDecimal(index % 10 + 1));
+	box.setBigDecimalEast(new BigDecimal(index % 10 + 1));
+
+	dataset.getHarmonizedMetadata().getCoreMetadata().getDataIdentification().addGeographicBoundingBox(box);
+
+	IndexedElementsWriter.write(dataset);
+
+	return dataset;
+    }
+
+    /**
+     * @param source
+     * @param field
+     * @return
+     */
+    private List<String> getValues(JSONObject source, String field) {
+
+	List<String> out = new ArrayList<>();
+
+	JSONArray array = source.optJSONArray(field);
+
+	if (array != null) {
+
+	    array.forEach(v -> out.add(v.toString()));
+
+	} else if (source.has(field)) {
+
+	    out.add(source.get(field).toString());
+	}
+
+	return out;
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.opensearch.test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.generic.Body;
+import org.opensearch.client.opensearch.generic.Request;
+import org.opensearch.client.opensearch.generic.Response;
+
+import eu.essi_lab.api.database.DatabaseWriter.StoreFailure;
+import eu.essi_lab.api.database.opensearch.OpenSearchBulkWriter;
+import eu.essi_lab.api.database.opensearch.OpenSearchFolder;
+import eu.essi_lab.api.database.opensearch.index.IndexData;
+
+/**
+ * Tests the {@link OpenSearchBulkWriter} with a mocked client, which records the executed requests and answers the
+ * <code>_bulk</code> requests with the queued responses
+ *
+ * @author Fabrizio
+ */
+public class OpenSearchBulkWriterTest {
+
+    private static final String SUCCESS = "{\"errors\":false,\"items\":[]}";
+
+    private static final String FOLDER_1 = "test_source1-data-1";
+    private static final String FOLDER_2 = "test_source2-data-1";
+
+    private OpenSearchClient client;
+    private List<Request> bulkRequests;
+    private List<Request> settingsRequests;
+    private Deque<String> bulkResponses;
+
+    @Before
+    public void before() throws Exception {
+
+	bulkRequests = new ArrayList<>();
+	settingsRequests = new ArrayList<>();
+	bulkResponses = new ArrayDeque<>();
+
+	client = Mockito.mock(OpenSearchClient.class, Mockito.RETURNS_DEEP_STUBS);
+
+	Mockito.when(client.generic().execute(ArgumentMatchers.any(Request.class))).thenAnswer(invocation -> {
+
+	    Request request = invocation.getArgument(0);
+
+	    if (request.getEndpoint().equals("_bulk")) {
+
+		bulkRequests.add(request);
+
+		return createResponse(bulkResponses.isEmpty() ? SUCCESS : bulkResponses.poll());
+	    }
+
+	    settingsRequests.add(request);
+
+	    return createResponse("{}");
+	});
+    }
+
+    /**
+     * The buffer is sent when it holds the max number of actions
+     *
+     * @throws Exception
+     */
+    @Test
+    public void flushBySizeTest() throws Exception {
+
+	OpenSearchBulkWriter writer = new OpenSearchBulkWriter(client);
+	writer.setMaxActions(3);
+
+	writer.add(FOLDER_1, createIndexData("1"));
+	writer.add(FOLDER_1, createIndexData("2"));
+
+	Assert.assertEquals(2, writer.getBufferedActions());
+	Assert.assertTrue(bulkRequests.isEmpty());
+
+	writer.add(FOLDER_1, createIndexData("3"));
+
+	Assert.assertEquals(0, writer.getBufferedActions());
+	Assert.assertEquals(1, bulkRequests.size());
+
+	// an action line and a source line for each entry
+	String body = bulkRequests.get(0).getBody().get().bodyAsString();
+
+	Assert.assertEquals(6, body.split("\n").length);
+	Assert.assertTrue(body.contains("\"_id\":\"1\""));
+	Assert.assertTrue(body.contains("\"_id\":\"3\""));
+
+	writer.add(FOLDER_1, createIndexData("4"));
+
+	Assert.assertEquals(1, writer.getBufferedActions());
+	Assert.assertEquals(1, bulkRequests.size());
+    }
+
+    /**
+     * The failed entries are collected per folder, the rejected ones are sent again with the next flush
+     *
+     * @throws Exception
+     */
+    @Test
+    public void partialFailureTest() throws Exception {
+
+	OpenSearchBulkWriter writer = new OpenSearchBulkWriter(client);
+
+	writer.add(FOLDER_1, createIndexData("1"));
+	writer.add(FOLDER_1, createIndexData("2"));
+	writer.add(FOLDER_2, createIndexData("3"));
+
+	bulkResponses.add(createBulkResponse(201, 400, 429));
+
+	writer.flush();
+
+	// the rejected entry is buffered again
+	Assert.assertEquals(1, writer.getBufferedActions());
+
+	List<StoreFailure> failures = writer.drainFailures(FOLDER_1);
+
+	Assert.assertEquals(1, failures.size());
+	Assert.assertEquals("2", failures.get(0).getKey());
+	Assert.assertEquals("mapper_parsing_exception: failed to parse", failures.get(0).getReason());
+
+	// the failures are scoped per folder, and drained only once
+	Assert.assertTrue(writer.drainFailures(FOLDER_1).isEmpty());
+	Assert.assertTrue(writer.drainFailures(FOLDER_2).isEmpty());
+
+	writer.flush();
+
+	Assert.assertEquals(0, writer.getBufferedActions());
+	Assert.assertEquals(2, bulkRequests.size());
+	Assert.assertTrue(bulkRequests.get(1).getBody().get().bodyAsString().contains("\"_id\":\"3\""));
+
+	Assert.assertTrue(writer.drainFailures(FOLDER_2).isEmpty());
+    }
+
+    /**
+     * The end sends the buffered entries, drains the failures of the final flush and restores the refresh
+     *
+     * @throws Exception
+     */
+    @Test
+    public void endTest() throws Exception {
+
+	OpenSearchBulkWriter writer = new OpenSearchBulkWriter(client);
+
+	OpenSearchFolder folder1 = createFolder(FOLDER_1);
+	OpenSearchFolder folder2 = createFolder(FOLDER_2);
+
+	writer.begin(folder1);
+	writer.begin(folder2);
+
+	Assert.assertTrue(writer.isBulkFolder(FOLDER_1));
+	Assert.assertEquals(2, settingsRequests.size());
+
+	// the refresh is relaxed, not disabled
+	String settings = settingsRequests.get(0).getBody().get().bodyAsString();
+	Assert.assertTrue(settings.contains("\"30s\""));
+
+	writer.add(FOLDER_1, createIndexData("1"));
+	writer.add(FOLDER_1, createIndexData("2"));
+	writer.add(FOLDER_2, createIndexData("3"));
+
+	bulkResponses.add(createBulkResponse(201, 400, 400));
+
+	writer.end(folder1);
+
+	Assert.assertEquals(0, writer.getBufferedActions());
+	Assert.assertEquals(1, bulkRequests.size());
+	Assert.assertFalse(writer.isBulkFolder(FOLDER_1));
+
+	// the failures of the ended folder are drained by the end, the ones of the other folder are preserved
+	Assert.assertTrue(writer.drainFailures(FOLDER_1).isEmpty());
+	Assert.assertEquals(1, writer.drainFailures(FOLDER_2).size());
+
+	// the other folder is in the same index, so the refresh is not restored yet
+	Assert.assertEquals(2, settingsRequests.size());
+
+	writer.end(folder2);
+
+	Assert.assertFalse(writer.isBulkFolder(FOLDER_2));
+	Assert.assertEquals(3, settingsRequests.size());
+	Assert.assertTrue(settingsRequests.get(2).getBody().get().bodyAsString().contains("null"));
+
+	Mockito.verify(client.indices(), Mockito.times(2)).refresh();
+    }
+
+    /**
+     * @param id
+     * @return
+     */
+    private IndexData createIndexData(String id) {
+
+	IndexData indexData = Mockito.mock(IndexData.class);
+
+	Mockito.when(indexData.getIndex()).thenReturn("data-folder-index");
+	Mockito.when(indexData.getEntryId()).thenReturn(id);
+	Mockito.when(indexData.getData()).thenReturn("{\"id\":\"" + id + "\"}");
+
+	return indexData;
+    }
+
+    /**
+     * @param name
+     * @return
+     */
+    private OpenSearchFolder createFolder(String name) {
+
+	OpenSearchFolder folder = Mockito.mock(OpenSearchFolder.class);
+
+	Mockito.when(folder.getName()).thenReturn(name);
+
+	return folder;
+    }
+
+    /**
+     * @param statuses
+     * @return
+     */
+    private String createBulkResponse(int... statuses) {
+
+	StringBuilder builder = new StringBuilder("{\"errors\":true,\"items\":[");
+
+	for (int i = 0; i < statuses.length; i++) {
+
+	    if (i > 0) {
+
+		builder.append(',');
+	    }
+
+	    builder.append("{\"index\":{\"status\":" + statuses[i]);
+
+	    switch (statuses[i]) {
+	    case 400:
+		builder.append(",\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse\"}");
+		break;
+	    case 429:
+		builder.append(",\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected\"}");
+		break;
+	    }
+
+	    builder.append("}}");
+	}
+
+	return builder.append("]}").toString();
+    }
+
+    /**
+     * @param json
+     * @return
+     */
+    private Response createResponse(String json) {
+
+	Body body = Mockito.mock(Body.class);
+	Mockito.when(body.bodyAsString()).thenReturn(json);
+
+	Response response = Mockito.mock(Response.class);
+	Mockito.when(response.getStatus()).thenReturn(200);
+	Mockito.when(response.getBody()).thenReturn(Optional.of(body));
+
+	return response;
+    }
+}
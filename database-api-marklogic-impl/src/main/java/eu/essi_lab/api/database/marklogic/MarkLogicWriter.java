@@ -59,6 +59,8 @@ public class MarkLogicWriter extends DatabaseWriter {
 
 	    markLogicDB.getWrapper().remove(resource.getPrivateId());
 
+	    resourceChanged(resource);
+
 	} catch (Exception e) {
 
 	    GSLoggerFactory.getLogger(getClass()).error("Unable to remove resource  {}", resource.getPrivateId(), e);
@@ -145,6 +147,8 @@ public class MarkLogicWriter extends DatabaseWriter {
 
 	    throw GSException.createException(getClass(), "MARKLOGIC_REOVE_BY_RECOVERY_REMOVAL_TOKEN_ERROR", ex);
 	}
+
+	resourcesChanged();
     }
 
     /**
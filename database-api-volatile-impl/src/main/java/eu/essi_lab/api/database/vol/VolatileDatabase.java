@@ -25,6 +25,7 @@ package eu.essi_lab.api.database.vol;
  */
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -51,7 +52,8 @@ public class VolatileDatabase extends Database {
     private StorageInfo dbInfo;
     private String dbIdentifier;
     private DatabaseSetting setting;
-    private List<GSResource> resourcesList;
+    private ResourcesList resourcesList;
+    private VolatileIndex index;
     private List<GSUser> usersList;
     private List<View> viewsList;
     private List<VolatileFolder> foldersList;
@@ -61,7 +63,7 @@ public class VolatileDatabase extends Database {
 
     public VolatileDatabase() {
 
-	resourcesList = new ArrayList<GSResource>();
+	resourcesList = new ResourcesList();
 	usersList = new ArrayList<GSUser>();
 
 	viewsList = new ArrayList<View>();
@@ -81,6 +83,32 @@ public class VolatileDatabase extends Database {
 	}
     }
 
+    /**
+     * Returns the index of the current resources. The resources appended to the list since the last call are added to
+     * the index, while any other change of the list creates a new index. Resources modified in place are not
+     * re-indexed, they must be replaced in the list
+     *
+     * @return
+     */
+    public VolatileIndex getIndex() {
+
+	synchronized (resourcesList) {
+
+	    int version = resourcesList.getVersion();
+
+	    if (index == null || !resourcesList.isAppendedSince(index.getVersion())) {
+
+		index = new VolatileIndex(resourcesList, version);
+
+	    } else if (index.getVersion() != version) {
+
+		index.append(resourcesList.subList(index.size(), resourcesList.size()), version);
+	    }
+
+	    return index;
+	}
+    }
+
     /**
      * @return
      */
@@ -201,7 +229,8 @@ public class VolatileDatabase extends Database {
      */
     public void clear() {
 
-	resourcesList = new ArrayList<GSResource>();
+	resourcesList = new ResourcesList();
+	index = null;
 	usersList = new ArrayList<GSUser>();
 	viewsList = new ArrayList<View>();
 	foldersList = new ArrayList<VolatileFolder>();
@@ -286,4 +315,88 @@ public class VolatileDatabase extends Database {
 	//
 	return null;
     }
+
+    /**
+     * A list of resources which keeps track of its modifications, distinguishing the appends from the other changes
+     *
+     * @author Fabrizio
+     */
+    @SuppressWarnings("serial")
+    private static class ResourcesList extends ArrayList<GSResource> {
+
+	/**
+	 * The version after the last append
+	 */
+	private int appended;
+
+	/**
+	 * The version after the last change which was not an append
+	 */
+	private int changed;
+
+	/**
+	 * @return
+	 */
+	private int getVersion() {
+
+	    update();
+
+	    return modCount;
+	}
+
+	/**
+	 * @param version
+	 * @return <code>true</code> if the list was only appended since the given <code>version</code>
+	 */
+	private boolean isAppendedSince(int version) {
+
+	    update();
+
+	    return changed <= version;
+	}
+
+	@Override
+	public boolean add(GSResource element) {
+
+	    update();
+
+	    boolean out = super.add(element);
+
+	    appended = modCount;
+
+	    return out;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends GSResource> collection) {
+
+	    update();
+
+	    boolean out = super.addAll(collection);
+
+	    appended = modCount;
+
+	    return out;
+	}
+
+	/**
+	 * Any modification after the last append is not an append
+	 */
+	private void update() {
+
+	    if (modCount != appended) {
+
+		changed = modCount;
+	    }
+	}
+
+	@Override
+	public GSResource set(int index, GSResource element) {
+
+	    // replacing an element is not a structural modification
+	    modCount++;
+
+	    return super.set(index, element);
+	}
+    }
 }
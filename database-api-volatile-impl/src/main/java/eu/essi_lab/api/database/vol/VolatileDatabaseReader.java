@@ -27,7 +27,10 @@ package eu.essi_lab.api.database.vol;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -46,26 +49,28 @@ import eu.essi_lab.api.database.Database;
 import eu.essi_lab.api.database.Database.IdentifierType;
 import eu.essi_lab.api.database.DatabaseReader;
 import eu.essi_lab.api.database.GetViewIdentifiersRequest;
+import eu.essi_lab.api.database.vol.VolatileIndex.Counts;
 import eu.essi_lab.cfga.gs.setting.database.DatabaseSetting;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.lib.utils.StreamUtils;
 import eu.essi_lab.lib.xml.XMLNodeReader;
 import eu.essi_lab.messages.DiscoveryMessage;
 import eu.essi_lab.messages.ResultSet;
-import eu.essi_lab.messages.UserBondMessage;
 import eu.essi_lab.messages.bond.Bond;
 import eu.essi_lab.messages.bond.View;
-import eu.essi_lab.messages.bond.parser.IdentifierBondHandler;
 import eu.essi_lab.messages.count.CountSet;
 import eu.essi_lab.messages.count.DiscoveryCountResponse;
 import eu.essi_lab.messages.termfrequency.TermFrequencyItem;
 import eu.essi_lab.messages.termfrequency.TermFrequencyMap;
+import eu.essi_lab.messages.termfrequency.TermFrequencyMap.TermFrequencyTarget;
 import eu.essi_lab.messages.termfrequency.TermFrequencyMapType;
 import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.Queryable;
 import eu.essi_lab.model.StorageInfo;
 import eu.essi_lab.model.auth.GSUser;
 import eu.essi_lab.model.exceptions.GSException;
 import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.model.resource.ResourceProperty;
 
 /**
  * @author Fabrizio
@@ -146,22 +151,22 @@ public class VolatileDatabaseReader implements DatabaseReader {
      */
     public DiscoveryCountResponse count(DiscoveryMessage message) throws GSException {
 
-	List<GSResource> resourcesList = createResourcesList(message);
+	VolatileIndex index = getDatabase().getIndex();
 
-	DiscoveryCountResponse response = new DiscoveryCountResponse();
+	List<Queryable> targets = Optional.ofNullable(message.getTermFrequencyTargets()).orElse(new ArrayList<>());
 
-	Map<String, GSSource> sourcesMap = resourcesList.//
-		stream().//
-		map(r -> r.getSource()).//
-		distinct().//
-		collect(Collectors.toMap(s -> s.getUniqueIdentifier(), s -> s));
+	Counts counts = index.count(//
+		select(index, message), //
+		targets.stream().map(Queryable::getName).collect(Collectors.toList()));
+
+	DiscoveryCountResponse response = new DiscoveryCountResponse();
 
 	if (message.isOutputSources()) {
 
-	    response.setCount(sourcesMap.values().size());
+	    response.setCount(counts.getSourceCounts().size());
 
 	} else {
-	    response.setCount(resourcesList.size());
+	    response.setCount(counts.getTotal());
 	}
 
 	TermFrequencyMapType mapType = new TermFrequencyMapType();
@@ -169,12 +174,7 @@ public class VolatileDatabaseReader implements DatabaseReader {
 
 	response.setTermFrequencyMap(termFrequencyMap);
 
-	for (String sourceId : sourcesMap.keySet()) {
-
-	    int count = (int) resourcesList.//
-		    stream().//
-		    filter(r -> r.getSource().getUniqueIdentifier().equals(sourceId)).//
-		    count();
+	counts.getSourceCounts().forEach((sourceId, count) -> {
 
 	    TermFrequencyItem termFrequencyItem = new TermFrequencyItem();
 
@@ -185,6 +185,32 @@ public class VolatileDatabaseReader implements DatabaseReader {
 	    termFrequencyItem.setFreq(count);
 
 	    mapType.getSourceId().add(termFrequencyItem);
+	});
+
+	for (Queryable target : targets) {
+
+	    TermFrequencyTarget frequencyTarget = TermFrequencyTarget.fromValue(target.getName());
+
+	    if (frequencyTarget == null || frequencyTarget == TermFrequencyTarget.SOURCE) {
+		continue;
+	    }
+
+	    counts.getFrequencies(target.getName()).//
+		    entrySet().//
+		    stream().//
+		    sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue())).//
+		    limit(message.getMaxFrequencyMapItems()).//
+		    forEach(entry -> {
+
+			TermFrequencyItem item = new TermFrequencyItem();
+
+			item.setTerm(entry.getKey());
+			item.setDecodedTerm(entry.getKey());
+			item.setLabel(target.getName());
+			item.setFreq(entry.getValue());
+
+			termFrequencyMap.getItems(frequencyTarget).add(item);
+		    });
 	}
 
 	return response;
@@ -199,26 +225,17 @@ public class VolatileDatabaseReader implements DatabaseReader {
 
 	ResultSet<GSResource> resultSet = new ResultSet<>();
 
-	CountSet countSet = new CountSet();
+	VolatileIndex index = getDatabase().getIndex();
 
-	List<GSResource> resourcesList = createResourcesList(message);
+	BitSet selection = select(index, message);
 
 	//
 	//
 	//
 
-	List<String> sourceIds = resourcesList.//
-		stream().//
-		map(r -> r.getSource().getUniqueIdentifier()).//
-		distinct().//
-		collect(Collectors.toList());
+	CountSet countSet = new CountSet();
 
-	for (String sourceId : sourceIds) {
-
-	    int count = (int) resourcesList.//
-		    stream().//
-		    filter(r -> r.getSource().getUniqueIdentifier().equals(sourceId)).//
-		    count();
+	index.count(selection, new ArrayList<>()).getSourceCounts().forEach((sourceId, count) -> {
 
 	    DiscoveryCountResponse countResponse = new DiscoveryCountResponse();
 
@@ -228,7 +245,7 @@ public class VolatileDatabaseReader implements DatabaseReader {
 		    sourceId, countResponse);
 
 	    countSet.addCountPair(simpleEntry);
-	}
+	});
 
 	countSet.setPageCount(message.getPage().getSize());
 	countSet.setPageIndex(message.getPage().getStart());
@@ -241,7 +258,7 @@ public class VolatileDatabaseReader implements DatabaseReader {
 
 	if (message.isOutputSources()) {
 
-	    List<GSResource> collect = resourcesList.//
+	    List<GSResource> collect = index.get(selection).//
 		    stream().//
 		    filter(StreamUtils.distinctBy(GSResource::getSource)).//
 		    collect(Collectors.toList());
@@ -250,46 +267,37 @@ public class VolatileDatabaseReader implements DatabaseReader {
 
 	} else {
 
-	    int end = (message.getPage().getStart() - 1) + message.getPage().getSize();
-
-	    resultSet.setResultsList(resourcesList.subList(//
+	    resultSet.setResultsList(index.get(//
+		    selection, //
 		    message.getPage().getStart() - 1, //
-		    Math.min(resourcesList.size(), end)));
+		    message.getPage().getSize()));
 	}
 
 	return resultSet;
     }
 
     /**
+     * Evaluates the permitted bond of the message, or the user bond if it is missing, restricted to the message sources
+     *
+     * @param index
      * @param message
      * @return
      */
-    private List<GSResource> createResourcesList(UserBondMessage message) {
+    private BitSet select(VolatileIndex index, DiscoveryMessage message) {
 
-	List<GSResource> resourcesList = getDatabase().//
-		getResourcesList().//
+	BitSet selection = index.sources(message.getSources().//
 		stream().//
-		filter(r -> message.getSources().contains(r.getSource())).//
-		collect(Collectors.toList());
-
-	Optional<Bond> userBond = message.getUserBond();
-
-	if (userBond.isPresent()) {
+		map(GSSource::getUniqueIdentifier).//
+		collect(Collectors.toList()));
 
-	    IdentifierBondHandler parser = new IdentifierBondHandler(userBond.get());
+	Bond bond = Optional.ofNullable(message.getPermittedBond()).orElse(message.getUserBond().orElse(null));
 
-	    if (parser.isCanonicalQueryByIdentifiers()) {
+	if (!selection.isEmpty()) {
 
-		List<String> identifiers = parser.getIdentifiers();
-
-		resourcesList = resourcesList.//
-			stream().//
-			filter(r -> identifiers.contains(r.getPublicId())).//
-			collect(Collectors.toList());
-	    }
+	    selection.and(index.evaluate(bond, getDatabase().getViewsList()));
 	}
 
-	return resourcesList;
+	return selection;
     }
 
     /**
@@ -376,22 +384,65 @@ public class VolatileDatabaseReader implements DatabaseReader {
     @Override
     public List<GSResource> getResources(IdentifierType identifierType, String identifier) throws GSException {
 
-	return getDatabase().//
-		getResourcesList().//
+	return find(getDatabase().getIndex(), identifierType, identifier);
+    }
+
+    @Override
+    public Map<String, List<GSResource>> getResources(IdentifierType identifierType, List<String> identifiers) throws GSException {
+
+	VolatileIndex index = getDatabase().getIndex();
+
+	Map<String, List<GSResource>> out = new HashMap<>();
+
+	for (String identifier : identifiers) {
+
+	    out.put(identifier, find(index, identifierType, identifier));
+	}
+
+	return out;
+    }
+
+    /**
+     * @param index
+     * @param identifierType
+     * @param identifier
+     * @return
+     */
+    private List<GSResource> find(VolatileIndex index, IdentifierType identifierType, String identifier) {
+
+	// the indexes metadata might be outdated, so the found resources are also checked
+	return index.get(index.lookup(getProperty(identifierType), identifier)).//
 		stream().//
 		filter(r -> {
 		    switch (identifierType) {
 		    case PUBLIC:
-			return r.getPublicId().equals(identifier);
+			return identifier.equals(r.getPublicId());
 		    case PRIVATE:
-			return r.getPrivateId().equals(identifier);
+			return identifier.equals(r.getPrivateId());
 		    case ORIGINAL:
 		    default:
-			return r.getOriginalId().equals(identifier);
+			return r.getOriginalId().map(identifier::equals).orElse(false);
 		    }
 		}).collect(Collectors.toList());
     }
 
+    /**
+     * @param identifierType
+     * @return
+     */
+    private ResourceProperty getProperty(IdentifierType identifierType) {
+
+	switch (identifierType) {
+	case PUBLIC:
+	    return ResourceProperty.PUBLIC_ID;
+	case PRIVATE:
+	    return ResourceProperty.PRIVATE_ID;
+	case ORIGINAL:
+	default:
+	    return ResourceProperty.ORIGINAL_ID;
+	}
+    }
+
     @Override
     public boolean resourceExists(String originalIdentifier, GSSource source) throws GSException {
 
@@ -401,16 +452,11 @@ public class VolatileDatabaseReader implements DatabaseReader {
     @Override
     public GSResource getResource(String originalIdentifier, GSSource source) throws GSException {
 
-	return getDatabase().//
-		getResourcesList().//
+	return find(getDatabase().getIndex(), IdentifierType.ORIGINAL, originalIdentifier).//
 		stream().//
-		filter(r -> r.getOriginalId().isPresent() //
-			&& r.getOriginalId().get().equals(originalIdentifier)
-			&& r.getSource().getUniqueIdentifier().equals(source.getUniqueIdentifier()))
-		.//
+		filter(r -> r.getSource().getUniqueIdentifier().equals(source.getUniqueIdentifier())).//
 		findFirst().//
 		orElse(null);
-
     }
 
     @Override
@@ -113,6 +113,8 @@ public class VolatileDatabaseWriter extends DatabaseWriter {
 
 	    getDatabase().getResourcesList().add(resource);
 	}
+
+	resourceChanged(resource);
     }
 
     @Override
@@ -129,6 +131,7 @@ public class VolatileDatabaseWriter extends DatabaseWriter {
 	    }
 	}
 
+	resourceChanged(resource);
     }
 
     @Override
@@ -147,6 +150,8 @@ public class VolatileDatabaseWriter extends DatabaseWriter {
 
 	    getDatabase().getResourcesList().add(resource);
 	}
+
+	resourceChanged(resource);
     }
 
     //
@@ -0,0 +1,1060 @@
+package eu.essi_lab.api.database.vol;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.lib.utils.ISO8601DateTimeUtils;
+import eu.essi_lab.messages.bond.Bond;
+import eu.essi_lab.messages.bond.BondOperator;
+import eu.essi_lab.messages.bond.EmptyBond;
+import eu.essi_lab.messages.bond.LogicalBond;
+import eu.essi_lab.messages.bond.QueryableBond;
+import eu.essi_lab.messages.bond.SpatialBond;
+import eu.essi_lab.messages.bond.SpatialExtent;
+import eu.essi_lab.messages.bond.View;
+import eu.essi_lab.messages.bond.ViewBond;
+import eu.essi_lab.messages.termfrequency.TermFrequencyMap.TermFrequencyTarget;
+import eu.essi_lab.model.Queryable;
+import eu.essi_lab.model.Queryable.ContentType;
+import eu.essi_lab.model.index.jaxb.BoundingBox;
+import eu.essi_lab.model.index.jaxb.CardinalValues;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.model.resource.MetadataElement;
+import eu.essi_lab.model.resource.ResourceProperty;
+
+/**
+ * In-memory indexes of a snapshot of the {@link VolatileDatabase} resources, used to evaluate the discovery bonds
+ * without scanning all the resources:
+ * <ul>
+ * <li>an inverted index from each value to the positions of the resources having it, for every {@link MetadataElement}
+ * and {@link ResourceProperty} written in the resources indexes metadata</li>
+ * <li>a sorted index of the numeric and temporal values, used by the range operators and by {@link BondOperator#MIN} and
+ * {@link BondOperator#MAX}</li>
+ * <li>a grid index of the bounding boxes, with cells of {@value #CELL_SIZE} degrees</li>
+ * </ul>
+ * Bonds which cannot be evaluated with the indexes (e.g. spatial bonds with a non rectangular shape) are ignored, as
+ * they were before the indexes were introduced.<br>
+ * The resources appended to the database list are appended to the index, so the positions of the indexed resources
+ * never change; the database creates a new index when the resources list is modified in other ways. The appends are
+ * serialized with the evaluations by a read-write lock
+ *
+ * @author Fabrizio
+ */
+public class VolatileIndex {
+
+    private static final int CELL_SIZE = 10;
+    private static final int COLUMNS = 360 / CELL_SIZE;
+    private static final int ROWS = 180 / CELL_SIZE;
+
+    private static final Map<String, ContentType> CONTENT_TYPES = Stream.concat(//
+	    Arrays.stream(MetadataElement.values()), //
+	    Arrays.stream(ResourceProperty.values())).//
+	    collect(Collectors.toMap(Queryable::getName, Queryable::getContentType, (t1, t2) -> t1));
+
+    private static final List<String> FACETS = TermFrequencyTarget.asStringList();
+
+    private final List<GSResource> resources;
+    private final ReadWriteLock lock;
+    private int version;
+
+    private final Map<String, FieldIndex> fields;
+    private final List<Map<String, List<String>>> facets;
+    private final List<List<double[]>> boxes;
+    private final IntList[] cells;
+
+    /**
+     * @param resources
+     * @param version
+     */
+    VolatileIndex(List<GSResource> resources, int version) {
+
+	this.resources = new ArrayList<>(resources.size());
+	this.lock = new ReentrantReadWriteLock();
+	this.version = version;
+
+	this.fields = new HashMap<>();
+	this.facets = new ArrayList<>(resources.size());
+	this.boxes = new ArrayList<>(resources.size());
+	this.cells = new IntList[COLUMNS * ROWS];
+
+	resources.forEach(this::add);
+    }
+
+    /**
+     * Indexes the given resources after the current ones
+     * 
+     * @param appended
+     * @param version the version of the resources list after the append
+     */
+    void append(List<GSResource> appended, int version) {
+
+	lock.writeLock().lock();
+
+	try {
+
+	    appended.forEach(this::add);
+
+	    this.version = version;
+
+	} finally {
+
+	    lock.writeLock().unlock();
+	}
+    }
+
+    /**
+     * @return the version of the resources list when this index was last updated
+     */
+    int getVersion() {
+
+	lock.readLock().lock();
+
+	try {
+
+	    return version;
+
+	} finally {
+
+	    lock.readLock().unlock();
+	}
+    }
+
+    /**
+     * @return
+     */
+    public int size() {
+
+	lock.readLock().lock();
+
+	try {
+
+	    return resources.size();
+
+	} finally {
+
+	    lock.readLock().unlock();
+	}
+    }
+
+    /**
+     * @param doc
+     * @return
+     */
+    public GSResource get(int doc) {
+
+	lock.readLock().lock();
+
+	try {
+
+	    return resources.get(doc);
+
+	} finally {
+
+	    lock.readLock().unlock();
+	}
+    }
+
+    /**
+     * @param selection
+     * @return the selected resources, in the order they were stored
+     */
+    public List<GSResource> get(BitSet selection) {
+
+	return get(selection, 0, selection.cardinality());
+    }
+
+    /**
+     * @param selection
+     * @param start 0-based index of the first selected resource to return
+     * @param count
+     * @return
+     */
+    public List<GSResource> get(BitSet selection, int start, int count) {
+
+	List<GSResource> out = new ArrayList<>();
+
+	int skipped = 0;
+
+	lock.readLock().lock();
+
+	try {
+
+	    for (int doc = selection.nextSetBit(0); doc >= 0 && out.size() < count; doc = selection.nextSetBit(doc + 1)) {
+
+		if (skipped++ >= start) {
+
+		    out.add(resources.get(doc));
+		}
+	    }
+
+	} finally {
+
+	    lock.readLock().unlock();
+	}
+
+	return out;
+    }
+
+    /**
+     * @param queryable
+     * @param value
+     * @return the positions of the resources having exactly the given <code>value</code>
+     */
+    public BitSet lookup(Queryable queryable, String value) {
+
+	BitSet out = new BitSet();
+
+	lock.readLock().lock();
+
+	try {
+
+	    FieldIndex field = fields.get(queryable.getName());
+
+	    if (field != null && value != null) {
+
+		IntList docs = field.terms.get(value);
+
+		if (docs != null) {
+		    docs.addTo(out);
+		}
+	    }
+
+	} finally {
+
+	    lock.readLock().unlock();
+	}
+
+	return out;
+    }
+
+    /**
+     * @param sourceIds
+     * @return the positions of the resources of the given sources
+     */
+    public BitSet sources(List<String> sourceIds) {
+
+	BitSet out = new BitSet();
+
+	sourceIds.forEach(id -> out.or(lookup(ResourceProperty.SOURCE_ID, id)));
+
+	return out;
+    }
+
+    /**
+     * @param bond
+     * @param views the views referenced by {@link ViewBond}s
+     * @return the positions of the resources matching the <code>bond</code>
+     */
+    public BitSet evaluate(Bond bond, List<View> views) {
+
+	// the logical and view bonds are evaluated recursively, the read lock is reentrant
+	lock.readLock().lock();
+
+	try {
+
+	    if (bond == null || bond instanceof EmptyBond) {
+
+		return all();
+	    }
+
+	    if (bond instanceof LogicalBond) {
+
+		return logical((LogicalBond) bond, views);
+	    }
+
+	    if (bond instanceof ViewBond) {
+
+		String viewId = ((ViewBond) bond).getViewIdentifier();
+
+		Optional<View> view = views.stream().filter(v -> v.getId().equals(viewId)).findFirst();
+
+		if (view.isPresent()) {
+
+		return evaluate(view.get().getBond(), views);
+		}
+
+		GSLoggerFactory.getLogger(getClass()).warn("View {} not found, bond ignored", viewId);
+
+		return all();
+	    }
+
+	    if (bond instanceof SpatialBond) {
+
+		SpatialBond spatialBond = (SpatialBond) bond;
+
+		if (spatialBond.getPropertyValue() instanceof SpatialExtent) {
+
+		return spatial(spatialBond.getOperator(), (SpatialExtent) spatialBond.getPropertyValue());
+		}
+
+	    } else if (bond instanceof QueryableBond) {
+
+		return queryable((QueryableBond<?>) bond);
+	    }
+
+	    GSLoggerFactory.getLogger(getClass()).debug("Unsupported bond {}, ignored", bond);
+
+	    return all();
+
+	} finally {
+
+	    lock.readLock().unlock();
+	}
+    }
+
+    /**
+     * Computes in a single pass over the <code>selection</code> the number of resources of each source and the term
+     * frequencies of the given <code>targets</code>
+     *
+     * @param selection
+     * @param targets
+     * @return
+     */
+    public Counts count(BitSet selection, List<String> targets) {
+
+	Counts counts = new Counts();
+
+	lock.readLock().lock();
+
+	try {
+
+	    count(selection, targets, counts);
+
+	} finally {
+
+	    lock.readLock().unlock();
+	}
+
+	return counts;
+    }
+
+    /**
+     * @param selection
+     * @param targets
+     * @param counts
+     */
+    private void count(BitSet selection, List<String> targets, Counts counts) {
+
+	for (int doc = selection.nextSetBit(0); doc >= 0; doc = selection.nextSetBit(doc + 1)) {
+
+	    counts.total++;
+
+	    counts.sources.merge(resources.get(doc).getSource().getUniqueIdentifier(), 1, Integer::sum);
+
+	    Map<String, List<String>> values = facets.get(doc);
+
+	    for (String target : targets) {
+
+		List<String> list = values.get(target);
+
+		if (list != null) {
+
+		    Map<String, Integer> frequencies = counts.frequencies.computeIfAbsent(target, t -> new HashMap<>());
+
+		    list.forEach(value -> frequencies.merge(value, 1, Integer::sum));
+		}
+	    }
+	}
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    public static class Counts {
+
+	private int total;
+	private Map<String, Integer> sources = new LinkedHashMap<>();
+	private Map<String, Map<String, Integer>> frequencies = new HashMap<>();
+
+	/**
+	 * @return
+	 */
+	public int getTotal() {
+
+	    return total;
+	}
+
+	/**
+	 * @return the number of resources of each source, in the order the sources were found
+	 */
+	public Map<String, Integer> getSourceCounts() {
+
+	    return sources;
+	}
+
+	/**
+	 * @param target
+	 * @return the number of resources having each value of the given <code>target</code>
+	 */
+	public Map<String, Integer> getFrequencies(String target) {
+
+	    return frequencies.getOrDefault(target, new HashMap<>());
+	}
+    }
+
+    //
+    // --- indexing ---
+    //
+
+    /**
+     * @param resource
+     */
+    private void add(GSResource resource) {
+
+	int doc = resources.size();
+
+	resources.add(resource);
+
+	add(doc, resource);
+    }
+
+    /**
+     * @param doc
+     * @param resource
+     */
+    private void add(int doc, GSResource resource) {
+
+	Map<String, List<String>> docFacets = new HashMap<>();
+
+	for (String name : resource.getIndexesMetadata().getProperties().stream().distinct().collect(Collectors.toList())) {
+
+	    for (String value : resource.getIndexesMetadata().read(name)) {
+
+		add(doc, name, value, docFacets);
+	    }
+	}
+
+	//
+	// the identifiers and the source are always indexed, also when the indexes metadata are missing
+	//
+	add(doc, ResourceProperty.PUBLIC_ID.getName(), resource.getPublicId(), docFacets);
+	add(doc, ResourceProperty.PRIVATE_ID.getName(), resource.getPrivateId(), docFacets);
+	add(doc, ResourceProperty.ORIGINAL_ID.getName(), resource.getOriginalId().orElse(null), docFacets);
+
+	// queries by identifier are matched with the public identifier
+	add(doc, MetadataElement.IDENTIFIER.getName(), resource.getPublicId(), docFacets);
+
+	if (resource.getSource() != null) {
+
+	    add(doc, ResourceProperty.SOURCE_ID.getName(), resource.getSource().getUniqueIdentifier(), docFacets);
+	}
+
+	facets.add(docFacets);
+
+	//
+	// bounding boxes
+	//
+
+	List<double[]> docBoxes = new ArrayList<>();
+
+	Optional<BoundingBox> bbox = resource.getIndexesMetadata().readBoundingBox();
+
+	if (bbox.isPresent()) {
+
+	    for (CardinalValues values : bbox.get().getCardinalValues()) {
+
+		try {
+
+		    docBoxes.addAll(split(//
+			    Double.parseDouble(values.getSouth()), //
+			    Double.parseDouble(values.getWest()), //
+			    Double.parseDouble(values.getNorth()), //
+			    Double.parseDouble(values.getEast())));
+
+		} catch (NullPointerException | NumberFormatException ex) {
+
+		    GSLoggerFactory.getLogger(getClass()).warn("Invalid bounding box of resource {}", resource.getPrivateId());
+		}
+	    }
+	}
+
+	boxes.add(docBoxes);
+
+	for (double[] box : docBoxes) {
+
+	    for (int cell : cells(box)) {
+
+		if (cells[cell] == null) {
+		    cells[cell] = new IntList();
+		}
+
+		cells[cell].add(doc);
+	    }
+	}
+    }
+
+    /**
+     * @param doc
+     * @param name
+     * @param value
+     * @param docFacets
+     */
+    private void add(int doc, String name, String value, Map<String, List<String>> docFacets) {
+
+	if (value == null) {
+	    return;
+	}
+
+	FieldIndex field = fields.computeIfAbsent(name, n -> new FieldIndex(CONTENT_TYPES.getOrDefault(n, ContentType.TEXTUAL)));
+
+	field.add(doc, value);
+
+	if (FACETS.contains(name)) {
+
+	    List<String> values = docFacets.computeIfAbsent(name, n -> new ArrayList<>());
+
+	    if (!values.contains(value)) {
+		values.add(value);
+	    }
+	}
+    }
+
+    //
+    // --- evaluation ---
+    //
+
+    /**
+     * @return
+     */
+    private BitSet all() {
+
+	BitSet out = new BitSet(resources.size());
+	out.set(0, resources.size());
+
+	return out;
+    }
+
+    /**
+     * @param bond
+     * @param views
+     * @return
+     */
+    private BitSet logical(LogicalBond bond, List<View> views) {
+
+	List<Bond> operands = bond.getOperands();
+
+	switch (bond.getLogicalOperator()) {
+	case NOT:
+
+	    BitSet out = all();
+
+	    if (!operands.isEmpty()) {
+		out.andNot(evaluate(operands.get(0), views));
+	    }
+
+	    return out;
+
+	case OR:
+
+	    out = new BitSet();
+
+	    for (Bond operand : operands) {
+
+		out.or(evaluate(operand, views));
+	    }
+
+	    return out;
+
+	case AND:
+	default:
+
+	    out = all();
+
+	    for (Bond operand : operands) {
+
+		out.and(evaluate(operand, views));
+
+		if (out.isEmpty()) {
+		    break;
+		}
+	    }
+
+	    return out;
+	}
+    }
+
+    /**
+     * @param bond
+     * @return
+     */
+    private BitSet queryable(QueryableBond<?> bond) {
+
+	BitSet out = new BitSet();
+
+	FieldIndex field = fields.get(bond.getProperty().getName());
+
+	BondOperator operator = bond.getOperator();
+
+	if (operator == null) {
+
+	    GSLoggerFactory.getLogger(getClass()).debug("Missing operator, bond {} ignored", bond);
+
+	    return all();
+	}
+
+	if (field == null) {
+
+	    // no resource has this property
+	    return operator == BondOperator.NOT_EXISTS || operator == BondOperator.NOT_EQUAL ? all() : out;
+	}
+
+	String value = bond.getPropertyValue() == null ? null : String.valueOf(bond.getPropertyValue());
+
+	Double number = value == null ? null : field.toNumber(value);
+
+	switch (operator) {
+	case EXISTS:
+
+	    out.or(field.exists);
+	    break;
+
+	case NOT_EXISTS:
+
+	    out = all();
+	    out.andNot(field.exists);
+	    break;
+
+	case MIN:
+	case MAX:
+
+	    NavigableMap<?, IntList> map = field.numbers.isEmpty() ? field.terms : field.numbers;
+
+	    if (!map.isEmpty()) {
+
+		(operator == BondOperator.MIN ? map.firstEntry() : map.lastEntry()).getValue().addTo(out);
+	    }
+
+	    break;
+
+	case EQUAL:
+	case NOT_EQUAL:
+
+	    IntList docs = number != null ? field.numbers.get(number) : value != null ? field.terms.get(value) : null;
+
+	    if (docs != null) {
+		docs.addTo(out);
+	    }
+
+	    if (operator == BondOperator.NOT_EQUAL) {
+
+		BitSet notEqual = all();
+		notEqual.andNot(out);
+
+		out = notEqual;
+	    }
+
+	    break;
+
+	case LIKE:
+
+	    Pattern pattern = like(value);
+
+	    for (Map.Entry<String, IntList> entry : field.terms.entrySet()) {
+
+		if (pattern.matcher(entry.getKey()).find()) {
+		    entry.getValue().addTo(out);
+		}
+	    }
+
+	    break;
+
+	case GREATER:
+	case GREATER_OR_EQUAL:
+	case LESS:
+	case LESS_OR_EQUAL:
+
+	    boolean inclusive = operator == BondOperator.GREATER_OR_EQUAL || operator == BondOperator.LESS_OR_EQUAL;
+	    boolean greater = operator == BondOperator.GREATER || operator == BondOperator.GREATER_OR_EQUAL;
+
+	    NavigableMap<?, IntList> range = null;
+
+	    if (number != null) {
+
+		range = greater ? field.numbers.tailMap(number, inclusive) : field.numbers.headMap(number, inclusive);
+
+	    } else if (value != null) {
+
+		range = greater ? field.terms.tailMap(value, inclusive) : field.terms.headMap(value, inclusive);
+	    }
+
+	    if (range != null) {
+
+		for (IntList list : range.values()) {
+		    list.addTo(out);
+		}
+	    }
+
+	    break;
+
+	default:
+
+	    GSLoggerFactory.getLogger(getClass()).debug("Unsupported operator {}, bond ignored", operator);
+
+	    return all();
+	}
+
+	return out;
+    }
+
+    /**
+     * @param value
+     * @return
+     */
+    private Pattern like(String value) {
+
+	if (value == null) {
+
+	    return Pattern.compile("");
+	}
+
+	StringBuilder regex = new StringBuilder();
+
+	boolean wildcards = value.contains("*") || value.contains("?");
+
+	if (wildcards) {
+	    regex.append("^");
+	}
+
+	for (String token : value.split("(?=[*?])|(?<=[*?])")) {
+
+	    switch (token) {
+	    case "*":
+		regex.append(".*");
+		break;
+	    case "?":
+		regex.append(".");
+		break;
+	    default:
+		regex.append(Pattern.quote(token));
+	    }
+	}
+
+	if (wildcards) {
+	    regex.append("$");
+	}
+
+	return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    }
+
+    /**
+     * @param operator
+     * @param extent
+     * @return
+     */
+    private BitSet spatial(BondOperator operator, SpatialExtent extent) {
+
+	List<double[]> query = split(extent.getSouth(), extent.getWest(), extent.getNorth(), extent.getEast());
+
+	BitSet candidates = new BitSet();
+
+	for (double[] box : query) {
+
+	    for (int cell : cells(box)) {
+
+		if (cells[cell] != null) {
+		    cells[cell].addTo(candidates);
+		}
+	    }
+	}
+
+	BitSet out = new BitSet();
+
+	switch (operator) {
+	case CONTAINS:
+
+	    // the query extent contains the resource boxes
+	    for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+
+		if (boxes.get(doc).stream().allMatch(box -> query.stream().anyMatch(q -> contains(q, box)))) {
+		    out.set(doc);
+		}
+	    }
+
+	    break;
+
+	case CONTAINED:
+
+	    // the resource boxes contain the query extent
+	    for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+
+		List<double[]> docBoxes = boxes.get(doc);
+
+		if (query.stream().allMatch(q -> docBoxes.stream().anyMatch(box -> contains(box, q)))) {
+		    out.set(doc);
+		}
+	    }
+
+	    break;
+
+	case DISJOINT:
+
+	    for (int doc = 0; doc < resources.size(); doc++) {
+
+		if (!boxes.get(doc).isEmpty() && !(candidates.get(doc) && intersects(boxes.get(doc), query))) {
+		    out.set(doc);
+		}
+	    }
+
+	    break;
+
+	case INTERSECTS_ANY_POINT_NOT_CONTAINS:
+
+	    for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+
+		if (intersects(boxes.get(doc), query)
+			&& !boxes.get(doc).stream().allMatch(box -> query.stream().anyMatch(q -> contains(q, box)))) {
+		    out.set(doc);
+		}
+	    }
+
+	    break;
+
+	case INTERSECTS:
+	case BBOX:
+	default:
+
+	    for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+
+		if (intersects(boxes.get(doc), query)) {
+		    out.set(doc);
+		}
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * Splits the boxes crossing the anti-meridian in two boxes
+     *
+     * @param south
+     * @param west
+     * @param north
+     * @param east
+     * @return
+     */
+    private static List<double[]> split(double south, double west, double north, double east) {
+
+	if (west > east) {
+
+	    return Arrays.asList(//
+		    new double[] { south, west, north, 180 }, //
+		    new double[] { south, -180, north, east });
+	}
+
+	return Arrays.asList(new double[] { south, west, north, east });
+    }
+
+    /**
+     * @param box
+     * @return the grid cells intersected by the given box
+     */
+    private static List<Integer> cells(double[] box) {
+
+	int minColumn = column(box[1]);
+	int maxColumn = column(box[3]);
+	int minRow = row(box[0]);
+	int maxRow = row(box[2]);
+
+	List<Integer> out = new ArrayList<>();
+
+	for (int row = minRow; row <= maxRow; row++) {
+	    for (int column = minColumn; column <= maxColumn; column++) {
+
+		out.add(row * COLUMNS + column);
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * @param lon
+     * @return
+     */
+    private static int column(double lon) {
+
+	return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor((lon + 180) / CELL_SIZE)));
+    }
+
+    /**
+     * @param lat
+     * @return
+     */
+    private static int row(double lat) {
+
+	return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((lat + 90) / CELL_SIZE)));
+    }
+
+    /**
+     * @param boxes
+     * @param query
+     * @return
+     */
+    private static boolean intersects(List<double[]> boxes, List<double[]> query) {
+
+	return boxes.stream().anyMatch(box -> query.stream().anyMatch(q -> intersects(box, q)));
+    }
+
+    /**
+     * @param b1 south, west, north, east
+     * @param b2 south, west, north, east
+     * @return
+     */
+    private static boolean intersects(double[] b1, double[] b2) {
+
+	return b1[0] <= b2[2] && b2[0] <= b1[2] && b1[1] <= b2[3] && b2[1] <= b1[3];
+    }
+
+    /**
+     * @param outer south, west, north, east
+     * @param inner south, west, north, east
+     * @return
+     */
+    private static boolean contains(double[] outer, double[] inner) {
+
+	return outer[0] <= inner[0] && outer[2] >= inner[2] && outer[1] <= inner[1] && outer[3] >= inner[3];
+    }
+
+    /**
+     * The values of a queryable
+     *
+     * @author Fabrizio
+     */
+    private static class FieldIndex {
+
+	private final ContentType type;
+	private final TreeMap<String, IntList> terms;
+	private final TreeMap<Double, IntList> numbers;
+	private final BitSet exists;
+
+	/**
+	 * @param type
+	 */
+	private FieldIndex(ContentType type) {
+
+	    this.type = type;
+	    this.terms = new TreeMap<>();
+	    this.numbers = new TreeMap<>();
+	    this.exists = new BitSet();
+	}
+
+	/**
+	 * @param doc
+	 * @param value
+	 */
+	private void add(int doc, String value) {
+
+	    terms.computeIfAbsent(value, v -> new IntList()).add(doc);
+
+	    Double number = toNumber(value);
+
+	    if (number != null) {
+		numbers.computeIfAbsent(number, n -> new IntList()).add(doc);
+	    }
+
+	    exists.set(doc);
+	}
+
+	/**
+	 * @param value
+	 * @return the numeric value of numbers and dates (as epoch milliseconds), or <code>null</code> if the value
+	 *         is not of these types
+	 */
+	private Double toNumber(String value) {
+
+	    switch (type) {
+	    case INTEGER:
+	    case LONG:
+	    case DOUBLE:
+
+		try {
+		    return Double.valueOf(value.trim());
+		} catch (NumberFormatException ex) {
+		    return null;
+		}
+
+	    case ISO8601_DATE:
+	    case ISO8601_DATE_TIME:
+
+		return ISO8601DateTimeUtils.parseISO8601ToDate(value).map(date -> (double) date.getTime()).orElse(null);
+
+	    default:
+		return null;
+	    }
+	}
+    }
+
+    /**
+     * A growable list of resource positions, smaller than a {@link BitSet} for the sparse values
+     *
+     * @author Fabrizio
+     */
+    private static class IntList {
+
+	private int[] values = new int[2];
+	private int size;
+
+	/**
+	 * @param value
+	 */
+	private void add(int value) {
+
+	    // the positions are added in ascending order
+	    if (size > 0 && values[size - 1] == value) {
+		return;
+	    }
+
+	    if (size == values.length) {
+		values = Arrays.copyOf(values, size * 2);
+	    }
+
+	    values[size++] = value;
+	}
+
+	/**
+	 * @param set
+	 */
+	private void addTo(BitSet set) {
+
+	    for (int i = 0; i < size; i++) {
+		set.set(values[i]);
+	    }
+	}
+    }
+}
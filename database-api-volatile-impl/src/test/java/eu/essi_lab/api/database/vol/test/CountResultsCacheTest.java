@@ -0,0 +1,349 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.vol.test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import eu.essi_lab.api.database.CountResultsCache;
+import eu.essi_lab.api.database.Database;
+import eu.essi_lab.api.database.DatabaseFinder;
+import eu.essi_lab.api.database.DatabaseWriter;
+import eu.essi_lab.api.database.SourceGenerations;
+import eu.essi_lab.api.database.SourceStorage;
+import eu.essi_lab.api.database.factory.DatabaseFactory;
+import eu.essi_lab.api.database.factory.DatabaseProviderFactory;
+import eu.essi_lab.api.database.vol.VolatileDatabase;
+import eu.essi_lab.cfga.gs.setting.database.DatabaseSetting;
+import eu.essi_lab.indexes.IndexedElementsWriter;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.bond.BondFactory;
+import eu.essi_lab.messages.bond.ResourcePropertyBond;
+import eu.essi_lab.messages.count.DiscoveryCountResponse;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.HarvestingStrategy;
+import eu.essi_lab.model.StorageInfo;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.OriginalMetadata;
+
+/**
+ * @author Fabrizio
+ */
+public class CountResultsCacheTest {
+
+    private static final StorageInfo TEST_DB_URI = new DatabaseSetting(true).asStorageUri();
+    static {
+	TEST_DB_URI.setIdentifier("SUITE_ID");
+    }
+
+    private DatabaseWriter writer;
+    private DatabaseFinder finder;
+    private SourceStorage storage;
+    private CountResultsCache cache;
+
+    private GSSource source1;
+    private GSSource source2;
+
+    @Before
+    public void init() throws Exception {
+
+	Database provider = DatabaseFactory.get(TEST_DB_URI);
+	provider.initialize(TEST_DB_URI);
+
+	((VolatileDatabase) provider).removeFolders();
+
+	writer = DatabaseProviderFactory.getWriter(TEST_DB_URI);
+	finder = DatabaseProviderFactory.getFinder(TEST_DB_URI);
+	storage = DatabaseProviderFactory.getSourceStorage(TEST_DB_URI);
+
+	source1 = new GSSource();
+	source1.setUniqueIdentifier("cache-source-1");
+
+	source2 = new GSSource();
+	source2.setUniqueIdentifier("cache-source-2");
+
+	cache = CountResultsCache.getInstance();
+	cache.setEnabled(true);
+	cache.setLocalWrites(true);
+	cache.clear();
+    }
+
+    @Test
+    public void harvestInvalidationTest() throws Exception {
+
+	harvest(source1, 3);
+	harvest(source2, 2);
+
+	DiscoveryMessage message = createMessage(source1);
+
+	long hits = cache.getHits();
+	long misses = cache.getMisses();
+	long invalidations = cache.getInvalidations();
+
+	Assert.assertEquals(3, count(message));
+	Assert.assertEquals(misses + 1, cache.getMisses());
+
+	Assert.assertEquals(3, count(message));
+	Assert.assertEquals(hits + 1, cache.getHits());
+
+	//
+	// the harvesting of a source not related to the message does not invalidate the entry
+	//
+
+	harvest(source2, 4);
+
+	Assert.assertEquals(3, count(message));
+	Assert.assertEquals(hits + 2, cache.getHits());
+	Assert.assertEquals(invalidations, cache.getInvalidations());
+
+	//
+	// the harvesting of the message source invalidates the entry
+	//
+
+	harvest(source1, 5);
+
+	Assert.assertEquals(5, count(message));
+	Assert.assertEquals(misses + 2, cache.getMisses());
+	Assert.assertEquals(invalidations + 1, cache.getInvalidations());
+
+	Assert.assertEquals(5, count(message));
+	Assert.assertEquals(hits + 3, cache.getHits());
+    }
+
+    @Test
+    public void writeInvalidationTest() throws Exception {
+
+	harvest(source1, 3);
+
+	DiscoveryMessage message = createMessage(source1);
+
+	long invalidations = cache.getInvalidations();
+
+	Assert.assertEquals(3, count(message));
+
+	//
+	// a resource stored outside of a harvesting invalidates the entry
+	//
+
+	Dataset dataset = createDataset(source1, UUID.randomUUID().toString());
+
+	writer.store(dataset);
+
+	Assert.assertEquals(4, count(message));
+	Assert.assertEquals(invalidations + 1, cache.getInvalidations());
+
+	//
+	// as well as an updated or a removed one
+	//
+
+	writer.update(dataset);
+
+	Assert.assertEquals(4, count(message));
+	Assert.assertEquals(invalidations + 2, cache.getInvalidations());
+
+	writer.remove(dataset);
+
+	Assert.assertEquals(3, count(message));
+	Assert.assertEquals(invalidations + 3, cache.getInvalidations());
+    }
+
+    @Test
+    public void epochTest() throws Exception {
+
+	harvest(source1, 3);
+
+	DiscoveryMessage message = createMessage(source1);
+
+	long hits = cache.getHits();
+	long invalidations = cache.getInvalidations();
+
+	Assert.assertEquals(3, count(message));
+	Assert.assertEquals(3, count(message));
+
+	Assert.assertEquals(hits + 1, cache.getHits());
+
+	//
+	// a change not related to a source (e.g. a removal by property) invalidates all the entries
+	//
+
+	SourceGenerations.getInstance().incrementAll();
+
+	Assert.assertEquals(3, count(message));
+	Assert.assertEquals(invalidations + 1, cache.getInvalidations());
+    }
+
+    @Test
+    public void resourcesVersionTest() throws Exception {
+
+	harvest(source1, 3);
+
+	DiscoveryMessage message = createMessage(source1);
+
+	//
+	// if the resources are written by other nodes, the version of the finder is required
+	//
+
+	cache.setLocalWrites(false);
+
+	Assert.assertFalse(cache.getGenerations(message, finder).isPresent());
+
+	DatabaseFinder versioned = Mockito.mock(DatabaseFinder.class);
+	Mockito.when(versioned.getResourcesVersion()).thenReturn(Optional.of(1L), Optional.of(1L), Optional.of(2L));
+
+	String key = cache.createKey(message).get();
+
+	HashMap<String, Long> generations = cache.getGenerations(message, versioned).get();
+
+	Assert.assertFalse(cache.get(key, generations).isPresent());
+
+	DiscoveryCountResponse response = new DiscoveryCountResponse();
+	response.setCount(3);
+
+	cache.put(key, generations, response);
+
+	// same version
+	Assert.assertEquals(3, cache.get(key, cache.getGenerations(message, versioned).get()).get().getCount());
+
+	long invalidations = cache.getInvalidations();
+
+	// the resources changed on another node
+	Assert.assertFalse(cache.get(key, cache.getGenerations(message, versioned).get()).isPresent());
+	Assert.assertEquals(invalidations + 1, cache.getInvalidations());
+    }
+
+    @Test
+    public void generationsTest() {
+
+	DiscoveryMessage message = createMessage(source1);
+
+	HashMap<String, Long> generations = cache.getGenerations(message, finder).get();
+
+	Assert.assertEquals(Long.valueOf(SourceGenerations.getInstance().get(source1.getUniqueIdentifier())),
+		generations.get(source1.getUniqueIdentifier()));
+
+	SourceGenerations.getInstance().increment(source1.getUniqueIdentifier());
+
+	Assert.assertNotEquals(generations, cache.getGenerations(message, finder).get());
+
+	//
+	// a message without sources depends on the generations of all the sources
+	//
+
+	message.setSources(Arrays.asList());
+
+	generations = cache.getGenerations(message, finder).get();
+
+	SourceGenerations.getInstance().increment(source2.getUniqueIdentifier());
+
+	Assert.assertNotEquals(generations, cache.getGenerations(message, finder).get());
+    }
+
+    @Test
+    public void keyTest() {
+
+	DiscoveryMessage message = createMessage(source1);
+
+	String key = cache.createKey(message).get();
+
+	message.setPermittedBond(BondFactory.createSourceIdentifierBond(source2.getUniqueIdentifier()));
+
+	Assert.assertNotEquals(key, cache.createKey(message).get());
+
+	cache.setEnabled(false);
+
+	Assert.assertFalse(cache.createKey(message).isPresent());
+    }
+
+    /**
+     * Counts as the database query executor does
+     *
+     * @param message
+     * @return
+     * @throws Exception
+     */
+    private int count(DiscoveryMessage message) throws Exception {
+
+	String key = cache.createKey(message).get();
+
+	HashMap<String, Long> generations = cache.getGenerations(message, finder).get();
+
+	Optional<DiscoveryCountResponse> cached = cache.get(key, generations);
+
+	if (cached.isPresent()) {
+
+	    return cached.get().getCount();
+	}
+
+	DiscoveryCountResponse response = finder.count(message);
+
+	cache.put(key, generations, response);
+
+	return response.getCount();
+    }
+
+    /**
+     * @param source
+     * @return
+     */
+    private DiscoveryMessage createMessage(GSSource source) {
+
+	ResourcePropertyBond bond = BondFactory.createSourceIdentifierBond(source.getUniqueIdentifier());
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setSources(Arrays.asList(source));
+	message.setPermittedBond(bond);
+	message.setNormalizedBond(bond);
+	message.setPage(new Page(10));
+
+	return message;
+    }
+
+    /**
+     * Simulates a full harvesting of the given source
+     *
+     * @param source
+     * @param resources
+     * @throws Exception
+     */
+    private void harvest(GSSource source, int resources) throws Exception {
+
+	storage.harvestingStarted(source, HarvestingStrategy.FULL, false, false);
+
+	String id = UUID.randomUUID().toString();
+
+	for (int i = 0; i < resources; i++) {
+
+	    writer.store(createDataset(source, id + "_" + i));
+	}
+
+	storage.harvestingEnded(source, HarvestingStrategy.FULL);
+    }
+
+    /**
+     * @param source
+     * @param id
+     * @return
+     * @throws Exception
+     */
+    private Dataset createDataset(GSSource source, String id) throws Exception {
+
+	Dataset dataset = new Dataset();
+	dataset.setSource(source);
+	dataset.setPrivateId(id);
+	dataset.setOriginalId(id);
+	dataset.setOriginalMetadata(new OriginalMetadata());
+
+	IndexedElementsWriter.write(dataset);
+
+	return dataset;
+    }
+}
@@ -277,15 +277,10 @@ public class HarvestingAndDiscoveryTest {
 	message.setSources(Arrays.asList(source1, source2));
 
 	// test
-	// sourceConstraintsTest(SOURCE_1_ID, 5, false);
-	// sourceConstraintsTest(SOURCE_2_ID, 7, false);
-	// sourceConstraintsTest(SOURCE_1_ID, 5, true);
-	// sourceConstraintsTest(SOURCE_2_ID, 7, true);
-
-	sourceConstraintsTest(SOURCE_1_ID, 10, false);
-	sourceConstraintsTest(SOURCE_2_ID, 10, false);
-	sourceConstraintsTest(SOURCE_1_ID, 12, true);
-	sourceConstraintsTest(SOURCE_2_ID, 12, true);
+	sourceConstraintsTest(SOURCE_1_ID, 5, false);
+	sourceConstraintsTest(SOURCE_2_ID, 7, false);
+	sourceConstraintsTest(SOURCE_1_ID, 5, true);
+	sourceConstraintsTest(SOURCE_2_ID, 7, true);
     }
 
     public void nonHarvestedSourceAndTitleTest() throws Exception {
@@ -295,17 +290,11 @@ public class HarvestingAndDiscoveryTest {
 	String title2 = "title2";
 
 	// test
-	// sourceAndTitleTest("none", title1, 0, false);
-	// sourceAndTitleTest("none", title1, 0, false);
-	//
-	// sourceAndTitleTest("none", title2, 0, true);
-	// sourceAndTitleTest("none", title2, 0, true);
-
-	sourceAndTitleTest("none", title1, 10, false);
-	sourceAndTitleTest("none", title1, 10, false);
+	sourceAndTitleTest("none", title1, 0, false);
+	sourceAndTitleTest("none", title1, 0, false);
 
-	sourceAndTitleTest("none", title2, 32, true);
-	sourceAndTitleTest("none", title2, 32, true);
+	sourceAndTitleTest("none", title2, 0, true);
+	sourceAndTitleTest("none", title2, 0, true);
     }
 
     public void sourceAndTitleTest() throws Exception {
@@ -337,17 +326,11 @@ public class HarvestingAndDiscoveryTest {
 	storage.harvestingEnded(source2, HarvestingStrategy.FULL);
 
 	// test
-	// sourceAndTitleTest(SOURCE_1_ID, title1, 3, false);
-	// sourceAndTitleTest(SOURCE_2_ID, title1, 3, false);
-	//
-	// sourceAndTitleTest(SOURCE_1_ID, title2, 5, true);
-	// sourceAndTitleTest(SOURCE_2_ID, title2, 5, true);
-
-	sourceAndTitleTest(SOURCE_1_ID, title1, 10, false);
-	sourceAndTitleTest(SOURCE_2_ID, title1, 10, false);
+	sourceAndTitleTest(SOURCE_1_ID, title1, 3, false);
+	sourceAndTitleTest(SOURCE_2_ID, title1, 3, false);
 
-	sourceAndTitleTest(SOURCE_1_ID, title2, 28, true);
-	sourceAndTitleTest(SOURCE_2_ID, title2, 28, true);
+	sourceAndTitleTest(SOURCE_1_ID, title2, 5, true);
+	sourceAndTitleTest(SOURCE_2_ID, title2, 5, true);
     }
 
     public void minMaxResourceTimeStampTest() throws Exception {
@@ -0,0 +1,221 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.vol.test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.essi_lab.api.database.Database.IdentifierType;
+import eu.essi_lab.api.database.vol.VolatileDatabase;
+import eu.essi_lab.api.database.vol.VolatileDatabaseFinder;
+import eu.essi_lab.api.database.vol.VolatileIndex;
+import eu.essi_lab.indexes.IndexedElementsWriter;
+import eu.essi_lab.iso.datamodel.classes.GeographicBoundingBox;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.bond.BondFactory;
+import eu.essi_lab.messages.bond.BondOperator;
+import eu.essi_lab.messages.bond.SpatialExtent;
+import eu.essi_lab.messages.count.DiscoveryCountResponse;
+import eu.essi_lab.messages.termfrequency.TermFrequencyItem;
+import eu.essi_lab.messages.termfrequency.TermFrequencyMap;
+import eu.essi_lab.messages.termfrequency.TermFrequencyMap.TermFrequencyTarget;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.Queryable;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.model.resource.MetadataElement;
+
+/**
+ * @author Fabrizio
+ */
+public class VolatileIndexTest {
+
+    private static final int RESOURCES = 100;
+
+    private VolatileDatabase database;
+    private VolatileDatabaseFinder finder;
+    private GSSource source1;
+    private GSSource source2;
+
+    @Before
+    public void before() {
+
+	source1 = new GSSource();
+	source1.setUniqueIdentifier("source1");
+
+	source2 = new GSSource();
+	source2.setUniqueIdentifier("source2");
+
+	database = new VolatileDatabase();
+
+	finder = new VolatileDatabaseFinder();
+	finder.setDatabase(database);
+
+	for (int i = 0; i < RESOURCES; i++) {
+
+	    database.getResourcesList().add(create(i));
+	}
+    }
+
+    @Test
+    public void logicalBondTest() throws Exception {
+
+	// 1950 + i >= 2000 and i % 3 == 0
+	DiscoveryMessage message = createMessage();
+	message.setPermittedBond(BondFactory.createAndBond(//
+		BondFactory.createSimpleValueBond(BondOperator.EQUAL, MetadataElement.KEYWORD, "k0"), //
+		BondFactory.createSimpleValueBond(BondOperator.GREATER_OR_EQUAL, MetadataElement.TEMP_EXTENT_BEGIN, "2000-01-01T00:00:00Z")));
+
+	Assert.assertEquals(17, finder.count(message).getCount());
+
+	message.setPermittedBond(BondFactory.createNotBond(//
+		BondFactory.createSimpleValueBond(BondOperator.EQUAL, MetadataElement.KEYWORD, "k0")));
+
+	Assert.assertEquals(66, finder.count(message).getCount());
+
+	// title 1, title 10, ..., title 19
+	message.setPermittedBond(BondFactory.createSimpleValueBond(BondOperator.LIKE, MetadataElement.TITLE, "TITLE 1"));
+
+	Assert.assertEquals(11, finder.count(message).getCount());
+
+	message.setPermittedBond(BondFactory.createAndBond(//
+		BondFactory.createSourceIdentifierBond("source2"), //
+		BondFactory.createSimpleValueBond(BondOperator.LIKE, MetadataElement.TITLE, "TITLE 1")));
+
+	Assert.assertEquals(6, finder.count(message).getCount());
+    }
+
+    @Test
+    public void spatialBondTest() throws Exception {
+
+	DiscoveryMessage message = createMessage();
+
+	// the boxes from (0, 0, 1, 1) to (3, 3, 4, 4)
+	message.setPermittedBond(BondFactory.createSpatialExtentBond(BondOperator.BBOX, new SpatialExtent(0, 0, 3.5, 3.5)));
+
+	Assert.assertEquals(4, finder.count(message).getCount());
+
+	// the boxes from (0, 0, 1, 1) to (2, 2, 3, 3)
+	message.setPermittedBond(BondFactory.createSpatialExtentBond(BondOperator.CONTAINS, new SpatialExtent(0, 0, 3.5, 3.5)));
+
+	Assert.assertEquals(3, finder.count(message).getCount());
+
+	// the other boxes
+	message.setPermittedBond(BondFactory.createSpatialExtentBond(BondOperator.DISJOINT, new SpatialExtent(0, 0, 3.5, 3.5)));
+
+	Assert.assertEquals(6, finder.count(message).getCount());
+    }
+
+    @Test
+    public void countTest() throws Exception {
+
+	DiscoveryMessage message = createMessage();
+	message.setTermFrequencyTargets(Arrays.asList(MetadataElement.KEYWORD));
+
+	DiscoveryCountResponse response = finder.count(message);
+
+	Assert.assertEquals(RESOURCES, response.getCount());
+
+	TermFrequencyMap map = response.getTermFrequencyMap().get();
+
+	List<TermFrequencyItem> sources = map.getItems(TermFrequencyTarget.SOURCE);
+
+	Assert.assertEquals(2, sources.size());
+	Assert.assertTrue(sources.stream().allMatch(item -> item.getFreq() == RESOURCES / 2));
+
+	List<TermFrequencyItem> keywords = map.getItems(TermFrequencyTarget.KEYWORD);
+
+	Assert.assertEquals(3, keywords.size());
+	Assert.assertEquals("k0", keywords.get(0).getTerm());
+	Assert.assertEquals(34, keywords.get(0).getFreq());
+    }
+
+    @Test
+    public void pageAndUpdateTest() throws Exception {
+
+	DiscoveryMessage message = createMessage();
+	message.setPage(new Page(96, 10));
+
+	ResultSet<GSResource> resultSet = finder.discover(message);
+
+	Assert.assertEquals(5, resultSet.getResultsList().size());
+	Assert.assertEquals("id-95", resultSet.getResultsList().get(0).getPrivateId());
+
+	VolatileIndex index = database.getIndex();
+
+	// the appended resources are added to the current index
+	database.getResourcesList().add(create(RESOURCES));
+
+	Assert.assertEquals(6, finder.discover(message).getResultsList().size());
+
+	Assert.assertSame(index, database.getIndex());
+	Assert.assertEquals(RESOURCES + 1, index.size());
+	Assert.assertEquals(1, index.lookup(MetadataElement.IDENTIFIER, "id-" + RESOURCES).cardinality());
+
+	// the index is created again when the resources are removed
+	database.getResourcesList().remove(0);
+
+	Assert.assertEquals(RESOURCES, finder.count(message).getCount());
+
+	Assert.assertNotSame(index, database.getIndex());
+
+	Assert.assertTrue(finder.getResources(IdentifierType.PRIVATE, "id-0").isEmpty());
+	Assert.assertEquals(1, finder.getResources(IdentifierType.PRIVATE, "id-1").size());
+    }
+
+    /**
+     * @return
+     */
+    private DiscoveryMessage createMessage() {
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setSources(Arrays.asList(source1, source2));
+	message.setPage(new Page(1, 10));
+	message.setTermFrequencyTargets(Arrays.<Queryable> asList());
+
+	return message;
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    private Dataset create(int index) {
+
+	Dataset dataset = new Dataset();
+	dataset.setSource(index % 2 == 0 ? source1 : source2);
+	dataset.setPrivateId("id-" + index);
+	dataset.setPublicId("id-" + index);
+	dataset.setOriginalId("original-" + index);
+
+	dataset.getHarmonizedMetadata().getCoreMetadata().setTitle("title " + index);
+	dataset.getHarmonizedMetadata().getCoreMetadata().getDataIdentification().addKeyword("k" + (index % 3));
+	dataset.getHarmonizedMetadata().getCoreMetadata().getDataIdentification().addTemporalExtent(//
+		(1950 + index) + "-01-01T00:00:00Z", //
+		(1950 + index) + "-12-31T00:00:00Z");
+
+	if (index < 10) {
+
+	    GeographicBoundingBox box = new GeographicBoundingBox();
+
+	    box.setBigDecimalSouth(new BigDecimal(index));
+	    box.setBigDecimalWest(new BigDecimal(index));
+	    box.setBigDecimalNorth(new BigDecimal(index + 1));
+	    box.setBigDecimalEast(new BigDecimal(index + 1));
+
+	    dataset.getHarmonizedMetadata().getCoreMetadata().getDataIdentification().addGeographicBoundingBox(box);
+	}
+
+	IndexedElementsWriter.write(dataset);
+
+	return dataset;
+    }
+}
@@ -0,0 +1,402 @@
+/**
+ * 
+ */
+package eu.essi_lab.api.database;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import eu.essi_lab.configuration.ExecutionMode;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.count.DiscoveryCountResponse;
+import eu.essi_lab.messages.termfrequency.TermFrequencyMap;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.Queryable;
+
+/**
+ * Caches the counts and the {@link TermFrequencyMap}s of the database, which change only when the resources are
+ * written. Each entry records the {@link SourceGenerations} of the message sources and their epoch, and it is
+ * discarded as soon as one of them changes; the entries have no time to live.<br>
+ * The generations only track the writes of this JVM, which are the only ones in the execution modes that both execute
+ * the harvestings and the requests. In the other modes the resources are written by other nodes, so the entries also
+ * record the {@link DatabaseFinder#getResourcesVersion()}, and the cache is not used if the finder does not support it
+ *
+ * @author Fabrizio
+ */
+public class CountResultsCache {
+
+    private static final int DEFAULT_MAX_SIZE = 500;
+
+    /**
+     * The key of the generation of all the sources, used when the message has no sources
+     */
+    private static final String ALL_SOURCES = "*";
+
+    /**
+     * The key of the generation of the changes not related to a source
+     */
+    private static final String EPOCH = "epoch";
+
+    /**
+     * The key of the version of the resources, recorded when they are written by other nodes
+     */
+    private static final String RESOURCES_VERSION = "version";
+
+    private static final CountResultsCache INSTANCE = new CountResultsCache();
+
+    private Map<String, Entry> cache;
+    private boolean enabled;
+    private boolean localWrites;
+    private AtomicLong hits;
+    private AtomicLong misses;
+    private AtomicLong invalidations;
+
+    /**
+     * @author Fabrizio
+     */
+    private static class Entry {
+
+	private int count;
+	private TermFrequencyMap map;
+	private HashMap<String, Long> generations;
+    }
+
+    /**
+     * @return
+     */
+    public static CountResultsCache getInstance() {
+
+	return INSTANCE;
+    }
+
+    private CountResultsCache() {
+
+	cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+
+		return size() > DEFAULT_MAX_SIZE;
+	    }
+	};
+
+	ExecutionMode mode = ExecutionMode.get();
+
+	enabled = true;
+
+	localWrites = mode == ExecutionMode.MIXED || mode == ExecutionMode.LOCAL_PRODUCTION;
+
+	hits = new AtomicLong();
+	misses = new AtomicLong();
+	invalidations = new AtomicLong();
+    }
+
+    /**
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+
+	this.enabled = enabled;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isEnabled() {
+
+	return enabled;
+    }
+
+    /**
+     * @param localWrites <code>true</code> if the resources are only written by this JVM, so the entries do not need
+     *        the {@link DatabaseFinder#getResourcesVersion()}
+     */
+    public void setLocalWrites(boolean localWrites) {
+
+	this.localWrites = localWrites;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isLocalWrites() {
+
+	return localWrites;
+    }
+
+    /**
+     * @param message
+     * @return the key of the message count, made of the normalized and permitted bonds, the view, the sources and the
+     *         requested term frequency targets, or an empty optional if the cache is disabled
+     */
+    public Optional<String> createKey(DiscoveryMessage message) {
+
+	if (!enabled) {
+
+	    return Optional.empty();
+	}
+
+	StringBuilder builder = new StringBuilder();
+
+	builder.append(message.getNormalizedBond());
+	builder.append("|");
+	builder.append(message.getPermittedBond());
+	builder.append("|");
+	builder.append(message.getView().map(v -> v.getId()).orElse("none"));
+	builder.append("|");
+	builder.append(getSourceIds(message));
+	builder.append("|");
+	builder.append(message.getTermFrequencyTargets().//
+		stream().//
+		map(Queryable::getName).//
+		collect(Collectors.joining(",")));
+	builder.append("|");
+	builder.append(message.getMaxFrequencyMapItems());
+	builder.append("|");
+	builder.append(message.getDistinctValuesElement().map(Queryable::getName).orElse("none"));
+	builder.append("|");
+	builder.append(message.isDeletedIncluded());
+	builder.append("|");
+	builder.append(message.isOutputSources());
+	builder.append("|");
+	builder.append(message.getTotalHitsTracking());
+
+	return Optional.of(builder.toString());
+    }
+
+    /**
+     * @param key
+     * @param generations the current generations, returned by {@link #getGenerations(DiscoveryMessage, DatabaseFinder)}
+     * @return a copy of the cached count response, or an empty optional if it is missing or if one of the generations
+     *         changed
+     */
+    public Optional<DiscoveryCountResponse> get(String key, HashMap<String, Long> generations) {
+
+	Entry entry = null;
+
+	synchronized (cache) {
+
+	    entry = cache.get(key);
+
+	    if (entry != null && !entry.generations.equals(generations)) {
+
+		cache.remove(key);
+		invalidations.incrementAndGet();
+
+		entry = null;
+	    }
+	}
+
+	DiscoveryCountResponse response = null;
+
+	if (entry != null) {
+
+	    response = new DiscoveryCountResponse();
+	    response.setCount(entry.count);
+
+	    if (entry.map != null) {
+
+		TermFrequencyMap map = copy(entry.map);
+
+		if (map == null) {
+
+		    response = null;
+
+		} else {
+
+		    response.setTermFrequencyMap(map);
+		}
+	    }
+	}
+
+	if (response == null) {
+
+	    misses.incrementAndGet();
+	    return Optional.empty();
+	}
+
+	hits.incrementAndGet();
+
+	return Optional.of(response);
+    }
+
+    /**
+     * Caches a copy of the given <code>response</code>, with the current generations of the message sources. The
+     * generations must be read before the count, so that a write executed during the count invalidates the entry
+     * 
+     * @param key
+     * @param generations the generations returned by {@link #getGenerations(DiscoveryMessage, DatabaseFinder)} before
+     *        the count
+     * @param response
+     */
+    public void put(String key, HashMap<String, Long> generations, DiscoveryCountResponse response) {
+
+	Entry entry = new Entry();
+	entry.count = response.getCount();
+	entry.generations = generations;
+
+	if (response.getTermFrequencyMap().isPresent()) {
+
+	    entry.map = copy(response.getTermFrequencyMap().get());
+
+	    if (entry.map == null) {
+
+		return;
+	    }
+	}
+
+	synchronized (cache) {
+
+	    cache.put(key, entry);
+	}
+    }
+
+    /**
+     * @param message
+     * @param finder the finder which counts the message
+     * @return the current generations of the message sources, the epoch and, if the resources are not only written by
+     *         this JVM, the resources version of the <code>finder</code>. The optional is empty if the version is
+     *         required but not supported, in this case the cache cannot be used
+     */
+    public Optional<HashMap<String, Long>> getGenerations(DiscoveryMessage message, DatabaseFinder finder) {
+
+	HashMap<String, Long> out = new HashMap<>();
+
+	if (!localWrites) {
+
+	    Optional<Long> version = finder.getResourcesVersion();
+
+	    if (!version.isPresent()) {
+
+		return Optional.empty();
+	    }
+
+	    out.put(RESOURCES_VERSION, version.get());
+	}
+
+	SourceGenerations generations = SourceGenerations.getInstance();
+
+	out.put(EPOCH, generations.getEpoch());
+
+	List<String> ids = getSourceIds(message);
+
+	if (ids.isEmpty()) {
+
+	    out.put(ALL_SOURCES, generations.getGlobal());
+
+	} else {
+
+	    ids.forEach(id -> out.put(id, generations.get(id)));
+	}
+
+	return Optional.of(out);
+    }
+
+    /**
+     * 
+     */
+    public void clear() {
+
+	synchronized (cache) {
+
+	    cache.clear();
+	}
+    }
+
+    /**
+     * @return
+     */
+    public int getSize() {
+
+	synchronized (cache) {
+
+	    return cache.size();
+	}
+    }
+
+    /**
+     * @return
+     */
+    public long getHits() {
+
+	return hits.get();
+    }
+
+    /**
+     * @return
+     */
+    public long getMisses() {
+
+	return misses.get();
+    }
+
+    /**
+     * @return the number of entries discarded because the generation of one of their sources changed
+     */
+    public long getInvalidations() {
+
+	return invalidations.get();
+    }
+
+    /**
+     * @param message
+     * @return
+     */
+    private List<String> getSourceIds(DiscoveryMessage message) {
+
+	return message.getSources().//
+		stream().//
+		map(GSSource::getUniqueIdentifier).//
+		sorted().//
+		collect(Collectors.toList());
+    }
+
+    /**
+     * The maps are merged and sorted in place by the callers, so only copies are cached and returned
+     * 
+     * @param map
+     * @return the copy, or <code>null</code> if the map cannot be copied
+     */
+    private TermFrequencyMap copy(TermFrequencyMap map) {
+
+	try {
+
+	    return TermFrequencyMap.create(map.asStream());
+
+	} catch (Exception ex) {
+
+	    GSLoggerFactory.getLogger(getClass()).error(ex);
+
+	    return null;
+	}
+    }
+}
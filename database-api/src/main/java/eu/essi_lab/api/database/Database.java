@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.marklogic.xcc.exceptions.RequestException;
 
@@ -328,6 +329,25 @@ public abstract class Database implements DatabaseCompliant, Configurable<Databa
      */
     public abstract List<String> getIdentifiers(IdentifierType type, String folderName, boolean excludDeleted) throws GSException;
 
+    /**
+     * Streams the identifiers of the given <code>type</code>, so that they can be compared with {@link IdentifierDiff}.
+     * The default implementation streams the list returned by {@link #getIdentifiers(IdentifierType, String, boolean)};
+     * implementations can override it in order to fetch the identifiers page by page.<br>
+     * The returned stream should be closed to release the possible resources held by the implementation
+     *
+     * @param type
+     * @param folderName
+     * @param excludDeleted
+     * @return
+     * @throws GSException
+     */
+    public Stream<String> streamIdentifiers(IdentifierType type, String folderName, boolean excludDeleted) throws GSException {
+
+	List<String> identifiers = getIdentifiers(type, folderName, excludDeleted);
+
+	return identifiers == null ? Stream.empty() : identifiers.stream();
+    }
+
     /**
      * Return the checked {@link StorageInfo}
      * 
@@ -24,10 +24,15 @@ package eu.essi_lab.api.database;
  * #L%
  */
 
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Optional;
+
 import org.w3c.dom.Node;
 
 import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.Page;
 import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.SearchAfter;
 import eu.essi_lab.messages.count.DiscoveryCountResponse;
 import eu.essi_lab.model.exceptions.GSException;
 import eu.essi_lab.model.resource.GSResource;
@@ -57,12 +62,14 @@ public interface DatabaseFinder extends DatabaseProvider{
      * <li>{@link DiscoveryMessage#getUserBond()}</li>
      * <li>{@link DiscoveryMessage#getNormalizedBond()}</li>
      * <li>{@link DiscoveryMessage#getPage()}</li>
+     * <li>{@link DiscoveryMessage#getSearchAfter()}</li>
      * <li>{@link DiscoveryMessage#isDeletedIncluded()}</li>
      * </ul>
      *
      * @param message
      * @return
      * @throws GSException if error occurs during the request processing
+     * @see #isSearchAfterSupported()
      */
     ResultSet<GSResource> discover(DiscoveryMessage message) throws GSException;
 
@@ -102,4 +109,75 @@ public interface DatabaseFinder extends DatabaseProvider{
      */
     public ResultSet<String> discoverStrings(DiscoveryMessage message) throws GSException;
 
+    /**
+     * Returns <code>true</code> if this finder supports the cursor paging. In this case, if the message provides a
+     * {@link SearchAfter} cursor, the page is retrieved after the cursor position instead of skipping
+     * {@link Page#getStart()} - 1 results, and the cursor of the next page is set in the returned {@link ResultSet}.
+     * Finders which do not support the cursor paging ignore the message cursor and retrieve the page by offset, so
+     * callers can always set the cursor and fall back to the page start when the result set provides no cursor.<br>
+     * The default implementation returns <code>false</code>
+     * 
+     * @see DiscoveryMessage#setSearchAfter(SearchAfter)
+     * @see ResultSet#getSearchAfter()
+     * @return
+     */
+    public default boolean isSearchAfterSupported() {
+
+	return false;
+    }
+
+    /**
+     * Returns a version of the stored resources, which changes each time they are stored, updated or removed, also
+     * by the other nodes of the cluster. Results computed from the resources are up to date as long as the version
+     * does not change, see {@link CountResultsCache}.<br>
+     * The default implementation returns an empty optional, the version is not supported
+     * 
+     * @return
+     */
+    public default Optional<Long> getResourcesVersion() {
+
+	return Optional.empty();
+    }
+
+    /**
+     * Counts the results of the supplied <code>message</code> like {@link #count(DiscoveryMessage)} and retrieves its
+     * page like {@link #discover(DiscoveryMessage)}, {@link #discoverNodes(DiscoveryMessage)} or
+     * {@link #discoverStrings(DiscoveryMessage)} according to the given <code>clazz</code>. Finders can override this
+     * method to execute both the queries with a single request to the database.<br>
+     * The default implementation executes the count and then the discovery
+     * 
+     * @param message
+     * @param clazz one of {@link GSResource}, {@link Node} or {@link String}
+     * @return the count response and the result set of the message page
+     * @throws GSException if error occurs during the request processing
+     * @throws IllegalArgumentException if the <code>clazz</code> is not supported
+     */
+    @SuppressWarnings("unchecked")
+    public default <T> SimpleEntry<DiscoveryCountResponse, ResultSet<T>> countAndDiscover(DiscoveryMessage message, Class<T> clazz)
+	    throws GSException {
+
+	DiscoveryCountResponse countResponse = count(message);
+
+	ResultSet<?> resultSet = null;
+
+	if (clazz.equals(GSResource.class)) {
+
+	    resultSet = discover(message);
+
+	} else if (clazz.equals(Node.class)) {
+
+	    resultSet = discoverNodes(message);
+
+	} else if (clazz.equals(String.class)) {
+
+	    resultSet = discoverStrings(message);
+
+	} else {
+
+	    throw new IllegalArgumentException("Unsupported result type: " + clazz.getName());
+	}
+
+	return new SimpleEntry<>(countResponse, (ResultSet<T>) resultSet);
+    }
+
 }
@@ -21,7 +21,9 @@ package eu.essi_lab.api.database;
  * #L%
  */
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import eu.essi_lab.api.database.Database.IdentifierType;
@@ -113,6 +115,35 @@ public interface DatabaseReader extends DatabaseProvider, UserBaseClient {
      */
     public List<GSResource> getResources(IdentifierType identifierType, String identifier) throws GSException;
 
+    /**
+     * Batch version of {@link #getResources(IdentifierType, String)}, which resolves several identifiers with a single
+     * request.<br>
+     * The returned map has an entry for each of the supplied <code>identifiers</code>; the entries of the
+     * identifiers with no matching resources have an empty list, so the caller knows that no further lookup is
+     * required.<br>
+     * This default implementation executes a request for each identifier
+     *
+     * @param identifierType
+     * @param identifiers
+     * @return
+     * @throws GSException if error occurs during the request processing
+     */
+    public default Map<String, List<GSResource>> getResources(IdentifierType identifierType, List<String> identifiers)
+	    throws GSException {
+
+	Map<String, List<GSResource>> out = new HashMap<>();
+
+	for (String identifier : identifiers) {
+
+	    if (!out.containsKey(identifier)) {
+
+		out.put(identifier, getResources(identifierType, identifier));
+	    }
+	}
+
+	return out;
+    }
+
     /**
      * Special method that WAS used during the tag recovering phase. Normally different resources with same original id are not
      * allowed, but at the end of a non-first harvesting, it is common to have 2 copies of the same resource, from the
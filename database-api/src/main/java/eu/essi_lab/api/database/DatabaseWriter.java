@@ -1,6 +1,8 @@
 package eu.essi_lab.api.database;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /*-
  * #%L
@@ -44,6 +46,50 @@ import eu.essi_lab.model.resource.GSResource;
  */
 public abstract class DatabaseWriter implements DatabaseProvider {
 
+    /**
+     * The failure of a store operation executed after the related {@link DatabaseWriter#store(GSResource)} call
+     * returned
+     * 
+     * @author Fabrizio
+     */
+    public static class StoreFailure {
+
+	private String key;
+	private String reason;
+
+	/**
+	 * @param key
+	 * @param reason
+	 */
+	public StoreFailure(String key, String reason) {
+
+	    this.key = key;
+	    this.reason = reason;
+	}
+
+	/**
+	 * @return the key of the resource which cannot be stored
+	 */
+	public String getKey() {
+
+	    return key;
+	}
+
+	/**
+	 * @return
+	 */
+	public String getReason() {
+
+	    return reason;
+	}
+
+	@Override
+	public String toString() {
+
+	    return key + ": " + reason;
+	}
+    }
+
     /**
      * Stores the given <code>resource</code>
      *
@@ -69,6 +115,8 @@ public abstract class DatabaseWriter implements DatabaseProvider {
 	    String key = resource.getPrivateId();
 	    folder.store(key, FolderEntry.of(asDocument), EntryType.GS_RESOURCE);
 
+	    resourceChanged(resource);
+
 	} catch (Exception e) {
 
 	    GSLoggerFactory.getLogger(getClass()).error("Unable to store resource {}", resource.getPrivateId(), e);
@@ -84,6 +132,20 @@ public abstract class DatabaseWriter implements DatabaseProvider {
 	}
     }
 
+    /**
+     * Returns, and forgets, the failures of the store operations of the resources of the source with the given
+     * <code>sourceIdentifier</code> that the implementation buffered and executed after the related
+     * {@link #store(GSResource)} call returned.<br>
+     * Per default resources are stored synchronously, so the returned list is always empty
+     * 
+     * @param sourceIdentifier
+     * @return
+     */
+    public List<StoreFailure> drainStoreFailures(String sourceIdentifier) {
+
+	return new ArrayList<>();
+    }
+
     /**
      * Removes the given <code>resource</code>
      *
@@ -127,6 +189,8 @@ public abstract class DatabaseWriter implements DatabaseProvider {
 
 	    folder.replace(key, FolderEntry.of(asDocument), EntryType.GS_RESOURCE);
 
+	    resourceChanged(resource);
+
 	} catch (Exception e) {
 
 	    GSLoggerFactory.getLogger(getClass()).error("Unable to update resource {}", resource.getPrivateId(), e);
@@ -142,6 +206,32 @@ public abstract class DatabaseWriter implements DatabaseProvider {
 	}
     }
 
+    /**
+     * Increments the {@link SourceGenerations} of the source of the given <code>resource</code>, so that the
+     * {@link CountResultsCache} entries of the source are discarded. To be called after each store, update or
+     * removal of a resource
+     * 
+     * @param resource
+     */
+    protected void resourceChanged(GSResource resource) {
+
+	GSSource source = resource.getSource();
+
+	if (source != null && source.getUniqueIdentifier() != null) {
+
+	    SourceGenerations.getInstance().increment(source.getUniqueIdentifier());
+	}
+    }
+
+    /**
+     * Increments the epoch of the {@link SourceGenerations}, so that all the {@link CountResultsCache} entries are
+     * discarded. To be called after each removal by property, since the removed resources can belong to any source
+     */
+    protected void resourcesChanged() {
+
+	SourceGenerations.getInstance().incrementAll();
+    }
+
     /**
      * Stores the given user, overwriting a possible existing user with same identifier
      *
@@ -0,0 +1,524 @@
+package eu.essi_lab.api.database;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+
+/**
+ * Compares two streams of identifiers in linear time, without loading both of them in memory.<br>
+ * The identifiers of the second stream are collected in a hash set; if they are more than the
+ * {@link #setSpillThreshold(int) spill threshold}, both the streams are split in {@value #PARTITIONS} hash partitions
+ * written to temporary files, and the partitions are compared one at a time.<br>
+ * The results are handed in batches to a {@link BatchHandler}. Each occurrence of an identifier in the first stream is
+ * reported, like {@link List#removeAll(java.util.Collection)} does; the order of the first stream is kept only if no
+ * partition is written.<br>
+ * Both the streams are entirely read before the first batch is handed, so that a slow handler cannot expire the
+ * cursors which back them; the results are also kept in memory up to the spill threshold, and then written to a
+ * temporary file
+ *
+ * @author Fabrizio
+ */
+public class IdentifierDiff {
+
+    /**
+     * System property which sets the default spill threshold
+     */
+    public static final String SPILL_THRESHOLD_PROPERTY = "identifierDiff.spillThreshold";
+
+    /**
+     * Default maximum number of identifiers kept in memory
+     */
+    public static final int DEFAULT_SPILL_THRESHOLD = 500_000;
+
+    /**
+     * Default number of identifiers handed to the {@link BatchHandler}
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int PARTITIONS = 64;
+
+    /**
+     * @author Fabrizio
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+
+	/**
+	 * @param batch
+	 * @throws Exception
+	 */
+	void handle(List<String> batch) throws Exception;
+    }
+
+    private int spillThreshold;
+    private int batchSize;
+
+    /**
+     *
+     */
+    public IdentifierDiff() {
+
+	this.spillThreshold = Integer.getInteger(SPILL_THRESHOLD_PROPERTY, DEFAULT_SPILL_THRESHOLD);
+	this.batchSize = DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * @param spillThreshold the maximum number of identifiers kept in memory before writing the partitions to disk
+     */
+    public void setSpillThreshold(int spillThreshold) {
+
+	this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * @param batchSize
+     */
+    public void setBatchSize(int batchSize) {
+
+	this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Hands to the <code>handler</code> the identifiers of <code>ids</code> which are not in <code>others</code>
+     *
+     * @param ids
+     * @param others
+     * @param handler
+     * @return the number of handled identifiers
+     * @throws Exception
+     */
+    public long difference(Stream<String> ids, Stream<String> others, BatchHandler handler) throws Exception {
+
+	return compare(ids, others, false, handler);
+    }
+
+    /**
+     * Hands to the <code>handler</code> the identifiers of <code>ids</code> which are also in <code>others</code>
+     *
+     * @param ids
+     * @param others
+     * @param handler
+     * @return the number of handled identifiers
+     * @throws Exception
+     */
+    public long intersection(Stream<String> ids, Stream<String> others, BatchHandler handler) throws Exception {
+
+	return compare(ids, others, true, handler);
+    }
+
+    /**
+     * @param ids
+     * @param others
+     * @param common
+     * @param handler
+     * @return
+     * @throws Exception
+     */
+    private long compare(Stream<String> ids, Stream<String> others, boolean common, BatchHandler handler) throws Exception {
+
+	Batch batch = new Batch(handler);
+
+	Set<String> set = new HashSet<>();
+
+	Iterator<String> iterator = others.iterator();
+
+	while (iterator.hasNext()) {
+
+	    set.add(iterator.next());
+
+	    if (set.size() > spillThreshold) {
+
+		GSLoggerFactory.getLogger(getClass()).debug("More than {} identifiers, writing partitions to disk", spillThreshold);
+
+		return comparePartitions(set, iterator, ids, common, batch);
+	    }
+	}
+
+	// both the streams are read before handling the results, since the handler can take longer than the keep alive
+	// of the cursor which backs the streams
+	try (Spool spool = new Spool()) {
+
+	    iterator = ids.iterator();
+
+	    while (iterator.hasNext()) {
+
+		String id = iterator.next();
+
+		if (set.contains(id) == common) {
+		    spool.write(id);
+		}
+	    }
+
+	    set = null;
+
+	    spool.handle(batch);
+	}
+
+	batch.flush();
+
+	return batch.getCount();
+    }
+
+    /**
+     * @param set the identifiers of the second stream read so far
+     * @param others the iterator of the remaining identifiers of the second stream
+     * @param ids
+     * @param common
+     * @param batch
+     * @return
+     * @throws Exception
+     */
+    private long comparePartitions(Set<String> set, Iterator<String> others, Stream<String> ids, boolean common, Batch batch)
+	    throws Exception {
+
+	Path directory = Files.createTempDirectory("identifierDiff");
+
+	try {
+
+	    try (Partitions otherPartitions = new Partitions(directory, "others"); //
+		    Partitions idPartitions = new Partitions(directory, "ids")) {
+
+		for (String other : set) {
+		    otherPartitions.write(other);
+		}
+
+		set.clear();
+
+		while (others.hasNext()) {
+
+		    otherPartitions.write(others.next());
+		}
+
+		Iterator<String> iterator = ids.iterator();
+
+		while (iterator.hasNext()) {
+
+		    idPartitions.write(iterator.next());
+		}
+
+		// flushes the partitions before reading them
+		otherPartitions.close();
+		idPartitions.close();
+
+		for (int i = 0; i < PARTITIONS; i++) {
+
+		    Set<String> partition = new HashSet<>(otherPartitions.read(i));
+
+		    for (String id : idPartitions.read(i)) {
+
+			if (partition.contains(id) == common) {
+			    batch.add(id);
+			}
+		    }
+		}
+	    }
+
+	    batch.flush();
+
+	    return batch.getCount();
+
+	} finally {
+
+	    try (Stream<Path> files = Files.walk(directory)) {
+
+		files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+	    }
+	}
+    }
+
+    /**
+     * The identifiers to handle, kept in memory up to the spill threshold and then written to a temporary file
+     *
+     * @author Fabrizio
+     */
+    private class Spool implements Closeable {
+
+	private List<String> ids;
+	private Path file;
+	private DataOutputStream output;
+	private long size;
+
+	/**
+	 * 
+	 */
+	private Spool() {
+
+	    this.ids = new ArrayList<>();
+	}
+
+	/**
+	 * @param id
+	 * @throws IOException
+	 */
+	private void write(String id) throws IOException {
+
+	    if (output == null) {
+
+		ids.add(id);
+
+		if (ids.size() > spillThreshold) {
+
+		    file = Files.createTempFile("identifierDiff", ".ids");
+		    output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+
+		    for (String spooled : ids) {
+			output.writeUTF(spooled);
+		    }
+
+		    ids = null;
+		}
+
+	    } else {
+
+		output.writeUTF(id);
+	    }
+
+	    size++;
+	}
+
+	/**
+	 * @param batch
+	 * @throws Exception
+	 */
+	private void handle(Batch batch) throws Exception {
+
+	    if (output == null) {
+
+		for (String id : ids) {
+		    batch.add(id);
+		}
+
+		return;
+	    }
+
+	    output.close();
+
+	    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+
+		for (long i = 0; i < size; i++) {
+		    batch.add(input.readUTF());
+		}
+	    }
+	}
+
+	@Override
+	public void close() throws IOException {
+
+	    if (output != null) {
+
+		try {
+
+		    output.close();
+
+		} finally {
+
+		    Files.deleteIfExists(file);
+		}
+	    }
+	}
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private class Batch {
+
+	private final BatchHandler handler;
+	private List<String> ids;
+	private long count;
+
+	/**
+	 * @param handler
+	 */
+	private Batch(BatchHandler handler) {
+
+	    this.handler = handler;
+	    this.ids = new ArrayList<>();
+	}
+
+	/**
+	 * @param id
+	 * @throws Exception
+	 */
+	private void add(String id) throws Exception {
+
+	    ids.add(id);
+
+	    if (ids.size() == batchSize) {
+		flush();
+	    }
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	private void flush() throws Exception {
+
+	    if (!ids.isEmpty()) {
+
+		count += ids.size();
+
+		List<String> current = ids;
+		ids = new ArrayList<>();
+
+		handler.handle(current);
+	    }
+	}
+
+	/**
+	 * @return
+	 */
+	private long getCount() {
+
+	    return count;
+	}
+    }
+
+    /**
+     * Hash partitions of identifiers written to temporary files
+     *
+     * @author Fabrizio
+     */
+    private static class Partitions implements Closeable {
+
+	private final Path[] files;
+	private final DataOutputStream[] outputs;
+	private final int[] sizes;
+
+	/**
+	 * @param directory
+	 * @param prefix
+	 * @throws IOException
+	 */
+	private Partitions(Path directory, String prefix) throws IOException {
+
+	    files = new Path[PARTITIONS];
+	    outputs = new DataOutputStream[PARTITIONS];
+	    sizes = new int[PARTITIONS];
+
+	    try {
+
+		for (int i = 0; i < PARTITIONS; i++) {
+
+		    files[i] = directory.resolve(prefix + "-" + i);
+		    outputs[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[i])));
+		}
+
+	    } catch (IOException ex) {
+
+		close();
+
+		throw ex;
+	    }
+	}
+
+	/**
+	 * @param id
+	 * @throws IOException
+	 */
+	private void write(String id) throws IOException {
+
+	    int partition = partition(id);
+
+	    outputs[partition].writeUTF(id);
+	    sizes[partition]++;
+	}
+
+	/**
+	 * Closes all the partitions, also if some of them fail. Closing them again has no effect
+	 */
+	@Override
+	public void close() throws IOException {
+
+	    IOException failure = null;
+
+	    for (DataOutputStream output : outputs) {
+
+		if (output != null) {
+
+		    try {
+
+			output.close();
+
+		    } catch (IOException ex) {
+
+			if (failure == null) {
+			    failure = ex;
+			} else {
+			    failure.addSuppressed(ex);
+			}
+		    }
+		}
+	    }
+
+	    if (failure != null) {
+		throw failure;
+	    }
+	}
+
+	/**
+	 * @param partition
+	 * @return
+	 * @throws IOException
+	 */
+	private List<String> read(int partition) throws IOException {
+
+	    List<String> out = new ArrayList<>(sizes[partition]);
+
+	    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(files[partition])))) {
+
+		for (int i = 0; i < sizes[partition]; i++) {
+		    out.add(input.readUTF());
+		}
+	    }
+
+	    return out;
+	}
+
+	/**
+	 * @param id
+	 * @return
+	 */
+	private static int partition(String id) {
+
+	    int hash = id.hashCode();
+
+	    return ((hash ^ (hash >>> 16)) & 0x7fffffff) % PARTITIONS;
+	}
+    }
+}
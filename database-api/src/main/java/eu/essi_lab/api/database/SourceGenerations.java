@@ -0,0 +1,114 @@
+/**
+ * 
+ */
+package eu.essi_lab.api.database;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per source generation counters, incremented by the {@link DatabaseWriter} each time a resource of a source is
+ * stored, updated or removed, and by the {@link SourceStorageWorker} each time the harvesting of a source is finalized
+ * or one of its data folders is removed. Results computed from the resources of a set of sources are up to date as
+ * long as the generations of these sources and the {@link #getEpoch()} do not change, see {@link CountResultsCache}.<br>
+ * The counters are kept in memory, so only the writes of this JVM are tracked
+ *
+ * @author Fabrizio
+ */
+public class SourceGenerations {
+
+    private static final SourceGenerations INSTANCE = new SourceGenerations();
+
+    private ConcurrentHashMap<String, AtomicLong> generations;
+    private AtomicLong global;
+    private AtomicLong epoch;
+
+    /**
+     * @return
+     */
+    public static SourceGenerations getInstance() {
+
+	return INSTANCE;
+    }
+
+    private SourceGenerations() {
+
+	generations = new ConcurrentHashMap<>();
+	global = new AtomicLong();
+	epoch = new AtomicLong();
+    }
+
+    /**
+     * @param sourceId
+     * @return the current generation of the given source, 0 if its resources have never been written
+     */
+    public long get(String sourceId) {
+
+	AtomicLong generation = generations.get(sourceId);
+
+	return generation != null ? generation.get() : 0;
+    }
+
+    /**
+     * @return the sum of the generations of all the sources
+     */
+    public long getGlobal() {
+
+	return global.get();
+    }
+
+    /**
+     * Increments the generation of the given source, to be called each time its resources change
+     * 
+     * @param sourceId
+     * @return the new generation of the source
+     */
+    public long increment(String sourceId) {
+
+	long generation = generations.computeIfAbsent(sourceId, id -> new AtomicLong()).incrementAndGet();
+
+	global.incrementAndGet();
+
+	return generation;
+    }
+
+    /**
+     * Increments the epoch, to be called each time resources change without a relation to their sources (e.g. the
+     * removals by property)
+     */
+    public void incrementAll() {
+
+	epoch.incrementAndGet();
+
+	global.incrementAndGet();
+    }
+
+    /**
+     * @return the number of changes not related to a source
+     */
+    public long getEpoch() {
+
+	return epoch.get();
+    }
+}
@@ -74,6 +74,8 @@ public abstract class SourceStorage implements DatabaseProvider, Configurable<So
 	    SourceStorageWorker worker = database.getWorker(source.getUniqueIdentifier());
 	    worker.harvestingStarted(strategy, recovery, resumed, status);
 
+	    writingStarted(worker, status);
+
 	} catch (Exception e) {
 
 	    GSLoggerFactory.getLogger(getClass()).error("Error occurred during harvesting initialization of source {}", source);
@@ -128,6 +130,9 @@ public abstract class SourceStorage implements DatabaseProvider, Configurable<So
 	try {
 
 	    SourceStorageWorker worker = database.getWorker(source.getUniqueIdentifier());
+
+	    writingEnded(worker, status);
+
 	    worker.harvestingEnded(this, properties, strategy, status, request);
 
 	} catch (Exception e) {
@@ -174,6 +179,29 @@ public abstract class SourceStorage implements DatabaseProvider, Configurable<So
 	harvestingEnded(source, Optional.empty(), strategy, Optional.empty(), Optional.empty());
     }
 
+    /**
+     * Invoked when the writing folder of the source handled by <code>worker</code> has been selected, before the
+     * harvested resources are stored. Implementations can prepare the underlying storage for the harvesting writes
+     * (e.g. enabling bulk requests)
+     * 
+     * @param worker
+     * @param status
+     * @throws Exception
+     */
+    protected void writingStarted(SourceStorageWorker worker, Optional<SchedulerJobStatus> status) throws Exception {
+    }
+
+    /**
+     * Invoked when the harvested resources have all been stored, before the <code>worker</code> finalizes the
+     * harvesting. After this method returns, all the stored resources must be visible to the finalization
+     * 
+     * @param worker
+     * @param status
+     * @throws Exception
+     */
+    protected void writingEnded(SourceStorageWorker worker, Optional<SchedulerJobStatus> status) throws Exception {
+    }
+
     /**
      * Retrieve a properties file which provide information about the harvesting of the supplied <code>source</code>
      *
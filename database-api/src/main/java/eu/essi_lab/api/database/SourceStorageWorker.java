@@ -30,7 +30,6 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -44,7 +43,6 @@ import java.util.stream.Stream;
 import javax.xml.bind.JAXBException;
 import javax.xml.xpath.XPathExpressionException;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
@@ -62,7 +60,6 @@ import eu.essi_lab.jaxb.common.schemas.CommonSchemas;
 import eu.essi_lab.jaxb.common.schemas.SchemaValidator;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.lib.utils.ISO8601DateTimeUtils;
-import eu.essi_lab.lib.utils.IterationLogger;
 import eu.essi_lab.lib.xml.NameSpace;
 import eu.essi_lab.lib.xml.XMLDocumentReader;
 import eu.essi_lab.messages.DiscoveryMessage;
@@ -122,6 +119,14 @@ public class SourceStorageWorker {
 	this.database = database;
     }
 
+    /**
+     * @return
+     */
+    public String getSourceId() {
+
+	return sourceId;
+    }
+
     /**
      * @return
      */
@@ -664,6 +669,9 @@ public class SourceStorageWorker {
 
 	debug("Updating meta folder ENDED", status);
 
+	// the cached counts and term frequency maps of this source are no longer valid
+	SourceGenerations.getInstance().increment(sourceId);
+
 	if (writingFolder == null) {
 
 	    error("Unable to detect writing folder at harvesting END", status);
@@ -855,6 +863,9 @@ public class SourceStorageWorker {
 
 		writer.remove(ResourceProperty.RECOVERY_REMOVAL_TOKEN.getName(), recoveryRemovalToken);
 
+		// the removal by property does not increment the generation of the source
+		SourceGenerations.getInstance().increment(sourceId);
+
 		debug("Records removal ENDED", status);
 	    }
 	}
@@ -1231,37 +1242,35 @@ public class SourceStorageWorker {
 		oldFolder = getData1Folder();
 	    }
 
-	    // 1) get the original ids of the old folder and the original ids from the new folder
-	    List<String> newIds = database.getIdentifiers(IdentifierType.ORIGINAL, newFolder.getName(), false);
-	    List<String> oldIds = database.getIdentifiers(IdentifierType.ORIGINAL, oldFolder.getName(), false);
-
-	    // 2) removes all the ids of the new folder from the ids of the old folder.
-	    // the remaining are the original ids of the removed resources (they are in the old folder
-	    // but no longer in the new one)
-	    oldIds.removeAll(newIds);
-
-	    debug("Found " + oldIds.size() + " deleted records", status);
-
 	    GSSource gsSource = new GSSource();
 	    gsSource.setUniqueIdentifier(findSourceIdentifier(oldFolder));
 
-	    IterationLogger logger = new IterationLogger(this, oldIds.size());
-	    logger.setMessage("Total progress: ");
+	    // 1) streams the original ids of the old folder and the original ids of the new folder
+	    try (Stream<String> oldIds = database.streamIdentifiers(IdentifierType.ORIGINAL, oldFolder.getName(), false); //
+		    Stream<String> newIds = database.streamIdentifiers(IdentifierType.ORIGINAL, newFolder.getName(), false)) {
+
+		// 2) the original ids of the old folder which are not in the new folder are the original ids of the
+		// removed resources (they are in the old folder but no longer in the new one)
+		long count = new IdentifierDiff().difference(oldIds, newIds, batch -> {
+
+		    for (String string : batch) {
+			// 3) get the resource with the removed original id from the old folder
+			GSResource resource = getReader().getResource(string, gsSource, true);
+			// 4) marks it as deleted (some resources can be already be tagged from previous harvesting)
+			if (!resource.getPropertyHandler().isDeleted()) {
+			    resource.getPropertyHandler().setIsDeleted(true);
+			}
+			// 5) copies the resource in the new folder
+			newFolder.store(//
+				resource.getPrivateId(), //
+				FolderEntry.of(resource.asDocument(false)), //
+				EntryType.GS_RESOURCE);
+		    }
 
-	    for (String string : oldIds) {
-		// 3) get the resource with the removed original id from the old folder
-		GSResource resource = getReader().getResource(string, gsSource, true);
-		// 4) marks it as deleted (some resources can be already be tagged from previous harvesting)
-		if (!resource.getPropertyHandler().isDeleted()) {
-		    resource.getPropertyHandler().setIsDeleted(true);
-		}
-		// 5) copies the resource in the new folder
-		newFolder.store(//
-			resource.getPrivateId(), //
-			FolderEntry.of(resource.asDocument(false)), //
-			EntryType.GS_RESOURCE);
+		    debug("Marked " + batch.size() + " deleted records", status);
+		});
 
-		logger.iterationEnded();
+		debug("Found " + count + " deleted records", status);
 	    }
 	}
     }
@@ -1274,9 +1283,6 @@ public class SourceStorageWorker {
 
 	DatabaseFolder newFolder = getWritingFolder(status);
 
-	// 1) get the original ids of the old folder and the original ids from the new folder
-	List<String> newIds = database.getIdentifiers(IdentifierType.ORIGINAL, newFolder.getName(), false);
-
 	DatabaseFolder oldFolder = null;
 
 	if (isWritingData1Folder() && existsData2Folder()) {
@@ -1285,53 +1291,55 @@ public class SourceStorageWorker {
 	    oldFolder = getData1Folder();
 	}
 
-	if (oldFolder != null) {
-	    List<String> oldIds = database.getIdentifiers(IdentifierType.ORIGINAL, oldFolder.getName(), false);
-
-	    // 2) removes all the old ids from the new folder ids
-	    // the remaining are the ids of the new resources
-	    newIds.removeAll(oldIds);
-	}
-
-	debug("Found " + newIds.size() + " new records", status);
-
 	GSSource gsSource = new GSSource();
 	gsSource.setUniqueIdentifier(findSourceIdentifier(newFolder));
 
-	IterationLogger logger = new IterationLogger(this, newIds.size());
-	logger.setMessage("Total progress: ");
+	IdentifierDiff.BatchHandler handler = batch -> {
 
-	for (String originalId : newIds) {
+	    for (String originalId : batch) {
 
-	    // 3) get the resource with the original id from the new folder
-	    GSResource resource = getReader().getResource(originalId, gsSource, true);
+		// 3) get the resource with the original id from the new folder
+		GSResource resource = getReader().getResource(originalId, gsSource, true);
 
-	    SchemaValidator sv = new SchemaValidator();
+		SchemaValidator sv = new SchemaValidator();
 
-	    try {
+		try {
 
-		MIMetadata miMetadata = resource.getHarmonizedMetadata().getCoreMetadata().getMIMetadata();
+		    MIMetadata miMetadata = resource.getHarmonizedMetadata().getCoreMetadata().getMIMetadata();
 
-		BooleanValidationHandler handler = sv.validate( //
-			miMetadata.asStream(), //
-			CommonSchemas.GMI()); //
+		    BooleanValidationHandler validationHandler = sv.validate( //
+			    miMetadata.asStream(), //
+			    CommonSchemas.GMI()); //
 
-		// 4) set the validation tag
-		resource.getPropertyHandler().setIsISOCompliant(handler.isValid());
+		    // 4) set the validation tag
+		    resource.getPropertyHandler().setIsISOCompliant(validationHandler.isValid());
 
-	    } catch (JAXBException e) {
+		} catch (JAXBException e) {
+
+		    error("Error occurred during validation: " + e.getMessage(), status);
+		    error(e, status);
+		}
 
-		error("Error occurred during validation: " + e.getMessage(), status);
-		error(e, status);
+		// 5) replaces the resource in the new folder
+		newFolder.replace(//
+			resource.getPrivateId(), //
+			FolderEntry.of(resource.asDocument(false)), //
+			EntryType.GS_RESOURCE);
 	    }
 
-	    // 5) replaces the resource in the new folder
-	    newFolder.replace(//
-		    resource.getPrivateId(), //
-		    FolderEntry.of(resource.asDocument(false)), //
-		    EntryType.GS_RESOURCE);
+	    debug("Validated " + batch.size() + " records", status);
+	};
+
+	// 1) streams the original ids of the new folder and the original ids of the old folder
+	try (Stream<String> newIds = database.streamIdentifiers(IdentifierType.ORIGINAL, newFolder.getName(), false); //
+		Stream<String> oldIds = oldFolder != null ? //
+			database.streamIdentifiers(IdentifierType.ORIGINAL, oldFolder.getName(), false) : //
+			Stream.empty()) {
 
-	    logger.iterationEnded();
+	    // 2) the ids of the new folder which are not in the old folder are the ids of the new resources
+	    long count = new IdentifierDiff().difference(newIds, oldIds, handler);
+
+	    debug("Found " + count + " new records", status);
 	}
     }
 
@@ -1355,53 +1363,48 @@ public class SourceStorageWorker {
 		oldFolder = getData1Folder();
 	    }
 
-	    List<String> newIds = database.getIdentifiers(IdentifierType.ORIGINAL, newFolder.getName(), false);
-	    List<String> oldIds = database.getIdentifiers(IdentifierType.ORIGINAL, oldFolder.getName(), false);
-
-	    @SuppressWarnings("unchecked")
-	    Collection<String> intersection = CollectionUtils.intersection(newIds, oldIds);
-
-	    if (!intersection.isEmpty()) {
+	    GSSource gsSource = new GSSource();
+	    gsSource.setUniqueIdentifier(findSourceIdentifier(oldFolder));
 
-		debug("Found " + intersection.size() + " common records to check", status);
+	    try (Stream<String> newIds = database.streamIdentifiers(IdentifierType.ORIGINAL, newFolder.getName(), false); //
+		    Stream<String> oldIds = database.streamIdentifiers(IdentifierType.ORIGINAL, oldFolder.getName(), false)) {
 
-		GSSource gsSource = new GSSource();
-		gsSource.setUniqueIdentifier(findSourceIdentifier(oldFolder));
+		long count = new IdentifierDiff().intersection(newIds, oldIds, batch -> {
 
-		IterationLogger logger = new IterationLogger(this, intersection.size());
-		logger.setMessage("Total progress: ");
+		    for (String id : batch) {
 
-		for (String id : intersection) {
+			// get the two resources with same original id (the old one and the new one)
+			List<GSResource> resources = getReader().getResources(id, gsSource, true);
 
-		    // get the two resources with same original id (the old one and the new one)
-		    List<GSResource> resources = getReader().getResources(id, gsSource, true);
+			debug("Found " + resources.size() + " resources with same identifier", resources.size(), status);
 
-		    debug("Found " + resources.size() + " resources with same identifier", resources.size(), status);
+			// sorts the two resources according to their time stamp
+			List<GSResource> sortedResources = resources.//
+				stream().//
+				sorted((r1, r2) -> //
+				r1.getPropertyHandler().getResourceTimeStamp().get().//
+					compareTo(//
+						r2.getPropertyHandler().getResourceTimeStamp().get()))
+				.//
+				collect(Collectors.toList());
 
-		    // sorts the two resources according to their time stamp
-		    List<GSResource> sortedResources = resources.//
-			    stream().//
-			    sorted((r1, r2) -> //
-			    r1.getPropertyHandler().getResourceTimeStamp().get().//
-				    compareTo(//
-					    r2.getPropertyHandler().getResourceTimeStamp().get()))
-			    .//
-			    collect(Collectors.toList());
+			GSResource oldResource = sortedResources.get(0);
+			GSResource newResource = sortedResources.get(1);
 
-		    GSResource oldResource = sortedResources.get(0);
-		    GSResource newResource = sortedResources.get(1);
+			recoverAugmentedElements(oldResource, newResource);
 
-		    recoverAugmentedElements(oldResource, newResource);
+			recoverExtendedElements(oldResource, newResource);
 
-		    recoverExtendedElements(oldResource, newResource);
+			// replaces the resource
+			newFolder.replace(//
+				newResource.getPrivateId(), //
+				FolderEntry.of(newResource.asDocument(false)), EntryType.GS_RESOURCE);
+		    }
 
-		    // replaces the resource
-		    newFolder.replace(//
-			    newResource.getPrivateId(), //
-			    FolderEntry.of(newResource.asDocument(false)), EntryType.GS_RESOURCE);
+		    debug("Checked " + batch.size() + " common records", status);
+		});
 
-		    logger.iterationEnded();
-		}
+		debug("Found " + count + " common records", status);
 	    }
 	}
     }
@@ -1506,6 +1509,8 @@ public class SourceStorageWorker {
     private void removeData1Folder() throws GSException {
 
 	database.removeFolder(sourceId + DATA_1_POSTFIX);
+
+	SourceGenerations.getInstance().increment(sourceId);
     }
 
     /**
@@ -1514,6 +1519,8 @@ public class SourceStorageWorker {
     private void removeData2Folder() throws GSException {
 
 	database.removeFolder(sourceId + DATA_2_POSTFIX);
+
+	SourceGenerations.getInstance().increment(sourceId);
     }
 
     /**
@@ -0,0 +1,138 @@
+/**
+ *
+ */
+package eu.essi_lab.api.database.test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.api.database.IdentifierDiff;
+
+/**
+ * @author Fabrizio
+ */
+public class IdentifierDiffTest {
+
+    @Test
+    public void differenceInMemoryTest() throws Exception {
+
+	IdentifierDiff diff = new IdentifierDiff();
+	diff.setBatchSize(2);
+
+	List<List<String>> batches = new ArrayList<>();
+
+	long count = diff.difference(//
+		Stream.of("a", "b", "c", "d", "e"), //
+		Stream.of("b", "d", "f"), //
+		batches::add);
+
+	Assert.assertEquals(3, count);
+
+	// the order of the first stream is kept
+	Assert.assertEquals(List.of(List.of("a", "c"), List.of("e")), batches);
+    }
+
+    @Test
+    public void intersectionInMemoryTest() throws Exception {
+
+	IdentifierDiff diff = new IdentifierDiff();
+
+	List<String> out = new ArrayList<>();
+
+	long count = diff.intersection(//
+		Stream.of("a", "b", "c", "d", "e"), //
+		Stream.of("b", "d", "f"), //
+		out::addAll);
+
+	Assert.assertEquals(2, count);
+	Assert.assertEquals(List.of("b", "d"), out);
+    }
+
+    @Test
+    public void spillTest() throws Exception {
+
+	IdentifierDiff diff = new IdentifierDiff();
+	diff.setSpillThreshold(100);
+	diff.setBatchSize(50);
+
+	// old ids from 0 to 9999, new ids from 5000 to 14999
+	Stream<String> oldIds = IntStream.range(0, 10000).mapToObj(i -> "id-" + i);
+	Stream<String> newIds = IntStream.range(5000, 15000).mapToObj(i -> "id-" + i);
+
+	Set<String> deleted = new HashSet<>();
+
+	long count = diff.difference(oldIds, newIds, batch -> {
+
+	    Assert.assertTrue(batch.size() <= 50);
+	    deleted.addAll(batch);
+	});
+
+	Assert.assertEquals(5000, count);
+
+	Set<String> expected = IntStream.range(0, 5000).mapToObj(i -> "id-" + i).collect(Collectors.toSet());
+
+	Assert.assertEquals(expected, deleted);
+
+	Set<String> common = new HashSet<>();
+
+	count = diff.intersection(//
+		IntStream.range(0, 10000).mapToObj(i -> "id-" + i), //
+		IntStream.range(5000, 15000).mapToObj(i -> "id-" + i), //
+		common::addAll);
+
+	Assert.assertEquals(5000, count);
+	Assert.assertEquals(5000, common.size());
+	Assert.assertTrue(common.contains("id-5000"));
+	Assert.assertFalse(common.contains("id-4999"));
+    }
+
+    @Test
+    public void streamsReadBeforeHandlingTest() throws Exception {
+
+	IdentifierDiff diff = new IdentifierDiff();
+	diff.setSpillThreshold(3);
+	diff.setBatchSize(4);
+
+	AtomicInteger read = new AtomicInteger();
+
+	List<String> out = new ArrayList<>();
+
+	// only the results exceed the spill threshold, so they are written to a temporary file
+	long count = diff.difference(//
+		IntStream.range(0, 10).mapToObj(i -> "id-" + i).peek(id -> read.incrementAndGet()), //
+		Stream.of("id-0", "id-1"), //
+		batch -> {
+
+		    // the handler can be slow, the whole stream is already read
+		    Assert.assertEquals(10, read.get());
+
+		    out.addAll(batch);
+		});
+
+	Assert.assertEquals(8, count);
+
+	// the order of the first stream is kept
+	Assert.assertEquals(IntStream.range(2, 10).mapToObj(i -> "id-" + i).collect(Collectors.toList()), out);
+    }
+
+    @Test
+    public void emptyStreamsTest() throws Exception {
+
+	IdentifierDiff diff = new IdentifierDiff();
+
+	List<String> out = new ArrayList<>();
+
+	Assert.assertEquals(2, diff.difference(Stream.of("a", "b"), Stream.empty(), out::addAll));
+	Assert.assertEquals(0, diff.difference(Stream.empty(), Stream.of("a"), out::addAll));
+	Assert.assertEquals(List.of("a", "b"), out);
+    }
+}
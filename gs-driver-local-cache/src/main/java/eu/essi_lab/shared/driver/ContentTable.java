@@ -21,52 +21,661 @@ package eu.essi_lab.shared.driver;
  * #L%
  */
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.model.resource.OriginalMetadata;
 import eu.essi_lab.model.shared.SharedContent;
 import eu.essi_lab.model.shared.SharedContent.SharedContentType;
 
 /**
+ * A bounded, in-memory table of shared contents.<br>
+ * The table is bounded by the estimated size in bytes of the contents (see {@link #weigh(SharedContent)}), and each
+ * {@link SharedContentType} has its own quota of the maximum size, so that a type cannot evict the contents of the
+ * others. The quota of a type is evenly split among its stripes, and when the share of a stripe is exceeded, the least
+ * recently used contents of the stripe are evicted. Each content expires
+ * after its time to live; the expired contents are discarded when read and purged every minute, until the table is
+ * closed or garbage collected.<br>
+ * Each type is split in stripes with their own lock, so concurrent readers and writers of different contents seldom
+ * contend
+ *
  * @author ilsanto
  */
 public class ContentTable {
 
-    @SuppressWarnings("rawtypes")
-    private Map<String, SharedContent> map;
+    /**
+     * System property which sets the maximum size in bytes of the table. The size of the contents is estimated from
+     * their textual form (see {@link #weigh(SharedContent)}), so the heap used by the objects of the table, e.g. the
+     * DOM of the resources, is larger than this size
+     */
+    public static final String MAX_WEIGHT_PROPERTY = "localCache.maxWeight";
+
+    /**
+     * System property which sets the default time to live in minutes of the contents
+     */
+    public static final String TTL_PROPERTY = "localCache.ttl";
+
+    /**
+     * Prefix of the system properties which set the percentage of the maximum size reserved to a type, e.g.
+     * localCache.quota.GS_RESOURCE_TYPE=60
+     */
+    public static final String QUOTA_PROPERTY_PREFIX = "localCache.quota.";
+
+    /**
+     * Default maximum size in bytes of the table
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 256L * 1024 * 1024;
+
+    /**
+     * Default time to live in minutes of the contents
+     */
+    public static final int DEFAULT_TTL = 30;
+
+    /**
+     * Estimated size in bytes of the contents whose size cannot be computed, e.g. the objects which are not
+     * serialized
+     */
+    static final int DEFAULT_CONTENT_WEIGHT = 8 * 1024;
+
+    /**
+     * Estimated size in bytes of the harmonized and indexes metadata of a resource
+     */
+    static final int RESOURCE_WEIGHT = 16 * 1024;
+
+    /**
+     * Estimated size in bytes of the table entry of a content
+     */
+    static final int ENTRY_WEIGHT = 128;
+
+    private static final int DEFAULT_STRIPES = 8;
+
+    private static final ScheduledExecutorService PURGER = Executors.newSingleThreadScheduledExecutor(r -> {
+
+	Thread thread = new Thread(r, "local-cache-purger");
+	thread.setDaemon(true);
+	return thread;
+    });
+
+    private final EnumMap<SharedContentType, Stripe[]> stripes;
+    private final long maxWeight;
+    private final long ttl;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LongAdder expirations;
+    private final LongAdder rejections;
 
+    private final ScheduledFuture<?> purgeTask;
+
+    /**
+     * Creates a table sized by the {@link #MAX_WEIGHT_PROPERTY} and {@link #TTL_PROPERTY} system properties
+     */
     public ContentTable() {
 
-	map = new HashMap<>();
+	this(Long.getLong(MAX_WEIGHT_PROPERTY, DEFAULT_MAX_WEIGHT), //
+		TimeUnit.MINUTES.toMillis(Integer.getInteger(TTL_PROPERTY, DEFAULT_TTL)), //
+		TimeUnit.MILLISECONDS, //
+		DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param maxWeight the maximum size in bytes of the table
+     * @param ttl the default time to live of the contents
+     * @param unit the unit of <code>ttl</code>
+     * @param stripesCount the number of stripes of each type
+     */
+    ContentTable(long maxWeight, long ttl, TimeUnit unit, int stripesCount) {
+
+	this.maxWeight = maxWeight;
+	this.ttl = unit.toMillis(ttl);
+
+	this.hits = new LongAdder();
+	this.misses = new LongAdder();
+	this.evictions = new LongAdder();
+	this.expirations = new LongAdder();
+	this.rejections = new LongAdder();
+
+	this.stripes = new EnumMap<>(SharedContentType.class);
+
+	for (SharedContentType type : SharedContentType.values()) {
+
+	    long quota = maxWeight * getQuota(type) / 100 / stripesCount;
+
+	    Stripe[] typeStripes = new Stripe[stripesCount];
+
+	    for (int i = 0; i < stripesCount; i++) {
+
+		typeStripes[i] = new Stripe(quota);
+	    }
+
+	    stripes.put(type, typeStripes);
+	}
+
+	PurgeTask task = new PurgeTask(this);
+
+	this.purgeTask = PURGER.scheduleAtFixedRate(task, 1L, 1L, TimeUnit.MINUTES);
+
+	task.future = purgeTask;
+    }
+
+    /**
+     * Stops the periodic purge of the expired contents, which are still discarded when read
+     */
+    public void close() {
+
+	purgeTask.cancel(false);
+    }
+
+    /**
+     * @param identifier
+     * @param type
+     * @return the content with the given identifier and type, or <code>null</code> if missing or expired
+     */
+    public SharedContent<?> getContent(String identifier, SharedContentType type) {
+
+	SharedContent<?> content = getStripe(identifier, type).get(identifier, System.currentTimeMillis());
+
+	if (content == null) {
+
+	    misses.increment();
+
+	} else {
+
+	    hits.increment();
+	}
+
+	return content;
+    }
+
+    /**
+     * Stores the given content with the default time to live
+     * 
+     * @param c
+     */
+    public void storeContent(SharedContent<?> c) {
+
+	storeContent(c, ttl, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stores the given content, replacing the content with the same identifier of any type. Contents larger than the
+     * share of the quota of their type assigned to a stripe (the quota divided by the number of stripes) are not stored
+     * 
+     * @param c
+     * @param ttl
+     * @param unit
+     */
+    public void storeContent(SharedContent<?> c, long ttl, TimeUnit unit) {
+
+	if (c.getType() == null) {
+
+	    rejections.increment();
+	    return;
+	}
+
+	String identifier = c.getIdentifier();
+
+	for (SharedContentType type : SharedContentType.values()) {
+
+	    if (type != c.getType()) {
+
+		getStripe(identifier, type).remove(identifier);
+	    }
+	}
+
+	long now = System.currentTimeMillis();
+
+	Stripe stripe = getStripe(identifier, c.getType());
+
+	long weight = weigh(c);
+
+	if (weight > stripe.quota) {
+
+	    stripe.remove(identifier);
+
+	    rejections.increment();
+	    return;
+	}
+
+	stripe.put(identifier, new CachedContent(c, weight, now + unit.toMillis(ttl)), now);
+    }
+
+    /**
+     * @return
+     */
+    public Long size() {
+
+	long size = 0;
+
+	for (SharedContentType type : SharedContentType.values()) {
+
+	    size += size(type);
+	}
+
+	return size;
+    }
+
+    /**
+     * @param type
+     * @return
+     */
+    public Long size(SharedContentType type) {
+
+	long size = 0;
+
+	for (Stripe stripe : stripes.get(type)) {
+
+	    size += stripe.size();
+	}
+
+	return size;
+    }
+
+    /**
+     * @return the estimated size in bytes of the contents
+     */
+    public long getWeight() {
+
+	long weight = 0;
+
+	for (SharedContentType type : SharedContentType.values()) {
+
+	    weight += getWeight(type);
+	}
+
+	return weight;
+    }
+
+    /**
+     * @param type
+     * @return the estimated size in bytes of the contents of the given type
+     */
+    public long getWeight(SharedContentType type) {
+
+	long weight = 0;
+
+	for (Stripe stripe : stripes.get(type)) {
+
+	    weight += stripe.getWeight();
+	}
+
+	return weight;
+    }
+
+    /**
+     * @return the maximum size in bytes of the table
+     */
+    public long getMaxWeight() {
+
+	return maxWeight;
+    }
+
+    /**
+     * @return the number of reads which found a content
+     */
+    public long getHits() {
+
+	return hits.sum();
+    }
+
+    /**
+     * @return the number of reads which found no content
+     */
+    public long getMisses() {
+
+	return misses.sum();
+    }
+
+    /**
+     * @return the ratio of the reads which found a content, or 0 if no read has been done
+     */
+    public double getHitRate() {
+
+	long hits = getHits();
+	long reads = hits + getMisses();
+
+	return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    /**
+     * @return the number of contents evicted to respect the quotas
+     */
+    public long getEvictions() {
+
+	return evictions.sum();
+    }
 
-	Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
+    /**
+     * @return the number of contents discarded because expired
+     */
+    public long getExpirations() {
 
-	    synchronized (ContentTable.this) {
-		map = new HashMap<>();
+	return expirations.sum();
+    }
+
+    /**
+     * @return the number of contents not stored because larger than the share of the quota of their type assigned to
+     *         a stripe
+     */
+    public long getRejections() {
+
+	return rejections.sum();
+    }
+
+    /**
+     * Discards the expired contents
+     */
+    void purge() {
+
+	long now = System.currentTimeMillis();
+
+	for (Stripe[] typeStripes : stripes.values()) {
+
+	    for (Stripe stripe : typeStripes) {
+
+		stripe.purge(now);
 	    }
+	}
+    }
+
+    /**
+     * Estimates the size in bytes of the given content: the strings, the arrays and the JSON contents are weighed by
+     * their length. The resources are not serialized, they are weighed by the length of their original metadata, which
+     * is usually their largest part, plus {@link #RESOURCE_WEIGHT} for the harmonized metadata
+     * 
+     * @param content
+     * @return
+     */
+    static long weigh(SharedContent<?> content) {
+
+	long weight = ENTRY_WEIGHT;
+
+	if (content.getIdentifier() != null) {
+
+	    weight += 2L * content.getIdentifier().length();
+	}
+
+	Object object = content.getContent();
+
+	if (object instanceof String) {
+
+	    weight += 2L * ((String) object).length();
+
+	} else if (object instanceof byte[]) {
+
+	    weight += ((byte[]) object).length;
+
+	} else if (object instanceof JSONObject || object instanceof JSONArray) {
+
+	    weight += 2L * object.toString().length();
+
+	} else if (object instanceof File) {
 
-	}, 30L, 30L, TimeUnit.MINUTES);
+	    // the file content is on the disk
+	    weight += 2L * ((File) object).getPath().length();
+
+	} else if (object instanceof GSResource) {
+
+	    OriginalMetadata original = ((GSResource) object).getOriginalMetadata();
+
+	    if (original != null && original.getMetadata() != null) {
+
+		weight += 2L * original.getMetadata().length();
+	    }
+
+	    weight += RESOURCE_WEIGHT;
+
+	} else if (object != null) {
+
+	    weight += DEFAULT_CONTENT_WEIGHT;
+	}
+
+	return weight;
     }
 
-    public synchronized SharedContent<?> getContent(String identifier) {
+    /**
+     * @param type
+     * @return the percentage of the maximum size reserved to the given type
+     */
+    private static int getQuota(SharedContentType type) {
 
-	return map.get(identifier);
+	int quota = 0;
+
+	switch (type) {
+	case GS_RESOURCE_TYPE:
+	    quota = 60;
+	    break;
+	case JSON_TYPE:
+	    quota = 20;
+	    break;
+	case GENERIC_TYPE:
+	    quota = 15;
+	    break;
+	case FILE_TYPE:
+	    quota = 5;
+	    break;
+	}
+
+	return Integer.getInteger(QUOTA_PROPERTY_PREFIX + type.name(), quota);
     }
 
-    public synchronized void storeContent(SharedContent<?> c) {
+    /**
+     * @param identifier
+     * @param type
+     * @return
+     */
+    private Stripe getStripe(String identifier, SharedContentType type) {
+
+	Stripe[] typeStripes = stripes.get(type);
 
-	map.put(c.getIdentifier(), c);
+	int hash = Objects.hashCode(identifier);
+
+	return typeStripes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % typeStripes.length];
     }
 
-    public synchronized Long size() {
+    /**
+     * @author Fabrizio
+     */
+    private static class CachedContent {
+
+	private final SharedContent<?> content;
+	private final long weight;
+	private final long expiration;
+
+	/**
+	 * @param content
+	 * @param weight
+	 * @param expiration
+	 */
+	private CachedContent(SharedContent<?> content, long weight, long expiration) {
 
-	return Long.valueOf(map.size());
+	    this.content = content;
+	    this.weight = weight;
+	    this.expiration = expiration;
+	}
     }
 
-    public synchronized Long size(SharedContentType type) {
+    /**
+     * Purges the expired contents of a table, and cancels itself when the table is garbage collected
+     * 
+     * @author Fabrizio
+     */
+    private static class PurgeTask implements Runnable {
+
+	private final WeakReference<ContentTable> table;
+	private volatile ScheduledFuture<?> future;
+
+	/**
+	 * @param table
+	 */
+	private PurgeTask(ContentTable table) {
+
+	    this.table = new WeakReference<>(table);
+	}
+
+	@Override
+	public void run() {
+
+	    ContentTable current = table.get();
+
+	    if (current != null) {
+
+		current.purge();
+
+	    } else if (future != null) {
+
+		future.cancel(false);
+	    }
+	}
+    }
+
+    /**
+     * A LRU map of contents bounded by weight
+     * 
+     * @author Fabrizio
+     */
+    private class Stripe {
+
+	private final LinkedHashMap<String, CachedContent> map;
+	private final long quota;
+	private long weight;
+
+	/**
+	 * @param quota
+	 */
+	private Stripe(long quota) {
+
+	    this.map = new LinkedHashMap<>(16, 0.75f, true);
+	    this.quota = quota;
+	}
+
+	/**
+	 * @param identifier
+	 * @param now
+	 * @return
+	 */
+	private synchronized SharedContent<?> get(String identifier, long now) {
+
+	    CachedContent cached = map.get(identifier);
+
+	    if (cached == null) {
+
+		return null;
+	    }
+
+	    if (cached.expiration <= now) {
+
+		map.remove(identifier);
+		weight -= cached.weight;
+
+		expirations.increment();
+
+		return null;
+	    }
+
+	    return cached.content;
+	}
+
+	/**
+	 * @param identifier
+	 * @param cached
+	 * @param now
+	 */
+	private synchronized void put(String identifier, CachedContent cached, long now) {
+
+	    CachedContent previous = map.put(identifier, cached);
+
+	    if (previous != null) {
+
+		weight -= previous.weight;
+	    }
+
+	    weight += cached.weight;
+
+	    // the new content is the most recently used, and it is never evicted since it fits the quota
+	    Iterator<CachedContent> iterator = map.values().iterator();
+
+	    while (weight > quota && iterator.hasNext()) {
+
+		CachedContent eldest = iterator.next();
+
+		iterator.remove();
+		weight -= eldest.weight;
+
+		if (eldest.expiration <= now) {
+
+		    expirations.increment();
+
+		} else {
+
+		    evictions.increment();
+		}
+	    }
+	}
+
+	/**
+	 * @param identifier
+	 */
+	private synchronized void remove(String identifier) {
+
+	    CachedContent removed = map.remove(identifier);
+
+	    if (removed != null) {
+
+		weight -= removed.weight;
+	    }
+	}
+
+	/**
+	 * @param now
+	 */
+	private synchronized void purge(long now) {
+
+	    Iterator<Entry<String, CachedContent>> iterator = map.entrySet().iterator();
+
+	    while (iterator.hasNext()) {
+
+		CachedContent cached = iterator.next().getValue();
+
+		if (cached.expiration <= now) {
+
+		    iterator.remove();
+		    weight -= cached.weight;
+
+		    expirations.increment();
+		}
+	    }
+	}
+
+	/**
+	 * @return
+	 */
+	private synchronized int size() {
+
+	    return map.size();
+	}
+
+	/**
+	 * @return
+	 */
+	private synchronized long getWeight() {
 
-	return map.values().stream().filter(o -> o.getType() == type).count();
+	    return weight;
+	}
     }
 }
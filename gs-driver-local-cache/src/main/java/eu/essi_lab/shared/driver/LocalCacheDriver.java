@@ -21,10 +21,11 @@ package eu.essi_lab.shared.driver;
  * #L%
  */
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import eu.essi_lab.cfga.gs.setting.driver.SharedCacheDriverSetting;
-import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.model.exceptions.ErrorInfo;
 import eu.essi_lab.model.exceptions.GSException;
 import eu.essi_lab.model.shared.SharedContent;
@@ -34,8 +35,8 @@ import eu.essi_lab.shared.messages.SharedContentQuery;
 
 /**
  * This implements the driver for using local cache as the shared repository of category cache. Cached objects are
- * stored into a HashMap
- * which is periodically cleared. This implementation of the interface {@link ISharedCacheRepositoryDriver} does not
+ * stored into a {@link ContentTable}, bounded by size and with per type quotas, where they expire after a time to live
+ * (see {@link ContentTable#MAX_WEIGHT_PROPERTY} and {@link ContentTable#TTL_PROPERTY}). This implementation of the interface {@link ISharedCacheRepositoryDriver} does not
  * provide the
  * implementation of the method {@link ISharedCacheRepositoryDriver#read(SharedContentType,
  * eu.essi_lab.shared.messages.SharedContentQuery)}
@@ -72,23 +73,28 @@ public class LocalCacheDriver implements ISharedRepositoryDriver<SharedCacheDriv
 
     @SuppressWarnings("rawtypes")
     @Override
-    public synchronized SharedContent read(String identifier, SharedContentType type) throws GSException {
+    public SharedContent read(String identifier, SharedContentType type) throws GSException {
 
-	SharedContent content = contentTable.getContent(identifier);
+	return contentTable.getContent(identifier, type);
+    }
 
-	if (content == null) {
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Map<String, SharedContent> read(List<String> identifiers, SharedContentType type) throws GSException {
 
-	    return null;
-	}
+	Map<String, SharedContent> out = new LinkedHashMap<>();
+
+	for (String identifier : identifiers) {
 
-	if (content.getType() != type) {
+	    SharedContent content = contentTable.getContent(identifier, type);
 
-	    GSLoggerFactory.getLogger(getClass()).warn("Shared content mismatch. Required: " + type + ", found: " + content.getType());
+	    if (content != null) {
 
-	    return null;
+		out.put(identifier, content);
+	    }
 	}
 
-	return content;
+	return out;
     }
 
     @SuppressWarnings("rawtypes")
@@ -106,11 +112,19 @@ public class LocalCacheDriver implements ISharedRepositoryDriver<SharedCacheDriv
     }
 
     @Override
-    public synchronized Long count(SharedContentType type) throws GSException {
+    public Long count(SharedContentType type) throws GSException {
 
 	return contentTable.size(type);
     }
 
+    /**
+     * @return the table of the cached contents, e.g. to read its hit rate and size
+     */
+    public static ContentTable getContentTable() {
+
+	return contentTable;
+    }
+
     @Override
     public void configure(SharedCacheDriverSetting setting) {
 
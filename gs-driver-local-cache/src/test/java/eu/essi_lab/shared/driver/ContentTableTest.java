@@ -0,0 +1,291 @@
+package eu.essi_lab.shared.driver;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.model.shared.SharedContent;
+import eu.essi_lab.model.shared.SharedContent.SharedContentType;
+
+/**
+ * @author Fabrizio
+ */
+public class ContentTableTest {
+
+    /**
+     * The number of distributed queries of the workload can be set with the <code>localCache.benchmarkQueries</code>
+     * property, e.g. -DlocalCache.benchmarkQueries=100000
+     */
+    private static final int BENCHMARK_QUERIES = Integer.getInteger("localCache.benchmarkQueries", 5000);
+
+    @Test
+    public void lruTest() {
+
+	// 60% of 10000 bytes to the resources, a single stripe
+	ContentTable table = new ContentTable(10000, 1, TimeUnit.HOURS, 1);
+
+	long weight = ContentTable.weigh(create("id0", SharedContentType.GS_RESOURCE_TYPE, 1000));
+
+	for (int i = 0; i < 5; i++) {
+
+	    table.storeContent(create("id" + i, SharedContentType.GS_RESOURCE_TYPE, 1000));
+	}
+
+	Assert.assertEquals(Long.valueOf(2), table.size(SharedContentType.GS_RESOURCE_TYPE));
+	Assert.assertEquals(2 * weight, table.getWeight(SharedContentType.GS_RESOURCE_TYPE));
+	Assert.assertEquals(3, table.getEvictions());
+
+	Assert.assertNotNull(table.getContent("id3", SharedContentType.GS_RESOURCE_TYPE));
+	Assert.assertNotNull(table.getContent("id4", SharedContentType.GS_RESOURCE_TYPE));
+
+	//
+	// id3 is read, so id4 is the least recently used
+	//
+
+	table.getContent("id3", SharedContentType.GS_RESOURCE_TYPE);
+
+	table.storeContent(create("id5", SharedContentType.GS_RESOURCE_TYPE, 1000));
+
+	Assert.assertNotNull(table.getContent("id3", SharedContentType.GS_RESOURCE_TYPE));
+	Assert.assertNull(table.getContent("id4", SharedContentType.GS_RESOURCE_TYPE));
+	Assert.assertNotNull(table.getContent("id5", SharedContentType.GS_RESOURCE_TYPE));
+
+	Assert.assertTrue(table.getWeight() <= table.getMaxWeight());
+    }
+
+    @Test
+    public void quotaTest() {
+
+	ContentTable table = new ContentTable(10000, 1, TimeUnit.HOURS, 1);
+
+	table.storeContent(create("json", SharedContentType.JSON_TYPE, 500));
+
+	//
+	// the resources do not evict the contents of the other types
+	//
+
+	for (int i = 0; i < 100; i++) {
+
+	    table.storeContent(create("id" + i, SharedContentType.GS_RESOURCE_TYPE, 1000));
+	}
+
+	Assert.assertNotNull(table.getContent("json", SharedContentType.JSON_TYPE));
+
+	//
+	// contents larger than the quota are not stored
+	//
+
+	table.storeContent(create("large", SharedContentType.FILE_TYPE, 1000));
+
+	Assert.assertNull(table.getContent("large", SharedContentType.FILE_TYPE));
+	Assert.assertEquals(1, table.getRejections());
+
+	//
+	// a content of a different type replaces the content with the same identifier
+	//
+
+	table.storeContent(create("json", SharedContentType.GENERIC_TYPE, 10));
+
+	Assert.assertNull(table.getContent("json", SharedContentType.JSON_TYPE));
+	Assert.assertNotNull(table.getContent("json", SharedContentType.GENERIC_TYPE));
+
+	Assert.assertEquals(Long.valueOf(0), table.size(SharedContentType.JSON_TYPE));
+	Assert.assertEquals(0, table.getWeight(SharedContentType.JSON_TYPE));
+    }
+
+    @Test
+    public void ttlTest() throws Exception {
+
+	ContentTable table = new ContentTable(10000, 50, TimeUnit.MILLISECONDS, 1);
+
+	table.storeContent(create("id1", SharedContentType.GENERIC_TYPE, 10));
+	table.storeContent(create("id2", SharedContentType.GENERIC_TYPE, 10));
+	table.storeContent(create("id3", SharedContentType.GENERIC_TYPE, 10), 1, TimeUnit.HOURS);
+
+	Assert.assertNotNull(table.getContent("id1", SharedContentType.GENERIC_TYPE));
+
+	Thread.sleep(100);
+
+	Assert.assertNull(table.getContent("id1", SharedContentType.GENERIC_TYPE));
+
+	table.purge();
+
+	Assert.assertEquals(Long.valueOf(1), table.size());
+	Assert.assertEquals(2, table.getExpirations());
+
+	Assert.assertNotNull(table.getContent("id3", SharedContentType.GENERIC_TYPE));
+
+	Assert.assertEquals(2, table.getHits());
+	Assert.assertEquals(1, table.getMisses());
+    }
+
+    @Test
+    public void weighTest() {
+
+	char[] chars = new char[10000];
+	Arrays.fill(chars, 'x');
+
+	Dataset large = new Dataset();
+	large.setPrivateId("large");
+	large.getOriginalMetadata().setMetadata(new String(chars));
+
+	Dataset small = new Dataset();
+	small.setPrivateId("small");
+
+	// the resources are weighed by the length of their original metadata, without serializing them
+	long difference = ContentTable.weigh(createResource(large)) - ContentTable.weigh(createResource(small));
+
+	Assert.assertEquals(2 * chars.length, difference);
+	Assert.assertTrue(ContentTable.weigh(createResource(small)) >= ContentTable.ENTRY_WEIGHT + ContentTable.RESOURCE_WEIGHT);
+    }
+
+    @Test
+    public void driverTest() throws Exception {
+
+	LocalCacheDriver driver = new LocalCacheDriver();
+
+	driver.store(create("driverId", SharedContentType.GS_RESOURCE_TYPE, 10));
+
+	Assert.assertNotNull(driver.read("driverId", SharedContentType.GS_RESOURCE_TYPE));
+	Assert.assertNull(driver.read("driverId", SharedContentType.JSON_TYPE));
+
+	Assert.assertEquals(1, driver.read(Arrays.asList("driverId", "missing"), SharedContentType.GS_RESOURCE_TYPE).size());
+
+	Assert.assertTrue(LocalCacheDriver.getContentTable().getHits() > 0);
+    }
+
+    /**
+     * Replays a synthetic workload of distributed queries: the queries follow a Zipf distribution, the results of each
+     * query are read from the cache and the missing ones are stored, as they were fetched by the remote sources
+     */
+    @Test
+    public void workloadTest() {
+
+	int queries = 10000;
+	int resultsPerQuery = 20;
+	int resultSize = 1000;
+
+	// a tenth of the results fits the resources quota
+	long maxWeight = (long) queries * resultsPerQuery * (ContentTable.ENTRY_WEIGHT + 2 * resultSize) / 10 * 100 / 60;
+
+	ContentTable table = new ContentTable(maxWeight, 1, TimeUnit.HOURS, 8);
+
+	double[] cumulative = zipf(queries, 1.0);
+
+	Random random = new Random(42);
+
+	Runtime runtime = Runtime.getRuntime();
+
+	System.gc();
+
+	long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+	long start = System.nanoTime();
+
+	for (int i = 0; i < BENCHMARK_QUERIES; i++) {
+
+	    int query = sample(cumulative, random);
+
+	    for (int r = 0; r < resultsPerQuery; r++) {
+
+		String identifier = query + "-" + r;
+
+		if (table.getContent(identifier, SharedContentType.GS_RESOURCE_TYPE) == null) {
+
+		    table.storeContent(create(identifier, SharedContentType.GS_RESOURCE_TYPE, resultSize));
+		}
+	    }
+	}
+
+	long time = System.nanoTime() - start;
+
+	System.gc();
+
+	long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+	System.out.println("Queries: " + BENCHMARK_QUERIES + ", distinct queries: " + queries + ", results per query: " + resultsPerQuery);
+	System.out.println("Hit rate: " + String.format("%.2f", table.getHitRate() * 100) + "%");
+	System.out.println("Contents: " + table.size() + ", evictions: " + table.getEvictions());
+	System.out.println("Estimated size: " + table.getWeight() / 1024 + " KB of " + table.getMaxWeight() / 1024 + " KB");
+	System.out.println("Heap usage: " + (heapAfter - heapBefore) / 1024 + " KB");
+	System.out.println("Time: " + time / BENCHMARK_QUERIES / 1000 + " us/query");
+
+	Assert.assertTrue(table.getWeight() <= table.getMaxWeight());
+	Assert.assertTrue(table.getHitRate() > 0);
+    }
+
+    /**
+     * @param n
+     * @param exponent
+     * @return the cumulative probabilities of a Zipf distribution of <code>n</code> elements
+     */
+    private double[] zipf(int n, double exponent) {
+
+	double[] cumulative = new double[n];
+
+	double sum = 0;
+
+	for (int i = 0; i < n; i++) {
+
+	    sum += 1 / Math.pow(i + 1, exponent);
+	    cumulative[i] = sum;
+	}
+
+	for (int i = 0; i < n; i++) {
+
+	    cumulative[i] /= sum;
+	}
+
+	return cumulative;
+    }
+
+    /**
+     * @param cumulative
+     * @param random
+     * @return
+     */
+    private int sample(double[] cumulative, Random random) {
+
+	int index = Arrays.binarySearch(cumulative, random.nextDouble());
+
+	return Math.min(cumulative.length - 1, index < 0 ? -index - 1 : index);
+    }
+
+    /**
+     * @param resource
+     * @return
+     */
+    private SharedContent<GSResource> createResource(GSResource resource) {
+
+	SharedContent<GSResource> content = new SharedContent<>();
+	content.setIdentifier(resource.getPrivateId());
+	content.setType(SharedContentType.GS_RESOURCE_TYPE);
+	content.setContent(resource);
+
+	return content;
+    }
+
+    /**
+     * @param identifier
+     * @param type
+     * @param length
+     * @return
+     */
+    private SharedContent<String> create(String identifier, SharedContentType type, int length) {
+
+	char[] chars = new char[length];
+	Arrays.fill(chars, 'x');
+
+	SharedContent<String> content = new SharedContent<>();
+	content.setIdentifier(identifier);
+	content.setType(type);
+	content.setContent(new String(chars));
+
+	return content;
+    }
+}
@@ -0,0 +1,159 @@
+package eu.essi_lab.shared.driver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.shared.SharedContent;
+import eu.essi_lab.model.shared.SharedContent.SharedContentType;
+
+/**
+ * @author Fabrizio
+ */
+public class SharedCacheChannelTest {
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void writeBehindTest() throws Exception {
+
+	AtomicInteger batches = new AtomicInteger();
+
+	CountDownLatch latch = new CountDownLatch(1);
+
+	LocalCacheDriver driver = new LocalCacheDriver() {
+
+	    @Override
+	    public void store(List<SharedContent> sharedContents) throws GSException {
+
+		batches.incrementAndGet();
+
+		try {
+		    latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+
+		super.store(sharedContents);
+	    }
+	};
+
+	SharedCacheChannel channel = new SharedCacheChannel(1000, 100) {
+
+	    @Override
+	    protected ISharedRepositoryDriver createDriver() {
+
+		return driver;
+	    }
+	};
+
+	List<SharedContent<String>> contents = create(1000);
+
+	channel.store(contents);
+
+	// the driver is blocked, so the caller does not wait for the cache I/O
+	Assert.assertEquals(0, channel.getStored());
+	Assert.assertEquals(0, channel.getDropped());
+	Assert.assertTrue(channel.getQueueDepth() > 0);
+
+	// queued contents can be read before they are written
+	List<String> identifiers = new ArrayList<>();
+	identifiers.add("missing");
+	contents.forEach(c -> identifiers.add(c.getIdentifier()));
+
+	Map<String, SharedContent> read = channel.read(identifiers, SharedContentType.GENERIC_TYPE);
+
+	Assert.assertEquals(1000, read.size());
+	Assert.assertEquals(contents.get(0).getIdentifier(), read.keySet().iterator().next());
+
+	latch.countDown();
+
+	channel.flush();
+
+	Assert.assertEquals(0, channel.getQueueDepth());
+	Assert.assertEquals(1000, channel.getStored());
+	Assert.assertEquals(0, channel.getDropped());
+
+	// the contents are written in batches
+	Assert.assertTrue(batches.get() >= 10 && batches.get() < 1000);
+
+	// written contents are read with a single driver call
+	read = channel.read(identifiers, SharedContentType.GENERIC_TYPE);
+
+	Assert.assertEquals(1000, read.size());
+
+	Assert.assertTrue(channel.read(identifiers, SharedContentType.GS_RESOURCE_TYPE).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void droppedWritesTest() throws Exception {
+
+	CountDownLatch latch = new CountDownLatch(1);
+
+	LocalCacheDriver driver = new LocalCacheDriver() {
+
+	    @Override
+	    public void store(List<SharedContent> sharedContents) throws GSException {
+
+		try {
+		    latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+
+		super.store(sharedContents);
+	    }
+	};
+
+	SharedCacheChannel channel = new SharedCacheChannel(10, 5) {
+
+	    @Override
+	    protected ISharedRepositoryDriver createDriver() {
+
+		return driver;
+	    }
+	};
+
+	channel.store(create(100));
+
+	// the writer is blocked, the queue is full
+	Assert.assertTrue(channel.getDropped() > 0);
+	Assert.assertTrue(channel.getQueueDepth() <= 10);
+
+	latch.countDown();
+
+	channel.flush();
+
+	Assert.assertEquals(0, channel.getQueueDepth());
+	Assert.assertEquals(100, channel.getStored() + channel.getDropped());
+    }
+
+    /**
+     * @param count
+     * @return
+     */
+    private List<SharedContent<String>> create(int count) {
+
+	List<SharedContent<String>> out = new ArrayList<>();
+
+	for (int i = 0; i < count; i++) {
+
+	    SharedContent<String> content = new SharedContent<>();
+	    content.setIdentifier(UUID.randomUUID().toString());
+	    content.setType(SharedContentType.GENERIC_TYPE);
+	    content.setContent("content-" + i);
+
+	    out.add(content);
+	}
+
+	return out;
+    }
+}
@@ -21,23 +21,158 @@ package eu.essi_lab.lib.utils;
  * #L%
  */
 
+import java.lang.ref.WeakReference;
 import java.util.AbstractMap.SimpleEntry;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
 
 /**
- * A generic optionally limited cache whose values will expire after the given optional duration
+ * A generic optionally limited cache whose values will expire after the given optional duration.<br>
+ * <br>
+ * Reads are lock free; writes are O(1) and serialized by a short lock which keeps the entries in insertion order.
+ * Since all the entries have the same duration, the insertion order is also the expiration order, so expired entries
+ * are removed from the head of the cache during the writes and periodically by a background thread shared by all the
+ * caches.<br>
+ * When the optional maximum size or maximum weight is exceeded, the oldest entries are evicted; the weight of
+ * <code>byte[]</code> values is their length (so that the maximum weight is a byte budget), while the other values
+ * weigh 1 unless a different weigher is set
  * 
  * @author boldrini
  * @param <T>
  */
 public class ExpiringCache<T> {
 
-    private Long duration = null;
+    /**
+     * Period of the background removal of the expired entries, in milliseconds
+     */
+    private static final long CLEANUP_PERIOD = TimeUnit.SECONDS.toMillis(30);
+
+    private static final Set<WeakReference<ExpiringCache<?>>> CACHES = ConcurrentHashMap.newKeySet();
+
+    private static final ScheduledExecutorService CLEANER = Executors.newSingleThreadScheduledExecutor(r -> {
+	Thread thread = new Thread(r, "expiring-cache-cleaner");
+	thread.setDaemon(true);
+	return thread;
+    });
+
+    static {
+
+	CLEANER.scheduleWithFixedDelay(() -> {
+
+	    Iterator<WeakReference<ExpiringCache<?>>> iterator = CACHES.iterator();
+	    while (iterator.hasNext()) {
 
-    private Integer maxSize = null;
+		ExpiringCache<?> cache = iterator.next().get();
+		if (cache == null) {
+		    iterator.remove();
+		} else {
+		    cache.removeExpired();
+		}
+	    }
+
+	}, CLEANUP_PERIOD, CLEANUP_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @author boldrini
+     */
+    private static class Node<T> {
+
+	private final String key;
+	private final T value;
+	private final long time;
+	private final long weight;
+
+	private Node(String key, T value, long time, long weight) {
+	    this.key = key;
+	    this.value = value;
+	    this.time = time;
+	    this.weight = weight;
+	}
+    }
+
+    /**
+     * Cache usage statistics
+     * 
+     * @author boldrini
+     */
+    public static class Statistics {
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	public long getHits() {
+	    return hits.sum();
+	}
+
+	public long getMisses() {
+	    return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries removed because of the maximum size or weight
+	 */
+	public long getEvictions() {
+	    return evictions.sum();
+	}
+
+	/**
+	 * @return the number of entries removed because expired
+	 */
+	public long getExpirations() {
+	    return expirations.sum();
+	}
+
+	public double getHitRatio() {
+	    long requests = getHits() + getMisses();
+	    return requests == 0 ? 0 : (double) getHits() / requests;
+	}
+
+	@Override
+	public String toString() {
+
+	    return "hits: " + getHits() + //
+		    ", misses: " + getMisses() + //
+		    ", evictions: " + getEvictions() + //
+		    ", expirations: " + getExpirations();
+	}
+    }
+
+    private volatile Long duration = null;
+
+    private volatile Integer maxSize = null;
+
+    private volatile Long maxWeight = null;
+
+    private ToLongFunction<? super T> weigher = value -> value instanceof byte[] ? ((byte[]) value).length : 1;
+
+    private final ConcurrentHashMap<String, Node<T>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Entries in insertion order, guarded by {@link #lock}
+     */
+    private final LinkedHashMap<String, Node<T>> order = new LinkedHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicBoolean registered = new AtomicBoolean();
+
+    private final Statistics statistics = new Statistics();
+
+    private long weight;
 
     public Integer getMaxSize() {
 	return maxSize;
@@ -45,6 +180,33 @@ public class ExpiringCache<T> {
 
     public void setMaxSize(Integer maxSize) {
 	this.maxSize = maxSize;
+	evict();
+    }
+
+    /**
+     * @return the maximum total weight of the cached values, or <code>null</code> if not limited
+     */
+    public Long getMaxWeight() {
+	return maxWeight;
+    }
+
+    /**
+     * Limits the total weight of the cached values; for <code>byte[]</code> values this is the number of cached bytes
+     * 
+     * @param maxWeight
+     */
+    public void setMaxWeight(Long maxWeight) {
+	this.maxWeight = maxWeight;
+	evict();
+    }
+
+    /**
+     * Sets the function which gives the weight of the cached values, see {@link #setMaxWeight(Long)}
+     * 
+     * @param weigher
+     */
+    public void setWeigher(ToLongFunction<? super T> weigher) {
+	this.weigher = weigher;
     }
 
     public long getDuration() {
@@ -58,106 +220,176 @@ public class ExpiringCache<T> {
      */
     public void setDuration(long duration) {
 	this.duration = duration;
+
+	if (registered.compareAndSet(false, true)) {
+	    CACHES.add(new WeakReference<>(this));
+	}
     }
 
-    private HashMap<String, SimpleEntry<Long, T>> cache = new HashMap<>();
+    /**
+     * @return
+     */
+    public Statistics getStatistics() {
+	return statistics;
+    }
 
     public void clear() {
-	synchronized (cache) {
+	lock.lock();
+	try {
 	    cache.clear();
+	    order.clear();
+	    weight = 0;
+	} finally {
+	    lock.unlock();
 	}
     }
 
-    public synchronized Set<String> keySet() {
+    public Set<String> keySet() {
 	Set<String> ret = new HashSet<>();
-	Set<Entry<String, SimpleEntry<Long, T>>> entries = cache.entrySet();
-	for (Entry<String, SimpleEntry<Long, T>> entry : entries) {
-	    String key = entry.getKey();
-	    if (!isExpired(entry.getValue().getKey())) {
-		ret.add(key);
+	for (Node<T> node : cache.values()) {
+	    if (!isExpired(node.time)) {
+		ret.add(node.key);
 	    }
 	}
 	return ret;
     }
 
-    public synchronized Set<Entry<String, T>> entrySet() {
+    public Set<Entry<String, T>> entrySet() {
 	Set<Entry<String, T>> ret = new HashSet<>();
-	Set<Entry<String, SimpleEntry<Long, T>>> entries = cache.entrySet();
-	for (Entry<String, SimpleEntry<Long, T>> entry : entries) {
-	    String key = entry.getKey();
-	    if (!isExpired(entry.getValue().getKey())) {
-		ret.add(new SimpleEntry(key, entry.getValue().getValue()));
+	for (Node<T> node : cache.values()) {
+	    if (!isExpired(node.time)) {
+		ret.add(new SimpleEntry<>(node.key, node.value));
 	    }
 	}
 	return ret;
     }
-    
 
-    public synchronized void remove(String key) {
-	cache.remove(key);
-	
+    public void remove(String key) {
+	lock.lock();
+	try {
+	    Node<T> node = order.remove(key);
+	    if (node != null) {
+		cache.remove(key);
+		weight -= node.weight;
+	    }
+	} finally {
+	    lock.unlock();
+	}
     }
 
     public void put(String key, T value) {
-	SimpleEntry<Long, T> entry = new SimpleEntry<>(System.currentTimeMillis(), value);
-	synchronized (cache) {
-	    if (maxSize == null) {
-		cache.put(key, entry);
-	    } else {
-		if (cache.size() == maxSize) {
-		    // removing the oldest entry
-		    Set<Entry<String, SimpleEntry<Long, T>>> entrySet = cache.entrySet();
-		    Entry<String, SimpleEntry<Long, T>> oldestEntry = null;
-		    for (Entry<String, SimpleEntry<Long, T>> existingEntry : entrySet) {
-
-			if (existingEntry != null
-				&& (oldestEntry == null || existingEntry.getValue().getKey() < oldestEntry.getValue().getKey())) {
-			    oldestEntry = existingEntry;
-			}
-		    }
-		    if (oldestEntry != null) {
-			cache.remove(oldestEntry.getKey());
-		    }
-		}
-		cache.put(key, entry);
+
+	Node<T> node = new Node<>(key, value, System.currentTimeMillis(), value == null ? 0 : weigher.applyAsLong(value));
+
+	lock.lock();
+	try {
+	    // removing first, so that the updated entry goes to the tail
+	    Node<T> previous = order.remove(key);
+	    if (previous != null) {
+		weight -= previous.weight;
 	    }
-	}
 
+	    order.put(key, node);
+	    cache.put(key, node);
+	    weight += node.weight;
+
+	    removeExpiredHead();
+	    evictHead();
+
+	} finally {
+	    lock.unlock();
+	}
     }
 
     public int size() {
-	int i = 0;
-	synchronized (cache) {
-	    Set<Entry<String, SimpleEntry<Long, T>>> entrySet = cache.entrySet();
-	    for (Entry<String, SimpleEntry<Long, T>> entry : entrySet) {
-		Long time = entry.getValue().getKey();
-		if (!isExpired(time)) {
-		    i++;
-		}
-	    }
+	removeExpired();
+	return cache.size();
+    }
+
+    public T get(String key) {
+	Node<T> node = cache.get(key);
+	if (node == null) {
+	    statistics.misses.increment();
+	    return null;
 	}
-	return i;
+	if (isExpired(node.time)) {
+	    statistics.misses.increment();
+	    removeExpired();
+	    return null;
+	}
+
+	statistics.hits.increment();
+	return node.value;
     }
 
-    private boolean isExpired(Long time) {
-	if (duration==null) {
+    private boolean isExpired(long time) {
+	Long duration = this.duration;
+	if (duration == null) {
 	    return false;
 	}
 	long gap = System.currentTimeMillis() - time;
 	return gap > duration;
     }
 
-    public T get(String key) {
-	SimpleEntry<Long, T> entry = cache.get(key);
-	if (entry == null) {
-	    return null;
+    /**
+     * Removes the expired entries
+     */
+    private void removeExpired() {
+	if (duration == null) {
+	    return;
 	}
-	if (isExpired(entry.getKey())) {
-	    return null;
+	lock.lock();
+	try {
+	    removeExpiredHead();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Evicts the oldest entries exceeding the maximum size and weight
+     */
+    private void evict() {
+	lock.lock();
+	try {
+	    evictHead();
+	} finally {
+	    lock.unlock();
 	}
+    }
 
-	return entry.getValue();
+    /**
+     * To be called with the lock held
+     */
+    private void removeExpiredHead() {
+	Iterator<Node<T>> iterator = order.values().iterator();
+	while (iterator.hasNext()) {
+	    Node<T> node = iterator.next();
+	    if (!isExpired(node.time)) {
+		break;
+	    }
+	    iterator.remove();
+	    cache.remove(node.key);
+	    weight -= node.weight;
+	    statistics.expirations.increment();
+	}
     }
 
+    /**
+     * To be called with the lock held
+     */
+    private void evictHead() {
+	Integer maxSize = this.maxSize;
+	Long maxWeight = this.maxWeight;
 
+	Iterator<Node<T>> iterator = order.values().iterator();
+	while (iterator.hasNext() && //
+		((maxSize != null && order.size() > maxSize) || (maxWeight != null && weight > maxWeight))) {
+	    Node<T> node = iterator.next();
+	    iterator.remove();
+	    cache.remove(node.key);
+	    weight -= node.weight;
+	    statistics.evictions.increment();
+	}
+    }
 }
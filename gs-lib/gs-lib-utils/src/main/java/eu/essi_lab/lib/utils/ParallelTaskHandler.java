@@ -29,8 +29,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -40,7 +38,6 @@ import java.util.function.Function;
  */
 public class ParallelTaskHandler<I, O> {
 
-    private ExecutorService service;
     private Function<I, O> executor;
     private List<I> inputList;
 
@@ -50,7 +47,6 @@ public class ParallelTaskHandler<I, O> {
      */
     public void set(List<I> input, Function<I, O> executor) {
 
-	this.service = Executors.newFixedThreadPool(input.size());
 	this.inputList = input;
 	this.executor = executor;
     }
@@ -71,7 +67,8 @@ public class ParallelTaskHandler<I, O> {
 
 	ArrayList<O> outputList = new ArrayList<>();
 
-	List<Future<O>> futures = service.invokeAll(execList);
+	// all the inputs are processed at the same time by the shared threads
+	List<Future<O>> futures = SharedExecutor.invokeAll(getClass().getSimpleName(), execList, inputList.size(), 0);
 
 	for (Future<O> future : futures) {
 
@@ -79,8 +76,6 @@ public class ParallelTaskHandler<I, O> {
 	    outputList.add(output);
 	}
 
-	service.shutdown();
-
 	return outputList;
     }
 
@@ -0,0 +1,454 @@
+package eu.essi_lab.lib.utils;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process wide pool of threads shared by all the components which execute tasks in parallel (see
+ * {@link TaskListExecutor} and {@link ParallelTaskHandler}), so that requests reuse idle threads instead of creating
+ * and destroying a new pool each time.
+ * <p>
+ * <ul>
+ * <li>the pool size is bounded by the {@value #MAX_THREADS_PROPERTY} system property (default
+ * {@value #DEFAULT_MAX_THREADS}); idle threads are released after one minute. When all the threads are busy, tasks are
+ * run by the submitting thread instead of being queued, since callers waiting for their tasks can themselves run in the
+ * pool and queuing could lead to deadlocks; this also slows down the callers until some pooled thread is free</li>
+ * <li>each caller limits the number of its tasks running at the same time with the <code>parallelism</code> argument
+ * of {@link #invokeAll(String, Collection, int, long)}; the other tasks wait in the caller queue</li>
+ * <li>tasks not completed within the timeout are cancelled with interruption; the JDK <code>HttpClient</code> aborts
+ * the pending exchange when the sending thread is interrupted, so in-flight HTTP calls are cancelled as well</li>
+ * <li>queue depth and latencies are collected for each caller, see {@link #getStatistics()}</li>
+ * </ul>
+ *
+ * @author boldrini
+ */
+public class SharedExecutor {
+
+    /**
+     * System property which sets the maximum number of pooled threads
+     */
+    public static final String MAX_THREADS_PROPERTY = "sharedExecutor.maxThreads";
+
+    /**
+     * Default maximum number of pooled threads
+     */
+    public static final int DEFAULT_MAX_THREADS = 512;
+
+    private static final ThreadPoolExecutor POOL;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final AtomicLong OVERFLOWS = new AtomicLong();
+
+    private static final ConcurrentHashMap<String, Statistics> STATISTICS = new ConcurrentHashMap<>();
+
+    static {
+
+	int maxThreads = Integer.getInteger(MAX_THREADS_PROPERTY, DEFAULT_MAX_THREADS);
+
+	POOL = new ThreadPoolExecutor(//
+		0, //
+		Math.max(1, maxThreads), //
+		60, //
+		TimeUnit.SECONDS, //
+		new SynchronousQueue<>(), //
+		r -> {
+		    Thread thread = new Thread(r, "shared-executor-" + THREAD_COUNTER.incrementAndGet());
+		    thread.setDaemon(true);
+		    return thread;
+		}, //
+		new ThreadPoolExecutor.CallerRunsPolicy() {
+
+		    @Override
+		    public void rejectedExecution(Runnable r, ThreadPoolExecutor pool) {
+
+			OVERFLOWS.incrementAndGet();
+
+			super.rejectedExecution(r, pool);
+		    }
+		});
+    }
+
+    /**
+     * Per caller execution statistics
+     *
+     * @author boldrini
+     */
+    public static class Statistics {
+
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong cancelled = new AtomicLong();
+	private final AtomicLong waitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final AtomicLong runNanos = new AtomicLong();
+	private final AtomicLong maxRunNanos = new AtomicLong();
+
+	/**
+	 * @return the number of tasks waiting to start
+	 */
+	public int getQueueDepth() {
+
+	    return queued.get();
+	}
+
+	/**
+	 * @return the number of running tasks
+	 */
+	public int getRunning() {
+
+	    return running.get();
+	}
+
+	/**
+	 * @return the number of tasks which ran to the end, normally, with an exception or interrupted
+	 */
+	public long getCompleted() {
+
+	    return completed.get();
+	}
+
+	/**
+	 * @return the number of tasks cancelled because of a timeout or of an interruption of the caller
+	 */
+	public long getCancelled() {
+
+	    return cancelled.get();
+	}
+
+	/**
+	 * @return the average time between the submission and the start of the completed tasks, in milliseconds
+	 */
+	public double getAverageWaitMillis() {
+
+	    long count = completed.get();
+	    return count == 0 ? 0 : waitNanos.get() / 1_000_000.0 / count;
+	}
+
+	/**
+	 * @return
+	 */
+	public double getMaxWaitMillis() {
+
+	    return maxWaitNanos.get() / 1_000_000.0;
+	}
+
+	/**
+	 * @return the average execution time of the completed tasks, in milliseconds
+	 */
+	public double getAverageRunMillis() {
+
+	    long count = completed.get();
+	    return count == 0 ? 0 : runNanos.get() / 1_000_000.0 / count;
+	}
+
+	/**
+	 * @return
+	 */
+	public double getMaxRunMillis() {
+
+	    return maxRunNanos.get() / 1_000_000.0;
+	}
+
+	@Override
+	public String toString() {
+
+	    return "queued: " + getQueueDepth() + //
+		    ", running: " + getRunning() + //
+		    ", completed: " + getCompleted() + //
+		    ", cancelled: " + getCancelled() + //
+		    ", avg wait ms: " + String.format("%.2f", getAverageWaitMillis()) + //
+		    ", max wait ms: " + String.format("%.2f", getMaxWaitMillis()) + //
+		    ", avg run ms: " + String.format("%.2f", getAverageRunMillis()) + //
+		    ", max run ms: " + String.format("%.2f", getMaxRunMillis());
+	}
+    }
+
+    /**
+     * A task which records its latencies and releases the caller permit when done
+     *
+     * @author boldrini
+     */
+    private static class TrackedTask<T> extends FutureTask<T> {
+
+	private final Statistics statistics;
+	private final Semaphore permits;
+	private final long created;
+	private final AtomicBoolean queued;
+	private volatile boolean submitted;
+
+	/**
+	 * @param callable
+	 * @param statistics
+	 * @param permits
+	 */
+	private TrackedTask(Callable<T> callable, Statistics statistics, Semaphore permits) {
+
+	    super(callable);
+
+	    this.statistics = statistics;
+	    this.permits = permits;
+	    this.created = System.nanoTime();
+	    this.queued = new AtomicBoolean(true);
+
+	    statistics.queued.incrementAndGet();
+	}
+
+	@Override
+	public void run() {
+
+	    if (isDone()) {
+		// cancelled before starting
+		return;
+	    }
+
+	    dequeue();
+
+	    long start = System.nanoTime();
+	    long wait = start - created;
+
+	    statistics.running.incrementAndGet();
+	    statistics.waitNanos.addAndGet(wait);
+	    statistics.maxWaitNanos.accumulateAndGet(wait, Math::max);
+
+	    try {
+
+		super.run();
+
+	    } finally {
+
+		long elapsed = System.nanoTime() - start;
+
+		statistics.running.decrementAndGet();
+		statistics.completed.incrementAndGet();
+		statistics.runNanos.addAndGet(elapsed);
+		statistics.maxRunNanos.accumulateAndGet(elapsed, Math::max);
+	    }
+	}
+
+	@Override
+	protected void done() {
+
+	    if (isCancelled()) {
+
+		statistics.cancelled.incrementAndGet();
+		dequeue();
+	    }
+
+	    if (submitted && permits != null) {
+		permits.release();
+	    }
+	}
+
+	/**
+	 * Removes this task from the queue depth of the caller, only once
+	 */
+	private void dequeue() {
+
+	    if (queued.compareAndSet(true, false)) {
+		statistics.queued.decrementAndGet();
+	    }
+	}
+    }
+
+    private SharedExecutor() {
+    }
+
+    /**
+     * Executes the given tasks and waits for their completion, like {@link java.util.concurrent.ExecutorService#invokeAll(
+     * Collection, long, TimeUnit)}.<br>
+     * At most <code>parallelism</code> tasks are run at the same time; if the timeout expires, the tasks not yet
+     * completed are cancelled and interrupted
+     *
+     * @param caller the name used to collect the statistics of the caller
+     * @param tasks
+     * @param parallelism the maximum number of tasks running at the same time
+     * @param timeout the timeout in milliseconds, 0 to wait with no limits
+     * @return the futures of the tasks, in the same order of the given collection; all the futures are done
+     * @throws InterruptedException if the caller is interrupted while waiting; in this case all the tasks are cancelled
+     */
+    public static <T> List<Future<T>> invokeAll(//
+	    String caller, //
+	    Collection<? extends Callable<T>> tasks, //
+	    int parallelism, //
+	    long timeout) throws InterruptedException {
+
+	Statistics statistics = getStatistics(caller);
+	Semaphore permits = new Semaphore(Math.max(1, parallelism));
+
+	long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+
+	List<TrackedTask<T>> futures = new ArrayList<>();
+
+	for (Callable<T> task : tasks) {
+
+	    futures.add(new TrackedTask<>(task, statistics, permits));
+	}
+
+	boolean completed = false;
+
+	try {
+
+	    for (TrackedTask<T> future : futures) {
+
+		if (timeout > 0) {
+
+		    if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+			return toFutures(futures);
+		    }
+
+		} else {
+
+		    permits.acquire();
+		}
+
+		future.submitted = true;
+		POOL.execute(future);
+	    }
+
+	    for (TrackedTask<T> future : futures) {
+
+		if (future.isDone()) {
+		    continue;
+		}
+
+		try {
+
+		    if (timeout > 0) {
+
+			future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+		    } else {
+
+			future.get();
+		    }
+
+		} catch (ExecutionException | CancellationException ex) {
+
+		    // reported by the future
+
+		} catch (TimeoutException ex) {
+
+		    return toFutures(futures);
+		}
+	    }
+
+	    completed = true;
+
+	    return toFutures(futures);
+
+	} finally {
+
+	    if (!completed) {
+
+		futures.forEach(future -> future.cancel(true));
+	    }
+	}
+    }
+
+    /**
+     * Submits a single task with no concurrency limits. If all the pooled threads are busy, the task is run by the
+     * calling thread before returning
+     *
+     * @param caller the name used to collect the statistics of the caller
+     * @param task
+     * @return
+     */
+    public static <T> Future<T> submit(String caller, Callable<T> task) {
+
+	TrackedTask<T> future = new TrackedTask<>(task, getStatistics(caller), null);
+
+	POOL.execute(future);
+
+	return future;
+    }
+
+    /**
+     * @return an unmodifiable view of the statistics of all the callers
+     */
+    public static Map<String, Statistics> getStatistics() {
+
+	return Collections.unmodifiableMap(STATISTICS);
+    }
+
+    /**
+     * @param caller
+     * @return
+     */
+    public static Statistics getStatistics(String caller) {
+
+	return STATISTICS.computeIfAbsent(caller, k -> new Statistics());
+    }
+
+    /**
+     * @return the number of threads of the pool
+     */
+    public static int getPoolSize() {
+
+	return POOL.getPoolSize();
+    }
+
+    /**
+     * @return the number of threads of the pool which are running a task
+     */
+    public static int getActiveThreads() {
+
+	return POOL.getActiveCount();
+    }
+
+    /**
+     * @return the number of tasks run by the submitting thread because all the pooled threads were busy
+     */
+    public static long getOverflows() {
+
+	return OVERFLOWS.get();
+    }
+
+    /**
+     * @param futures
+     * @return
+     */
+    private static <T> List<Future<T>> toFutures(List<TrackedTask<T>> futures) {
+
+	return new ArrayList<>(futures);
+    }
+}
@@ -25,13 +25,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
- * A parallel executor of a set of tasks, using the given number of threads at the same time.
+ * A parallel executor of a set of tasks, using the given number of threads at the same time.<br>
+ * Tasks are run by the {@link SharedExecutor} threads; the statistics are collected with the name of the class which
+ * created this executor, unless a different name is set with {@link #setName(String)}
  * <p>
  * Methods:
  * <ul>
@@ -50,6 +51,8 @@ public class TaskListExecutor<T> {
 
     private CountDownLatch cdl = null;
 
+    private String name;
+
     public List<Callable<T>> getTaskList() {
 	return taskList;
     }
@@ -72,6 +75,21 @@ public class TaskListExecutor<T> {
 	    threads = 1;
 	}
 	this.threads = threads;
+	this.name = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).getCallerClass().getSimpleName();
+    }
+
+    /**
+     * @return the name used to collect the {@link SharedExecutor} statistics
+     */
+    public String getName() {
+	return name;
+    }
+
+    /**
+     * @param name the name used to collect the {@link SharedExecutor} statistics
+     */
+    public void setName(String name) {
+	this.name = name;
     }
 
     /**
@@ -137,29 +155,18 @@ public class TaskListExecutor<T> {
 
 	int size = taskList.size();
 
-	ExecutorService executor = Executors.newFixedThreadPool(threads);
 	this.cdl = new CountDownLatch(size);
 	List<Future<T>> futures = null;
 
 	try {
-	    if (timeout == 0) {
 
-		futures = executor.invokeAll(taskList);
-
-	    } else {
-
-		futures = executor.invokeAll(taskList, timeout, TimeUnit.SECONDS);
-	    }
+	    futures = SharedExecutor.invokeAll(name, taskList, threads, TimeUnit.SECONDS.toMillis(timeout));
 
 	} catch (InterruptedException e1) {
 
 	    GSLoggerFactory.getLogger(getClass()).warn("Interrupted", e1);
 
 	    Thread.currentThread().interrupt();
-
-	} finally {
-
-	    executor.shutdown();
 	}
 
 	return futures;
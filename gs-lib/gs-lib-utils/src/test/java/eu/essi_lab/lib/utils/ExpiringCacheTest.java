@@ -0,0 +1,119 @@
+package eu.essi_lab.lib.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * @author boldrini
+ */
+public class ExpiringCacheTest {
+
+    @Test
+    public void testMaxSize() {
+
+	ExpiringCache<String> cache = new ExpiringCache<>();
+	cache.setMaxSize(3);
+
+	cache.put("a", "A");
+	cache.put("b", "B");
+	cache.put("c", "C");
+
+	// updating an entry does not evict the others and makes it the newest
+	cache.put("a", "A2");
+	assertEquals(3, cache.size());
+
+	cache.put("d", "D");
+
+	assertEquals(3, cache.size());
+	assertNull(cache.get("b"));
+	assertEquals("A2", cache.get("a"));
+	assertEquals("C", cache.get("c"));
+	assertEquals("D", cache.get("d"));
+
+	assertEquals(1, cache.getStatistics().getEvictions());
+	assertEquals(3, cache.getStatistics().getHits());
+	assertEquals(1, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    public void testMaxWeight() {
+
+	ExpiringCache<byte[]> cache = new ExpiringCache<>();
+	cache.setMaxWeight(1000L);
+
+	cache.put("a", new byte[400]);
+	cache.put("b", new byte[400]);
+	cache.put("c", new byte[400]);
+
+	assertNull(cache.get("a"));
+	assertEquals(2, cache.size());
+
+	// heavier than the whole budget
+	cache.put("d", new byte[2000]);
+	assertEquals(0, cache.size());
+	assertEquals(4, cache.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+
+	ExpiringCache<String> cache = new ExpiringCache<>();
+	cache.setDuration(100);
+
+	cache.put("a", "A");
+	assertEquals("A", cache.get("a"));
+
+	Thread.sleep(200);
+
+	cache.put("b", "B");
+
+	// expired entries are removed, also with no maximum size
+	assertNull(cache.get("a"));
+	assertEquals(1, cache.size());
+	assertEquals(1, cache.keySet().size());
+	assertEquals(1, cache.getStatistics().getExpirations());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+
+	ExpiringCache<Integer> cache = new ExpiringCache<>();
+	cache.setMaxSize(100);
+
+	ExecutorService executor = Executors.newFixedThreadPool(8);
+	List<Future<?>> futures = new ArrayList<>();
+
+	for (int t = 0; t < 8; t++) {
+
+	    final int thread = t;
+
+	    futures.add(executor.submit(() -> {
+
+		for (int i = 0; i < 10000; i++) {
+
+		    String key = String.valueOf((thread * 10000 + i) % 500);
+		    cache.put(key, i);
+		    cache.get(key);
+		}
+	    }));
+	}
+
+	for (Future<?> future : futures) {
+	    future.get();
+	}
+
+	executor.shutdown();
+
+	assertTrue(cache.size() <= 100);
+	assertEquals(80000, cache.getStatistics().getHits() + cache.getStatistics().getMisses());
+    }
+}
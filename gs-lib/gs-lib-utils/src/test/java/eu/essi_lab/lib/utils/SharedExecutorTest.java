@@ -0,0 +1,137 @@
+package eu.essi_lab.lib.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author boldrini
+ */
+public class SharedExecutorTest {
+
+    @Test
+    public void testParallelismAndOrder() throws Exception {
+
+	AtomicInteger running = new AtomicInteger();
+	AtomicInteger maxRunning = new AtomicInteger();
+
+	// the first tasks wait until the maximum number of tasks is running
+	CountDownLatch parallel = new CountDownLatch(3);
+
+	List<Callable<Integer>> tasks = new ArrayList<>();
+
+	for (int i = 0; i < 20; i++) {
+
+	    final int ret = i;
+
+	    tasks.add(() -> {
+
+		maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+		parallel.countDown();
+		parallel.await(10, TimeUnit.SECONDS);
+
+		running.decrementAndGet();
+
+		return ret;
+	    });
+	}
+
+	List<Future<Integer>> futures = SharedExecutor.invokeAll("parallelismTest", tasks, 3, 0);
+
+	assertEquals(20, futures.size());
+
+	for (int i = 0; i < futures.size(); i++) {
+
+	    assertEquals(Integer.valueOf(i), futures.get(i).get());
+	}
+
+	assertEquals(3, maxRunning.get());
+
+	SharedExecutor.Statistics statistics = SharedExecutor.getStatistics("parallelismTest");
+
+	assertEquals(20, statistics.getCompleted());
+	assertEquals(0, statistics.getQueueDepth());
+	assertEquals(0, statistics.getRunning());
+    }
+
+    @Test
+    public void testTimeoutInterruptsTasks() throws Exception {
+
+	CountDownLatch interrupted = new CountDownLatch(2);
+
+	List<Callable<Integer>> tasks = new ArrayList<>();
+
+	for (int i = 0; i < 4; i++) {
+
+	    tasks.add(() -> {
+
+		try {
+		    Thread.sleep(10000);
+		} catch (InterruptedException e) {
+		    interrupted.countDown();
+		    throw e;
+		}
+
+		return 1;
+	    });
+	}
+
+	List<Future<Integer>> futures = SharedExecutor.invokeAll("timeoutTest", tasks, 2, 500);
+
+	for (Future<Integer> future : futures) {
+
+	    // the invocation returns at the timeout, without waiting for the tasks to complete
+	    assertTrue(future.isCancelled());
+
+	    try {
+		future.get();
+		fail();
+	    } catch (CancellationException ce) {
+		// all will be cancellation exceptions in case of timeouts
+	    }
+	}
+
+	// the two running tasks are interrupted
+	assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+	SharedExecutor.Statistics statistics = SharedExecutor.getStatistics("timeoutTest");
+
+	assertEquals(4, statistics.getCancelled());
+	assertEquals(0, statistics.getQueueDepth());
+    }
+
+    @Test
+    public void testThreadsReuse() throws Exception {
+
+	List<Callable<String>> tasks = new ArrayList<>();
+
+	for (int i = 0; i < 4; i++) {
+
+	    tasks.add(() -> Thread.currentThread().getName());
+	}
+
+	SharedExecutor.invokeAll("reuseTest", tasks, 4, 0);
+
+	int poolSize = SharedExecutor.getPoolSize();
+
+	for (int i = 0; i < 10; i++) {
+
+	    SharedExecutor.invokeAll("reuseTest", tasks, 1, 0);
+	}
+
+	// sequential executions do not create new threads
+	assertTrue(SharedExecutor.getPoolSize() <= poolSize);
+    }
+}
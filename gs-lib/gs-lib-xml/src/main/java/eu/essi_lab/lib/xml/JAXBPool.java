@@ -0,0 +1,145 @@
+package eu.essi_lab.lib.xml;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+
+/**
+ * Per-thread pools of JAXB marshallers and unmarshallers, which are expensive to create but not thread safe.<br>
+ * Each pool is identified by a key which must include everything that configures its objects (context, properties,
+ * ...), since the pooled objects are never reconfigured. An object is {@link #lease(String, Factory) leased} to the
+ * calling thread and must be {@link Lease#close() returned} when done; nested leases on the same thread get a new
+ * object, so reentrant marshalling is safe
+ *
+ * @author Fabrizio
+ */
+public class JAXBPool {
+
+    /**
+     * @author Fabrizio
+     * @param <T>
+     */
+    @FunctionalInterface
+    public interface Factory<T> {
+
+	/**
+	 * @return
+	 * @throws JAXBException
+	 */
+	T create() throws JAXBException;
+    }
+
+    /**
+     * @author Fabrizio
+     * @param <T>
+     */
+    public static class Lease<T> implements AutoCloseable {
+
+	private final ThreadLocal<Object> idle;
+	private final T object;
+
+	/**
+	 * @param idle
+	 * @param object
+	 */
+	private Lease(ThreadLocal<Object> idle, T object) {
+
+	    this.idle = idle;
+	    this.object = object;
+	}
+
+	/**
+	 * @return
+	 */
+	public T get() {
+
+	    return object;
+	}
+
+	@Override
+	public void close() {
+
+	    idle.set(object);
+	}
+    }
+
+    private static final ConcurrentHashMap<String, ThreadLocal<Object>> POOLS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<>();
+
+    private JAXBPool() {
+    }
+
+    /**
+     * Leases the object of the pool with the given <code>key</code> idle in the current thread, or a new one created
+     * with the <code>factory</code>
+     *
+     * @param key
+     * @param factory
+     * @return
+     * @throws JAXBException
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Lease<T> lease(String key, Factory<T> factory) throws JAXBException {
+
+	ThreadLocal<Object> idle = POOLS.computeIfAbsent(key, k -> new ThreadLocal<>());
+
+	T object = (T) idle.get();
+
+	if (object == null) {
+
+	    object = factory.create();
+
+	} else {
+
+	    idle.remove();
+	}
+
+	return new Lease<>(idle, object);
+    }
+
+    /**
+     * Creates a new empty, namespace aware, document with a {@link DocumentBuilder} reused by the current thread
+     *
+     * @return
+     * @throws ParserConfigurationException
+     */
+    public static Document newDocument() throws ParserConfigurationException {
+
+	DocumentBuilder builder = DOCUMENT_BUILDER.get();
+
+	if (builder == null) {
+
+	    builder = XMLFactories.newDocumentBuilderFactory().newDocumentBuilder();
+
+	    DOCUMENT_BUILDER.set(builder);
+	}
+
+	return builder.newDocument();
+    }
+}
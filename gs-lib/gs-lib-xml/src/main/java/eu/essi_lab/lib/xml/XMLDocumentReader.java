@@ -54,22 +54,26 @@ public class XMLDocumentReader extends XMLNodeReader {
 
     private static boolean LOG = false;
 
-    protected static DocumentBuilder builder;
-
-    static {
+    /**
+     * {@link DocumentBuilder} is not thread-safe, so each thread parses with its own instance
+     */
+    private static final ThreadLocal<DocumentBuilder> THREAD_BUILDER = ThreadLocal.withInitial(() -> {
 	try {
-	    synchronized (LOCK) {
-		builder = XMLFactories.newDocumentBuilderFactory().newDocumentBuilder();
-	    }
-
+	    return XMLFactories.newDocumentBuilderFactory().newDocumentBuilder();
 	} catch (ParserConfigurationException e) {
-	    // Document builder factory instantiation error.. this should not happen!
-	    e.printStackTrace();
-	    GSLoggerFactory.getLogger(XMLDocumentReader.class).error("The default XML document builder could not be instantiated");
-	    System.err.println("Application will exit");
-	    // not possible to continue
-	    System.exit(1);
+	    throw new IllegalStateException(e);
 	}
+    });
+
+    /**
+     * @return the document builder of the calling thread, reset to its initial state
+     */
+    static DocumentBuilder getThreadBuilder() {
+
+	DocumentBuilder builder = THREAD_BUILDER.get();
+	builder.reset();
+
+	return builder;
     }
 
     /**
@@ -113,68 +117,54 @@ public class XMLDocumentReader extends XMLNodeReader {
 	}
 
 	String uuid = UUID.randomUUID().toString();
-	if (LOG)
-	    GSLoggerFactory.getLogger(getClass()).trace("XML_LOCK_WAIT {}", uuid);
-
-	synchronized (LOCK) {
-
-	    if (LOG)
-		GSLoggerFactory.getLogger(getClass()).trace("XML_LOCK_ENTERED {}", uuid);
-
-	    FileInputStream fis = null;
-	    UnicodeBOMInputStream ubis = null;
-	    InputStreamReader reader = null;
-	    final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
-	    try {
-		final Runnable actualTask = new Runnable() {
-		    int i = 0;
-
-		    @Override
-		    public void run() {
-			i++;
-			if (LOG)
-			    GSLoggerFactory.getLogger(getClass()).info("LOCK_LONG_WAIT in lock {}: {} seconds", uuid, (i * 10));
-			if (i >= 20) {
-			    GSLoggerFactory.getLogger(getClass()).info("LOCK_LONG_WAIT EXTREME in lock {}: {} seconds", uuid, (i * 10));
-			    executorService.shutdown();
-			    try {
-
-				GSLoggerFactory.getLogger(getClass()).warn("File {} opening too long", file.getAbsolutePath());
+	FileInputStream fis = null;
+	UnicodeBOMInputStream ubis = null;
+	InputStreamReader reader = null;
+	final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+	try {
+	    final Runnable actualTask = new Runnable() {
+		int i = 0;
+
+		@Override
+		public void run() {
+		    i++;
+		    if (LOG)
+			GSLoggerFactory.getLogger(getClass()).info("LOCK_LONG_WAIT in lock {}: {} seconds", uuid, (i * 10));
+		    if (i >= 20) {
+			GSLoggerFactory.getLogger(getClass()).info("LOCK_LONG_WAIT EXTREME in lock {}: {} seconds", uuid, (i * 10));
+			executorService.shutdown();
+			try {
+
+			    GSLoggerFactory.getLogger(getClass()).warn("File {} opening too long", file.getAbsolutePath());
 				
-			    } catch (Exception e) {
-				e.printStackTrace();
-				GSLoggerFactory.getLogger(getClass()).info("Error during dump in lock {} at: {}", uuid, e.getMessage());
-			    }
+			} catch (Exception e) {
+			    e.printStackTrace();
+			    GSLoggerFactory.getLogger(getClass()).info("Error during dump in lock {} at: {}", uuid, e.getMessage());
 			}
 		    }
-		};
-		executorService.scheduleAtFixedRate(actualTask, 10, 10, TimeUnit.SECONDS);
-
-		fis = new FileInputStream(file);
-		ubis = new UnicodeBOMInputStream(fis);
-		reader = new InputStreamReader(ubis, StandardCharsets.UTF_8);
-		InputSource source = new InputSource(reader);
-		ubis.skipBOM();
-		Document ret = builder.parse(source);
-		targetNode = ret;
-	    } catch (Exception e) {
-		GSLoggerFactory.getLogger(getClass()).error("Exception during XML parsing: " + e.getMessage());
-		throw e;
-	    } finally {
-		if (ubis != null)
-		    ubis.close();
-		if (reader != null)
-		    reader.close();
-		if (fis != null)
-		    fis.close();
-		executorService.shutdown();
-	    }
-
+		}
+	    };
+	    executorService.scheduleAtFixedRate(actualTask, 10, 10, TimeUnit.SECONDS);
+
+	    fis = new FileInputStream(file);
+	    ubis = new UnicodeBOMInputStream(fis);
+	    reader = new InputStreamReader(ubis, StandardCharsets.UTF_8);
+	    InputSource source = new InputSource(reader);
+	    ubis.skipBOM();
+	    Document ret = getThreadBuilder().parse(source);
+	    targetNode = ret;
+	} catch (Exception e) {
+	    GSLoggerFactory.getLogger(getClass()).error("Exception during XML parsing: " + e.getMessage());
+	    throw e;
+	} finally {
+	    if (ubis != null)
+		ubis.close();
+	    if (reader != null)
+		reader.close();
+	    if (fis != null)
+		fis.close();
+	    executorService.shutdown();
 	}
-
-	if (LOG)
-	    GSLoggerFactory.getLogger(getClass()).trace("XML_LOCK_RELEASED {}", uuid);
-
     }
 
     /**
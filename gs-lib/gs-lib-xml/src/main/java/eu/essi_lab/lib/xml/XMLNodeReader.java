@@ -35,7 +35,6 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import javax.xml.namespace.NamespaceContext;
-import javax.xml.parsers.FactoryConfigurationError;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
@@ -43,10 +42,7 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-import javax.xml.xpath.XPathFactoryConfigurationException;
 
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -60,16 +56,10 @@ import org.xml.sax.SAXException;
 public class XMLNodeReader {
 
     protected Node targetNode;
-    private XPath xpath;
+    private NamespaceContext namespaceContext;
 
-    private static XPathFactory factory;
     private static final TransformerFactory TRANSFORMER_FACTORY = XMLFactories.newTransformerFactory();
 
-    /**
-     * The lock object is needed, as the underlying library (Saxon-HE) is not multithread-safe
-     */
-    final protected static Object LOCK = new Object();
-
     /**
      * @return
      */
@@ -77,30 +67,6 @@ public class XMLNodeReader {
 	return (Node) targetNode;
     }
 
-    static {
-	try {
-	    synchronized (LOCK) {
-
-		factory = XMLFactories.newXPathFactory();
-	    }
-	} catch (XPathFactoryConfigurationException e) {
-	    // Saxon HE library not found.. this should not happen!
-	    e.printStackTrace();
-	    System.err.println("Saxon HE libraries not found in the classpath");
-	    System.err.println("Application will exit");
-	    // not possible to continue
-	    System.exit(1);
-	} catch (FactoryConfigurationError e) {
-	    // Factory instantiation error.. this should not happen!
-	    e.printStackTrace();
-	    System.err.println("The default XML document builder factory could not be instantiated");
-	    System.err.println("Application will exit");
-	    // not possible to continue
-	    System.exit(1);
-	}
-
-    }
-
     /*
      * CONSTRUCTOR
      */
@@ -115,13 +81,9 @@ public class XMLNodeReader {
     public XMLNodeReader(Node node) {
 
 	this.targetNode = node;
-	xpath = factory.newXPath();
     }
 
     protected XMLNodeReader() {
-	synchronized (LOCK) {
-	    xpath = factory.newXPath();
-	}
     }
 
     /*
@@ -162,9 +124,7 @@ public class XMLNodeReader {
      * Gets the namespace context used evaluating XPaths
      */
     public NamespaceContext getNamespaceContext() {
-	synchronized (LOCK) {
-	    return xpath.getNamespaceContext();
-	}
+	return namespaceContext;
     }
 
     /**
@@ -173,9 +133,7 @@ public class XMLNodeReader {
      * @param context
      */
     public void setNamespaceContext(NamespaceContext context) {
-	synchronized (LOCK) {
-	    xpath.setNamespaceContext(context);
-	}
+	this.namespaceContext = context;
     }
 
     /**
@@ -391,11 +349,7 @@ public class XMLNodeReader {
 	if (target != null) {
 	    item = target;
 	}
-	Object result;
-	synchronized (LOCK) {
-	    result = xpath.evaluate(xpathExpression, item, resultType.getResultType());
-	}
-	return result;
+	return XPathEngine.evaluate(xpathExpression, namespaceContext, item, resultType.getResultType());
     }
 
     /**
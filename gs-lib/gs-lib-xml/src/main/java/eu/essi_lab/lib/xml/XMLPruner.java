@@ -130,7 +130,7 @@ public class XMLPruner {
 	// replaces all the sequences of 2 or more \n\r spaces with a single one
 	docString = docString.replaceAll("[\r\n]+", "\n");
 
-	return XMLDocumentReader.builder.parse(new ByteArrayInputStream(docString.getBytes(StandardCharsets.UTF_8)));
+	return XMLDocumentReader.getThreadBuilder().parse(new ByteArrayInputStream(docString.getBytes(StandardCharsets.UTF_8)));
     }
 
     /**
@@ -0,0 +1,230 @@
+package eu.essi_lab.lib.xml;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.FactoryConfigurationError;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+
+/**
+ * Compiles and evaluates XPath expressions without a global lock.<br>
+ * <br>
+ * Compiled expressions are cached per thread, so that each {@link XPathExpression} is only used by the thread which
+ * compiled it. An expression is cached according to its string and to the namespace URIs that the given
+ * {@link NamespaceContext} binds to the prefixes used in the expression; this way readers which create a new
+ * namespace context instance for each document (a very common pattern) still hit the cache, while an expression
+ * evaluated with different bindings is compiled again.<br>
+ * <br>
+ * The underlying {@link XPathFactory} (and so the Saxon configuration) is shared by all the threads, while a new
+ * {@link XPath} is created for each compilation. Since {@link XPathFactory} is not thread-safe, the creation of the
+ * {@link XPath} is synchronized on the factory; it only happens when an expression is not cached
+ *
+ * @author boldrini
+ */
+public class XPathEngine {
+
+    /**
+     * Maximum number of distinct expressions cached by each thread
+     */
+    private static final int MAX_CACHED_EXPRESSIONS = 256;
+
+    /**
+     * Maximum number of distinct namespace bindings cached for a single expression
+     */
+    private static final int MAX_CACHED_BINDINGS = 8;
+
+    /**
+     * Matches the prefix of qualified names, excluding wildcards (*:name) and axis specifiers (child::name). A name
+     * which follows a single colon is a local name, while a name which follows an axis specifier can be prefixed
+     * (child::gmd:name)
+     */
+    private static final Pattern PREFIX_PATTERN = Pattern.compile("(?<![\\w.\\-*$])(?:(?<=::)|(?<!:))([A-Za-z_][\\w.\\-]*):(?=[A-Za-z_*])");
+
+    private static final ThreadLocal<Map<String, CachedExpression>> CACHE = ThreadLocal
+	    .withInitial(() -> new LinkedHashMap<String, CachedExpression>(64, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedExpression> eldest) {
+
+		    return size() > MAX_CACHED_EXPRESSIONS;
+		}
+	    });
+
+    private static XPathFactory factory;
+
+    static {
+	try {
+
+	    factory = XMLFactories.newXPathFactory();
+
+	} catch (XPathFactoryConfigurationException e) {
+	    // Saxon HE library not found.. this should not happen!
+	    e.printStackTrace();
+	    System.err.println("Saxon HE libraries not found in the classpath");
+	    System.err.println("Application will exit");
+	    // not possible to continue
+	    System.exit(1);
+	} catch (FactoryConfigurationError e) {
+	    // Factory instantiation error.. this should not happen!
+	    e.printStackTrace();
+	    System.err.println("The default XML document builder factory could not be instantiated");
+	    System.err.println("Application will exit");
+	    // not possible to continue
+	    System.exit(1);
+	}
+    }
+
+    /**
+     * @author boldrini
+     */
+    private static class CachedExpression {
+
+	private String[] prefixes;
+	private Map<List<String>, XPathExpression> compiled;
+
+	private CachedExpression(String expression) {
+
+	    ArrayList<String> list = new ArrayList<>();
+	    // the default namespace can be used by the implementation to resolve unprefixed names
+	    list.add("");
+
+	    Matcher matcher = PREFIX_PATTERN.matcher(expression);
+	    while (matcher.find()) {
+		String prefix = matcher.group(1);
+		if (!list.contains(prefix)) {
+		    list.add(prefix);
+		}
+	    }
+
+	    this.prefixes = list.toArray(new String[] {});
+	    this.compiled = new HashMap<>();
+	}
+
+	/**
+	 * @param context
+	 * @return
+	 */
+	private List<String> bindings(NamespaceContext context) {
+
+	    String[] uris = new String[prefixes.length];
+
+	    if (context != null) {
+		for (int i = 0; i < prefixes.length; i++) {
+		    uris[i] = context.getNamespaceURI(prefixes[i]);
+		}
+	    }
+
+	    return Arrays.asList(uris);
+	}
+    }
+
+    private XPathEngine() {
+    }
+
+    /**
+     * Returns a compiled version of <code>expression</code>, using <code>context</code> to resolve its prefixes.<br>
+     * The returned expression is confined to the calling thread and must not be shared with other threads
+     *
+     * @param expression
+     * @param context the namespace context, possibly <code>null</code>
+     * @return
+     * @throws XPathExpressionException if the expression cannot be compiled
+     */
+    public static XPathExpression compile(String expression, NamespaceContext context) throws XPathExpressionException {
+
+	if (expression == null) {
+	    throw new NullPointerException("XPath expression is null");
+	}
+
+	Map<String, CachedExpression> cache = CACHE.get();
+
+	CachedExpression cached = cache.get(expression);
+	if (cached == null) {
+	    cached = new CachedExpression(expression);
+	    cache.put(expression, cached);
+	}
+
+	List<String> bindings = cached.bindings(context);
+
+	XPathExpression compiled = cached.compiled.get(bindings);
+	if (compiled == null) {
+
+	    XPath xpath = null;
+	    synchronized (factory) {
+		xpath = factory.newXPath();
+	    }
+	    if (context != null) {
+		xpath.setNamespaceContext(context);
+	    }
+
+	    compiled = xpath.compile(expression);
+
+	    if (cached.compiled.size() >= MAX_CACHED_BINDINGS) {
+		cached.compiled.clear();
+	    }
+
+	    cached.compiled.put(bindings, compiled);
+	}
+
+	return compiled;
+    }
+
+    /**
+     * Evaluates <code>expression</code> on the given <code>item</code>
+     *
+     * @param expression
+     * @param context the namespace context, possibly <code>null</code>
+     * @param item
+     * @param returnType
+     * @return
+     * @throws XPathExpressionException if the expression cannot be compiled or evaluated
+     */
+    public static Object evaluate(String expression, NamespaceContext context, Object item, QName returnType)
+	    throws XPathExpressionException {
+
+	return compile(expression, context).evaluate(item, returnType);
+    }
+
+    /**
+     * Removes all the expressions cached by the calling thread
+     */
+    public static void clearThreadCache() {
+
+	CACHE.get().clear();
+    }
+}
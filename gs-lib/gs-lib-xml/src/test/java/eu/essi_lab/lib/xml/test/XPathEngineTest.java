@@ -0,0 +1,172 @@
+package eu.essi_lab.lib.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.xpath.XPathExpression;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import eu.essi_lab.lib.xml.XMLDocumentReader;
+import eu.essi_lab.lib.xml.XMLPruner;
+import eu.essi_lab.lib.xml.XPathEngine;
+
+/**
+ * Checks the compiled expressions cache and the concurrent compilation, evaluation and parsing, and reports the
+ * evaluation throughput with an increasing number of threads
+ *
+ * @author boldrini
+ */
+public class XPathEngineTest {
+
+    private static final String DOC = "<a:root xmlns:a=\"urn:a\" xmlns:b=\"urn:b\"><a:item>A</a:item><b:item>B</b:item></a:root>";
+
+    @Test
+    public void cacheTest() throws Exception {
+
+	HashMap<String, String> first = new HashMap<>();
+	first.put("x", "urn:a");
+
+	HashMap<String, String> second = new HashMap<>();
+	second.put("x", "urn:b");
+
+	XMLDocumentReader reader = new XMLDocumentReader(DOC);
+
+	reader.setNamespaces(first);
+	assertEquals("A", reader.evaluateString("//x:item"));
+
+	// same expression, different binding of the same prefix
+	reader.setNamespaces(second);
+	assertEquals("B", reader.evaluateString("//x:item"));
+
+	// a new map with the same bindings reuses the compiled expression
+	XMLDocumentReader other = new XMLDocumentReader(DOC);
+	other.setNamespaces(new HashMap<>(second));
+
+	XPathExpression expected = XPathEngine.compile("//x:item", reader.getNamespaceContext());
+	XPathExpression actual = XPathEngine.compile("//x:item", other.getNamespaceContext());
+	assertSame(expected, actual);
+
+	// wildcards and axis do not need bindings
+	assertEquals("AB", new XMLDocumentReader(DOC).evaluateString("string-join(//*:item/child::text(), '')"));
+
+	// the prefixes after an axis specifier are bound
+	reader.setNamespaces(first);
+	assertEquals("A", reader.evaluateString("/child::*/child::x:item"));
+
+	reader.setNamespaces(second);
+	assertEquals("B", reader.evaluateString("/child::*/child::x:item"));
+    }
+
+    @Test
+    public void throughputTest() throws Exception {
+
+	int cores = Runtime.getRuntime().availableProcessors();
+	int evaluations = 20000;
+
+	for (int threads = 1; threads <= cores; threads *= 2) {
+
+	    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+	    List<Callable<Integer>> tasks = new ArrayList<>();
+	    int perThread = evaluations / threads;
+
+	    for (int t = 0; t < threads; t++) {
+
+		tasks.add(() -> {
+
+		    XMLDocumentReader reader = new XMLDocumentReader(
+			    XPathEngineTest.class.getClassLoader().getResourceAsStream("test.xml"));
+
+		    int matches = 0;
+		    for (int i = 0; i < perThread; i++) {
+			if (reader.evaluateString("//*:location").equals("LBR:USU-LBR-Mendon")) {
+			    matches++;
+			}
+		    }
+		    return matches;
+		});
+	    }
+
+	    long start = System.nanoTime();
+
+	    int total = 0;
+	    for (Future<Integer> future : executor.invokeAll(tasks)) {
+		total += future.get();
+	    }
+
+	    long elapsed = System.nanoTime() - start;
+	    executor.shutdown();
+
+	    assertEquals(perThread * threads, total);
+
+	    System.out.println("Threads: " + threads + ", evaluations/s: " + (long) (total / (elapsed / 1_000_000_000.0)));
+	}
+    }
+
+    @Test
+    public void concurrencyTest() throws Exception {
+
+	int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+	ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+	List<Callable<Integer>> tasks = new ArrayList<>();
+
+	for (int t = 0; t < threads; t++) {
+
+	    // half of the threads bind the prefix to the first namespace, the others to the second one
+	    String uri = t % 2 == 0 ? "urn:a" : "urn:b";
+	    String expected = t % 2 == 0 ? "A" : "B";
+
+	    tasks.add(() -> {
+
+		HashMap<String, String> namespaces = new HashMap<>();
+		namespaces.put("x", uri);
+		namespaces.put("a", "urn:a");
+
+		XMLPruner pruner = new XMLPruner(Arrays.asList("a:item"), null);
+
+		int matches = 0;
+
+		for (int i = 0; i < 200; i++) {
+
+		    // each iteration compiles a new expression, so the XPath creation is exercised concurrently
+		    XMLDocumentReader reader = new XMLDocumentReader(DOC);
+		    reader.setNamespaces(namespaces);
+
+		    if (reader.evaluateString("//x:item[" + (i % 50 + 1) + " > 0]").equals(expected)) {
+			matches++;
+		    }
+
+		    pruner.setContext(reader.getNamespaceContext());
+
+		    Document pruned = pruner.prune(reader.getDocument());
+
+		    assertEquals(1, pruned.getDocumentElement().getChildNodes().getLength());
+		}
+
+		return matches;
+	    });
+	}
+
+	int total = 0;
+	for (Future<Integer> future : executor.invokeAll(tasks)) {
+	    total += future.get();
+	}
+
+	executor.shutdown();
+
+	assertEquals(threads * 200, total);
+    }
+}
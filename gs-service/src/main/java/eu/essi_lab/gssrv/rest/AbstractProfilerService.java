@@ -33,9 +33,7 @@ import javax.ws.rs.core.UriInfo;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.json.JSONObject;
 
-import eu.essi_lab.cfga.Configurable;
-import eu.essi_lab.cfga.gs.ConfigurationWrapper;
-import eu.essi_lab.cfga.gs.setting.ProfilerSetting;
+import eu.essi_lab.gssrv.rest.ProfilerRoutingTable.Route;
 import eu.essi_lab.lib.utils.Chronometer.TimeFormat;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.messages.web.WebRequest;
@@ -74,7 +72,7 @@ public abstract class AbstractProfilerService {
 	Optional<Profiler> optProfiler = Optional.empty();
 	Response response = null;
 
-	WebRequest webRequest = new WebRequest(Thread.currentThread().getName());
+	WebRequest webRequest = createWebRequest(httpServletRequest);
 
 	webRequest.setUriInfo(uriInfo);
 
@@ -95,17 +93,13 @@ public abstract class AbstractProfilerService {
 
 	if (ex == null) {
 
-	    Optional<ProfilerSetting> profilerSetting = ConfigurationWrapper.//
-		    getProfilerSettings().//
-		    stream().//
-		    filter(strategy::accept).//
-		    findFirst();
+	    Optional<Route> route = ProfilerRoutingTable.getInstance().select(strategy);
 
-	    if (profilerSetting.isPresent()) {
+	    if (route.isPresent()) {
 
 		try {
-		    
-		    optProfiler = Optional.of(profilerSetting.get().createConfigurable());
+
+		    optProfiler = Optional.of(route.get().getProfiler());
 
 		} catch (Exception e) {
 
@@ -140,13 +134,7 @@ public abstract class AbstractProfilerService {
 		try {
 
 		    //
-		    // configures the profiler
-		    //
-
-		    profiler.configure(profilerSetting.get());
-
-		    //
-		    // handles the request
+		    // handles the request with the profiler configured by the route
 		    //
 
 		    response = profiler.handle(webRequest);
@@ -203,4 +191,23 @@ public abstract class AbstractProfilerService {
 
 	return response;
     }
+
+    /**
+     * Returns the {@link WebRequest} created by the servlet filters for the given <code>httpServletRequest</code>, if
+     * any, otherwise a new one
+     *
+     * @param httpServletRequest
+     * @return
+     */
+    private WebRequest createWebRequest(HttpServletRequest httpServletRequest) {
+
+	Object attribute = httpServletRequest.getAttribute(WebRequest.HTTP_SERVLET_REQUEST_WEB_REQUEST_ATTRIBUTE);
+
+	if (attribute instanceof WebRequest) {
+
+	    return (WebRequest) attribute;
+	}
+
+	return new WebRequest(Thread.currentThread().getName());
+    }
 }
@@ -21,6 +21,8 @@ package eu.essi_lab.gssrv.rest;
  * #L%
  */
 
+import java.util.Optional;
+
 import javax.jws.WebService;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.DELETE;
@@ -64,6 +66,12 @@ public class ESSIProfilerService extends AbstractProfilerService {
 
 	    return profilerPath.equals(requestPath);
 	}
+
+	@Override
+	public Optional<String> getServicePath() {
+
+	    return Optional.of(requestPath);
+	}
     }
 
     /*
@@ -52,10 +52,17 @@ public class EXTProfilerService extends AbstractProfilerService {
 	}
 
 	@Override
+	@SuppressWarnings("rawtypes")
 	public boolean accept(ProfilerSetting setting) {
 
-	    @SuppressWarnings("rawtypes")
-	    Profiler profiler = (Profiler) setting.createConfigurableOrNull();
+	    return accept(setting, (Profiler) setting.createConfigurableOrNull());
+	}
+
+	/**
+	 * Uses the profiler of the routing table, instead of creating a new one for each setting
+	 */
+	@Override
+	public boolean accept(ProfilerSetting setting, @SuppressWarnings("rawtypes") Profiler profiler) {
 
 	    if (profiler != null) {
 
@@ -0,0 +1,213 @@
+package eu.essi_lab.gssrv.rest;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import eu.essi_lab.cfga.ConfigurationSnapshot;
+import eu.essi_lab.cfga.gs.ConfigurationWrapper;
+import eu.essi_lab.cfga.gs.setting.ProfilerSetting;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.pdk.Profiler;
+
+/**
+ * An immutable table which routes the requests to the {@link Profiler}s, built from the profiler settings of the
+ * configuration. The current table is an index of the configuration snapshot (see
+ * {@link ConfigurationSnapshot#getIndex(String, java.util.function.Function)}), so it is built once per configuration
+ * change and the profiler settings are not cloned and filtered for each request.<br>
+ * <br>
+ * Each {@link Route} creates the profiler instances without the service loader lookup, and reuses a single configured
+ * instance if the profiler is stateless (see {@link Profiler#isStateless()}).<br>
+ * The settings of the table are shared by all the requests and must not be modified
+ * 
+ * @author Fabrizio
+ */
+public class ProfilerRoutingTable {
+
+    /**
+     * @author Fabrizio
+     */
+    public static class Route {
+
+	private final ProfilerSetting setting;
+	@SuppressWarnings("rawtypes")
+	private final Profiler profiler;
+
+	/**
+	 * @param setting
+	 */
+	@SuppressWarnings("rawtypes")
+	private Route(ProfilerSetting setting) {
+
+	    this.setting = setting;
+	    this.profiler = (Profiler) setting.createConfigurableOrNull();
+
+	    if (profiler != null) {
+
+		configure(profiler);
+	    }
+	}
+
+	/**
+	 * @return
+	 */
+	public ProfilerSetting getSetting() {
+
+	    return setting;
+	}
+
+	/**
+	 * Returns the profiler which handles the requests of this route; the instance is shared if the profiler is
+	 * stateless, otherwise a new configured instance is created
+	 * 
+	 * @return
+	 * @throws Exception if the profiler cannot be created
+	 */
+	@SuppressWarnings("rawtypes")
+	public Profiler getProfiler() throws Exception {
+
+	    if (profiler == null) {
+
+		// throws the creation error
+		return configure((Profiler) setting.createConfigurable());
+	    }
+
+	    if (profiler.isStateless()) {
+
+		return profiler;
+	    }
+
+	    return configure(profiler.getClass().getDeclaredConstructor().newInstance());
+	}
+
+	/**
+	 * @param profiler
+	 * @return
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private Profiler configure(Profiler profiler) {
+
+	    profiler.configure(setting);
+
+	    return profiler;
+	}
+
+	/**
+	 * @return the profiler of this route, created when the table has been built, or <code>null</code> if it cannot
+	 *         be created
+	 */
+	@SuppressWarnings("rawtypes")
+	Profiler getPrototype() {
+
+	    return profiler;
+	}
+    }
+
+    private final List<Route> routes;
+    private final Map<String, Route> pathRoutes;
+
+    /**
+     * @param settings
+     */
+    public ProfilerRoutingTable(List<ProfilerSetting> settings) {
+
+	List<Route> routes = new ArrayList<>();
+	Map<String, Route> pathRoutes = new HashMap<>();
+
+	for (ProfilerSetting setting : settings) {
+
+	    Route route = new Route(setting);
+
+	    routes.add(route);
+
+	    // as with the linear search, the first setting with a given path wins
+	    pathRoutes.putIfAbsent(setting.getServicePath(), route);
+	}
+
+	this.routes = Collections.unmodifiableList(routes);
+	this.pathRoutes = Collections.unmodifiableMap(pathRoutes);
+    }
+
+    /**
+     * @return the table of the current configuration
+     */
+    public static ProfilerRoutingTable getInstance() {
+
+	return ConfigurationWrapper.getConfiguration().get().getSnapshot().getIndex(ProfilerRoutingTable.class.getName(), snapshot -> {
+
+	    GSLoggerFactory.getLogger(ProfilerRoutingTable.class).info("Building profiler routing table");
+
+	    return new ProfilerRoutingTable(snapshot.list(ProfilerSetting.class, false));
+	});
+    }
+
+    /**
+     * Selects the first route accepted by the given <code>filter</code>
+     * 
+     * @param filter
+     * @return
+     */
+    public Optional<Route> select(ProfilerSettingFilter filter) {
+
+	Optional<String> servicePath = filter.getServicePath();
+
+	if (servicePath.isPresent()) {
+
+	    return Optional.ofNullable(pathRoutes.get(servicePath.get()));
+	}
+
+	return routes.stream().//
+		filter(route -> filter.accept(route.getSetting(), route.getPrototype())).//
+		findFirst();
+    }
+
+    /**
+     * Selects the first route whose service path is contained in the given <code>pathInfo</code>
+     * 
+     * @param pathInfo the path info of a servlet request, e.g: /essi/oaipmh
+     * @return
+     */
+    public Optional<Route> select(String pathInfo) {
+
+	if (pathInfo == null) {
+
+	    return Optional.empty();
+	}
+
+	return routes.stream().//
+		filter(route -> pathInfo.contains(route.getSetting().getServicePath())).//
+		findFirst();
+    }
+
+    /**
+     * @return
+     */
+    public List<Route> getRoutes() {
+
+	return routes;
+    }
+}
@@ -23,6 +23,8 @@ import eu.essi_lab.cfga.gs.setting.ProfilerSetting;
  * #L%
  */
 
+import java.util.Optional;
+
 import eu.essi_lab.messages.web.WebRequest;
 import eu.essi_lab.pdk.Profiler;
 
@@ -41,4 +43,29 @@ public interface ProfilerSettingFilter {
      * @return
      */
     public boolean accept(ProfilerSetting setting);
+
+    /**
+     * Tests whether or not the given <code>profiler</code>, configured with the specified <code>setting</code>, can
+     * handle a given {@link WebRequest}. Default implementation tests only the <code>setting</code>
+     * 
+     * @param setting
+     * @param profiler the profiler of the {@link ProfilerRoutingTable}, or <code>null</code> if it cannot be created
+     * @return
+     */
+    public default boolean accept(ProfilerSetting setting, @SuppressWarnings("rawtypes") Profiler profiler) {
+
+	return accept(setting);
+    }
+
+    /**
+     * Returns the path of the {@link Profiler} accepted by this filter, if only the setting with such path can be
+     * accepted; in such case the setting is selected with a lookup of the {@link ProfilerRoutingTable} instead of
+     * testing all the settings. Default implementation returns an empty optional
+     * 
+     * @return
+     */
+    public default Optional<String> getServicePath() {
+
+	return Optional.empty();
+    }
 }
@@ -33,8 +33,8 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import eu.essi_lab.cfga.gs.ConfigurationWrapper;
-import eu.essi_lab.cfga.gs.setting.ProfilerSetting;
+import eu.essi_lab.gssrv.rest.ProfilerRoutingTable;
+import eu.essi_lab.gssrv.rest.ProfilerRoutingTable.Route;
 
 /**
  * A filter which blocks the request and returns a 404 error code in case the request path owns to a offline profiler
@@ -51,11 +51,9 @@ public class ProfilerServiceFilter implements Filter {
 	HttpServletRequest httpRequest = (HttpServletRequest) request;
 	String pathInfo = httpRequest.getPathInfo(); // e.g: /essi/oaipmh
 
-	boolean isProfilerPath = ConfigurationWrapper.getProfilerSettings().//
-		stream().//
-		anyMatch(s -> pathInfo!= null && pathInfo.contains(s.getServicePath()));
+	Optional<Route> route = ProfilerRoutingTable.getInstance().select(pathInfo);
 
-	if (isProfilerPath && isOffline(pathInfo)) {
+	if (route.isPresent() && !route.get().getSetting().isOnline()) {
 
 	    HttpServletResponse httpResponse = (HttpServletResponse) response;
 	    httpResponse.setStatus(404);
@@ -67,20 +65,6 @@ public class ProfilerServiceFilter implements Filter {
 	}
     }
 
-    /**
-     * @param pathInfo
-     * @return
-     */
-    private boolean isOffline(String pathInfo) {
-
-	Optional<ProfilerSetting> setting = ConfigurationWrapper.getProfilerSettings().//
-		stream().//
-		filter(c -> pathInfo.contains(c.getServicePath())).//
-		findFirst();
-
-	return (setting.isPresent() && !setting.get().isOnline());
-    }
-
     public void destroy() {
     }
 }
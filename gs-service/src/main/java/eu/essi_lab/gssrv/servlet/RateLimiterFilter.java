@@ -140,6 +140,9 @@ public class RateLimiterFilter implements Filter {
 	// parameter MUST be false to avoid consuming the stream
 	WebRequest webRequest = new WebRequest((HttpServletRequest) servletRequest, false, requestId);
 
+	// reused by the profiler services
+	servletRequest.setAttribute(WebRequest.HTTP_SERVLET_REQUEST_WEB_REQUEST_ATTRIBUTE, webRequest);
+
 	String requestPath = webRequest.getRequestPath();
 	String address = webRequest.getRemoteAddress();
 
@@ -35,6 +35,7 @@ import javax.xml.bind.JAXBException;
 import org.quartz.SchedulerException;
 
 import eu.essi_lab.access.availability.AvailabilityMonitor;
+import eu.essi_lab.api.database.CountResultsCache;
 import eu.essi_lab.api.database.cfg.DatabaseSource;
 import eu.essi_lab.api.database.cfg.DatabaseSourceUrl;
 import eu.essi_lab.augmenter.worker.AugmentationReportsHandler;
@@ -75,9 +76,12 @@ import eu.essi_lab.model.exceptions.GSException;
 import eu.essi_lab.model.resource.Dataset;
 import eu.essi_lab.profiler.esri.feature.FeatureLayer1StationsArctic;
 import eu.essi_lab.profiler.esri.feature.query.CachedCollections;
+import eu.essi_lab.profiler.openmetrics.OpenMetricsCollector;
 import eu.essi_lab.profiler.wms.extent.WMSLayer;
 import eu.essi_lab.profiler.wms.extent.map.WMSGetMapHandler;
 import eu.essi_lab.request.executor.schedule.DownloadReportsHandler;
+import eu.essi_lab.shared.driver.ContentTable;
+import eu.essi_lab.shared.driver.LocalCacheDriver;
 import eu.essi_lab.shared.driver.es.stats.ElasticsearchInfoPublisher;
 
 /**
@@ -748,6 +752,8 @@ public class GIPStarter {
     private void initCaches() {
 	AvailabilityMonitor.getInstance();
 
+	initCacheMetrics();
+
 	// init caches, but only for specific production nodes
 	ExecutionMode executionMode = ExecutionMode.get();
 	switch (executionMode) {
@@ -774,6 +780,36 @@ public class GIPStarter {
 	}
     }
 
+    /**
+     * Publishes the metrics of the local cache and of the count cache with the OpenMetrics of the views
+     */
+    private void initCacheMetrics() {
+
+	ContentTable table = LocalCacheDriver.getContentTable();
+
+	OpenMetricsCollector.registerGauge("local_cache_hit_rate", "Ratio of the local cache reads which found a content",
+		table::getHitRate);
+
+	OpenMetricsCollector.registerGauge("local_cache_contents", "Number of contents of the local cache", () -> table.size());
+
+	OpenMetricsCollector.registerGauge("local_cache_weight_bytes", "Estimated size of the local cache contents",
+		table::getWeight);
+
+	OpenMetricsCollector.registerCounter("local_cache_evictions_total", "Number of contents evicted from the local cache",
+		table::getEvictions);
+
+	CountResultsCache countCache = CountResultsCache.getInstance();
+
+	OpenMetricsCollector.registerCounter("count_cache_hits_total", "Number of database counts read from the count cache",
+		countCache::getHits);
+
+	OpenMetricsCollector.registerCounter("count_cache_misses_total", "Number of database counts not found in the count cache",
+		countCache::getMisses);
+
+	OpenMetricsCollector.registerCounter("count_cache_invalidations_total",
+		"Number of count cache entries discarded because the resources changed", countCache::getInvalidations);
+    }
+
     /**
      * @throws GSException
      */
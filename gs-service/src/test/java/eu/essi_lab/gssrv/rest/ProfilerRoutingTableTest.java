@@ -0,0 +1,250 @@
+package eu.essi_lab.gssrv.rest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.cfga.Configuration;
+import eu.essi_lab.cfga.gs.setting.ProfilerSetting;
+import eu.essi_lab.gssrv.rest.ProfilerRoutingTable.Route;
+import eu.essi_lab.pdk.Profiler;
+import eu.essi_lab.profiler.oaipmh.KMAOAIPMHProfiler;
+import eu.essi_lab.profiler.oaipmh.KMAOAIPMHProfilerSetting;
+import eu.essi_lab.profiler.oaipmh.OAIPMHProfiler;
+import eu.essi_lab.profiler.oaipmh.OAIPMHProfilerSetting;
+import eu.essi_lab.profiler.os.OSProfiler;
+import eu.essi_lab.profiler.os.OSProfilerSetting;
+
+/**
+ * @author Fabrizio
+ */
+public class ProfilerRoutingTableTest {
+
+    /**
+     * The number of dispatched requests of the benchmark can be set with the <code>routing.benchmarkRequests</code>
+     * property, e.g. -Drouting.benchmarkRequests=100000
+     */
+    private static final int BENCHMARK_REQUESTS = Integer.getInteger("routing.benchmarkRequests", 2000);
+
+    @Test
+    public void pathTest() {
+
+	ProfilerRoutingTable table = new ProfilerRoutingTable(createSettings(0));
+
+	Assert.assertEquals("oaipmh", table.select(pathFilter("oaipmh")).get().getSetting().getServicePath());
+	Assert.assertEquals("kmaoaipmh", table.select(pathFilter("kmaoaipmh")).get().getSetting().getServicePath());
+	Assert.assertEquals("opensearch", table.select(pathFilter("opensearch")).get().getSetting().getServicePath());
+
+	Assert.assertFalse(table.select(pathFilter("csw")).isPresent());
+
+	//
+	// filters without path test all the settings
+	//
+
+	Optional<Route> route = table.select(setting -> setting.getServicePath().startsWith("kma"));
+
+	Assert.assertEquals("kmaoaipmh", route.get().getSetting().getServicePath());
+
+	//
+	// path info of the servlet requests
+	//
+
+	Assert.assertEquals("opensearch", table.select("/essi/opensearch").get().getSetting().getServicePath());
+	Assert.assertFalse(table.select("/essi/csw").isPresent());
+	Assert.assertFalse(table.select((String) null).isPresent());
+    }
+
+    @Test
+    public void duplicatePathTest() {
+
+	OAIPMHProfilerSetting first = new OAIPMHProfilerSetting();
+	first.setServiceName("first");
+
+	OAIPMHProfilerSetting second = new OAIPMHProfilerSetting();
+	second.setServiceName("second");
+
+	ProfilerRoutingTable table = new ProfilerRoutingTable(Arrays.asList(first, second));
+
+	// as with the linear search, the first setting wins
+	Assert.assertEquals("first", table.select(pathFilter("oaipmh")).get().getSetting().getServiceName());
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void reuseTest() throws Exception {
+
+	ProfilerRoutingTable table = new ProfilerRoutingTable(createSettings(0));
+
+	//
+	// stateless profilers are reused
+	//
+
+	Route route = table.select(pathFilter("oaipmh")).get();
+
+	Profiler profiler = route.getProfiler();
+
+	Assert.assertEquals(OAIPMHProfiler.class, profiler.getClass());
+	Assert.assertSame(profiler, route.getProfiler());
+	Assert.assertSame(route.getSetting(), profiler.getSetting());
+
+	Assert.assertEquals(KMAOAIPMHProfiler.class, table.select(pathFilter("kmaoaipmh")).get().getProfiler().getClass());
+
+	//
+	// the other profilers are created for each request
+	//
+
+	route = table.select(pathFilter("opensearch")).get();
+
+	profiler = route.getProfiler();
+
+	Assert.assertEquals(OSProfiler.class, profiler.getClass());
+	Assert.assertNotSame(profiler, route.getProfiler());
+	Assert.assertSame(route.getSetting(), profiler.getSetting());
+    }
+
+    @Test
+    public void creationErrorTest() {
+
+	ProfilerSetting setting = new ProfilerSetting();
+	setting.setServicePath("missing");
+	setting.setServiceType("Missing");
+
+	ProfilerRoutingTable table = new ProfilerRoutingTable(Arrays.asList(setting));
+
+	Route route = table.select(pathFilter("missing")).get();
+
+	try {
+	    route.getProfiler();
+
+	    Assert.fail("Exception not thrown");
+
+	} catch (Exception ex) {
+	}
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void benchmarkTest() throws Exception {
+
+	List<ProfilerSetting> settings = createSettings(30);
+
+	Configuration configuration = new Configuration();
+	settings.forEach(configuration::put);
+
+	ProfilerSettingFilter filter = pathFilter("opensearch");
+
+	//
+	// previous dispatch: settings cloned and filtered, profiler created with the service loader and configured
+	//
+
+	long start = System.nanoTime();
+
+	for (int i = 0; i < BENCHMARK_REQUESTS; i++) {
+
+	    ProfilerSetting setting = configuration.list(ProfilerSetting.class, false).//
+		    stream().//
+		    filter(filter::accept).//
+		    findFirst().//
+		    get();
+
+	    Profiler profiler = setting.createConfigurable();
+	    configure(profiler, setting);
+	}
+
+	long previous = System.nanoTime() - start;
+
+	//
+	// routing table dispatch
+	//
+
+	ProfilerRoutingTable table = new ProfilerRoutingTable(configuration.list(ProfilerSetting.class, false));
+
+	start = System.nanoTime();
+
+	for (int i = 0; i < BENCHMARK_REQUESTS; i++) {
+
+	    table.select(filter).get().getProfiler();
+	}
+
+	long routed = System.nanoTime() - start;
+
+	//
+	// routing table dispatch to a stateless profiler
+	//
+
+	filter = pathFilter("oaipmh");
+
+	start = System.nanoTime();
+
+	for (int i = 0; i < BENCHMARK_REQUESTS; i++) {
+
+	    table.select(filter).get().getProfiler();
+	}
+
+	long reused = System.nanoTime() - start;
+
+	System.out.println("Profiler settings: " + settings.size() + ", requests: " + BENCHMARK_REQUESTS);
+	System.out.println("Previous dispatch: " + previous / BENCHMARK_REQUESTS / 1000 + " us/request");
+	System.out.println("Routing table dispatch: " + routed / BENCHMARK_REQUESTS / 1000 + " us/request");
+	System.out.println("Routing table dispatch with reused profiler: " + reused / BENCHMARK_REQUESTS / 1000 + " us/request");
+    }
+
+    /**
+     * @param profiler
+     * @param setting
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void configure(Profiler profiler, ProfilerSetting setting) {
+
+	profiler.configure(setting);
+    }
+
+    /**
+     * @param others the number of additional OAI-PMH settings with different paths
+     * @return
+     */
+    private List<ProfilerSetting> createSettings(int others) {
+
+	List<ProfilerSetting> settings = new ArrayList<>();
+
+	for (int i = 0; i < others; i++) {
+
+	    OAIPMHProfilerSetting setting = new OAIPMHProfilerSetting();
+	    setting.setServicePath("oaipmh" + i);
+
+	    settings.add(setting);
+	}
+
+	settings.add(new OAIPMHProfilerSetting());
+	settings.add(new KMAOAIPMHProfilerSetting());
+	settings.add(new OSProfilerSetting());
+
+	return settings;
+    }
+
+    /**
+     * @param path
+     * @return a filter like the one of the {@link ESSIProfilerService}
+     */
+    private ProfilerSettingFilter pathFilter(String path) {
+
+	return new ProfilerSettingFilter() {
+
+	    @Override
+	    public boolean accept(ProfilerSetting setting) {
+
+		return setting.getServicePath().equals(path);
+	    }
+
+	    @Override
+	    public Optional<String> getServicePath() {
+
+		return Optional.of(path);
+	    }
+	};
+    }
+}
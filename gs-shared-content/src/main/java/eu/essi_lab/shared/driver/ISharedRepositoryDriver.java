@@ -21,7 +21,9 @@ package eu.essi_lab.shared.driver;
  * #L%
  */
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import eu.essi_lab.cfga.Configurable;
 import eu.essi_lab.cfga.gs.setting.driver.DriverSetting;
@@ -54,6 +56,50 @@ public interface ISharedRepositoryDriver<T extends DriverSetting> extends Config
     @SuppressWarnings("rawtypes")
     void store(SharedContent sharedContent) throws GSException;
 
+    /**
+     * Reads the {@link SharedContent}s with the given identifiers and of the provided type. The returned map is
+     * keyed by identifier, in the order of the <code>identifiers</code>; identifiers with no element are missing.<br>
+     * This default implementation reads the elements one by one
+     *
+     * @param identifiers
+     * @param type
+     * @return
+     * @throws GSException
+     */
+    @SuppressWarnings("rawtypes")
+    default Map<String, SharedContent> read(List<String> identifiers, SharedContentType type) throws GSException {
+
+	Map<String, SharedContent> out = new LinkedHashMap<>();
+
+	for (String identifier : identifiers) {
+
+	    SharedContent content = read(identifier, type);
+
+	    if (content != null) {
+
+		out.put(identifier, content);
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * Stores the given {@link SharedContent}s.<br>
+     * This default implementation stores the elements one by one
+     *
+     * @param sharedContents
+     * @throws GSException
+     */
+    @SuppressWarnings("rawtypes")
+    default void store(List<SharedContent> sharedContents) throws GSException {
+
+	for (SharedContent sharedContent : sharedContents) {
+
+	    store(sharedContent);
+	}
+    }
+
     Long count(SharedContentType type) throws GSException;
     
     SharedContentCategory getCategory();
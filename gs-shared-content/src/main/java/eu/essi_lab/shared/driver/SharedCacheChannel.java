@@ -0,0 +1,370 @@
+package eu.essi_lab.shared.driver;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.essi_lab.cfga.Configuration;
+import eu.essi_lab.cfga.gs.ConfigurationWrapper;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.shared.SharedContent;
+import eu.essi_lab.model.shared.SharedContent.SharedContentType;
+
+/**
+ * Write-behind channel to the configured shared cache.<br>
+ * The stored contents are queued and written in batches by a background thread, so the caller does not wait for the
+ * cache I/O. The queue is bounded: when it is full the new contents are dropped, since the cache can always be
+ * repopulated by the sources.<br>
+ * Contents which are queued but not yet written are returned by {@link #read(List, SharedContentType)}, so a content
+ * can be read right after it is stored.<br>
+ * The cache driver is resolved once, and again only when the configuration changes or it is replaced
+ *
+ * @author Fabrizio
+ */
+public class SharedCacheChannel {
+
+    /**
+     * System property which sets the maximum number of queued contents
+     */
+    public static final String QUEUE_CAPACITY_PROPERTY = "sharedCacheChannel.queueCapacity";
+
+    /**
+     * System property which sets the maximum number of contents written with a single driver call
+     */
+    public static final String BATCH_SIZE_PROPERTY = "sharedCacheChannel.batchSize";
+
+    /**
+     * Default maximum number of queued contents
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    /**
+     * Default maximum number of contents written with a single driver call
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final long FLUSH_WAIT = 10;
+
+    private static SharedCacheChannel instance;
+
+    @SuppressWarnings("rawtypes")
+    private final LinkedBlockingQueue<SharedContent> queue;
+    @SuppressWarnings("rawtypes")
+    private final ConcurrentHashMap<String, SharedContent> pending;
+    private final int batchSize;
+
+    private final AtomicLong stored;
+    private final AtomicLong dropped;
+    private final AtomicLong failed;
+
+    @SuppressWarnings("rawtypes")
+    private volatile ISharedRepositoryDriver driver;
+    private volatile Configuration listenedConfiguration;
+
+    /**
+     * @return
+     */
+    public static synchronized SharedCacheChannel get() {
+
+	if (instance == null) {
+
+	    instance = new SharedCacheChannel(//
+		    Integer.getInteger(QUEUE_CAPACITY_PROPERTY, DEFAULT_QUEUE_CAPACITY), //
+		    Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+	}
+
+	return instance;
+    }
+
+    /**
+     * @param queueCapacity
+     * @param batchSize
+     */
+    protected SharedCacheChannel(int queueCapacity, int batchSize) {
+
+	this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+	this.pending = new ConcurrentHashMap<>();
+	this.batchSize = Math.max(1, batchSize);
+
+	this.stored = new AtomicLong();
+	this.dropped = new AtomicLong();
+	this.failed = new AtomicLong();
+
+	Thread writer = new Thread(this::write, "shared-cache-channel");
+	writer.setDaemon(true);
+	writer.start();
+    }
+
+    /**
+     * Queues the given <code>contents</code> to be written to the shared cache
+     *
+     * @param contents
+     */
+    @SuppressWarnings("rawtypes")
+    public void store(List<? extends SharedContent> contents) {
+
+	for (SharedContent content : contents) {
+
+	    pending.put(content.getIdentifier(), content);
+
+	    if (!queue.offer(content)) {
+
+		pending.remove(content.getIdentifier(), content);
+
+		dropped.incrementAndGet();
+	    }
+	}
+    }
+
+    /**
+     * Reads the contents with the given identifiers, from the queue or with a single call of the cache driver
+     *
+     * @param identifiers
+     * @param type
+     * @return the contents keyed by identifier, in the order of <code>identifiers</code>; identifiers with no content
+     *         are missing
+     * @throws GSException
+     */
+    @SuppressWarnings("rawtypes")
+    public Map<String, SharedContent> read(List<String> identifiers, SharedContentType type) throws GSException {
+
+	Map<String, SharedContent> found = new LinkedHashMap<>();
+
+	List<String> missing = new ArrayList<>();
+
+	for (String identifier : identifiers) {
+
+	    SharedContent content = pending.get(identifier);
+
+	    if (content != null && content.getType() == type) {
+
+		found.put(identifier, content);
+
+	    } else {
+
+		missing.add(identifier);
+	    }
+	}
+
+	if (!missing.isEmpty()) {
+
+	    found.putAll(getDriver().read(missing, type));
+	}
+
+	Map<String, SharedContent> out = new LinkedHashMap<>();
+
+	for (String identifier : identifiers) {
+
+	    SharedContent content = found.get(identifier);
+
+	    if (content != null) {
+
+		out.put(identifier, content);
+	    }
+	}
+
+	return out;
+    }
+
+    /**
+     * Writes the queued contents on the calling thread, and waits for the ones which are being written by the
+     * background thread
+     *
+     * @throws InterruptedException
+     */
+    public void flush() throws InterruptedException {
+
+	while (!pending.isEmpty()) {
+
+	    if (queue.isEmpty()) {
+
+		Thread.sleep(FLUSH_WAIT);
+
+	    } else {
+
+		writeBatch(null);
+	    }
+	}
+    }
+
+    /**
+     * @return the number of queued contents
+     */
+    public int getQueueDepth() {
+
+	return queue.size();
+    }
+
+    /**
+     * @return the number of contents written to the cache
+     */
+    public long getStored() {
+
+	return stored.get();
+    }
+
+    /**
+     * @return the number of contents dropped because the queue was full
+     */
+    public long getDropped() {
+
+	return dropped.get();
+    }
+
+    /**
+     * @return the number of contents which the cache driver failed to write
+     */
+    public long getFailed() {
+
+	return failed.get();
+    }
+
+    /**
+     * @return
+     */
+    @SuppressWarnings("rawtypes")
+    protected ISharedRepositoryDriver createDriver() {
+
+	return DriverFactory.getConfiguredDriver(ConfigurationWrapper.getSharedCacheDriverSetting(), true);
+    }
+
+    /**
+     * @return
+     */
+    @SuppressWarnings("rawtypes")
+    private ISharedRepositoryDriver getDriver() {
+
+	ISharedRepositoryDriver current = driver;
+
+	if (current == null || configurationReplaced()) {
+
+	    synchronized (this) {
+
+		if (driver == null || configurationReplaced()) {
+
+		    listen();
+
+		    driver = createDriver();
+		}
+
+		current = driver;
+	    }
+	}
+
+	return current;
+    }
+
+    /**
+     * @return <code>true</code> if the configuration has been set or replaced after the driver was resolved
+     */
+    private boolean configurationReplaced() {
+
+	return ConfigurationWrapper.getConfiguration().orElse(null) != listenedConfiguration;
+    }
+
+    /**
+     * Listens to the changes of the current configuration; to be called holding the channel lock
+     */
+    private void listen() {
+
+	Configuration configuration = ConfigurationWrapper.getConfiguration().orElse(null);
+
+	if (configuration != null && configuration != listenedConfiguration) {
+
+	    configuration.addChangeEventListener(event -> driver = null);
+	}
+
+	listenedConfiguration = configuration;
+    }
+
+    /**
+     *
+     */
+    @SuppressWarnings("rawtypes")
+    private void write() {
+
+	while (true) {
+
+	    try {
+
+		SharedContent first = queue.take();
+
+		writeBatch(first);
+
+	    } catch (InterruptedException ex) {
+
+		Thread.currentThread().interrupt();
+
+		return;
+
+	    } catch (Throwable ex) {
+
+		GSLoggerFactory.getLogger(getClass()).error(ex);
+	    }
+	}
+    }
+
+    /**
+     * @param first the first content of the batch, already taken from the queue, or <code>null</code>
+     */
+    @SuppressWarnings("rawtypes")
+    private void writeBatch(SharedContent first) {
+
+	List<SharedContent> batch = new ArrayList<>();
+
+	if (first != null) {
+
+	    batch.add(first);
+	}
+
+	queue.drainTo(batch, batchSize - batch.size());
+
+	if (batch.isEmpty()) {
+
+	    return;
+	}
+
+	try {
+
+	    getDriver().store(batch);
+
+	    stored.addAndGet(batch.size());
+
+	} catch (Exception ex) {
+
+	    failed.addAndGet(batch.size());
+
+	    GSLoggerFactory.getLogger(getClass()).error("Unable to write {} contents to the shared cache: {}", batch.size(), ex.getMessage());
+
+	} finally {
+
+	    batch.forEach(content -> pending.remove(content.getIdentifier(), content));
+	}
+    }
+}
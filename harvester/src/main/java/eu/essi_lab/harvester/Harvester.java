@@ -21,9 +21,15 @@ package eu.essi_lab.harvester;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.quartz.JobExecutionContext;
 
@@ -37,6 +43,7 @@ import eu.essi_lab.identifierdecorator.ConflictingResourceException;
 import eu.essi_lab.identifierdecorator.DuplicatedResourceException;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.lib.utils.ISO8601DateTimeUtils;
+import eu.essi_lab.lib.utils.SharedExecutor;
 import eu.essi_lab.messages.HarvestingProperties;
 import eu.essi_lab.messages.JobStatus.JobPhase;
 import eu.essi_lab.messages.listrecords.ListRecordsRequest;
@@ -64,6 +71,8 @@ public class Harvester {
      */
     private static final String UNEXPECTED_NO_LIST_RECORDS_ERROR_RESPONSE_ERROR = "UNEXPECTED_NO_LIST_RECORDS_ERROR_RESPONSE_ERROR";
     private static final String HARVESTER_CUSTOM_TASK_ERROR = "HARVESTER_CUSTOM_TASK_ERROR";
+    private static final String HARVESTER_UNEXPECTED_ERROR = "HARVESTER_UNEXPECTED_ERROR";
+    private static final String PREFETCH_CALLER = "HarvesterPrefetch";
 
     /**
      * 
@@ -203,6 +212,20 @@ public class Harvester {
 
 	    exception = ex;
 	    reportsHandler.gatherGSException(ex);
+
+	} catch (RuntimeException ex) {
+
+	    //
+	    // the harvesting is finalized also in case of unexpected errors, so that the storage can release what it
+	    // prepared for the writes (e.g. the disabled refresh of the bulk harvesting)
+	    //
+
+	    GSLoggerFactory.getLogger(getClass()).error(ex);
+
+	    harvestingInterrupted = true;
+
+	    exception = GSException.createException(getClass(), HARVESTER_UNEXPECTED_ERROR, ex);
+	    reportsHandler.gatherGSException(exception);
 	}
 
 	//
@@ -394,77 +417,239 @@ public class Harvester {
 	}
 
 	//
-	//
+	// the next page is fetched and mapped while the resources of the current page are processed by the
+	// harvester plan. only one page is prefetched, so the accessor never runs ahead of the plan by more than one page.
+	// each prefetch reads a copy of the request (see PageFetch)
 	//
 
-	do {
+	request.setResumptionToken(resumptionToken);
 
-	    request.setResumptionToken(resumptionToken);
+	PageFetch nextPage = new PageFetch(request);
 
-	    //
-	    // updates the recovery/resuming RESUMPTION token before the plan application
-	    //
-	    updateToken(properties, resumptionToken, false);
+	try {
 
-	    //
-	    // updates the recovery REMOVAL token before the plan application.
-	    // the records with this token after a crash, will be removed before the recovery begins
-	    //
-	    String recoveryRemovalToken = UUID.randomUUID().toString();
+	    do {
+
+		ListRecordsResponse<GSResource> response = nextPage.get();
+
+		nextPage = null;
+
+		// the resumption token used to request the current page
+		String pageToken = resumptionToken;
+
+		boolean firstHarvesting = request.isFirstHarvesting();
+
+		// now get the response token
+		resumptionToken = response.getResumptionToken();
+
+		// set the request flags
+		request.setRecovered(false);
+		request.setFirst(false);
+
+		if (resumptionToken != null) {
+
+		    request.setResumptionToken(resumptionToken);
+
+		    nextPage = new PageFetch(request);
+		}
+
+		//
+		// updates the recovery/resuming RESUMPTION token and the recovery REMOVAL token before the plan
+		// application. the records with the removal token after a crash, will be removed before the recovery
+		// begins, and the recovery restarts from the page of the resumption token
+		//
+		String recoveryRemovalToken = UUID.randomUUID().toString();
+
+		updateTokens(properties, pageToken, recoveryRemovalToken);
+
+		applyHarvestingPlan(//
+			response.getRecords(), //
+			firstHarvesting, //
+			recovery, //
+			isIncremental, //
+			pageToken, //
+			recoveryRemovalToken, //
+			properties);
+
+		GSLoggerFactory.getLogger(getClass()).trace("Harvesting plan application ENDED");
+
+		if (!RecoveringContext.isRecoveringContext(context) && ConfigurationWrapper.isJobCanceled(context)) {
+
+		    GSLoggerFactory.getLogger(getClass()).trace("Harvesting canceled");
+
+		    if (nextPage != null) {
+
+			// the status is written only after the prefetch ended
+			nextPage.cancel();
+
+			nextPage = null;
+		    }
+
+		    status.setPhase(JobPhase.CANCELED);
+
+		    break;
+		}
+
+	    } while (resumptionToken != null);
+
+	} finally {
+
+	    if (nextPage != null) {
+
+		nextPage.cancel();
+	    }
+	}
+    }
+
+    /**
+     * Fetches a page of records in background.<br>
+     * The accessor reads a copy of the request and of its harvesting properties, since the harvester updates them
+     * while the page is fetched. The expected records set by the connector are copied back to the request. The job
+     * status is shared, since the accessor reports its messages there; {@link #cancel()} waits the end of the fetch,
+     * so the harvester writes the status only when no fetch is running
+     * 
+     * @author Fabrizio
+     */
+    private class PageFetch {
+
+	private final Future<ListRecordsResponse<GSResource>> future;
+	private final AtomicBoolean started;
+	private final CountDownLatch ended;
+
+	/**
+	 * @param request
+	 */
+	@SuppressWarnings("unchecked")
+	private PageFetch(ListRecordsRequest request) {
+
+	    this.started = new AtomicBoolean();
+	    this.ended = new CountDownLatch(1);
+
+	    ListRecordsRequest page = copy(request);
+
+	    this.future = SharedExecutor.submit(PREFETCH_CALLER, () -> {
+
+		if (!started.compareAndSet(false, true)) {
+
+		    // canceled before starting
+		    return null;
+		}
+
+		try {
 
-	    updateToken(properties, UUID.randomUUID().toString(), true);
+		    ListRecordsResponse<GSResource> response = getAccessor().listRecords(page);
 
-	    ListRecordsResponse<GSResource> response;
+		    page.getExpectedRecords().ifPresent(request::setExpectedRecords);
+
+		    return response;
+
+		} finally {
+
+		    ended.countDown();
+		}
+	    });
+	}
+
+	/**
+	 * @return
+	 * @throws GSException
+	 */
+	private ListRecordsResponse<GSResource> get() throws GSException {
+
+	    Throwable cause = null;
 
 	    try {
 
-		response = getAccessor().listRecords(request);
+		return future.get();
+
+	    } catch (ExecutionException ex) {
 
-	    } catch (Throwable t) {
+		cause = ex.getCause();
 
-		if (t instanceof GSException) {
+		if (cause instanceof GSException) {
 
-		    throw t;
+		    throw (GSException) cause;
 		}
 
-		throw GSException.createException(//
-			getClass(), //
-			t.getMessage(), //
-			null, //
-			ErrorInfo.ERRORTYPE_INTERNAL, //
-			ErrorInfo.SEVERITY_ERROR, //
-			UNEXPECTED_NO_LIST_RECORDS_ERROR_RESPONSE_ERROR);
+	    } catch (InterruptedException ex) {
+
+		Thread.currentThread().interrupt();
+
+		cause = ex;
 	    }
 
-	    applyHarvestingPlan(//
-		    response.getRecords(), //
-		    request.isFirstHarvesting(), //
-		    recovery, //
-		    isIncremental, //
-		    resumptionToken, //
-		    recoveryRemovalToken, //
-		    properties);
+	    throw GSException.createException(//
+		    Harvester.class, //
+		    cause.getMessage(), //
+		    null, //
+		    ErrorInfo.ERRORTYPE_INTERNAL, //
+		    ErrorInfo.SEVERITY_ERROR, //
+		    UNEXPECTED_NO_LIST_RECORDS_ERROR_RESPONSE_ERROR);
+	}
 
-	    // now get the response token
-	    resumptionToken = response.getResumptionToken();
+	/**
+	 * Interrupts the fetch, and waits its end if it is running
+	 */
+	private void cancel() {
 
-	    // set the request flags
-	    request.setRecovered(false);
-	    request.setFirst(false);
+	    if (started.compareAndSet(false, true)) {
+
+		future.cancel(false);
 
-	    GSLoggerFactory.getLogger(getClass()).trace("Harvesting plan application ENDED");
+		return;
+	    }
 
-	    if (!RecoveringContext.isRecoveringContext(context) && ConfigurationWrapper.isJobCanceled(context)) {
+	    future.cancel(true);
 
-		GSLoggerFactory.getLogger(getClass()).trace("Harvesting canceled");
+	    boolean interrupted = false;
 
-		status.setPhase(JobPhase.CANCELED);
+	    while (true) {
 
-		break;
+		try {
+
+		    ended.await();
+
+		    break;
+
+		} catch (InterruptedException ex) {
+
+		    interrupted = true;
+		}
+	    }
+
+	    if (interrupted) {
+
+		Thread.currentThread().interrupt();
 	    }
+	}
+
+	/**
+	 * @param request
+	 * @return
+	 */
+	private ListRecordsRequest copy(ListRecordsRequest request) {
+
+	    ListRecordsRequest copy = new ListRecordsRequest(request.getStatus().orElse(null));
+
+	    copy.setResumptionToken(request.getResumptionToken());
+	    copy.setFromDateStamp(request.getFromDateStamp());
+	    copy.setUntilDateStamp(request.getUntilDateStamp());
+	    copy.setRecovered(request.isRecovered());
+	    copy.setResumed(request.isResumed());
+	    copy.setFirst(request.isFirst());
+
+	    request.getExpectedRecords().ifPresent(copy::setExpectedRecords);
+
+	    if (request.getHarvestingProperties() != null) {
 
-	} while (resumptionToken != null);
+		HarvestingProperties properties = new HarvestingProperties();
+		properties.putAll(request.getHarvestingProperties());
 
+		copy.setHarvestingProperties(properties);
+	    }
+
+	    return copy;
+	}
     }
 
     /**
@@ -485,9 +670,26 @@ public class Harvester {
 	    String recoveryRemovalToken, //
 	    HarvestingProperties harvestingProperties) {
 
-	while (records.hasNext()) {
+	List<GSResource> resources = new ArrayList<>();
+
+	records.forEachRemaining(resources::add);
+
+	HarvesterPlan plan = getPlan();
+
+	try {
+
+	    //
+	    // the components can resolve what the page resources require with a single request.
+	    // if the preparation fails, each resource is processed anyway by the components
+	    //
+	    plan.prepare(resources);
 
-	    GSResource resource = records.next();
+	} catch (HarvestingComponentException hce) {
+
+	    GSLoggerFactory.getLogger(getClass()).warn("Unable to prepare the harvesting plan: {}", hce.getException().getMessage());
+	}
+
+	for (GSResource resource : resources) {
 
 	    //
 	    // set the removal token used for the recovery. in case of recovery, resources
@@ -496,8 +698,6 @@ public class Harvester {
 	    //
 	    resource.getPropertyHandler().setRecoveryRemovalToken(recoveryRemovalToken);
 
-	    HarvesterPlan plan = getPlan();
-
 	    plan.setResumptionToken(resumptionToken);
 	    plan.setHarvestingProperties(harvestingProperties);
 	    plan.setIsFirstHarvesting(firstHarvesting);
@@ -539,45 +739,34 @@ public class Harvester {
     }
 
     /**
+     * Stores the resumption token (if not <code>null</code>) and the removal token of the current page with a single
+     * write of the harvesting properties
+     * 
      * @param properties
-     * @param token
-     * @param removal
+     * @param resumptionToken
+     * @param removalToken
      * @throws GSException
      */
-    private void updateToken(HarvestingProperties properties, String token, boolean removal) throws GSException {
+    private void updateTokens(HarvestingProperties properties, String resumptionToken, String removalToken) throws GSException {
 
-	if (token == null) {
-
-	    return;
-	}
+	GSLoggerFactory.getLogger(getClass()).trace("Updating recovery tokens STARTED");
 
-	GSLoggerFactory.getLogger(getClass()).trace("Token: {} ", token);
+	if (resumptionToken != null) {
 
-	if (!removal) {
+	    GSLoggerFactory.getLogger(getClass()).trace("Resumption token: {} ", resumptionToken);
 
-	    GSLoggerFactory.getLogger(getClass()).trace("Updating recovery/resuming resumption token STARTED");
-
-	    properties.setRecoveryResumptionToken(token);
-
-	} else {
+	    properties.setRecoveryResumptionToken(resumptionToken);
+	}
 
-	    GSLoggerFactory.getLogger(getClass()).trace("Updating recovery removal token STARTED");
+	GSLoggerFactory.getLogger(getClass()).trace("Removal token: {} ", removalToken);
 
-	    properties.setRecoveryRemovalToken(token);
-	}
+	properties.setRecoveryRemovalToken(removalToken);
 
 	GSSource source = getAccessor().getSource();
 
 	getSourceStorage().storeHarvestingProperties(source, properties);
 
-	if (!removal) {
-
-	    GSLoggerFactory.getLogger(getClass()).trace("Updating recovery/resuming resumption token ENDED");
-
-	} else {
-
-	    GSLoggerFactory.getLogger(getClass()).trace("Updating recovery removal token ENDED");
-	}
+	GSLoggerFactory.getLogger(getClass()).trace("Updating recovery tokens ENDED");
     }
 
     /**
@@ -52,6 +52,15 @@ public class HarvesterPlan extends HarvestingComponent {
 	return components;
     }
 
+    @Override
+    public void prepare(List<GSResource> resources) throws HarvestingComponentException {
+
+	for (HarvestingComponent component : getComponents()) {
+
+	    component.prepare(resources);
+	}
+    }
+
     @Override
     public void apply(GSResource resource) throws HarvestingComponentException, DuplicatedResourceException, ConflictingResourceException {
 
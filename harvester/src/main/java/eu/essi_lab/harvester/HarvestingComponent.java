@@ -21,6 +21,8 @@ package eu.essi_lab.harvester;
  * #L%
  */
 
+import java.util.List;
+
 import eu.essi_lab.adk.harvest.IHarvestedAccessor;
 import eu.essi_lab.api.database.SourceStorage;
 import eu.essi_lab.identifierdecorator.ConflictingResourceException;
@@ -159,6 +161,17 @@ public abstract class HarvestingComponent {
 	return sourceStorage;
     }
 
+    /**
+     * Invoked with all the resources of a harvested page before they are {@link #apply(GSResource) applied} one by
+     * one, so that the component can prepare what they require with a single request. This default implementation
+     * does nothing
+     *
+     * @param resources
+     * @throws HarvestingComponentException
+     */
+    public void prepare(List<GSResource> resources) throws HarvestingComponentException {
+    }
+
     /**
      * @param resource
      * @throws HarvestingComponentException
@@ -28,6 +28,7 @@ import java.util.concurrent.TimeUnit;
 import eu.essi_lab.api.database.Database.IdentifierType;
 import eu.essi_lab.api.database.DatabaseReader;
 import eu.essi_lab.api.database.DatabaseWriter;
+import eu.essi_lab.api.database.DatabaseWriter.StoreFailure;
 import eu.essi_lab.harvester.HarvestingComponent;
 import eu.essi_lab.harvester.HarvestingComponentException;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
@@ -119,6 +120,8 @@ public class DatabaseComponent extends HarvestingComponent {
 		    dBWriter.store(resource);
 		}
 
+		reportStoreFailures(resource);
+
 		return;
 
 	    } catch (GSException e) {
@@ -143,4 +146,21 @@ public class DatabaseComponent extends HarvestingComponent {
 	    }
 	}
     }
+
+    /**
+     * Resources can be stored in bulk requests, so the failures are notified only after the requests are executed.
+     * Only the failures of the source of the given <code>resource</code> are reported, the other sources can be
+     * harvested at the same time
+     *
+     * @param resource
+     */
+    private void reportStoreFailures(GSResource resource) {
+
+	List<StoreFailure> failures = dBWriter.drainStoreFailures(resource.getSource().getUniqueIdentifier());
+
+	for (StoreFailure failure : failures) {
+
+	    GSLoggerFactory.getLogger(getClass()).error("Unable to store resource {}: {}", failure.getKey(), failure.getReason());
+	}
+    }
 }
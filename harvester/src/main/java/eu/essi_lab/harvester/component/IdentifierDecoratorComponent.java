@@ -21,6 +21,8 @@ package eu.essi_lab.harvester.component;
  * #L%
  */
 
+import java.util.List;
+
 import eu.essi_lab.harvester.HarvestingComponentException;
 import eu.essi_lab.harvester.HarvestingComponent;
 import eu.essi_lab.identifierdecorator.ConflictingResourceException;
@@ -44,6 +46,19 @@ public class IdentifierDecoratorComponent extends HarvestingComponent {
 	this.identifierDecorator = identifierDecorator;
     }
 
+    @Override
+    public void prepare(List<GSResource> resources) throws HarvestingComponentException {
+
+	try {
+
+	    this.identifierDecorator.prefetch(resources);
+
+	} catch (GSException e) {
+
+	    throw new HarvestingComponentException(e);
+	}
+    }
+
     @Override
     public void apply(GSResource resource) throws HarvestingComponentException, DuplicatedResourceException, ConflictingResourceException {
 
@@ -0,0 +1,560 @@
+/**
+ *
+ */
+package eu.essi_lab.harvester.test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.adk.harvest.HarvestedAccessor;
+import eu.essi_lab.api.database.Database;
+import eu.essi_lab.api.database.SourceStorage;
+import eu.essi_lab.cdk.harvest.IHarvestedQueryConnector;
+import eu.essi_lab.cfga.gs.setting.connector.HarvestedConnectorSetting;
+import eu.essi_lab.cfga.scheduler.SchedulerJobStatus;
+import eu.essi_lab.harvester.Harvester;
+import eu.essi_lab.harvester.HarvestingComponent;
+import eu.essi_lab.messages.HarvestingProperties;
+import eu.essi_lab.messages.listrecords.ListRecordsRequest;
+import eu.essi_lab.messages.listrecords.ListRecordsResponse;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.HarvestingStrategy;
+import eu.essi_lab.model.StorageInfo;
+import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.pluggable.Provider;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.model.resource.OriginalMetadata;
+import eu.essi_lab.ommdk.GMDResourceMapper;
+import eu.essi_lab.ommdk.IResourceMapper;
+
+/**
+ * Harvests a fake source whose pages are fetched, mapped and stored with artificial latencies, and reports the
+ * records per second
+ *
+ * @author Fabrizio
+ */
+public class PipelinedHarvesterTest {
+
+    private static final int PAGES = 10;
+    private static final int PAGE_SIZE = 20;
+
+    private static final long FETCH_LATENCY = 100;
+    private static final long MAPPING_LATENCY = 10;
+    private static final long STORE_LATENCY = 5;
+
+    private static final int MAPPING_THREADS = 4;
+
+    private static final long OVERLAP_TIMEOUT = 10;
+
+    @Test
+    public void test() throws Exception {
+
+	FakeStorage storage = new FakeStorage();
+
+	FakeAccessor accessor = new FakeAccessor(true);
+
+	StoreComponent component = new StoreComponent(accessor);
+
+	Harvester harvester = new Harvester();
+	harvester.setAccessor(accessor);
+	harvester.setSourceStorage(storage);
+	harvester.getPlan().getComponents().add(component);
+
+	long start = System.currentTimeMillis();
+
+	harvester.harvest(false);
+
+	long elapsed = System.currentTimeMillis() - start;
+
+	//
+	// all the records are stored in the original order
+	//
+	Assert.assertEquals(PAGES * PAGE_SIZE, component.getOriginalIds().size());
+
+	for (int i = 0; i < PAGES * PAGE_SIZE; i++) {
+
+	    Assert.assertEquals("record-" + i, component.getOriginalIds().get(i));
+	}
+
+	//
+	// the recovery tokens are stored once per page
+	//
+	Assert.assertEquals(PAGES, storage.getWrites());
+
+	//
+	// the fetch of the next page started while the current page was stored
+	//
+	Assert.assertEquals(PAGES - 1, component.getOverlaps());
+
+	//
+	// the records of a page are mapped by several threads at the same time
+	//
+	Assert.assertTrue(accessor.isMappingOverlapped());
+
+	long sequential = PAGES * (FETCH_LATENCY + PAGE_SIZE * (MAPPING_LATENCY + STORE_LATENCY));
+
+	System.out.println("Records: " + PAGES * PAGE_SIZE + ", elapsed: " + elapsed + " ms");
+	System.out.println("Records per second: " + (PAGES * PAGE_SIZE * 1000 / elapsed));
+	System.out.println("Records per second with no pipeline: " + (PAGES * PAGE_SIZE * 1000 / sequential));
+    }
+
+    @Test
+    public void sequentialMappingTest() throws Exception {
+
+	FakeAccessor accessor = new FakeAccessor(false);
+
+	Harvester harvester = new Harvester();
+	harvester.setAccessor(accessor);
+	harvester.setSourceStorage(new FakeStorage());
+	harvester.getPlan().getComponents().add(new StoreComponent(null));
+
+	harvester.harvest(false);
+
+	//
+	// the mapper does not support the parallel mapping, so the records of a page are mapped by a single thread
+	//
+	Assert.assertEquals(1, accessor.getMaxConcurrentMappings());
+    }
+
+    @Test
+    public void gmdMapperTest() throws Exception {
+
+	GMDResourceMapper mapper = new GMDResourceMapper();
+
+	Assert.assertTrue(mapper.isParallelMappingSupported());
+
+	// the subclasses do not inherit the opt in
+	Assert.assertFalse(new GMDResourceMapper() {
+	}.isParallelMappingSupported());
+
+	FakeAccessor accessor = new FakeAccessor(mapper);
+
+	StoreComponent component = new StoreComponent(null);
+
+	Harvester harvester = new Harvester();
+	harvester.setAccessor(accessor);
+	harvester.setSourceStorage(new FakeStorage());
+	harvester.getPlan().getComponents().add(component);
+
+	harvester.harvest(false);
+
+	//
+	// the records are mapped by the GMD mapper on several threads, and stored in the original order
+	//
+	Assert.assertEquals(PAGES * PAGE_SIZE, component.getOriginalIds().size());
+
+	for (int i = 0; i < PAGES * PAGE_SIZE; i++) {
+
+	    Assert.assertEquals("record-" + i, component.getOriginalIds().get(i));
+	}
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private static class StoreComponent extends HarvestingComponent {
+
+	private List<String> originalIds = Collections.synchronizedList(new ArrayList<>());
+	private FakeAccessor accessor;
+	private int overlaps;
+
+	/**
+	 * @param accessor the accessor whose fetches must overlap with the storage, or <code>null</code>
+	 */
+	private StoreComponent(FakeAccessor accessor) {
+
+	    this.accessor = accessor;
+	}
+
+	@Override
+	public void apply(GSResource resource) {
+
+	    // the removal token of the resource is the one stored in the harvesting properties
+	    Assert.assertEquals(//
+		    getHarvestingProperties().getRecoveryRemovalToken(), //
+		    resource.getPropertyHandler().getRecoveryRemovalToken().get());
+
+	    int index = originalIds.size();
+
+	    int page = index / PAGE_SIZE;
+
+	    //
+	    // while the first record of a page is stored, the fetch of the next page starts
+	    //
+	    if (accessor != null && index % PAGE_SIZE == 0 && page < PAGES - 1 && accessor.awaitFetch(page + 1)) {
+
+		overlaps++;
+	    }
+
+	    sleep(STORE_LATENCY);
+
+	    originalIds.add(resource.getOriginalId().get());
+	}
+
+	/**
+	 * @return the number of pages whose storage overlapped with the fetch of the next page
+	 */
+	private int getOverlaps() {
+
+	    return overlaps;
+	}
+
+	/**
+	 * @return
+	 */
+	private List<String> getOriginalIds() {
+
+	    return originalIds;
+	}
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    @SuppressWarnings("rawtypes")
+    private static class FakeAccessor extends HarvestedAccessor<IHarvestedQueryConnector> {
+
+	private GSSource source;
+	private IHarvestedQueryConnector connector;
+	private boolean parallel;
+	private IResourceMapper mapper;
+	private CountDownLatch[] fetches;
+	private CountDownLatch mappings;
+	private AtomicInteger concurrentMappings;
+	private AtomicInteger maxConcurrentMappings;
+	private volatile boolean mappingOverlapped;
+
+	/**
+	 * @param parallel <code>true</code> if the mapper supports the parallel mapping
+	 */
+	private FakeAccessor(boolean parallel) {
+
+	    this.parallel = parallel;
+
+	    fetches = new CountDownLatch[PAGES];
+
+	    for (int i = 0; i < PAGES; i++) {
+
+		fetches[i] = new CountDownLatch(1);
+	    }
+
+	    // released when two records are being mapped at the same time
+	    mappings = new CountDownLatch(2);
+
+	    concurrentMappings = new AtomicInteger();
+	    maxConcurrentMappings = new AtomicInteger();
+
+	    source = new GSSource();
+	    source.setUniqueIdentifier("fakeSource");
+	    source.setLabel("Fake source");
+
+	    connector = (IHarvestedQueryConnector) Proxy.newProxyInstance(//
+		    getClass().getClassLoader(), //
+		    new Class[] { IHarvestedQueryConnector.class }, //
+		    (proxy, method, args) -> {
+
+			switch (method.getName()) {
+			case "listRecords":
+			    return listPage((ListRecordsRequest) args[0]);
+			case "getSourceURL":
+			    return "http://localhost";
+			}
+
+			return method.getReturnType() == boolean.class ? false : null;
+		    });
+	}
+
+	/**
+	 * @param mapper the mapper of the records, which are encoded as ISO 19139 documents
+	 */
+	private FakeAccessor(IResourceMapper mapper) {
+
+	    this(mapper.isParallelMappingSupported());
+
+	    this.mapper = mapper;
+	}
+
+	/**
+	 * @param request
+	 * @return
+	 */
+	private ListRecordsResponse<OriginalMetadata> listPage(ListRecordsRequest request) {
+
+	    int page = request.getResumptionToken() == null ? 0 : Integer.valueOf(request.getResumptionToken());
+
+	    fetches[page].countDown();
+
+	    sleep(FETCH_LATENCY);
+
+	    ListRecordsResponse<OriginalMetadata> response = new ListRecordsResponse<>();
+
+	    for (int i = 0; i < PAGE_SIZE; i++) {
+
+		OriginalMetadata metadata = new OriginalMetadata();
+		String identifier = "record-" + (page * PAGE_SIZE + i);
+
+		if (mapper != null) {
+
+		    metadata.setSchemeURI(mapper.getSupportedOriginalMetadataSchema());
+		    metadata.setMetadata(//
+			    "<gmd:MD_Metadata xmlns:gmd=\"http://www.isotc211.org/2005/gmd\" xmlns:gco=\"http://www.isotc211.org/2005/gco\">"
+				    + "<gmd:fileIdentifier><gco:CharacterString>" + identifier + "</gco:CharacterString></gmd:fileIdentifier>"
+				    + "<gmd:identificationInfo><gmd:MD_DataIdentification/></gmd:identificationInfo>"
+				    + "</gmd:MD_Metadata>");
+		} else {
+
+		    metadata.setSchemeURI("fake");
+		    metadata.setMetadata(identifier);
+		}
+
+		response.addRecord(metadata);
+	    }
+
+	    if (page < PAGES - 1) {
+
+		response.setResumptionToken(String.valueOf(page + 1));
+	    }
+
+	    return response;
+	}
+
+	/**
+	 * @param page
+	 * @return <code>true</code> if the fetch of the given page started
+	 */
+	private boolean awaitFetch(int page) {
+
+	    try {
+
+		return fetches[page].await(OVERLAP_TIMEOUT, TimeUnit.SECONDS);
+
+	    } catch (InterruptedException e) {
+
+		Thread.currentThread().interrupt();
+
+		return false;
+	    }
+	}
+
+	/**
+	 * @return <code>true</code> if two records have been mapped at the same time
+	 */
+	private boolean isMappingOverlapped() {
+
+	    return mappingOverlapped;
+	}
+
+	/**
+	 * @return the maximum number of records mapped at the same time
+	 */
+	private int getMaxConcurrentMappings() {
+
+	    return maxConcurrentMappings.get();
+	}
+
+	@Override
+	protected void configure() {
+	}
+
+	@Override
+	protected String initSettingName() {
+
+	    return null;
+	}
+
+	@Override
+	protected String initAccessorType() {
+
+	    return null;
+	}
+
+	@Override
+	protected HarvestedConnectorSetting initHarvestedConnectorSetting() {
+
+	    return null;
+	}
+
+	@Override
+	public IHarvestedQueryConnector getConnector() {
+
+	    return connector;
+	}
+
+	@Override
+	public GSSource getSource() {
+
+	    return source;
+	}
+
+	@Override
+	protected int getMappingThreads() {
+
+	    return MAPPING_THREADS;
+	}
+
+	@Override
+	public IResourceMapper getMapper(String schemeUri) {
+
+	    if (mapper != null) {
+
+		return mapper;
+	    }
+
+	    return new IResourceMapper() {
+
+		@Override
+		public GSResource map(OriginalMetadata originalMD, GSSource source) throws GSException {
+
+		    maxConcurrentMappings.accumulateAndGet(concurrentMappings.incrementAndGet(), Math::max);
+
+		    if (parallel && !mappingOverlapped) {
+
+			mappings.countDown();
+
+			try {
+
+			    if (mappings.await(OVERLAP_TIMEOUT, TimeUnit.SECONDS)) {
+
+				mappingOverlapped = true;
+			    }
+
+			} catch (InterruptedException e) {
+
+			    Thread.currentThread().interrupt();
+			}
+		    }
+
+		    sleep(MAPPING_LATENCY);
+
+		    concurrentMappings.decrementAndGet();
+
+		    Dataset dataset = new Dataset();
+		    dataset.setOriginalId(originalMD.getMetadata());
+
+		    return dataset;
+		}
+
+		@Override
+		public String getSupportedOriginalMetadataSchema() {
+
+		    return "fake";
+		}
+
+		@Override
+		public Boolean supportsOriginalMetadata(OriginalMetadata originalMD) {
+
+		    return true;
+		}
+
+		@Override
+		public boolean isParallelMappingSupported() {
+
+		    return parallel;
+		}
+
+		@Override
+		public Provider getProvider() {
+
+		    return null;
+		}
+	    };
+	}
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private static class FakeStorage extends SourceStorage {
+
+	private HarvestingProperties properties = new HarvestingProperties();
+	private int writes;
+
+	@Override
+	public void harvestingStarted(//
+		GSSource source, //
+		HarvestingStrategy strategy, //
+		boolean recovery, //
+		boolean resumed, //
+		Optional<SchedulerJobStatus> status) {
+	}
+
+	@Override
+	public void harvestingEnded(//
+		GSSource source, //
+		Optional<HarvestingProperties> properties, //
+		HarvestingStrategy strategy, //
+		Optional<SchedulerJobStatus> status, //
+		Optional<ListRecordsRequest> request) {
+	}
+
+	@Override
+	public HarvestingProperties retrieveHarvestingProperties(GSSource source) {
+
+	    return properties;
+	}
+
+	@Override
+	public void storeHarvestingProperties(GSSource source, HarvestingProperties properties) {
+
+	    writes++;
+	}
+
+	@Override
+	public List<String> getStorageReport(GSSource source) {
+
+	    return new ArrayList<>();
+	}
+
+	/**
+	 * @return
+	 */
+	private int getWrites() {
+
+	    return writes;
+	}
+
+	@Override
+	public void setDatabase(Database database) {
+	}
+
+	@Override
+	public Database getDatabase() {
+
+	    return null;
+	}
+
+	@Override
+	public boolean supports(StorageInfo info) {
+
+	    return false;
+	}
+
+	@Override
+	public String getType() {
+
+	    return "FakeStorage";
+	}
+    }
+
+    /**
+     * @param millis
+     */
+    private static void sleep(long millis) {
+
+	try {
+	    Thread.sleep(millis);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+}
@@ -21,10 +21,13 @@ package eu.essi_lab.identifierdecorator;
  * #L%
  */
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import eu.essi_lab.api.database.Database.IdentifierType;
 import eu.essi_lab.api.database.DatabaseReader;
@@ -47,11 +50,14 @@ public class IdentifierDecorator {
     private DatabaseReader dbReader;
     private SourcePrioritySetting sourcePrioritySetting;
     private Boolean preserveIds;
+    private Map<String, List<GSResource>> prefetched;
 
     /**
      * 
      */
     public IdentifierDecorator() {
+
+	prefetched = new HashMap<>();
     }
 
     /**
@@ -78,6 +84,37 @@ public class IdentifierDecorator {
 	this.preserveIds = preserveIds;
 	this.dbReader = dataBaseReader;
 	this.sourcePrioritySetting = sourcePrioritySetting;
+	this.prefetched = new HashMap<>();
+    }
+
+    /**
+     * Resolves with a single request the existing resources having the original identifiers of the given harvested
+     * <code>resources</code>, which are about to be {@link #decorateHarvestedIdentifier(GSResource, HarvestingProperties,
+     * SourceStorage, boolean, boolean, boolean) decorated}.<br>
+     * The resolved resources replace the ones of the previous page and each of them is used only once, so a page
+     * with several resources having the same original identifier is still checked against the database
+     *
+     * @param resources
+     * @throws GSException
+     */
+    public void prefetch(List<GSResource> resources) throws GSException {
+
+	prefetched.clear();
+
+	List<String> originalIds = resources.//
+		stream().//
+		filter(r -> Boolean.TRUE.equals(preserveIds) || useOriginalId(r)).//
+		map(r -> r.getOriginalId().orElse(null)).//
+		filter(Objects::nonNull).//
+		distinct().//
+		collect(Collectors.toList());
+
+	if (!originalIds.isEmpty()) {
+
+	    prefetched.putAll(getDatabaseReader().getResources(IdentifierType.ORIGINAL, originalIds));
+
+	    GSLoggerFactory.getLogger(getClass()).debug("Prefetched resources of [{}] original identifiers", originalIds.size());
+	}
     }
 
     /**
@@ -115,7 +152,7 @@ public class IdentifierDecorator {
 	    // in the whole DB, included the temporary/writing folders in order
 	    // to apply the isDuplicate check 
 	    //
-	    List<GSResource> existingResources = getDatabaseReader().getResources(IdentifierType.ORIGINAL, originalId);
+	    List<GSResource> existingResources = findResources(originalId);
 
 	    if (!existingResources.isEmpty()) {
 
@@ -192,7 +229,7 @@ public class IdentifierDecorator {
 
 		String originalId = opOrig.get();
 
-		GSResource existingResource = getDatabaseReader().getResource(originalId, incomingResource.getSource());
+		GSResource existingResource = findResource(originalId, incomingResource.getSource());
 
 		if (existingResource != null) {
 
@@ -221,6 +258,49 @@ public class IdentifierDecorator {
 	return this.dbReader;
     }
 
+    /**
+     * @param originalId
+     * @return
+     * @throws GSException
+     */
+    private List<GSResource> findResources(String originalId) throws GSException {
+
+	List<GSResource> resources = prefetched.remove(originalId);
+
+	if (resources != null) {
+
+	    return resources;
+	}
+
+	return getDatabaseReader().getResources(IdentifierType.ORIGINAL, originalId);
+    }
+
+    /**
+     * @param originalId
+     * @param source
+     * @return
+     * @throws GSException
+     */
+    private GSResource findResource(String originalId, GSSource source) throws GSException {
+
+	List<GSResource> resources = prefetched.remove(originalId);
+
+	if (resources != null) {
+
+	    //
+	    // same conditions of DatabaseReader#getResource(String, GSSource)
+	    //
+	    return resources.//
+		    stream().//
+		    filter(r -> r.getSource().getUniqueIdentifier().equals(source.getUniqueIdentifier())).//
+		    filter(r -> !r.getPropertyHandler().isDeleted()).//
+		    findFirst().//
+		    orElse(null);
+	}
+
+	return getDatabaseReader().getResource(originalId, source);
+    }
+
     /**
      * @param resource
      */
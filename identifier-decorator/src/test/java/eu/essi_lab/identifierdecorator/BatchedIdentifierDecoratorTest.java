@@ -0,0 +1,257 @@
+/**
+ *
+ */
+package eu.essi_lab.identifierdecorator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.api.database.Database.IdentifierType;
+import eu.essi_lab.api.database.vol.VolatileDatabase;
+import eu.essi_lab.api.database.vol.VolatileDatabaseReader;
+import eu.essi_lab.cfga.gs.setting.SourcePrioritySetting;
+import eu.essi_lab.messages.HarvestingProperties;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+
+/**
+ * Re-harvests a source stored in the volatile database, decorating the identifiers with and without the page
+ * prefetch, and reports the decoration time of both the paths.<br>
+ * The number of records is set with the {@value #RECORDS_PROPERTY} system property (e.g. 100000); the default is
+ * lower since each lookup of the volatile database scans all the resources
+ *
+ * @author Fabrizio
+ */
+public class BatchedIdentifierDecoratorTest {
+
+    private static final String RECORDS_PROPERTY = "identifierDecorator.benchmarkRecords";
+
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * One out of {@value #NEW_RECORDS_RATIO} records is not in the database
+     */
+    private static final int NEW_RECORDS_RATIO = 10;
+
+    @Test
+    public void test() throws Exception {
+
+	int records = Integer.getInteger(RECORDS_PROPERTY, 10_000);
+
+	GSSource source = new GSSource();
+	source.setUniqueIdentifier("source");
+	source.setLabel("Source");
+
+	CountingReader reader = new CountingReader();
+	reader.setDatabase(new VolatileDatabase());
+
+	for (int i = 0; i < records; i++) {
+
+	    if (i % NEW_RECORDS_RATIO != 0) {
+
+		Dataset stored = create(source, i);
+		stored.setPrivateId(UUID.randomUUID().toString());
+		stored.setPublicId(stored.getPrivateId());
+
+		reader.getDatabase().getResourcesList().add(stored);
+	    }
+	}
+
+	//
+	// point queries
+	//
+
+	IdentifierDecorator decorator = new IdentifierDecorator(new SourcePrioritySetting(), true, reader);
+
+	List<GSResource> unbatched = new ArrayList<>();
+
+	long start = System.currentTimeMillis();
+
+	for (int i = 0; i < records; i++) {
+
+	    Dataset incoming = create(source, i);
+
+	    decorate(decorator, incoming);
+
+	    unbatched.add(incoming);
+	}
+
+	long unbatchedTime = System.currentTimeMillis() - start;
+
+	Assert.assertEquals(records, reader.getPointQueries());
+	Assert.assertEquals(0, reader.getBatchQueries());
+
+	reader.reset();
+
+	//
+	// a batch query for each page
+	//
+
+	decorator = new IdentifierDecorator(new SourcePrioritySetting(), true, reader);
+
+	List<GSResource> batched = new ArrayList<>();
+
+	start = System.currentTimeMillis();
+
+	for (int page = 0; page < records; page += PAGE_SIZE) {
+
+	    List<GSResource> resources = new ArrayList<>();
+
+	    for (int i = page; i < Math.min(records, page + PAGE_SIZE); i++) {
+
+		resources.add(create(source, i));
+	    }
+
+	    decorator.prefetch(resources);
+
+	    for (GSResource incoming : resources) {
+
+		decorate(decorator, incoming);
+	    }
+
+	    batched.addAll(resources);
+	}
+
+	long batchedTime = System.currentTimeMillis() - start;
+
+	Assert.assertEquals(0, reader.getPointQueries());
+	Assert.assertEquals((records + PAGE_SIZE - 1) / PAGE_SIZE, reader.getBatchQueries());
+
+	//
+	// the existing identifiers are preserved by both the paths
+	//
+	for (int i = 0; i < records; i++) {
+
+	    if (i % NEW_RECORDS_RATIO != 0) {
+
+		Assert.assertEquals(unbatched.get(i).getPrivateId(), batched.get(i).getPrivateId());
+
+	    } else {
+
+		Assert.assertNotNull(batched.get(i).getPrivateId());
+		Assert.assertNotEquals(unbatched.get(i).getPrivateId(), batched.get(i).getPrivateId());
+	    }
+	}
+
+	System.out.println("Records: " + records);
+	System.out.println("Decoration time with point queries: " + unbatchedTime + " ms");
+	System.out.println("Decoration time with batch queries: " + batchedTime + " ms");
+    }
+
+    @Test
+    public void duplicatedInPageTest() throws Exception {
+
+	GSSource source = new GSSource();
+	source.setUniqueIdentifier("source");
+	source.setLabel("Source");
+
+	CountingReader reader = new CountingReader();
+	reader.setDatabase(new VolatileDatabase());
+
+	IdentifierDecorator decorator = new IdentifierDecorator(new SourcePrioritySetting(), true, reader);
+
+	List<GSResource> resources = List.of(create(source, 0), create(source, 0));
+
+	decorator.prefetch(resources);
+
+	decorate(decorator, resources.get(0));
+
+	// the first resource is stored by the harvesting plan
+	reader.getDatabase().getResourcesList().add(resources.get(0));
+
+	decorate(decorator, resources.get(1));
+
+	// the prefetched result is used once, the second resource is checked against the database
+	Assert.assertEquals(1, reader.getBatchQueries());
+	Assert.assertEquals(1, reader.getPointQueries());
+
+	Assert.assertEquals(resources.get(0).getPrivateId(), resources.get(1).getPrivateId());
+    }
+
+    /**
+     * @param decorator
+     * @param incoming
+     * @throws Exception
+     */
+    private void decorate(IdentifierDecorator decorator, GSResource incoming) throws Exception {
+
+	decorator.decorateHarvestedIdentifier(//
+		incoming, //
+		new HarvestingProperties(), //
+		null, //
+		false, // first harvesting
+		false, // is recovery
+		false); // is incremental
+    }
+
+    /**
+     * @param source
+     * @param index
+     * @return
+     */
+    private Dataset create(GSSource source, int index) {
+
+	Dataset dataset = new Dataset();
+	dataset.setSource(source);
+	dataset.setOriginalId("record-" + index);
+
+	return dataset;
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private static class CountingReader extends VolatileDatabaseReader {
+
+	private int pointQueries;
+	private int batchQueries;
+
+	@Override
+	public GSResource getResource(String originalIdentifier, GSSource source) throws GSException {
+
+	    pointQueries++;
+
+	    return super.getResource(originalIdentifier, source);
+	}
+
+	@Override
+	public Map<String, List<GSResource>> getResources(IdentifierType identifierType, List<String> identifiers) throws GSException {
+
+	    batchQueries++;
+
+	    return super.getResources(identifierType, identifiers);
+	}
+
+	/**
+	 * @return
+	 */
+	private int getPointQueries() {
+
+	    return pointQueries;
+	}
+
+	/**
+	 * @return
+	 */
+	private int getBatchQueries() {
+
+	    return batchQueries;
+	}
+
+	/**
+	 *
+	 */
+	private void reset() {
+
+	    pointQueries = 0;
+	    batchQueries = 0;
+	}
+    }
+}
@@ -33,8 +33,6 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
@@ -44,8 +42,9 @@ import org.w3c.dom.Node;
 import eu.essi_lab.jaxb.common.schemas.CommonSchemas;
 import eu.essi_lab.jaxb.oaipmh.OAIPMHtype;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.lib.xml.JAXBPool;
+import eu.essi_lab.lib.xml.JAXBPool.Lease;
 import eu.essi_lab.lib.xml.NameSpace;
-import eu.essi_lab.lib.xml.XMLFactories;
 
 /**
  * A JAXB context including:
@@ -229,10 +228,13 @@ public class CommonContext {
     public static ByteArrayOutputStream asOutputStream(Object object, boolean omitXMLdeclaration, NamespacePrefixMapper prefixMapper,
 	    String schemaLocation) throws JAXBException, UnsupportedEncodingException {
 
-	Marshaller marshaller = createMarshaller(omitXMLdeclaration, prefixMapper, schemaLocation);
 	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-	marshaller.marshal(object, outputStream);
+	try (Lease<Marshaller> lease = leaseMarshaller(omitXMLdeclaration, prefixMapper, schemaLocation, true)) {
+
+	    lease.get().marshal(object, outputStream);
+	}
+
 	return outputStream;
     }
 
@@ -264,6 +266,8 @@ public class CommonContext {
     }
 
     /**
+     * Marshals the <code>object</code> directly into a new document, without indentation
+     * 
      * @param object
      * @param omitXMLdeclaration
      * @return
@@ -273,12 +277,13 @@ public class CommonContext {
      */
     public static Document asDocument(Object object, boolean omitXMLdeclaration) throws JAXBException, ParserConfigurationException {
 
-	Marshaller marshaller = createMarshaller(omitXMLdeclaration);
-	DocumentBuilderFactory builderFactory = XMLFactories.newDocumentBuilderFactory();
-	builderFactory.setNamespaceAware(true);
-	DocumentBuilder builder = builderFactory.newDocumentBuilder();
-	Document document = builder.newDocument();
-	marshaller.marshal(object, document);
+	Document document = JAXBPool.newDocument();
+
+	try (Lease<Marshaller> lease = leaseMarshaller(omitXMLdeclaration, new CommonNameSpaceContext(), null, false)) {
+
+	    lease.get().marshal(object, document);
+	}
+
 	return document;
     }
 
@@ -304,8 +309,12 @@ public class CommonContext {
      */
     public static <T> T unmarshal(String string, Class<T> type) throws JAXBException, UnsupportedEncodingException {
 
-	Unmarshaller unmarshaller = createUnmarshaller();
-	Object unmarshal = unmarshaller.unmarshal(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+	Object unmarshal = null;
+
+	try (Lease<Unmarshaller> lease = leaseUnmarshaller()) {
+
+	    unmarshal = lease.get().unmarshal(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+	}
 
 	return doCast(type, unmarshal);
     }
@@ -318,8 +327,12 @@ public class CommonContext {
      */
     public static <T> T unmarshal(Reader reader, Class<T> type) throws JAXBException {
 
-	Unmarshaller unmarshaller = createUnmarshaller();
-	Object unmarshal = unmarshaller.unmarshal(reader);
+	Object unmarshal = null;
+
+	try (Lease<Unmarshaller> lease = leaseUnmarshaller()) {
+
+	    unmarshal = lease.get().unmarshal(reader);
+	}
 
 	return doCast(type, unmarshal);
     }
@@ -332,8 +345,12 @@ public class CommonContext {
      */
     public static <T> T unmarshal(InputStream stream, Class<T> type) throws JAXBException {
 
-	Unmarshaller unmarshaller = createUnmarshaller();
-	Object unmarshal = unmarshaller.unmarshal(stream);
+	Object unmarshal = null;
+
+	try (Lease<Unmarshaller> lease = leaseUnmarshaller()) {
+
+	    unmarshal = lease.get().unmarshal(stream);
+	}
 
 	return doCast(type, unmarshal);
 
@@ -347,8 +364,12 @@ public class CommonContext {
      */
     public static <T> T unmarshal(File file, Class<T> type) throws JAXBException {
 
-	Unmarshaller unmarshaller = createUnmarshaller();
-	Object unmarshal = unmarshaller.unmarshal(file);
+	Object unmarshal = null;
+
+	try (Lease<Unmarshaller> lease = leaseUnmarshaller()) {
+
+	    unmarshal = lease.get().unmarshal(file);
+	}
 
 	return doCast(type, unmarshal);
 
@@ -371,12 +392,57 @@ public class CommonContext {
      */
     public static <T> T unmarshal(Node node, Class<T> type) throws JAXBException {
 
-	Unmarshaller unmarshaller = createUnmarshaller();
-	Object unmarshal = unmarshaller.unmarshal(node);
+	Object unmarshal = null;
+
+	try (Lease<Unmarshaller> lease = leaseUnmarshaller()) {
+
+	    unmarshal = lease.get().unmarshal(node);
+	}
 
 	return doCast(type, unmarshal);
     }
 
+    /**
+     * @param omitXMLdeclaration
+     * @param prefixMapper
+     * @param schemaLocation
+     * @param formattedOutput
+     * @return
+     * @throws JAXBException
+     */
+    private static Lease<Marshaller> leaseMarshaller(//
+	    boolean omitXMLdeclaration, //
+	    NamespacePrefixMapper prefixMapper, //
+	    String schemaLocation, //
+	    boolean formattedOutput) throws JAXBException {
+
+	String key = CommonContext.class.getName() + ":" + omitXMLdeclaration + ":" + formattedOutput + ":" + schemaLocation;
+
+	Lease<Marshaller> lease = JAXBPool.lease(key, () -> {
+
+	    Marshaller marshaller = createMarshaller(omitXMLdeclaration, prefixMapper, schemaLocation);
+	    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formattedOutput);
+
+	    return marshaller;
+	});
+
+	//
+	// the prefix mapper is not part of the key since a new one is usually provided at each call
+	//
+	lease.get().setProperty(NameSpace.NAMESPACE_PREFIX_MAPPER_IMPL, prefixMapper);
+
+	return lease;
+    }
+
+    /**
+     * @return
+     * @throws JAXBException
+     */
+    private static Lease<Unmarshaller> leaseUnmarshaller() throws JAXBException {
+
+	return JAXBPool.lease(CommonContext.class.getName() + ":unmarshaller", CommonContext::createUnmarshaller);
+    }
+
     /**
      * @return
      * @throws JAXBException
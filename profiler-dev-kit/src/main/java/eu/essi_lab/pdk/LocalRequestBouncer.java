@@ -21,11 +21,16 @@ package eu.essi_lab.pdk;
  * #L%
  */
 
-import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 
@@ -34,26 +39,140 @@ import eu.essi_lab.lib.utils.GSLoggerFactory;
 /**
  * Allows the coordination of execution of multiple simultaneous requests by enforcing some rules:
  * There is a maximum number of requests that a specific client IP can simultaneous execute. Additional requests from
- * the same IP beyond the maximum number will wait.
+ * the same IP beyond the maximum number will wait.<br>
+ * <br>
+ * Waiting requests are queued per IP and the IPs are served in round robin, so that an IP with many pending requests
+ * cannot delay the requests of the other IPs; IPs which already reached their maximum number of concurrent requests
+ * are skipped until one of their requests ends. Waiting requests are admitted as soon as a slot is freed by
+ * {@link #notifyExecutionEnded(String, String)}, with no polling
  * 
  * @author boldrini
  */
 public class LocalRequestBouncer extends AbstractRequestBouncer {
 
-    // private int maximumSimultaneousRequests = 1;
-    //
-    // private int maximumSimultaneousRequestsByIP = 1;
-
     Logger logger = GSLoggerFactory.getLogger(LocalRequestBouncer.class);
 
-    // a semaphore on the max total requests
+    /**
+     * @author boldrini
+     */
+    private static class Waiter {
+
+	private final String requestId;
+	private final long enqueued;
+	private final CompletableFuture<Boolean> future;
+	// guarded by the bouncer lock
+	private boolean admitted;
+	private boolean expired;
+
+	private Waiter(String requestId) {
+	    this.requestId = requestId;
+	    this.enqueued = System.currentTimeMillis();
+	    this.future = new CompletableFuture<>();
+	}
+    }
+
+    /**
+     * The state of a single IP; removed when the IP has no waiting and no running requests
+     * 
+     * @author boldrini
+     */
+    private static class IpState {
+
+	private final String ipAddress;
+	private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+	// number of waiters still pending (the queue can contain expired waiters, removed lazily)
+	private int waiting;
+	private int running;
+	private boolean inTurn;
+	private long admitted;
+	private long timeouts;
+	private long totalWaitTime;
+	private long maxWaitTime;
+
+	private IpState(String ipAddress) {
+	    this.ipAddress = ipAddress;
+	}
+    }
+
+    /**
+     * Statistics of the requests of a single IP
+     * 
+     * @author boldrini
+     */
+    public static class IpStatistics {
+
+	private final int queueLength;
+	private final int running;
+	private final long admitted;
+	private final long timeouts;
+	private final long averageWaitTime;
+	private final long maxWaitTime;
+
+	private IpStatistics(IpState state) {
+	    this.queueLength = state.waiting;
+	    this.running = state.running;
+	    this.admitted = state.admitted;
+	    this.timeouts = state.timeouts;
+	    this.averageWaitTime = state.admitted == 0 ? 0 : state.totalWaitTime / state.admitted;
+	    this.maxWaitTime = state.maxWaitTime;
+	}
+
+	/**
+	 * @return the number of waiting requests
+	 */
+	public int getQueueLength() {
+	    return queueLength;
+	}
+
+	/**
+	 * @return the number of executing requests
+	 */
+	public int getRunning() {
+	    return running;
+	}
+
+	public long getAdmitted() {
+	    return admitted;
+	}
+
+	public long getTimeouts() {
+	    return timeouts;
+	}
+
+	/**
+	 * @return the average wait time of the admitted requests, in milliseconds
+	 */
+	public long getAverageWaitTime() {
+	    return averageWaitTime;
+	}
+
+	/**
+	 * @return the maximum wait time of the admitted requests, in milliseconds
+	 */
+	public long getMaxWaitTime() {
+	    return maxWaitTime;
+	}
+
+	@Override
+	public String toString() {
+	    return "queue: " + queueLength + //
+		    ", running: " + running + //
+		    ", admitted: " + admitted + //
+		    ", timeouts: " + timeouts + //
+		    ", avg wait ms: " + averageWaitTime + //
+		    ", max wait ms: " + maxWaitTime;
+	}
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
     private int currentRequests = 0;
-    // a semaphore for each IP address
-    private final Map<String, Integer> currentRequestsPerIP = new HashMap<>();
-    // here the next ip will be the first element
-    private final LinkedList<SimpleEntry<String, Integer>> ipQueue = new LinkedList();
-    // by default it waits one second
-    private int waitTime = 1000;
+    // guarded by lock
+    private final Map<String, IpState> states = new HashMap<>();
+    // the IPs with waiting requests which can execute, in round robin order; guarded by lock
+    private final ArrayDeque<IpState> turns = new ArrayDeque<>();
+    // the number of executing requests with a given id; guarded by lock
+    private final Map<String, Integer> admitted = new HashMap<>();
 
     public LocalRequestBouncer(int maxTotalRequests, int maxTotalRequestsPerIP, int maximumConcurrentRequestsPerIp) {
 	super(maxTotalRequests, maxTotalRequestsPerIP, maximumConcurrentRequestsPerIp);
@@ -73,80 +192,90 @@ public class LocalRequestBouncer extends AbstractRequestBouncer {
      * @throws InterruptedException
      */
     public boolean askForExecutionAndWait(String ipAddress, String requestId, long timeout, TimeUnit unit) throws InterruptedException {
-	
+
 	ipAddress = validate(ipAddress);
 	requestId = validate(requestId);
 
-	logger.trace("REQUEST BOUNCER WAIT {} {}", ipAddress, requestId);
+	Waiter waiter = enqueue(ipAddress, requestId, timeout, unit);
 
-	synchronized (ipQueue) {
-	    boolean found = false;
-	    for (SimpleEntry<String, Integer> ipEntry : ipQueue) {
-		if (ipEntry.getKey().equals(ipAddress)) {
-		    ipEntry.setValue(ipEntry.getValue() + 1);
-		    found = true;
-		}
-	    }
-	    if (!found) {
-		ipQueue.add(new SimpleEntry<>(ipAddress, 1));
-	    }
-	}
+	try {
+
+	    return waiter.future.get();
 
-	long maximum = System.currentTimeMillis() + unit.toMillis(timeout);
-	while (System.currentTimeMillis() < maximum) {
-	    Thread.sleep(waitTime);
-
-	    synchronized (ipQueue) {
-		// if it's the turn of this ip address
-		SimpleEntry<String, Integer> first = ipQueue.getFirst();
-		;
-		if (first.getKey().equals(ipAddress)) {
-		    // if the maximum requests constraint is not met
-		    if (currentRequests < getMaximumConcurrentRequests()) {
-			// if the maximum requests per IP constraint is not met
-			currentRequestsPerIP.putIfAbsent(ipAddress, 0);
-			Integer current = currentRequestsPerIP.get(ipAddress);
-			if (current < getMaximumConcurrentRequestsPerIP()) {
-			    // it's your turn!
-			    Integer currentWaiting = first.getValue();
-			    if (currentWaiting.equals(1)) {
-				// was the last
-				ipQueue.removeFirst();
-			    } else {
-				// we put the others at the end, to let other ip addresses to execute
-				ipQueue.removeFirst();
-				first.setValue(--currentWaiting);
-				ipQueue.add(first);
-			    }
-			    currentRequestsPerIP.put(ipAddress, ++current);
-			    currentRequests++;
-			    logger.trace("REQUEST BOUNCER START {} {}", ipAddress, requestId);
-
-			    return true;
-			}
-		    }
-		}
+	} catch (InterruptedException ex) {
+
+	    if (!expire(ipAddress, requestId, waiter)) {
+		// admitted in the meantime
+		notifyExecutionEnded(ipAddress, requestId);
 	    }
+
+	    throw ex;
+
+	} catch (ExecutionException ex) {
+
+	    // the future is never completed exceptionally
+	    throw new IllegalStateException(ex.getCause());
 	}
-	logger.trace("REQUEST BOUNCER BLOCKED {} {}", ipAddress, requestId);
+    }
 
-	synchronized (ipQueue) {
-	    for (SimpleEntry<String, Integer> ipEntry : ipQueue) {
-		if (ipEntry.getKey().equals(ipAddress)) {
-		    Integer value = ipEntry.getValue();
-		    value = value - 1;
-		    if (value.equals(0)) {
-			ipQueue.remove(ipEntry);
-		    } else {
-			ipEntry.setValue(value);
-		    }
-		    break;
-		}
-	    }
+    /**
+     * Asynchronous version of {@link #askForExecutionAndWait(String, String, long, TimeUnit)}, which does not block the
+     * calling thread while the request is queued.<br>
+     * The returned future is completed with <code>true</code> when the request can start executing, or with
+     * <code>false</code> if no slot was made available within the given timeout. When completed with <code>true</code>
+     * the caller must call {@link #notifyExecutionEnded(String, String)} at execution end.<br>
+     * The future is completed by the thread which frees the slot, so dependent actions should be asynchronous
+     * 
+     * @param ipAddress
+     * @param requestId
+     * @param timeout
+     * @param unit
+     * @return
+     */
+    public CompletableFuture<Boolean> askForExecution(String ipAddress, String requestId, long timeout, TimeUnit unit) {
+
+	return enqueue(validate(ipAddress), validate(requestId), timeout, unit).future;
+    }
+
+    /**
+     * @param ipAddress
+     * @param requestId
+     * @param timeout
+     * @param unit
+     * @return
+     */
+    private Waiter enqueue(String ipAddress, String requestId, long timeout, TimeUnit unit) {
+
+	logger.trace("REQUEST BOUNCER WAIT {} {}", ipAddress, requestId);
+
+	Waiter waiter = new Waiter(requestId);
+
+	List<Waiter> ready;
+
+	lock.lock();
+	try {
+
+	    IpState state = states.computeIfAbsent(ipAddress, IpState::new);
+
+	    state.waiters.add(waiter);
+	    state.waiting++;
+
+	    updateTurn(state);
+
+	    ready = dispatch();
+
+	} finally {
+	    lock.unlock();
 	}
 
-	return false;
+	complete(ready);
+
+	if (!waiter.future.isDone()) {
 
+	    CompletableFuture.delayedExecutor(timeout, unit).execute(() -> expire(ipAddress, requestId, waiter));
+	}
+
+	return waiter;
     }
 
     /**
@@ -161,27 +290,221 @@ public class LocalRequestBouncer extends AbstractRequestBouncer {
 	requestId = validate(requestId);
 
 	logger.trace("REQUEST BOUNCER REMOVE {} {}", ipAddress, requestId);
-	synchronized (ipQueue) {
-	    currentRequests--;
-	    Integer current = currentRequestsPerIP.get(ipAddress);
-	    if (current == null) {
+
+	List<Waiter> ready;
+
+	lock.lock();
+	try {
+
+	    IpState state = states.get(ipAddress);
+	    Integer count = admitted.get(requestId);
+
+	    if (state == null || state.running == 0 || count == null) {
+		// e.g. the request was not admitted
 		logger.trace("REQUEST BOUNCER REQUEST NOT FOUND {} {}", ipAddress, requestId);
 		return false;
 	    }
-	    current--;
-	    if (current == 0) {
-		currentRequestsPerIP.remove(ipAddress);
+
+	    if (count == 1) {
+		admitted.remove(requestId);
 	    } else {
-		currentRequestsPerIP.put(ipAddress, current);
+		admitted.put(requestId, count - 1);
 	    }
-	    return true;
+
+	    currentRequests--;
+	    state.running--;
+
+	    updateTurn(state);
+	    removeIfIdle(state);
+
+	    ready = dispatch();
+
+	} finally {
+	    lock.unlock();
 	}
 
+	complete(ready);
+
+	return true;
+    }
+
+    /**
+     * @return the statistics of the IPs with waiting or running requests
+     */
+    public Map<String, IpStatistics> getStatistics() {
+
+	lock.lock();
+	try {
+
+	    Map<String, IpStatistics> out = new HashMap<>();
+	    states.values().forEach(state -> out.put(state.ipAddress, new IpStatistics(state)));
+
+	    return Collections.unmodifiableMap(out);
+
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * @return the total number of waiting requests
+     */
+    public int getQueueLength() {
+
+	lock.lock();
+	try {
+
+	    return states.values().stream().mapToInt(state -> state.waiting).sum();
+
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * @return the number of executing requests
+     */
+    public int getCurrentRequests() {
+
+	lock.lock();
+	try {
+
+	    return currentRequests;
+
+	} finally {
+	    lock.unlock();
+	}
     }
 
+    /**
+     * Waiting requests are now notified when a slot is freed, so the wait time is no longer used
+     * 
+     * @param ms
+     */
+    @Deprecated
     public void setWaitTime(int ms) {
-	this.waitTime = ms;
+    }
+
+    /**
+     * Admits the waiting requests while slots are available; to be called with the lock held
+     * 
+     * @return the admitted waiters, to be completed after releasing the lock
+     */
+    private List<Waiter> dispatch() {
+
+	List<Waiter> ready = new ArrayList<>();
+
+	while (currentRequests < getMaximumConcurrentRequests() && !turns.isEmpty()) {
+
+	    IpState state = turns.poll();
+	    state.inTurn = false;
+
+	    Waiter waiter = state.waiters.poll();
+
+	    if (waiter == null || waiter.expired) {
+		// expired waiter
+		updateTurn(state);
+		removeIfIdle(state);
+		continue;
+	    }
+
+	    long waitTime = System.currentTimeMillis() - waiter.enqueued;
+
+	    state.waiting--;
+	    state.running++;
+	    state.admitted++;
+	    state.totalWaitTime += waitTime;
+	    state.maxWaitTime = Math.max(state.maxWaitTime, waitTime);
+
+	    currentRequests++;
+	    admitted.merge(waiter.requestId, 1, Integer::sum);
+	    waiter.admitted = true;
+
+	    logger.trace("REQUEST BOUNCER START {} {}", state.ipAddress, waiter.requestId);
 
+	    ready.add(waiter);
+
+	    // back to the end of the turns, to let other ip addresses to execute
+	    updateTurn(state);
+	}
+
+	return ready;
+    }
+
+    /**
+     * Puts the IP at the end of the turns if it has waiting requests and can execute; to be called with the lock held
+     * 
+     * @param state
+     */
+    private void updateTurn(IpState state) {
+
+	if (!state.inTurn && !state.waiters.isEmpty() && state.running < getMaximumConcurrentRequestsPerIP()) {
+
+	    state.inTurn = true;
+	    turns.add(state);
+	}
     }
 
+    /**
+     * To be called with the lock held
+     * 
+     * @param state
+     */
+    private void removeIfIdle(IpState state) {
+
+	if (state.running == 0 && state.waiters.isEmpty() && !state.inTurn) {
+
+	    states.remove(state.ipAddress);
+	}
+    }
+
+    /**
+     * Removes the waiter from the queue, unless it was already admitted, and completes it after releasing the lock
+     * 
+     * @param ipAddress
+     * @param requestId
+     * @param waiter
+     * @return <code>false</code> if the waiter was already admitted
+     */
+    private boolean expire(String ipAddress, String requestId, Waiter waiter) {
+
+	lock.lock();
+	try {
+
+	    if (waiter.admitted) {
+		return false;
+	    }
+
+	    if (waiter.expired) {
+		return true;
+	    }
+
+	    waiter.expired = true;
+
+	    IpState state = states.get(ipAddress);
+	    if (state != null) {
+		state.waiting--;
+		state.timeouts++;
+	    }
+
+	} finally {
+	    lock.unlock();
+	}
+
+	// as the admitted waiters, the expired one is completed outside the lock since its future can run dependent
+	// actions; the expired flag is already set, so the waiter can no longer be admitted
+	waiter.future.complete(false);
+
+	logger.trace("REQUEST BOUNCER BLOCKED {} {}", ipAddress, requestId);
+
+	return true;
+    }
+
+    /**
+     * @param ready
+     */
+    private void complete(List<Waiter> ready) {
+
+	ready.forEach(waiter -> waiter.future.complete(true));
+    }
 }
@@ -306,6 +306,18 @@ public abstract class Profiler<PS extends ProfilerSetting> implements Configurab
 	return setting;
     }
 
+    /**
+     * Returns <code>true</code> if this profiler keeps no state related to the handled requests, so that a single
+     * configured instance can handle concurrent requests and it can be reused by the profiler services.<br>
+     * Default implementation returns <code>false</code>
+     *
+     * @return
+     */
+    public boolean isStateless() {
+
+	return false;
+    }
+
     @Override
     public String getType() {
 
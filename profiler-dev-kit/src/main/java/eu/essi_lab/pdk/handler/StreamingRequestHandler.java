@@ -54,14 +54,8 @@ public abstract class StreamingRequestHandler extends DefaultRequestHandler {
 
     private static final String STREAMING_REQUEST_HANDLER_AUTHORIZATION_ERROR = "STREAMING_REQUEST_HANDLER_AUTHORIZATION_ERROR";
 
-    /**
-     * 
-     */
-    private static final Object LOCK = new Object();
-
     private static IDiscoveryStringExecutor discoveryExecutor;
     private static IAccessExecutor accessExecutor;
-    private static XACMLAuthorizer authorizer;
 
     static {
 	ServiceLoader<IDiscoveryStringExecutor> loader = ServiceLoader.load(IDiscoveryStringExecutor.class);
@@ -69,12 +63,6 @@ public abstract class StreamingRequestHandler extends DefaultRequestHandler {
 
 	ServiceLoader<IAccessExecutor> accessLoader = ServiceLoader.load(IAccessExecutor.class);
 	accessExecutor = accessLoader.iterator().next();
-
-	try {
-	    authorizer = new XACMLAuthorizer();
-	} catch (Exception e) {
-	    GSLoggerFactory.getLogger(StreamingRequestHandler.class).error(e);
-	}
     }
 
     /**
@@ -112,13 +100,12 @@ public abstract class StreamingRequestHandler extends DefaultRequestHandler {
 		WebRequestTransformer.setView(viewId.get(), message.getDataBaseURI(), message);
 	    }
 
-	    synchronized (LOCK) {
+	    // authorizers share the same engine, so they are cheap to create
+	    try (XACMLAuthorizer authorizer = new XACMLAuthorizer()) {
 
 		authorized = authorizer.isAuthorized(message);
 	    }
 
-	    // authorizer.close();
-
 	} catch (Exception ex) {
 
 	    GSLoggerFactory.getLogger(getClass()).error(ex.getMessage(), ex);
@@ -22,15 +22,21 @@ package eu.essi_lab.pdk.rsm;
  */
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
-import eu.essi_lab.cfga.gs.ConfigurationWrapper;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.lib.utils.SharedExecutor;
 import eu.essi_lab.messages.DiscoveryMessage;
 import eu.essi_lab.messages.ResultSet;
 import eu.essi_lab.messages.count.CountSet;
 import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.exceptions.ErrorInfo;
 import eu.essi_lab.model.exceptions.GSException;
 import eu.essi_lab.model.resource.GSResource;
 
@@ -82,8 +88,43 @@ public abstract class DiscoveryResultSetMapper<T>
 	PRIORITY_TO_CORE_METADATA
     }
 
+    /**
+     * Creates the objects of the {@link DiscoveryResultSetMapper#getScratch(String, ScratchFactory)} area
+     * 
+     * @author Fabrizio
+     * @param <S>
+     */
+    @FunctionalInterface
+    public interface ScratchFactory<S> {
+
+	/**
+	 * @return
+	 * @throws Exception
+	 */
+	S create() throws Exception;
+    }
+
+    /**
+     * System property which sets the number of threads mapping the resources of a result set; 1 maps them
+     * sequentially
+     */
+    public static final String MAPPING_THREADS_PROPERTY = "resultSetMapper.mappingThreads";
+
+    /**
+     * Result sets smaller than this size are always mapped sequentially
+     */
+    public static final int MIN_PARALLEL_MAPPING_SIZE = 20;
+
+    private static final String MAPPING_CALLER = "DiscoveryResultSetMapper";
+
+    private static final String MAPPING_INTERRUPTED_ERROR = "RESULT_SET_MAPPER_MAPPING_INTERRUPTED_ERROR";
+
+    private static final String MAPPING_ERROR = "RESULT_SET_MAPPER_MAPPING_ERROR";
+
     protected MappingStrategy strategy;
 
+    private ThreadLocal<HashMap<String, Object>> scratch = ThreadLocal.withInitial(HashMap::new);
+
     /**
      * Creates a new <code>ResultSetMapper</code> with the {@value MappingStrategy#PRIORITY_TO_CORE_METADATA}
      */
@@ -132,16 +173,15 @@ public abstract class DiscoveryResultSetMapper<T>
 	//
 	ResultSet<T> mappedResSet = new ResultSet<T>(resultSet);
 
-	List<T> out = new ArrayList<T>();
-	mappedResSet.setResultsList(out);
+	MappingContext context = MappingContext.of(message);
 
-	List<String> ids = ConfigurationWrapper.getGDCSourceSetting().getSelectedSourcesIds();
+	List<GSResource> resources = resultSet.getResultsList();
 
-	for (GSResource res : resultSet.getResultsList()) {
+	for (GSResource res : resources) {
 
 	    GSSource source = res.getSource();
 
-	    if (Objects.nonNull(source) && ids.contains(source.getUniqueIdentifier())) {
+	    if (Objects.nonNull(source) && context.isGDCSource(source.getUniqueIdentifier())) {
 
 		res.getPropertyHandler().setIsGDC(true);
 
@@ -149,13 +189,22 @@ public abstract class DiscoveryResultSetMapper<T>
 
 		GSLoggerFactory.getLogger(getClass()).trace("Resource without source: " + res.getOriginalId());
 	    }
+	}
 
-	    try {
-		T value = map(message, res);
-		out.add(value);
-	    } catch (GSException e) {
+	int threads = getMappingThreads();
+
+	if (isParallelMappingSupported() && threads > 1 && resources.size() >= MIN_PARALLEL_MAPPING_SIZE) {
+
+	    mappedResSet.setResultsList(mapParallel(message, resources, threads));
+
+	} else {
+
+	    List<T> out = new ArrayList<T>();
+	    mappedResSet.setResultsList(out);
 
-		throw e;
+	    for (GSResource res : resources) {
+
+		out.add(map(message, res));
 	    }
 	}
 
@@ -175,6 +224,116 @@ public abstract class DiscoveryResultSetMapper<T>
      */
     public abstract T map(DiscoveryMessage message, GSResource resource) throws GSException;
 
+    /**
+     * Returns <code>true</code> if {@link #map(DiscoveryMessage, GSResource)} can be invoked concurrently, so that the
+     * resources of a result set can be mapped in parallel. The per-thread objects required by the mapping should be
+     * kept in the {@link #getScratch(String, ScratchFactory)} area.<br>
+     * Default implementation returns <code>false</code>
+     * 
+     * @return
+     */
+    protected boolean isParallelMappingSupported() {
+
+	return false;
+    }
+
+    /**
+     * @return the number of threads mapping the resources of a result set, set with the
+     *         {@value #MAPPING_THREADS_PROPERTY} system property. Default is the number of available processors
+     */
+    protected int getMappingThreads() {
+
+	return Integer.getInteger(MAPPING_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the object with the given <code>key</code> of the scratch area of the calling thread, creating it if
+     * missing. The scratch area is owned by this mapper, so the objects which are expensive to create and not thread
+     * safe (e.g.: transformers, marshallers) can be reused by all the resources mapped by the same thread
+     * 
+     * @param key
+     * @param factory
+     * @return
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    protected <S> S getScratch(String key, ScratchFactory<S> factory) throws Exception {
+
+	HashMap<String, Object> area = scratch.get();
+
+	S object = (S) area.get(key);
+
+	if (object == null) {
+
+	    object = factory.create();
+	    area.put(key, object);
+	}
+
+	return object;
+    }
+
+    /**
+     * Maps the given resources in parallel on the {@link SharedExecutor}, preserving their order
+     * 
+     * @param message
+     * @param resources
+     * @param threads
+     * @return
+     * @throws GSException
+     */
+    private List<T> mapParallel(DiscoveryMessage message, List<GSResource> resources, int threads) throws GSException {
+
+	List<Callable<T>> tasks = resources.stream().//
+		map(res -> (Callable<T>) () -> map(message, res)).//
+		collect(Collectors.toList());
+
+	List<Future<T>> futures = null;
+
+	try {
+	    futures = SharedExecutor.invokeAll(MAPPING_CALLER, tasks, threads, 0);
+
+	} catch (InterruptedException ex) {
+
+	    Thread.currentThread().interrupt();
+
+	    throw GSException.createException(getClass(), MAPPING_INTERRUPTED_ERROR, ex);
+	}
+
+	List<T> out = new ArrayList<T>();
+
+	for (Future<T> future : futures) {
+
+	    try {
+
+		out.add(future.get());
+
+	    } catch (ExecutionException ex) {
+
+		if (ex.getCause() instanceof GSException) {
+
+		    throw (GSException) ex.getCause();
+		}
+
+		throw GSException.createException(//
+			getClass(), //
+			ex.getCause().getMessage(), //
+			null, //
+			ErrorInfo.ERRORTYPE_INTERNAL, //
+			ErrorInfo.SEVERITY_ERROR, //
+			MAPPING_ERROR, //
+			ex.getCause());
+
+	    } catch (InterruptedException ex) {
+
+		Thread.currentThread().interrupt();
+
+		throw GSException.createException(getClass(), MAPPING_INTERRUPTED_ERROR, ex);
+	    }
+	}
+
+	return out;
+    }
+
     /**
      * @return
      */
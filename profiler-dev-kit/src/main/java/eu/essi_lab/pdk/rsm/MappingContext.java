@@ -0,0 +1,103 @@
+package eu.essi_lab.pdk.rsm;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import eu.essi_lab.cfga.gs.ConfigurationWrapper;
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.model.GSProperty;
+
+/**
+ * The configuration required by the {@link DiscoveryResultSetMapper}s, resolved once per request and attached to the
+ * {@link DiscoveryMessage}, so that the pages of the same request (e.g. in the iterated workflows) and the resources
+ * mapped in parallel do not access the configuration again
+ * 
+ * @author Fabrizio
+ */
+public class MappingContext implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String MAPPING_CONTEXT = "MAPPING_CONTEXT";
+
+    private HashSet<String> gdcSourceIds;
+
+    /**
+     * @param gdcSourceIds
+     */
+    public MappingContext(Collection<String> gdcSourceIds) {
+
+	this.gdcSourceIds = new HashSet<>(gdcSourceIds);
+    }
+
+    /**
+     * Returns the context attached to the given <code>message</code>; if missing, the context is resolved from the
+     * current configuration and attached to the message
+     * 
+     * @param message
+     * @return
+     */
+    public static MappingContext of(DiscoveryMessage message) {
+
+	MappingContext context = message.getHeader().get(MAPPING_CONTEXT, MappingContext.class);
+
+	if (context == null) {
+
+	    context = new MappingContext(ConfigurationWrapper.getGDCSourceSetting().getSelectedSourcesIds());
+
+	    context.attach(message);
+	}
+
+	return context;
+    }
+
+    /**
+     * Attaches this context to the given <code>message</code>
+     * 
+     * @param message
+     */
+    public void attach(DiscoveryMessage message) {
+
+	message.getHeader().add(new GSProperty<MappingContext>(MAPPING_CONTEXT, this));
+    }
+
+    /**
+     * @param sourceId
+     * @return <code>true</code> if the source with the given identifier is a GDC source
+     */
+    public boolean isGDCSource(String sourceId) {
+
+	return gdcSourceIds.contains(sourceId);
+    }
+
+    /**
+     * @return
+     */
+    public Set<String> getGDCSourceIds() {
+
+	return new HashSet<>(gdcSourceIds);
+    }
+}
@@ -81,4 +81,13 @@ public class DublinCore_Brief_ResultSetMapper extends DublinCore_Full_ResultSetM
 		    BRIEF_RES_SET_MAPPPER_AS_DOCUMENT_ERROR);
 	}
     }
+
+    /**
+     * Like the full record, a new brief record is built for each resource
+     */
+    @Override
+    protected boolean isParallelMappingSupported() {
+
+	return getClass() == DublinCore_Brief_ResultSetMapper.class;
+    }
 }
@@ -173,6 +173,17 @@ public class DublinCore_Full_ResultSetMapper extends DiscoveryResultSetMapper<El
 	}
     }
 
+    /**
+     * A new record is built and marshalled for each resource, and the requested element names are only read, so the
+     * resources can be mapped in parallel. The summary and brief mappers opt in on their own; other subclasses are
+     * mapped sequentially unless they override this method
+     */
+    @Override
+    protected boolean isParallelMappingSupported() {
+
+	return getClass() == DublinCore_Full_ResultSetMapper.class;
+    }
+
     protected boolean isSummaryRecord(String originalMetadata) {
 
 	return originalMetadata.toLowerCase().contains("summaryrecord");
@@ -88,4 +88,13 @@ public class DublinCore_Summary_ResultSetMapper extends DublinCore_Full_ResultSe
 		    SUMMARY_RES_SET_MAPPPER_AS_DOCUMENT_ERROR);
 	}
     }
+
+    /**
+     * Like the full record, a new summary record is built for each resource
+     */
+    @Override
+    protected boolean isParallelMappingSupported() {
+
+	return getClass() == DublinCore_Summary_ResultSetMapper.class;
+    }
 }
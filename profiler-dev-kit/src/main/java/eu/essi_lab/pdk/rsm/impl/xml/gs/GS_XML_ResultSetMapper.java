@@ -58,6 +58,16 @@ public class GS_XML_ResultSetMapper extends DiscoveryResultSetMapper<String> {
 	}
     }
 
+    /**
+     * Each resource serializes itself and this mapper has no fields, so the resources can be mapped in parallel.
+     * Subclasses which add their own state are mapped sequentially, unless they override this method
+     */
+    @Override
+    protected boolean isParallelMappingSupported() {
+
+	return getClass() == GS_XML_ResultSetMapper.class;
+    }
+
     /**
      * Returns the {@link ESSILabProvider}
      */
@@ -21,16 +21,21 @@ package eu.essi_lab.pdk.rsm.impl.xml.iso19139;
  * #L%
  */
 
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 
 import javax.xml.namespace.QName;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.Element;
 
 import eu.essi_lab.jaxb.common.CommonNameSpaceContext;
 import eu.essi_lab.jaxb.csw._2_0_2.ElementSetType;
 import eu.essi_lab.lib.xml.XMLDocumentReader;
-import eu.essi_lab.lib.xml.XMLNodeReader;
+import eu.essi_lab.lib.xml.XMLFactories;
 import eu.essi_lab.model.pluggable.ESSILabProvider;
 import eu.essi_lab.model.pluggable.Provider;
 import eu.essi_lab.pdk.rsm.MappingSchema;
@@ -40,6 +45,8 @@ import eu.essi_lab.pdk.rsm.MappingSchema;
  */
 public class GMD_2007_ResultSetMapper extends GMD_ResultSetMapper {
 
+    private static final String TRANSFORMER = "transformer";
+
     /**
      * The schema uri of {@link #GMD_2007_MAPPING_SCHEMA}
      */
@@ -99,9 +106,8 @@ public class GMD_2007_ResultSetMapper extends GMD_ResultSetMapper {
 	if (element == null) {
 	    return null;
 	}
-	XMLNodeReader reader = new XMLNodeReader(element);
 	try {
-	    String metadata = reader.asString();
+	    String metadata = asString(element);
 	    metadata = metadata.replace("http://www.opengis.net/gml/3.2", "http://www.opengis.net/existing/gml/3.2");
 	    metadata = metadata.replace("http://www.opengis.net/gml", "http://www.opengis.net/gml/3.2");
 	    metadata = metadata.replace("http://www.opengis.net/existing/gml/3.2", "http://www.opengis.net/gml/3.2");
@@ -115,4 +121,40 @@ public class GMD_2007_ResultSetMapper extends GMD_ResultSetMapper {
 	}
 	return element;
     }
+
+    /**
+     * Serializes the given element with the transformer of the scratch area of the calling thread
+     * 
+     * @param element
+     * @return
+     * @throws Exception
+     */
+    private String asString(Element element) throws Exception {
+
+	Transformer transformer = getScratch(TRANSFORMER, () -> {
+
+	    Transformer out = XMLFactories.newTransformerFactory().newTransformer();
+	    out.setOutputProperty(OutputKeys.INDENT, "yes");
+	    out.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+	    out.setOutputProperty("omit-xml-declaration", "no");
+
+	    return out;
+	});
+
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+	transformer.transform(new DOMSource(element), new StreamResult(outputStream));
+
+	return outputStream.toString("UTF-8");
+    }
+
+    /**
+     * The decoration serializes the elements with the transformer of the calling thread and parses them again into a new
+     * document, so it can run in parallel
+     */
+    @Override
+    protected boolean isParallelMappingSupported() {
+
+	return getClass() == GMD_2007_ResultSetMapper.class;
+    }
 }
@@ -167,6 +167,17 @@ public class GMD_ResultSetMapper extends DiscoveryResultSetMapper<Element> {
 	}
     }
 
+    /**
+     * The original and the core metadata are parsed into new documents for each resource, and the element set and names
+     * are only read, so the resources can be mapped in parallel. Since subclasses can decorate the mapped elements, the
+     * GMI and GMD 2007 mappers opt in on their own and the other ones are mapped sequentially
+     */
+    @Override
+    protected boolean isParallelMappingSupported() {
+
+	return getClass() == GMD_ResultSetMapper.class;
+    }
+
     public Element decorateElement(Element element) {
 	return element;
     }
@@ -103,4 +103,13 @@ public class GMI_ResultSetMapper extends GMD_ResultSetMapper {
 
 	return new ESSILabProvider();
     }
+
+    /**
+     * Only the target namespace changes, the elements are not decorated
+     */
+    @Override
+    protected boolean isParallelMappingSupported() {
+
+	return getClass() == GMI_ResultSetMapper.class;
+    }
 }
@@ -0,0 +1,103 @@
+package eu.essi_lab.pdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author boldrini
+ */
+public class LocalRequestBouncerTest {
+
+    @Test
+    public void testWakeUpOnExecutionEnded() throws Exception {
+
+	LocalRequestBouncer bouncer = new LocalRequestBouncer(1, 1, 100);
+
+	assertTrue(bouncer.askForExecutionAndWait("ip1", "id1", 10, TimeUnit.SECONDS));
+
+	CompletableFuture<Boolean> second = bouncer.askForExecution("ip1", "id2", 10, TimeUnit.SECONDS);
+
+	assertFalse(second.isDone());
+	assertEquals(1, bouncer.getStatistics().get("ip1").getQueueLength());
+
+	assertTrue(bouncer.notifyExecutionEnded("ip1", "id1"));
+
+	// admitted by the notification itself, with no polling
+	assertTrue(second.isDone());
+	assertTrue(second.get());
+
+	assertTrue(bouncer.notifyExecutionEnded("ip1", "id2"));
+
+	assertEquals(0, bouncer.getCurrentRequests());
+	assertTrue(bouncer.getStatistics().isEmpty());
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+
+	LocalRequestBouncer bouncer = new LocalRequestBouncer(1, 1, 100);
+
+	assertTrue(bouncer.askForExecutionAndWait("ip1", "running", 10, TimeUnit.SECONDS));
+
+	List<String> order = new ArrayList<>();
+
+	List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+	// ip1 queues three requests before ip2, but the IPs are served in turns
+	for (String id : new String[] { "ip1-a", "ip1-b", "ip1-c", "ip2-a", "ip2-b" }) {
+
+	    String ip = id.substring(0, 3);
+
+	    futures.add(bouncer.askForExecution(ip, id, 10, TimeUnit.SECONDS).thenApply(admitted -> {
+		synchronized (order) {
+		    order.add(id);
+		}
+		return admitted;
+	    }));
+	}
+
+	bouncer.notifyExecutionEnded("ip1", "running");
+
+	for (int i = 0; i < futures.size(); i++) {
+
+	    String id;
+	    synchronized (order) {
+		while (order.size() <= i) {
+		    order.wait(10);
+		}
+		id = order.get(i);
+	    }
+
+	    bouncer.notifyExecutionEnded(id.substring(0, 3), id);
+	}
+
+	assertEquals(List.of("ip2-a", "ip1-a", "ip2-b", "ip1-b", "ip1-c"), order);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+
+	LocalRequestBouncer bouncer = new LocalRequestBouncer(1, 1, 100);
+
+	assertTrue(bouncer.askForExecutionAndWait("ip1", "id1", 10, TimeUnit.SECONDS));
+
+	assertFalse(bouncer.askForExecutionAndWait("ip2", "id2", 200, TimeUnit.MILLISECONDS));
+
+	// a request which was not admitted does not free any slot
+	assertFalse(bouncer.notifyExecutionEnded("ip2", "id2"));
+	assertEquals(1, bouncer.getCurrentRequests());
+	assertEquals(1, bouncer.getStatistics().get("ip2").getTimeouts());
+	assertEquals(0, bouncer.getQueueLength());
+
+	assertTrue(bouncer.notifyExecutionEnded("ip1", "id1"));
+	assertEquals(0, bouncer.getCurrentRequests());
+    }
+}
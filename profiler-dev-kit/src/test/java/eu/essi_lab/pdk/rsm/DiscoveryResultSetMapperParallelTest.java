@@ -0,0 +1,325 @@
+package eu.essi_lab.pdk.rsm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.exceptions.ErrorInfo;
+import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.pdk.rsm.impl.xml.dc.DublinCore_Brief_ResultSetMapper;
+import eu.essi_lab.pdk.rsm.impl.xml.dc.DublinCore_Full_ResultSetMapper;
+import eu.essi_lab.pdk.rsm.impl.xml.dc.DublinCore_Summary_ResultSetMapper;
+import eu.essi_lab.pdk.rsm.impl.xml.gs.GS_XML_ResultSetMapper;
+import eu.essi_lab.pdk.rsm.impl.xml.iso19139.GMD_2007_ResultSetMapper;
+import eu.essi_lab.pdk.rsm.impl.xml.iso19139.GMD_ResultSetMapper;
+import eu.essi_lab.pdk.rsm.impl.xml.iso19139.GMI_ResultSetMapper;
+
+/**
+ * @author Fabrizio
+ */
+public class DiscoveryResultSetMapperParallelTest {
+
+    /**
+     * The number of resources of the benchmark can be set with the <code>mapping.benchmarkResources</code> property,
+     * e.g. -Dmapping.benchmarkResources=10000
+     */
+    private static final int BENCHMARK_RESOURCES = Integer.getInteger("mapping.benchmarkResources", 2000);
+
+    /**
+     * A mapper which returns the original identifier of the resources after the given delay, and records the mapping
+     * threads
+     */
+    private static class DelayedMapper extends GS_XML_ResultSetMapper {
+
+	private long delay;
+	private boolean parallel;
+	private String failingId;
+	private Set<String> threads = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @param delay
+	 * @param parallel
+	 */
+	private DelayedMapper(long delay, boolean parallel) {
+
+	    this.delay = delay;
+	    this.parallel = parallel;
+	}
+
+	@Override
+	public String map(DiscoveryMessage message, GSResource resource) throws GSException {
+
+	    threads.add(Thread.currentThread().getName());
+
+	    if (resource.getOriginalId().equals(failingId)) {
+
+		throw GSException.createException(DelayedMapper.class, "error", null, ErrorInfo.ERRORTYPE_INTERNAL, ErrorInfo.SEVERITY_ERROR,
+			"errorId");
+	    }
+
+	    try {
+		Thread.sleep(delay);
+
+	    } catch (InterruptedException e) {
+
+		Thread.currentThread().interrupt();
+	    }
+
+	    return resource.getOriginalId();
+	}
+
+	@Override
+	protected boolean isParallelMappingSupported() {
+
+	    return parallel;
+	}
+
+	@Override
+	protected int getMappingThreads() {
+
+	    return 4;
+	}
+    }
+
+    @After
+    public void clear() {
+
+	System.clearProperty(DiscoveryResultSetMapper.MAPPING_THREADS_PROPERTY);
+    }
+
+    @Test
+    public void orderTest() throws GSException {
+
+	DelayedMapper mapper = new DelayedMapper(2, true);
+
+	ResultSet<GSResource> resultSet = createResultSet(100);
+
+	ResultSet<String> mapped = mapper.map(createMessage(), resultSet);
+
+	Assert.assertEquals(toIds(resultSet), mapped.getResultsList());
+	Assert.assertSame(resultSet.getCountResponse(), mapped.getCountResponse());
+
+	Assert.assertTrue(mapper.threads.size() > 1);
+
+	//
+	// the resources of the GDC source are marked
+	//
+
+	for (GSResource resource : resultSet.getResultsList()) {
+
+	    Assert.assertEquals(resource.getSource().getUniqueIdentifier().equals("gdc"), resource.getPropertyHandler().isGDC());
+	}
+    }
+
+    @Test
+    public void sequentialTest() throws GSException {
+
+	//
+	// small result sets
+	//
+
+	DelayedMapper mapper = new DelayedMapper(0, true);
+
+	ResultSet<GSResource> resultSet = createResultSet(DiscoveryResultSetMapper.MIN_PARALLEL_MAPPING_SIZE - 1);
+
+	Assert.assertEquals(toIds(resultSet), mapper.map(createMessage(), resultSet).getResultsList());
+	Assert.assertEquals(Arrays.asList(Thread.currentThread().getName()), new ArrayList<>(mapper.threads));
+
+	//
+	// mapper not supporting the parallel mapping
+	//
+
+	mapper = new DelayedMapper(0, false);
+
+	resultSet = createResultSet(100);
+
+	Assert.assertEquals(toIds(resultSet), mapper.map(createMessage(), resultSet).getResultsList());
+	Assert.assertEquals(Arrays.asList(Thread.currentThread().getName()), new ArrayList<>(mapper.threads));
+
+	//
+	// a single mapping thread
+	//
+
+	System.setProperty(DiscoveryResultSetMapper.MAPPING_THREADS_PROPERTY, "1");
+
+	GS_XML_ResultSetMapper xmlMapper = new GS_XML_ResultSetMapper();
+
+	Assert.assertEquals(1, xmlMapper.getMappingThreads());
+	Assert.assertEquals(100, xmlMapper.map(createMessage(), resultSet).getResultsList().size());
+    }
+
+    @Test(expected = GSException.class)
+    public void errorTest() throws GSException {
+
+	DelayedMapper mapper = new DelayedMapper(0, true);
+	mapper.failingId = "id-50";
+
+	mapper.map(createMessage(), createResultSet(100));
+    }
+
+    @Test
+    public void optInTest() {
+
+	List<DiscoveryResultSetMapper<?>> reviewed = Arrays.asList(//
+		new GS_XML_ResultSetMapper(), //
+		new DublinCore_Full_ResultSetMapper(), //
+		new DublinCore_Summary_ResultSetMapper(), //
+		new DublinCore_Brief_ResultSetMapper(), //
+		new GMD_ResultSetMapper(), //
+		new GMI_ResultSetMapper(), //
+		new GMD_2007_ResultSetMapper());
+
+	reviewed.forEach(mapper -> Assert.assertTrue(mapper.getClass().getSimpleName(), mapper.isParallelMappingSupported()));
+
+	// the subclasses do not inherit the opt in
+	List<DiscoveryResultSetMapper<?>> subclasses = Arrays.asList(//
+		new GS_XML_ResultSetMapper() {
+		}, //
+		new DublinCore_Full_ResultSetMapper() {
+		}, //
+		new GMD_ResultSetMapper() {
+		}, //
+		new GMD_2007_ResultSetMapper() {
+		});
+
+	subclasses.forEach(mapper -> Assert.assertFalse(mapper.isParallelMappingSupported()));
+    }
+
+    @Test
+    public void contextTest() {
+
+	DiscoveryMessage message = createMessage();
+
+	MappingContext context = MappingContext.of(message);
+
+	// the context is resolved once per request
+	Assert.assertSame(context, MappingContext.of(message));
+	Assert.assertTrue(context.isGDCSource("gdc"));
+	Assert.assertFalse(context.isGDCSource("source"));
+    }
+
+    @Test
+    public void benchmarkTest() throws GSException {
+
+	ResultSet<GSResource> resultSet = createResultSet(BENCHMARK_RESOURCES);
+
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	System.out.println("Resources: " + BENCHMARK_RESOURCES + ", mapping threads: " + threads);
+
+	//
+	// GS XML mapping, CPU bound
+	//
+
+	GS_XML_ResultSetMapper mapper = new GS_XML_ResultSetMapper();
+
+	// warm up
+	mapper.map(createMessage(), resultSet);
+
+	System.setProperty(DiscoveryResultSetMapper.MAPPING_THREADS_PROPERTY, "1");
+
+	long sequential = throughput(mapper, resultSet);
+
+	System.setProperty(DiscoveryResultSetMapper.MAPPING_THREADS_PROPERTY, String.valueOf(threads));
+
+	long parallel = throughput(mapper, resultSet);
+
+	System.out.println("GS XML mapping: " + sequential + " records/s sequential, " + parallel + " records/s parallel");
+
+	//
+	// mapping with 1 ms of latency per resource (e.g. a remote vocabulary)
+	//
+
+	ResultSet<GSResource> smallResultSet = createResultSet(200);
+
+	long delayedSequential = throughput(new DelayedMapper(1, false), smallResultSet);
+
+	long delayedParallel = throughput(new DelayedMapper(1, true), smallResultSet);
+
+	System.out.println("Delayed mapping: " + delayedSequential + " records/s sequential, " + delayedParallel + " records/s parallel");
+
+	Assert.assertTrue(delayedParallel > delayedSequential);
+    }
+
+    /**
+     * @param mapper
+     * @param resultSet
+     * @return the mapped records per second
+     * @throws GSException
+     */
+    private long throughput(DiscoveryResultSetMapper<String> mapper, ResultSet<GSResource> resultSet) throws GSException {
+
+	long start = System.nanoTime();
+
+	mapper.map(createMessage(), resultSet);
+
+	long time = Math.max(1, System.nanoTime() - start);
+
+	return resultSet.getResultsList().size() * 1000000000L / time;
+    }
+
+    /**
+     * @return a message with a mapping context, so that the configuration is not required
+     */
+    private DiscoveryMessage createMessage() {
+
+	DiscoveryMessage message = new DiscoveryMessage();
+
+	new MappingContext(Arrays.asList("gdc")).attach(message);
+
+	return message;
+    }
+
+    /**
+     * @param size
+     * @return
+     */
+    private ResultSet<GSResource> createResultSet(int size) {
+
+	GSSource source = new GSSource();
+	source.setUniqueIdentifier("source");
+
+	GSSource gdcSource = new GSSource();
+	gdcSource.setUniqueIdentifier("gdc");
+
+	ResultSet<GSResource> resultSet = new ResultSet<>();
+
+	for (int i = 0; i < size; i++) {
+
+	    Dataset dataset = new Dataset();
+	    dataset.setSource(i % 10 == 0 ? gdcSource : source);
+	    dataset.setOriginalId("id-" + i);
+	    dataset.setPrivateId("id-" + i);
+	    dataset.getHarmonizedMetadata().getCoreMetadata().setTitle("title " + i);
+	    dataset.getHarmonizedMetadata().getCoreMetadata().setAbstract("abstract " + i);
+
+	    resultSet.getResultsList().add(dataset);
+	}
+
+	return resultSet;
+    }
+
+    /**
+     * @param resultSet
+     * @return
+     */
+    private List<String> toIds(ResultSet<GSResource> resultSet) {
+
+	List<String> out = new ArrayList<>();
+
+	resultSet.getResultsList().forEach(res -> out.add(res.getOriginalId()));
+
+	return out;
+    }
+}
@@ -167,6 +167,16 @@ public class OAIPMHProfiler<OAIPS extends OAIPMHProfilerSetting> extends Profile
 	return Response.status(Status.OK).type(MediaType.APPLICATION_XML).entity(string).build();
     }
 
+    /**
+     * Each request gets its own discovery handler, with its own transformer, mapper and formatter, and the state of a
+     * harvesting session travels with the resumption token, so a single instance can serve concurrent harvesters
+     */
+    @Override
+    public boolean isStateless() {
+
+	return true;
+    }
+
     @Override
     public Provider getProvider() {
 
@@ -31,6 +31,7 @@ import java.util.Properties;
 import eu.essi_lab.api.database.DatabaseFinder;
 import eu.essi_lab.api.database.factory.DatabaseProviderFactory;
 import eu.essi_lab.cfga.gs.ConfigurationWrapper;
+import eu.essi_lab.jaxb.oaipmh.VerbType;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.lib.utils.ISO8601DateTimeUtils;
 import eu.essi_lab.messages.DiscoveryMessage;
@@ -38,6 +39,7 @@ import eu.essi_lab.messages.Page;
 import eu.essi_lab.messages.ResourceSelector;
 import eu.essi_lab.messages.ResourceSelector.ResourceSubset;
 import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.SearchAfter;
 import eu.essi_lab.messages.ValidationMessage;
 import eu.essi_lab.messages.bond.Bond;
 import eu.essi_lab.messages.bond.BondFactory;
@@ -118,6 +120,38 @@ public class OAIPMHRequestTransformer extends DiscoveryRequestTransformer {
 
     }
 
+    /**
+     * Enables the cursor paging of the list verbs, the cursor is encoded in the resumption token. If the token has no
+     * cursor (e.g. because the database does not support the cursor paging), the page is retrieved by offset
+     */
+    @Override
+    protected DiscoveryMessage refineMessage(DiscoveryMessage message) throws GSException {
+
+	DiscoveryMessage refinedMessage = super.refineMessage(message);
+
+	OAIPMHRequestReader reader = createReader(message.getWebRequest());
+
+	VerbType verb = VerbType.fromValue(reader.getVerb());
+
+	if (verb == VerbType.LIST_RECORDS || verb == VerbType.LIST_IDENTIFIERS) {
+
+	    String tokenValue = reader.getResumptionToken();
+
+	    if (tokenValue == null) {
+
+		refinedMessage.setSearchAfter(new SearchAfter());
+
+	    } else {
+
+		ResumptionToken rt = new ResumptionToken(tokenValue);
+
+		refinedMessage.setSearchAfter(rt.getSearchAfter().orElse(new SearchAfter(rt.getAdvancement())));
+	    }
+	}
+
+	return refinedMessage;
+    }
+
     @Override
     protected ResourceSelector getSelector(WebRequest request) {
 
@@ -131,7 +131,14 @@ public class OAIPMHResultSetFormatter extends DiscoveryResultSetFormatter<String
 
 	} else {
 
-	    rtt = ResumptionToken.create(reader, tokenId, totalResults, advancement, message.getPage().getSize(), prefix);
+	    rtt = ResumptionToken.create(//
+		    reader, //
+		    tokenId, //
+		    totalResults, //
+		    advancement, //
+		    message.getPage().getSize(), //
+		    prefix, //
+		    mappedResultSet.getSearchAfter().orElse(null));
 	}
 
 	// to let harvesting stop after the first page decomment the following:
@@ -24,11 +24,13 @@ package eu.essi_lab.profiler.oaipmh.token;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.net.URLDecoder;
+import java.util.Optional;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 
 import eu.essi_lab.jaxb.oaipmh.ResumptionTokenType;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.messages.SearchAfter;
 import eu.essi_lab.profiler.oaipmh.OAIPMHRequestReader;
 
 public class ResumptionToken {
@@ -39,6 +41,7 @@ public class ResumptionToken {
     private String until;
     private String set;
     private String prefix;
+    private SearchAfter searchAfter;
 
     public ResumptionToken(String value) {
 
@@ -47,9 +50,9 @@ public class ResumptionToken {
 	} catch (UnsupportedEncodingException e) {
 	}
 
-	// REQUEST_ID/ADVANCEMENT/FROM/UNTIL/SETID/PREFIX
+	// REQUEST_ID/ADVANCEMENT/FROM/UNTIL/SETID/PREFIX[/CURSOR]
 	String[] slashSplit = value.split("/");
-	if (slashSplit.length != 6) {
+	if (slashSplit.length != 6 && slashSplit.length != 7) {
 	    throw new IllegalArgumentException("Invalid resumption token");
 	}
 
@@ -85,6 +88,12 @@ public class ResumptionToken {
 	if (prefix != null && prefix.equals("null")) {
 	    prefix = null;
 	}
+
+	// CURSOR
+	// if missing or not valid, the next page is retrieved by offset
+	if (slashSplit.length == 7) {
+	    searchAfter = SearchAfter.decode(slashSplit[6]).orElse(null);
+	}
     }
 
     public static String createId() {
@@ -123,6 +132,23 @@ public class ResumptionToken {
     public static ResumptionTokenType create(OAIPMHRequestReader reader, String tokenId, int listSize, int advancement, int itemsPerPage,
 	    String prefix) {
 
+	return create(reader, tokenId, listSize, advancement, itemsPerPage, prefix, null);
+    }
+
+    /**
+     * @param reader
+     * @param tokenId
+     * @param listSize
+     * @param advancement
+     * @param itemsPerPage
+     * @param prefix
+     * @param searchAfter the cursor of the next page, or <code>null</code> if the next page must be retrieved by
+     *        offset
+     * @return
+     */
+    public static ResumptionTokenType create(OAIPMHRequestReader reader, String tokenId, int listSize, int advancement, int itemsPerPage,
+	    String prefix, SearchAfter searchAfter) {
+
 	// this is the first token created for this request
 	XMLGregorianCalendar expiration = null;
 	if (tokenId == null) {
@@ -154,8 +180,14 @@ public class ResumptionToken {
 	    set = reader.getSet();
 	}
 
-	// REQUEST_ID/ADVANCEMENT/FROM/UNTIL/SETID/PREFIX
-	rtt.setValue(tokenId + "/" + (advancement + itemsPerPage) + "/" + from + "/" + until + "/" + set + "/" + prefix);
+	// REQUEST_ID/ADVANCEMENT/FROM/UNTIL/SETID/PREFIX[/CURSOR]
+	String tokenValue = tokenId + "/" + (advancement + itemsPerPage) + "/" + from + "/" + until + "/" + set + "/" + prefix;
+
+	if (searchAfter != null) {
+	    tokenValue += "/" + searchAfter.encode();
+	}
+
+	rtt.setValue(tokenValue);
 
 	return rtt;
     }
@@ -189,6 +221,14 @@ public class ResumptionToken {
 	return set;
     }
 
+    /**
+     * @return the cursor of the page this token refers to, if available
+     */
+    public Optional<SearchAfter> getSearchAfter() {
+
+	return Optional.ofNullable(searchAfter);
+    }
+
     public static void main(String[] args) {
 
 	// String value = "REQUEST_ID/1/FROM/UNTIL/SETID/PREFIX";
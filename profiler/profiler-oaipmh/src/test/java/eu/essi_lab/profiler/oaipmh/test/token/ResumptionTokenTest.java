@@ -0,0 +1,57 @@
+package eu.essi_lab.profiler.oaipmh.test.token;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.messages.SearchAfter;
+import eu.essi_lab.profiler.oaipmh.token.ResumptionToken;
+
+/**
+ * @author Fabrizio
+ */
+public class ResumptionTokenTest {
+
+    @Test
+    public void offsetTokenTest() {
+
+	ResumptionToken token = new ResumptionToken("restoken/51/null/2024-01-01T00:00:00Z/setId/oai_dc");
+
+	Assert.assertEquals(51, token.getAdvancement());
+	Assert.assertNull(token.getFrom());
+	Assert.assertEquals("setId", token.getSet());
+	Assert.assertEquals("oai_dc", token.getMetadataPrefix());
+
+	Assert.assertFalse(token.getSearchAfter().isPresent());
+    }
+
+    @Test
+    public void cursorTokenTest() {
+
+	SearchAfter searchAfter = new SearchAfter(51, "pitId", Arrays.asList(1234));
+
+	ResumptionToken token = new ResumptionToken("restoken/51/null/null/null/oai_dc/" + searchAfter.encode());
+
+	Assert.assertEquals(51, token.getAdvancement());
+	Assert.assertEquals("oai_dc", token.getMetadataPrefix());
+
+	Assert.assertEquals(searchAfter, token.getSearchAfter().get());
+    }
+
+    @Test
+    public void invalidCursorTest() {
+
+	// the next page is retrieved by offset
+	ResumptionToken token = new ResumptionToken("restoken/51/null/null/null/oai_dc/invalid");
+
+	Assert.assertEquals(51, token.getAdvancement());
+	Assert.assertFalse(token.getSearchAfter().isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTokenTest() {
+
+	new ResumptionToken("restoken/51/null/null");
+    }
+}
@@ -0,0 +1,531 @@
+/**
+ * 
+ */
+package eu.essi_lab.profiler.openmetrics;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import eu.essi_lab.api.database.SourceGenerations;
+import eu.essi_lab.api.database.SourceStorage;
+import eu.essi_lab.api.database.factory.DatabaseProviderFactory;
+import eu.essi_lab.cfga.gs.ConfigurationWrapper;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.messages.HarvestingProperties;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.model.resource.ResourceProperty;
+import eu.essi_lab.profiler.semantic.SourceStatistics;
+import eu.essi_lab.profiler.semantic.Stats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Collects the per-source metrics of the views incrementally. At each {@link #update(String)} only the sources whose
+ * harvest generation changed are computed, with a single statistics request. The computed values are published as an
+ * immutable snapshot which the gauges read, so a scrape never waits for a computation.<br>
+ * Metrics not related to the sources, e.g. the ones of the caches of this node, can be added with
+ * {@link #registerGauge(String, String, DoubleSupplier)} and are published by the registries of all the views
+ * 
+ * @author Fabrizio
+ */
+public class OpenMetricsCollector {
+
+    /**
+     * Computes the statistics of the given sources, grouped by source identifier
+     * 
+     * @author Fabrizio
+     */
+    @FunctionalInterface
+    public interface StatisticsProvider {
+
+	/**
+	 * @param viewId
+	 * @param sources the identifiers of the sources to compute, <code>null</code> to compute all the sources
+	 * @return
+	 * @throws Exception
+	 */
+	Map<String, Stats> getStatistics(String viewId, List<String> sources) throws Exception;
+    }
+
+    /**
+     * Provides a value which changes every time the given source is harvested
+     * 
+     * @author Fabrizio
+     */
+    @FunctionalInterface
+    public interface GenerationProvider {
+
+	/**
+	 * @param source
+	 * @return
+	 * @throws Exception
+	 */
+	String getGeneration(GSSource source) throws Exception;
+    }
+
+    /**
+     * All the sources are recomputed at least once a day, so that changes not related to a harvesting (e.g. of the
+     * view) are eventually published
+     */
+    static final long FULL_UPDATE_PERIOD = TimeUnit.DAYS.toMillis(1);
+
+    private static final double CORE_METADATA_COMPLETENESS = 95.;
+    private static final double FULL_METADATA_COMPLETENESS = 70.;
+
+    private static final ConcurrentHashMap<String, NodeMeter> NODE_METERS = new ConcurrentHashMap<>();
+
+    private final StatisticsProvider statisticsProvider;
+    private final GenerationProvider generationProvider;
+    private final Supplier<List<GSSource>> sourcesProvider;
+    private final ConcurrentHashMap<String, ViewMetrics> views;
+
+    /**
+     * Creates a collector which computes the {@link SourceStatistics} of the configured sources, and reads the
+     * generations from the harvesting properties
+     */
+    public OpenMetricsCollector() {
+
+	this(//
+		(viewId, sources) -> new SourceStatistics(sources, Optional.of(viewId), ResourceProperty.SOURCE_ID).getStatistics(), //
+		ConfigurationWrapper::getAllSources, //
+		OpenMetricsCollector::readGeneration);
+    }
+
+    /**
+     * @param statisticsProvider
+     * @param sourcesProvider
+     * @param generationProvider
+     */
+    public OpenMetricsCollector(//
+	    StatisticsProvider statisticsProvider, //
+	    Supplier<List<GSSource>> sourcesProvider, //
+	    GenerationProvider generationProvider) {
+
+	this.statisticsProvider = statisticsProvider;
+	this.sourcesProvider = sourcesProvider;
+	this.generationProvider = generationProvider;
+	this.views = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Registers a gauge published by the registries of all the views. The <code>supplier</code> is read at each
+     * scrape, so it must be cheap. A gauge with the same name of a registered one is ignored
+     * 
+     * @param name
+     * @param description
+     * @param supplier
+     */
+    public static void registerGauge(String name, String description, DoubleSupplier supplier) {
+
+	NODE_METERS.putIfAbsent(name, new NodeMeter(description, supplier, false));
+    }
+
+    /**
+     * Registers a counter published by the registries of all the views. The <code>supplier</code> is read at each
+     * scrape, so it must be cheap, and must be monotonically increasing. A counter with the same name of a registered
+     * meter is ignored
+     * 
+     * @param name
+     * @param description
+     * @param supplier
+     */
+    public static void registerCounter(String name, String description, DoubleSupplier supplier) {
+
+	NODE_METERS.putIfAbsent(name, new NodeMeter(description, supplier, true));
+    }
+
+    /**
+     * Returns the registry of the given view. The registry can be scraped at any time, also during an
+     * {@link #update(String)}
+     * 
+     * @param viewId
+     * @return
+     */
+    public PrometheusMeterRegistry getRegistry(String viewId) {
+
+	return getView(viewId).registry;
+    }
+
+    /**
+     * Computes the metrics of the sources of the given view whose generation changed since the previous update, and
+     * publishes them with a single snapshot swap
+     * 
+     * @param viewId
+     * @return the number of computed sources
+     */
+    public int update(String viewId) {
+
+	ViewMetrics view = getView(viewId);
+
+	synchronized (view) {
+
+	    Snapshot current = view.snapshot.get();
+
+	    boolean full = System.currentTimeMillis() - current.timestamp > FULL_UPDATE_PERIOD;
+
+	    List<GSSource> sources = sourcesProvider.get();
+
+	    HashMap<String, String> generations = new HashMap<>();
+	    HashMap<String, String> labels = new HashMap<>();
+	    List<String> changed = new ArrayList<>();
+
+	    for (GSSource source : sources) {
+
+		String sourceId = source.getUniqueIdentifier();
+		String generation = null;
+
+		try {
+		    generation = generationProvider.getGeneration(source);
+
+		} catch (Exception ex) {
+
+		    GSLoggerFactory.getLogger(getClass()).warn("Unable to read generation of source {}: {}", sourceId, ex.getMessage());
+		}
+
+		labels.put(sourceId, source.getLabel());
+
+		// a source without generation is always computed
+		if (generation != null) {
+		    generations.put(sourceId, generation);
+		}
+
+		if (full || generation == null || !generation.equals(current.generations.get(sourceId))) {
+		    changed.add(sourceId);
+		}
+	    }
+
+	    HashMap<String, SourceMetrics> values = new HashMap<>(current.values);
+	    values.keySet().retainAll(labels.keySet());
+
+	    if (!changed.isEmpty()) {
+
+		GSLoggerFactory.getLogger(getClass()).info("Updating metrics of {}/{} sources for view {}", changed.size(), sources.size(),
+			viewId);
+
+		Map<String, Stats> statistics = null;
+
+		try {
+		    statistics = statisticsProvider.getStatistics(viewId, changed.size() == sources.size() ? null : changed);
+
+		} catch (Exception ex) {
+
+		    GSLoggerFactory.getLogger(getClass()).error("Unable to update metrics for view {}", viewId);
+		    GSLoggerFactory.getLogger(getClass()).error(ex);
+
+		    // the current snapshot is kept and the sources are computed again at the next update
+		    return 0;
+		}
+
+		for (String sourceId : changed) {
+
+		    Stats stats = statistics.get(sourceId);
+
+		    if (stats == null) {
+
+			values.remove(sourceId);
+			continue;
+		    }
+
+		    try {
+			values.put(sourceId, new SourceMetrics(labels.get(sourceId), stats));
+
+		    } catch (Exception ex) {
+
+			GSLoggerFactory.getLogger(getClass()).error("Unable to read metrics of source {}: {}", sourceId, ex.getMessage());
+
+			values.remove(sourceId);
+			generations.remove(sourceId);
+		    }
+		}
+	    }
+
+	    Snapshot next = new Snapshot(values, generations, full ? System.currentTimeMillis() : current.timestamp);
+
+	    view.snapshot.set(next);
+
+	    view.publish(next);
+
+	    return changed.size();
+	}
+    }
+
+    /**
+     * @param viewId
+     * @return
+     */
+    private ViewMetrics getView(String viewId) {
+
+	return views.computeIfAbsent(viewId, id -> new ViewMetrics());
+    }
+
+    /**
+     * The generation changes at the end of every harvesting, also when the harvesting is executed by another node
+     * 
+     * @param source
+     * @return
+     * @throws Exception
+     */
+    private static String readGeneration(GSSource source) throws Exception {
+
+	SourceStorage storage = DatabaseProviderFactory.getSourceStorage(ConfigurationWrapper.getDatabaseURI());
+
+	HarvestingProperties properties = storage.retrieveHarvestingProperties(source);
+
+	return properties.getHarvestingCount() + "_" + //
+		properties.getEndHarvestingTimestamp() + "_" + //
+		SourceGenerations.getInstance().get(source.getUniqueIdentifier());
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private static class ViewMetrics {
+
+	private final PrometheusMeterRegistry registry;
+	private final AtomicReference<Snapshot> snapshot;
+
+	/**
+	 * The registered meters and labels of each source, only accessed by the update
+	 */
+	private final HashMap<String, List<Meter>> meters;
+	private final HashMap<String, String> labels;
+	private final HashSet<String> nodeMeters;
+
+	/**
+	 * 
+	 */
+	private ViewMetrics() {
+
+	    registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+	    snapshot = new AtomicReference<>(new Snapshot(new HashMap<>(), new HashMap<>(), 0));
+	    meters = new HashMap<>();
+	    labels = new HashMap<>();
+	    nodeMeters = new HashSet<>();
+	}
+
+	/**
+	 * Registers the gauges of the new sources and removes the gauges of the sources no longer available. The gauges
+	 * of the other sources are not touched since they read their values from the current snapshot
+	 * 
+	 * @param next
+	 */
+	private void publish(Snapshot next) {
+
+	    NODE_METERS.forEach((name, meter) -> {
+
+		if (!nodeMeters.add(name)) {
+
+		    return;
+		}
+
+		if (meter.counter) {
+
+		    FunctionCounter.builder(name, meter.supplier, DoubleSupplier::getAsDouble)//
+			    .description(meter.description)//
+			    .register(registry);
+
+		} else {
+
+		    Gauge.builder(name, meter.supplier, DoubleSupplier::getAsDouble)//
+			    .description(meter.description)//
+			    .register(registry);
+		}
+	    });
+
+	    for (String sourceId : new ArrayList<>(meters.keySet())) {
+
+		SourceMetrics metrics = next.values.get(sourceId);
+
+		if (metrics == null || !metrics.getLabel().equals(labels.get(sourceId))) {
+
+		    meters.remove(sourceId).forEach(registry::remove);
+		    labels.remove(sourceId);
+		}
+	    }
+
+	    for (String sourceId : next.values.keySet()) {
+
+		if (!meters.containsKey(sourceId)) {
+
+		    String label = next.values.get(sourceId).getLabel();
+
+		    List<Meter> list = new ArrayList<>();
+
+		    list.add(Gauge.builder("source_info", () -> 1)//
+			    .description("Metadata about each source.")//
+			    .tags("source_id", sourceId, "source_label", label)//
+			    .register(registry));
+
+		    list.add(register(sourceId, "timeseries_total", "Total number of timeseries ", SourceMetrics::getTimeSeries));
+		    list.add(register(sourceId, "platforms_total", "Total number of platforms ", SourceMetrics::getPlatforms));
+		    list.add(register(sourceId, "variables_total", "Total number of variables ", SourceMetrics::getVariables));
+
+		    list.add(register(sourceId, "core_metadata_completeness", "Core metadata availability percentage",
+			    SourceMetrics::getCoreMetadataCompleteness));
+
+		    list.add(register(sourceId, "full_metadata_completeness", "Full metadata availability percentage",
+			    SourceMetrics::getFullMetadataCompleteness));
+
+		    meters.put(sourceId, list);
+		    labels.put(sourceId, label);
+		}
+	    }
+	}
+
+	/**
+	 * @param sourceId
+	 * @param name
+	 * @param description
+	 * @param function
+	 * @return
+	 */
+	private Gauge register(String sourceId, String name, String description, ToDoubleFunction<SourceMetrics> function) {
+
+	    return Gauge.builder(name, snapshot, ref -> {
+
+		SourceMetrics metrics = ref.get().values.get(sourceId);
+
+		return metrics != null ? function.applyAsDouble(metrics) : Double.NaN;
+	    })//
+		    .description(description)//
+		    .tag("source", sourceId)//
+		    .register(registry);
+	}
+    }
+
+    /**
+     * A gauge or a counter of this node, not related to the sources
+     * 
+     * @author Fabrizio
+     */
+    private static class NodeMeter {
+
+	private final String description;
+	private final DoubleSupplier supplier;
+	private final boolean counter;
+
+	/**
+	 * @param description
+	 * @param supplier
+	 * @param counter
+	 */
+	private NodeMeter(String description, DoubleSupplier supplier, boolean counter) {
+
+	    this.description = description;
+	    this.supplier = supplier;
+	    this.counter = counter;
+	}
+    }
+
+    /**
+     * An immutable view of the computed metrics
+     * 
+     * @author Fabrizio
+     */
+    private static class Snapshot {
+
+	private final Map<String, SourceMetrics> values;
+	private final Map<String, String> generations;
+	private final long timestamp;
+
+	/**
+	 * @param values
+	 * @param generations
+	 * @param timestamp
+	 */
+	private Snapshot(Map<String, SourceMetrics> values, Map<String, String> generations, long timestamp) {
+
+	    this.values = Collections.unmodifiableMap(values);
+	    this.generations = Collections.unmodifiableMap(generations);
+	    this.timestamp = timestamp;
+	}
+    }
+
+    /**
+     * @author Fabrizio
+     */
+    private static class SourceMetrics {
+
+	private final String label;
+	private final double timeSeries;
+	private final double platforms;
+	private final double variables;
+
+	/**
+	 * @param label
+	 * @param stats
+	 */
+	private SourceMetrics(String label, Stats stats) {
+
+	    this.label = label != null ? label : "";
+	    this.timeSeries = Integer.parseInt(stats.getTimeSeriesCount());
+	    this.platforms = Integer.parseInt(stats.getSiteCount());
+	    this.variables = Integer.parseInt(stats.getAttributeCount());
+	}
+
+	private String getLabel() {
+
+	    return label;
+	}
+
+	private double getTimeSeries() {
+
+	    return timeSeries;
+	}
+
+	private double getPlatforms() {
+
+	    return platforms;
+	}
+
+	private double getVariables() {
+
+	    return variables;
+	}
+
+	private double getCoreMetadataCompleteness() {
+
+	    return CORE_METADATA_COMPLETENESS;
+	}
+
+	private double getFullMetadataCompleteness() {
+
+	    return FULL_METADATA_COMPLETENESS;
+	}
+    }
+}
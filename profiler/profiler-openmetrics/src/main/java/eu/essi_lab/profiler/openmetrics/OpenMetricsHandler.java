@@ -24,9 +24,9 @@ package eu.essi_lab.profiler.openmetrics;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -37,127 +37,46 @@ import javax.ws.rs.core.StreamingOutput;
 
 import com.google.common.base.Charsets;
 
-import eu.essi_lab.cfga.gs.ConfigurationWrapper;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.messages.ValidationMessage;
 import eu.essi_lab.messages.ValidationMessage.ValidationResult;
 import eu.essi_lab.messages.web.WebRequest;
-import eu.essi_lab.model.GSSource;
 import eu.essi_lab.model.exceptions.GSException;
-import eu.essi_lab.model.resource.ResourceProperty;
 import eu.essi_lab.pdk.handler.StreamingRequestHandler;
-import eu.essi_lab.profiler.semantic.SourceStatistics;
-import eu.essi_lab.profiler.semantic.Stats;
-import io.micrometer.core.instrument.Gauge;
-import io.micrometer.prometheus.PrometheusConfig;
-import io.micrometer.prometheus.PrometheusMeterRegistry;
 
 public class OpenMetricsHandler extends StreamingRequestHandler {
-    private static HashMap<String, PrometheusMeterRegistry> registries = new HashMap<String, PrometheusMeterRegistry>();
 
-    private static HashSet<String> interestingViews = new HashSet<String>();
+    private static final OpenMetricsCollector COLLECTOR = new OpenMetricsCollector();
+
+    private static final Set<String> interestingViews = ConcurrentHashMap.newKeySet();
+
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
     static {
-	ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 	Runnable task = new Runnable() {
 
 	    @Override
 	    public void run() {
 		GSLoggerFactory.getLogger(getClass()).info("Updating metrics");
 		for (String view : interestingViews) {
-		    GSLoggerFactory.getLogger(getClass()).info("Updating metrics for view {}", view);
-		    SourceStatistics sourceStats = null;
-		    try {
-			sourceStats = new SourceStatistics(null, Optional.of(view), ResourceProperty.SOURCE_ID);
-		    } catch (Exception e1) {
-			e1.printStackTrace();
-		    }
-		    HashMap<String, Stats> overallStats = sourceStats.getStatistics();
-		    HashMap<String, Integer> datasets = new HashMap<String, Integer>();
-		    HashMap<String, Integer> platforms = new HashMap<String, Integer>();
-		    HashMap<String, Integer> variables = new HashMap<String, Integer>();
-		    
-		    HashMap<String, Double> coreMetadataCompleteness = new HashMap<String, Double>();
-		    HashMap<String, Double> fullMetadataCompleteness = new HashMap<String, Double>();
-		    	    
-		    synchronized (registries) {
-
-			PrometheusMeterRegistry registry = registries.get(view);
-			for (String source : overallStats.keySet()) {
-
-			    GSSource s = ConfigurationWrapper.getSource(source);
-			    Gauge.builder("source_info", () -> 1)//
-				    .description("Metadata about each source.")//
-				    .tags("source_id", source, "source_label", s.getLabel())//
-				    .register(registry);
-			    try {
-				Stats stats = overallStats.get(source);
-				datasets.put(source, Integer.parseInt(stats.getTimeSeriesCount()));
-				io.micrometer.core.instrument.Gauge.builder("timeseries_total", datasets, g -> g.get(source))//
-					.description("Total number of timeseries ")//
-					.tag("source", source).//
-					register(registry);
-				
-				platforms.put(source, Integer.parseInt(stats.getSiteCount()));
-				io.micrometer.core.instrument.Gauge.builder("platforms_total", platforms, g -> g.get(source))//
-					.description("Total number of platforms ")//
-					.tag("source", source).//
-					register(registry);
-
-				variables.put(source, Integer.parseInt(stats.getAttributeCount()));
-				io.micrometer.core.instrument.Gauge.builder("variables_total", variables, g -> g.get(source))//
-					.description("Total number of variables ")//
-					.tag("source", source).//
-					register(registry);
-				
-				
-				platforms.put(source, Integer.parseInt(stats.getSiteCount()));
-				io.micrometer.core.instrument.Gauge.builder("platforms_total", platforms, g -> g.get(source))//
-					.description("Total number of platforms ")//
-					.tag("source", source).//
-					register(registry);
-				
-				
-				coreMetadataCompleteness.put(source, 95.);
-				io.micrometer.core.instrument.Gauge.builder("core_metadata_completeness", coreMetadataCompleteness, g -> g.get(source))//
-				.description("Core metadata availability percentage")//
-				.tag("source", source).//
-				register(registry);
-				
-				fullMetadataCompleteness.put(source, 70.);
-				io.micrometer.core.instrument.Gauge.builder("full_metadata_completeness", fullMetadataCompleteness, g -> g.get(source))//
-				.description("Full metadata availability percentage")//
-				.tag("source", source).//
-				register(registry);
-
-				// String content = "<tr><td colspan='15'><br/>"//
-				// + "Data provider: <b>" + source + "</b><br/>"//
-				// + "#Platforms: " + stats.getSiteCount() + "<br/>"//
-				// + "#Variables:" + stats.getAttributeCount() + "<br/>"//
-				// + "#Timeseries:" + stats.getTimeSeriesCount() + "<br/>"//
-				// + "Begin:" + stats.getBegin() + "<br/>"//
-				// + "End:" + stats.getEnd() + "<br/>"//
-				// + "BBOX(w,s,e,n): " + stats.getWest() + "," + stats.getSouth() + "," +
-				// stats.getEast() +
-				// ","
-				// + stats.getNorth() + "<br/>" //
-				// + "Altitude:" + stats.getMinimumAltitude() + "/" + stats.getMaximumAltitude() +
-				// "<br/>"//
-				// + "</td></tr>" + "" //
-				// + "<tr>";
-			    } catch (Exception e) {
-				e.printStackTrace();
-				GSLoggerFactory.getLogger(getClass()).error(e);
-			    }
-
-			}
-		    }
+		    update(view);
 		}
 	    }
 	};
 	scheduler.scheduleAtFixedRate(task, 0, 30, TimeUnit.MINUTES);
     }
 
+    /**
+     * @param view
+     */
+    private static void update(String view) {
+	try {
+	    COLLECTOR.update(view);
+	} catch (Exception e) {
+	    GSLoggerFactory.getLogger(OpenMetricsHandler.class).error(e);
+	}
+    }
+
     @Override
     public MediaType getMediaType(WebRequest webRequest) {
 	return MediaType.valueOf("application/openmetrics-text");
@@ -180,8 +99,9 @@ public class OpenMetricsHandler extends StreamingRequestHandler {
 	Optional<String> optionalView = webRequest.extractViewId();
 	String viewId = optionalView.isPresent() ? optionalView.get() : null;
 
-	if (viewId != null) {
-	    interestingViews.add(viewId);
+	if (viewId != null && interestingViews.add(viewId)) {
+	    // the metrics of a new view are computed right away, without waiting for the next scheduled update
+	    scheduler.execute(() -> update(viewId));
 	}
 
 	return new StreamingOutput() {
@@ -195,16 +115,8 @@ public class OpenMetricsHandler extends StreamingRequestHandler {
 		    writer.close();
 		    return;
 		}
-		String ret = "";
-		synchronized (registries) {
-		    PrometheusMeterRegistry registry = registries.get(viewId);
-		    if (registry == null) {
-			PrometheusConfig config = PrometheusConfig.DEFAULT;
-			registry = new PrometheusMeterRegistry(config);
-			registries.put(viewId, registry);
-		    }
-		    ret = registry.scrape();
-		}
+		// the registry is never locked by the updates, the gauges read the last published snapshot
+		String ret = COLLECTOR.getRegistry(viewId).scrape();
 		writer.write(ret);
 		writer.write("# EOF");
 		writer.flush();
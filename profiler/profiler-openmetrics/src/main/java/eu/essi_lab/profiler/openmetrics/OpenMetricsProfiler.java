@@ -102,6 +102,16 @@ public class OpenMetricsProfiler extends Profiler<OpenMetricProfilerSetting> {
 	return onValidationFailed(request, message);
     }
 
+    /**
+     * The metrics are read from the collector shared by all the handlers, and a new filter and handler are created for
+     * each scrape, so a single instance can serve concurrent scrapes
+     */
+    @Override
+    public boolean isStateless() {
+
+	return true;
+    }
+
     @Override
     public Provider getProvider() {
 
@@ -0,0 +1,298 @@
+package eu.essi_lab.profiler.openmetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.model.GSSource;
+import eu.essi_lab.profiler.openmetrics.OpenMetricsCollector.StatisticsProvider;
+import eu.essi_lab.profiler.semantic.Stats;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * @author Fabrizio
+ */
+public class OpenMetricsCollectorTest {
+
+    private static final String VIEW_ID = "view";
+
+    private List<GSSource> sources;
+    private HashMap<String, String> generations;
+    private HashMap<String, Integer> timeSeries;
+    private List<List<String>> requests;
+
+    @Before
+    public void init() {
+
+	sources = new ArrayList<>();
+	generations = new HashMap<>();
+	timeSeries = new HashMap<>();
+	requests = new ArrayList<>();
+
+	for (int i = 1; i <= 3; i++) {
+
+	    GSSource source = new GSSource();
+	    source.setUniqueIdentifier("source" + i);
+	    source.setLabel("Source " + i);
+
+	    sources.add(source);
+	    generations.put(source.getUniqueIdentifier(), "1");
+	    timeSeries.put(source.getUniqueIdentifier(), i * 10);
+	}
+    }
+
+    @Test
+    public void incrementalUpdateTest() {
+
+	OpenMetricsCollector collector = createCollector(createProvider());
+
+	Assert.assertEquals(3, collector.update(VIEW_ID));
+
+	// all the sources are computed with a single request
+	Assert.assertEquals(1, requests.size());
+	Assert.assertNull(requests.get(0));
+
+	String scrape = collector.getRegistry(VIEW_ID).scrape();
+
+	Assert.assertEquals(20.0, timeSeries(scrape, "source2"), 0);
+	Assert.assertTrue(scrape.contains("source_label=\"Source 3\""));
+
+	//
+	// no generation changed, nothing is computed
+	//
+
+	Assert.assertEquals(0, collector.update(VIEW_ID));
+	Assert.assertEquals(1, requests.size());
+
+	//
+	// the second source is harvested again
+	//
+
+	generations.put("source2", "2");
+	timeSeries.put("source2", 25);
+
+	Assert.assertEquals(1, collector.update(VIEW_ID));
+	Assert.assertEquals(Arrays.asList("source2"), requests.get(1));
+
+	scrape = collector.getRegistry(VIEW_ID).scrape();
+
+	Assert.assertEquals(25.0, timeSeries(scrape, "source2"), 0);
+	Assert.assertEquals(10.0, timeSeries(scrape, "source1"), 0);
+
+	//
+	// the third source is removed
+	//
+
+	sources.remove(2);
+
+	collector.update(VIEW_ID);
+
+	Assert.assertFalse(collector.getRegistry(VIEW_ID).scrape().contains("source3"));
+    }
+
+    @Test
+    public void nodeGaugeTest() {
+
+	double[] value = new double[] { 0.5 };
+
+	OpenMetricsCollector.registerGauge("test_cache_hit_rate", "Test hit rate", () -> value[0]);
+
+	OpenMetricsCollector collector = createCollector(createProvider());
+
+	collector.update(VIEW_ID);
+
+	PrometheusMeterRegistry registry = collector.getRegistry(VIEW_ID);
+
+	Assert.assertEquals(0.5, registry.get("test_cache_hit_rate").gauge().value(), 0);
+
+	// the gauge is read at each scrape
+	value[0] = 0.75;
+
+	Assert.assertEquals(0.75, registry.get("test_cache_hit_rate").gauge().value(), 0);
+	Assert.assertTrue(registry.scrape().contains("test_cache_hit_rate 0.75"));
+
+	// the gauge is registered once per view
+	collector.update(VIEW_ID);
+
+	Assert.assertEquals(1, registry.find("test_cache_hit_rate").gauges().size());
+    }
+
+    @Test
+    public void nodeCounterTest() {
+
+	long[] value = new long[] { 3 };
+
+	OpenMetricsCollector.registerCounter("test_cache_hits_total", "Test hits", () -> value[0]);
+
+	OpenMetricsCollector collector = createCollector(createProvider());
+
+	collector.update(VIEW_ID);
+
+	PrometheusMeterRegistry registry = collector.getRegistry(VIEW_ID);
+
+	Assert.assertEquals(3, registry.get("test_cache_hits_total").functionCounter().count(), 0);
+
+	// the counter is read at each scrape
+	value[0] = 5;
+
+	Assert.assertEquals(5, registry.get("test_cache_hits_total").functionCounter().count(), 0);
+	Assert.assertTrue(registry.scrape().contains("# TYPE test_cache_hits_total counter"));
+    }
+
+    @Test
+    public void failedUpdateTest() {
+
+	boolean[] fail = new boolean[] { false };
+
+	StatisticsProvider provider = createProvider();
+
+	OpenMetricsCollector collector = createCollector((viewId, ids) -> {
+
+	    if (fail[0]) {
+
+		throw new Exception("error");
+	    }
+
+	    return provider.getStatistics(viewId, ids);
+	});
+
+	collector.update(VIEW_ID);
+
+	generations.put("source1", "2");
+	timeSeries.put("source1", 15);
+
+	fail[0] = true;
+
+	Assert.assertEquals(0, collector.update(VIEW_ID));
+	Assert.assertEquals(10, timeSeries(collector.getRegistry(VIEW_ID).scrape(), "source1"), 0);
+
+	fail[0] = false;
+
+	// the sources not computed because of the error are computed at the next update
+	Assert.assertEquals(1, collector.update(VIEW_ID));
+	Assert.assertEquals(15, timeSeries(collector.getRegistry(VIEW_ID).scrape(), "source1"), 0);
+    }
+
+    @Test
+    public void scrapeDuringUpdateTest() throws Exception {
+
+	CountDownLatch started = new CountDownLatch(1);
+	CountDownLatch release = new CountDownLatch(1);
+
+	StatisticsProvider provider = createProvider();
+
+	OpenMetricsCollector collector = createCollector((viewId, ids) -> {
+
+	    if (ids != null) {
+
+		// a long aggregation
+		started.countDown();
+		release.await(30, TimeUnit.SECONDS);
+	    }
+
+	    return provider.getStatistics(viewId, ids);
+	});
+
+	collector.update(VIEW_ID);
+
+	generations.put("source1", "2");
+	timeSeries.put("source1", 15);
+
+	CompletableFuture<Integer> update = CompletableFuture.supplyAsync(() -> collector.update(VIEW_ID));
+
+	Assert.assertTrue(started.await(30, TimeUnit.SECONDS));
+
+	PrometheusMeterRegistry registry = collector.getRegistry(VIEW_ID);
+
+	long maxLatency = 0;
+
+	for (int i = 0; i < 100; i++) {
+
+	    long time = System.nanoTime();
+
+	    String scrape = registry.scrape();
+
+	    maxLatency = Math.max(maxLatency, System.nanoTime() - time);
+
+	    // the previous snapshot is published until the update ends
+	    Assert.assertEquals(10.0, timeSeries(scrape, "source1"), 0);
+	}
+
+	// the update is still blocked, so the scrapes did not wait for it
+	Assert.assertFalse(update.isDone());
+
+	// reported only, the latency depends on the machine
+	GSLoggerFactory.getLogger(getClass()).info("Max scrape latency during update: {} ms", TimeUnit.NANOSECONDS.toMillis(maxLatency));
+
+	release.countDown();
+
+	Assert.assertEquals(Integer.valueOf(1), update.get(30, TimeUnit.SECONDS));
+
+	Assert.assertEquals(15.0, timeSeries(registry.scrape(), "source1"), 0);
+    }
+
+    /**
+     * @param scrape
+     * @param sourceId
+     * @return
+     */
+    private double timeSeries(String scrape, String sourceId) {
+
+	return Arrays.stream(scrape.split("\n")).//
+		filter(line -> line.startsWith("timeseries_total{") && line.contains("source=\"" + sourceId + "\"")).//
+		mapToDouble(line -> Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1))).//
+		findFirst().//
+		orElse(Double.NaN);
+    }
+
+    /**
+     * @param provider
+     * @return
+     */
+    private OpenMetricsCollector createCollector(StatisticsProvider provider) {
+
+	return new OpenMetricsCollector(provider, () -> sources, source -> generations.get(source.getUniqueIdentifier()));
+    }
+
+    /**
+     * A fake provider which returns the statistics of the requested sources
+     *
+     * @return
+     */
+    private StatisticsProvider createProvider() {
+
+	return (viewId, ids) -> {
+
+	    requests.add(ids);
+
+	    Map<String, Stats> out = new HashMap<>();
+
+	    for (GSSource source : sources) {
+
+		String id = source.getUniqueIdentifier();
+
+		if (ids == null || ids.contains(id)) {
+
+		    Stats stats = new Stats();
+		    stats.setTimeSeriesCount(String.valueOf(timeSeries.get(id)));
+		    stats.setSiteCount("1");
+		    stats.setAttributeCount("2");
+
+		    out.put(id, stats);
+		}
+	    }
+
+	    return out;
+	};
+    }
+}
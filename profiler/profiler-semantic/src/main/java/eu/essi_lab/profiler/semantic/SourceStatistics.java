@@ -26,9 +26,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.stream.Collectors;
 
 import eu.essi_lab.cfga.gs.ConfigurationWrapper;
 import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.bond.Bond;
 import eu.essi_lab.messages.bond.BondFactory;
 import eu.essi_lab.messages.stats.ResponseItem;
 import eu.essi_lab.messages.stats.StatisticsMessage;
@@ -49,6 +51,19 @@ public class SourceStatistics {
     }
 
     public SourceStatistics(String source, Optional<String> viewId, Queryable groupBy) throws Exception {
+
+	this(source != null ? Arrays.asList(source) : null, viewId, groupBy);
+    }
+
+    /**
+     * Computes the statistics of the given <code>sources</code> with a single statistics request
+     * 
+     * @param sources the identifiers of the sources to compute, if <code>null</code> all the sources are computed
+     * @param viewId
+     * @param groupBy
+     * @throws Exception
+     */
+    public SourceStatistics(List<String> sources, Optional<String> viewId, Queryable groupBy) throws Exception {
 	StatisticsMessage statisticsMessage = new StatisticsMessage();
 	List<GSSource> allSources = ConfigurationWrapper.getAllSources();
 	// set the required properties
@@ -65,8 +80,14 @@ public class SourceStatistics {
 	}
 
 	// set the user bond
-	if (source != null) {
-	    statisticsMessage.setUserBond(BondFactory.createSourceIdentifierBond(source));
+	if (sources != null && sources.size() == 1) {
+	    statisticsMessage.setUserBond(BondFactory.createSourceIdentifierBond(sources.get(0)));
+
+	} else if (sources != null && !sources.isEmpty()) {
+	    statisticsMessage.setUserBond(BondFactory.createOrBond(//
+		    sources.stream().//
+			    map(s -> (Bond) BondFactory.createSourceIdentifierBond(s)).//
+			    collect(Collectors.toList())));
 	}
 
 	// groups by source id
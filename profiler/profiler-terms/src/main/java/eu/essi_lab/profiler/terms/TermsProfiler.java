@@ -103,6 +103,16 @@ public class TermsProfiler extends Profiler<TermsProfilerSetting> {
 	return onValidationFailed(request, message);
     }
 
+    /**
+     * The terms handler and its filter are created for each request and this profiler only reads its setting, so a single
+     * instance can serve concurrent requests
+     */
+    @Override
+    public boolean isStateless() {
+
+	return true;
+    }
+
     @Override
     public Provider getProvider() {
 
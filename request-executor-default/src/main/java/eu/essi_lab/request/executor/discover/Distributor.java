@@ -27,13 +27,18 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.w3c.dom.Node;
 
+import eu.essi_lab.lib.utils.ExpiringCache;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.lib.utils.SharedExecutor;
 import eu.essi_lab.lib.utils.TaskListExecutor;
 import eu.essi_lab.messages.DiscoveryMessage;
 import eu.essi_lab.messages.Page;
@@ -88,6 +93,28 @@ public class Distributor implements IDistributor {
      */
     private static final String DISTRIBUTOR_COUNT_SOURCE_TIMEOUT_ERROR = "DISTRIBUTOR_COUNT_SOURCE_TIMEOUT_ERROR";
 
+    /**
+     * System property which enables the pipelined retrieval, see {@link #setPipelined(boolean)}
+     */
+    public static final String PIPELINED_PROPERTY = "distributor.pipelined";
+
+    /**
+     * Validity of the cached counts of the distributed sources used by the pipelined retrieval, in milliseconds. The
+     * database counts are not cached here, since they are cached by the database and invalidated when the sources
+     * change
+     */
+    public static final long COUNT_CACHE_DURATION = 30 * 1000;
+
+    private static final String SHARED_EXECUTOR_CALLER = "DistributorPipelined";
+
+    private static final ExpiringCache<DiscoveryCountResponse> COUNT_CACHE = new ExpiringCache<>();
+
+    static {
+
+	COUNT_CACHE.setDuration(COUNT_CACHE_DURATION);
+	COUNT_CACHE.setMaxSize(1000);
+    }
+
     private BondReducer bondReducer;
 
     private List<? extends IQueryExecutor> queryExecutors = new ArrayList<>();
@@ -108,9 +135,32 @@ public class Distributor implements IDistributor {
 		getTimeoutErrorsDuringCount());
     }
 
+    private boolean pipelined;
+
     public Distributor() {
 
 	bondReducer = new BondReducer();
+	pipelined = Boolean.getBoolean(PIPELINED_PROPERTY);
+    }
+
+    /**
+     * If set, the retrieval does not wait for all the counts before starting, see
+     * {@link #retrievePipelined(DiscoveryMessage, Class)}. By default it is set according to the
+     * {@value #PIPELINED_PROPERTY} system property
+     * 
+     * @param pipelined
+     */
+    public void setPipelined(boolean pipelined) {
+
+	this.pipelined = pipelined;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isPipelined() {
+
+	return pipelined;
     }
 
     @Override
@@ -143,37 +193,7 @@ public class Distributor implements IDistributor {
 	TaskListExecutor<SimpleEntry<String, DiscoveryCountResponse>> taskList = new TaskListExecutor<>(size);
 	for (IQueryExecutor queryExecutor : queryExecutors) {
 
-	    switch (queryExecutor.getType()) {
-	    case DISTRIBUTED:
-
-		String sourceIdentifier = queryExecutor.getSourceIdentifier();
-		Bond normalizedBond = message.getNormalizedBond();
-		// a reduced bond is submitted to the distributed query submitter,
-		// calculated from the normalized bond
-		Bond reducedBond;
-		try {
-		    reducedBond = bondReducer.getReducedBond(normalizedBond, sourceIdentifier);
-		    ReducedDiscoveryMessage reducedMessage = new ReducedDiscoveryMessage(message, reducedBond);
-		    taskList.addTask(() -> ((IDistributedQueryExecutor) queryExecutor).count(reducedMessage));
-
-		    // GSLoggerFactory.getLogger(getClass()).info("Distributed counting task created for source {}",
-		    // sourceIdentifier);
-
-		} catch (GSException e) {
-		    // the reduced bond couldn't be calculated
-		    // e.g. because the source bond is not found
-		    log.warn("Can't calculate reduced bond during count for distributed source {}", sourceIdentifier);
-		}
-		break;
-	    case DATABASE:
-	    default:
-		// the Database is able to directly execute the normalized bond
-		taskList.addTask(() -> ((IDatabaseQueryExecutor) queryExecutor).count(message));
-
-		// GSLoggerFactory.getLogger(getClass()).info("Harvested counting task created");
-
-		break;
-	    }
+	    createCountTask(queryExecutor, message).ifPresent(t -> taskList.addTask(t));
 	}
 
 	// GSLoggerFactory.getLogger(getClass()).info("Counting tasks STARTED");
@@ -286,6 +306,16 @@ public class Distributor implements IDistributor {
      */
     public <T> ResultSet<T> retrieve(DiscoveryMessage message, Class<T> clazz) throws GSException {
 
+	if (isCountAndRetrieve(message)) {
+
+	    return countAndRetrieve(message, clazz);
+	}
+
+	if (pipelined) {
+
+	    return retrievePipelined(message, clazz);
+	}
+
 	PerformanceLogger pl = new PerformanceLogger(//
 		PerformanceLogger.PerformancePhase.RESULT_SET_COUNTING, //
 		message.getRequestId(), //
@@ -343,89 +373,8 @@ public class Distributor implements IDistributor {
 		// log.debug("Requesting {} results starting at {} to source {}", relativeCount, relativeStart,
 		// sourceIdentifier);
 
-		switch (queryExecutor.getType()) {
-		case DISTRIBUTED:
-		    Bond normalizedBond = message.getNormalizedBond();
-		    // a reduced bond is submitted to the distributed query submitter,
-		    // calculated from the normalized bond
-		    Bond reducedBond;
-		    try {
-			reducedBond = bondReducer.getReducedBond(normalizedBond, sourceIdentifier);
-			ReducedDiscoveryMessage newMessage = new ReducedDiscoveryMessage(message, reducedBond);
-			if (clazz.equals(GSResource.class)) {
-			    taskList.addTask(new Callable<ResultSet<T>>() {
-
-				@Override
-				public ResultSet<T> call() throws Exception {
-				    return (ResultSet<T>) ((IDistributedQueryExecutor) queryExecutor).retrieve(newMessage, newPage);
-				}
-			    });
-
-			} else if (clazz.equals(Node.class)) {
-			    taskList.addTask(new Callable<ResultSet<T>>() {
-
-				@Override
-				public ResultSet<T> call() throws Exception {
-				    return (ResultSet<T>) ((IDistributedQueryExecutor) queryExecutor).retrieveNodes(newMessage, newPage);
-				}
-			    });
-
-			} else if (clazz.equals(String.class)) {
-			    taskList.addTask(new Callable<ResultSet<T>>() {
-
-				@Override
-				public ResultSet<T> call() throws Exception {
-				    return (ResultSet<T>) ((IDistributedQueryExecutor) queryExecutor).retrieveStrings(newMessage, newPage);
-				}
-			    });
-
-			} else {
-			    log.error("Unexpected result type: {}", clazz.getCanonicalName());
-			}
-
-			// log.info("Distributed retrieving task created for source {}", sourceIdentifier);
-
-		    } catch (GSException e) {
-			// the reduced bond couldn't be calculated
-			// e.g. because the source bond is not found
-			log.warn("Can't calculate reduced bond during retrieval for distributed source {}", sourceIdentifier);
-		    }
-		    break;
-		case DATABASE:
-		default:
-		    // the Database is able to directly execute the normalized bond
-		    if (clazz.equals(GSResource.class)) {
-			taskList.addTask(new Callable<ResultSet<T>>() {
-			    public eu.essi_lab.messages.ResultSet<T> call() throws Exception {
-				return (ResultSet<T>) ((IDatabaseQueryExecutor) queryExecutor).retrieve(message, newPage);
-			    };
-			});
-		    } else if (clazz.equals(Node.class)) {
-			taskList.addTask(new Callable<ResultSet<T>>() {
-
-			    @Override
-			    public ResultSet<T> call() throws Exception {
-				return (ResultSet<T>) ((IDatabaseQueryExecutor) queryExecutor).retrieveNodes(message, newPage);
-			    }
-			});
-
-		    } else if (clazz.equals(String.class)) {
-			taskList.addTask(new Callable<ResultSet<T>>() {
-
-			    @Override
-			    public ResultSet<T> call() throws Exception {
-				return (ResultSet<T>) ((IDatabaseQueryExecutor) queryExecutor).retrieveStrings(message, newPage);
-			    }
-			});
-
-		    } else {
-			log.error("Unexpected result type: {}", clazz.getCanonicalName());
-		    }
-
-		    // log.info("Harvested retrieving task created");
-
-		    break;
-		}
+		Optional<Callable<ResultSet<T>>> task = createRetrieveTask(queryExecutor, message, newPage, clazz);
+		task.ifPresent(t -> taskList.addTask(t));
 	    }
 
 	    queryExecutorStart = queryExecutorEnd;
@@ -443,9 +392,6 @@ public class Distributor implements IDistributor {
 
 	// GSLoggerFactory.getLogger(getClass()).info("Retrieving tasks ENDED futures: {}", futures.size());
 
-	// restores the original page because the data base modifies the page of the message
-	message.setPage(page);
-
 	for (int i = 0; i < futures.size(); i++) {
 
 	    Future<ResultSet<T>> future = futures.get(i);
@@ -461,6 +407,12 @@ public class Distributor implements IDistributor {
 		List<T> results = outputSet.getResultsList();
 		results.addAll(resultsList);
 
+		// the cursor of the next page can be used only if a single executor provided all the page results
+		if (futures.size() == 1) {
+
+		    futureSet.getSearchAfter().ifPresent(outputSet::setSearchAfter);
+		}
+
 	    } catch (CancellationException ex) {
 
 		GSLoggerFactory.getLogger(getClass()).info("Cancellation exception");
@@ -514,6 +466,587 @@ public class Distributor implements IDistributor {
 	return outputSet;
     }
 
+    /**
+     * Pipelined retrieval: the counts of all the executors are started at once and the executors are then visited in
+     * order. As soon as the counts of the previous executors are known, the offset of the current executor in the
+     * result set is known; if the page continues exactly at the start of the executor, the executor is needed by the
+     * page unless it is empty, so its retrieval can start before its own count arrives, requesting all the records
+     * still missing to the page (the tail of the page). When its count arrives the results exceeding it are discarded,
+     * or the retrieval is cancelled if the executor does not contribute to the page. The executors where the page
+     * starts at an unknown position are retrieved only after their counts arrive.<br>
+     * The counts of the distributed sources are reused for {@link #COUNT_CACHE_DURATION} milliseconds, so the
+     * following pages of the same query only wait for the retrievals
+     * 
+     * @param message
+     * @param clazz
+     * @return
+     */
+    private <T> ResultSet<T> retrievePipelined(DiscoveryMessage message, Class<T> clazz) {
+
+	PerformanceLogger countPl = new PerformanceLogger(//
+		PerformanceLogger.PerformancePhase.RESULT_SET_COUNTING, //
+		message.getRequestId(), //
+		Optional.ofNullable(message.getWebRequest()));
+
+	PerformanceLogger retrievePl = new PerformanceLogger(//
+		PerformanceLogger.PerformancePhase.RESULT_SET_RETRIEVING, //
+		message.getRequestId(), //
+		Optional.ofNullable(message.getWebRequest()));
+
+	int size = queryExecutors.size();
+
+	int timeout = getTimeout(message);
+	long deadline = System.currentTimeMillis() + timeout * 1000L;
+
+	// counts and retrievals run at the same time on the shared threads
+	List<Future<?>> submitted = new ArrayList<>();
+
+	try {
+
+	    //
+	    // counts
+	    //
+
+	    List<Future<SimpleEntry<String, DiscoveryCountResponse>>> countFutures = new ArrayList<>();
+	    List<String> countKeys = new ArrayList<>();
+
+	    for (IQueryExecutor queryExecutor : queryExecutors) {
+
+		String key = createCountKey(message, queryExecutor);
+		countKeys.add(key);
+
+		Future<SimpleEntry<String, DiscoveryCountResponse>> future = null;
+
+		DiscoveryCountResponse cached = key != null ? COUNT_CACHE.get(key) : null;
+
+		if (cached != null) {
+
+		    DiscoveryCountResponse response = new DiscoveryCountResponse();
+		    response.setCount(cached.getCount());
+
+		    future = CompletableFuture.completedFuture(new SimpleEntry<>(queryExecutor.getSourceIdentifier(), response));
+
+		} else {
+
+		    Optional<Callable<SimpleEntry<String, DiscoveryCountResponse>>> task = createCountTask(queryExecutor, message);
+
+		    if (task.isPresent()) {
+
+			future = SharedExecutor.submit(SHARED_EXECUTOR_CALLER, task.get());
+			submitted.add(future);
+		    }
+		}
+
+		countFutures.add(future);
+	    }
+
+	    //
+	    // retrievals
+	    //
+
+	    Page page = message.getPage();
+	    // the page start value is always >= 1 but here starting from 0 is better
+	    int start = page.getStart() - 1;
+	    int count = page.getSize();
+	    int queryExecutorStart = 0;
+
+	    CountSet countSet = new CountSet();
+
+	    List<Future<ResultSet<T>>> retrieveFutures = new ArrayList<>();
+	    List<Integer> retrieveLimits = new ArrayList<>();
+	    List<Integer> retrieveExecutors = new ArrayList<>();
+
+	    int speculative = 0;
+
+	    for (int i = 0; i < size; i++) {
+
+		IQueryExecutor queryExecutor = queryExecutors.get(i);
+		Future<SimpleEntry<String, DiscoveryCountResponse>> countFuture = countFutures.get(i);
+
+		if (countFuture == null) {
+		    continue;
+		}
+
+		int relativeStart = start - queryExecutorStart;
+
+		Future<ResultSet<T>> retrieveFuture = null;
+
+		// the page continues at the start of this executor, which is needed unless it has no results
+		if (count > 0 && relativeStart == 0 && !countFuture.isDone()) {
+
+		    // here the page start is augmented of 1 since externally
+		    // the min page start value must be always >=1
+		    Optional<Callable<ResultSet<T>>> task = createRetrieveTask(//
+			    queryExecutor, //
+			    message, //
+			    new Page(relativeStart + 1, count), //
+			    clazz);
+
+		    if (task.isPresent()) {
+
+			retrieveFuture = SharedExecutor.submit(SHARED_EXECUTOR_CALLER, task.get());
+			submitted.add(retrieveFuture);
+			speculative++;
+		    }
+		}
+
+		SimpleEntry<String, DiscoveryCountResponse> countPair = getCount(message, i, countFuture, deadline, timeout);
+
+		if (countPair == null) {
+
+		    if (retrieveFuture != null) {
+			retrieveFuture.cancel(true);
+		    }
+
+		    // we skip the query submitter that gave problems
+		    continue;
+		}
+
+		countSet.addCountPair(countPair);
+
+		if (countKeys.get(i) != null) {
+		    COUNT_CACHE.put(countKeys.get(i), countPair.getValue());
+		}
+
+		int executorCount = countPair.getValue().getCount();
+		int queryExecutorEnd = queryExecutorStart + executorCount;
+
+		if (start >= queryExecutorStart && start < queryExecutorEnd && count > 0) {
+
+		    int availableRecords = executorCount - relativeStart;
+		    int relativeCount = Math.min(count, availableRecords);
+
+		    if (retrieveFuture == null) {
+
+			Optional<Callable<ResultSet<T>>> task = createRetrieveTask(//
+				queryExecutor, //
+				message, //
+				new Page(relativeStart + 1, relativeCount), //
+				clazz);
+
+			if (task.isPresent()) {
+
+			    retrieveFuture = SharedExecutor.submit(SHARED_EXECUTOR_CALLER, task.get());
+			    submitted.add(retrieveFuture);
+			}
+		    }
+
+		    if (retrieveFuture != null) {
+
+			retrieveFutures.add(retrieveFuture);
+			retrieveLimits.add(relativeCount);
+			retrieveExecutors.add(i);
+		    }
+
+		    count = count - relativeCount;
+		    start = start + relativeCount;
+
+		} else if (retrieveFuture != null) {
+
+		    // the executor does not contribute to the page
+		    retrieveFuture.cancel(true);
+		}
+
+		queryExecutorStart = queryExecutorEnd;
+	    }
+
+	    countPl.logPerformance(GSLoggerFactory.getLogger(getClass()));
+
+	    log.debug("Retrieving results from {} executors, {} speculatively started", retrieveFutures.size(), speculative);
+
+	    ResultSet<T> outputSet = initResultSet(countSet, page);
+
+	    for (int i = 0; i < retrieveFutures.size(); i++) {
+
+		Future<ResultSet<T>> future = retrieveFutures.get(i);
+		int executorIndex = retrieveExecutors.get(i);
+
+		try {
+
+		    ResultSet<T> futureSet = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+
+		    List<T> resultsList = futureSet.getResultsList();
+
+		    // speculative retrievals can exceed the executor count
+		    int limit = Math.min(resultsList.size(), retrieveLimits.get(i));
+
+		    GSLoggerFactory.getLogger(getClass()).info("Result size: {}", limit);
+
+		    outputSet.getResultsList().addAll(resultsList.subList(0, limit));
+
+		    // the cursor of the next page can be used only if a single executor provided all the page results
+		    if (retrieveFutures.size() == 1 && limit == resultsList.size()) {
+
+			futureSet.getSearchAfter().ifPresent(outputSet::setSearchAfter);
+		    }
+
+		} catch (TimeoutException | CancellationException ex) {
+
+		    future.cancel(true);
+
+		    GSLoggerFactory.getLogger(getClass()).warn("Source timed out");
+		    addError(//
+			    outputSet.getException(), //
+			    executorIndex, //
+			    DISTRIBUTOR_RETRIEVE_SOURCE_TIMEOUT_ERROR, //
+			    "Source timed out: ");
+
+		} catch (InterruptedException e) {
+
+		    Thread.currentThread().interrupt();
+
+		    addError(//
+			    outputSet.getException(), //
+			    executorIndex, //
+			    DISTRIBUTOR_RETRIEVE_JOIN_ERROR, //
+			    "Interrupted exception joining source: ");
+
+		} catch (ExecutionException e) {
+
+		    Throwable cause = e.getCause();
+		    if (cause instanceof GSException) {
+
+			GSException gse = (GSException) cause;
+			outputSet.getException().getErrorInfoList().addAll(gse.getErrorInfoList());
+
+		    } else {
+
+			GSLoggerFactory.getLogger(getClass()).error(e.getMessage(), e);
+
+			addError(//
+				message.getException(), //
+				executorIndex, //
+				DISTRIBUTOR_RETRIEVE_JOIN_ERROR, //
+				"Unexpected runtime exception joining source: ");
+		    }
+		}
+	    }
+
+	    retrievePl.logPerformance(GSLoggerFactory.getLogger(getClass()));
+
+	    return outputSet;
+
+	} finally {
+
+	    // interrupts the tasks still running after a timeout
+	    submitted.forEach(future -> future.cancel(true));
+	}
+    }
+
+    /**
+     * @param message
+     * @param executor
+     * @param future
+     * @param deadline
+     * @param timeout
+     * @return the count pair, or <code>null</code> in case of errors
+     */
+    private SimpleEntry<String, DiscoveryCountResponse> getCount(//
+	    DiscoveryMessage message, //
+	    int executor, //
+	    Future<SimpleEntry<String, DiscoveryCountResponse>> future, //
+	    long deadline, //
+	    int timeout) {
+
+	try {
+
+	    return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+
+	} catch (TimeoutException | CancellationException ex) {
+
+	    future.cancel(true);
+
+	    addTimeoutErrorDuringCount(timeout);
+
+	    GSLoggerFactory.getLogger(getClass()).warn("Source timed out");
+	    addError(//
+		    message.getException(), //
+		    executor, //
+		    DISTRIBUTOR_COUNT_SOURCE_TIMEOUT_ERROR, //
+		    "Source timed out: ");
+
+	} catch (InterruptedException ie) {
+
+	    Thread.currentThread().interrupt();
+
+	    addError(//
+		    message.getException(), //
+		    executor, //
+		    DISTRIBUTOR_COUNT_JOIN_ERROR, //
+		    "Interrupted exception joining source: ");
+
+	} catch (ExecutionException ee) {
+
+	    GSLoggerFactory.getLogger(getClass()).error(ee.getMessage(), ee);
+
+	    Throwable cause = ee.getCause();
+	    if (cause instanceof GSException) {
+
+		GSException gse = (GSException) cause;
+		message.getException().getErrorInfoList().addAll(gse.getErrorInfoList());
+
+	    } else {
+
+		addError(//
+			message.getException(), //
+			executor, //
+			DISTRIBUTOR_COUNT_JOIN_ERROR, //
+			"Unexpected runtime exception joining source: ");
+	    }
+	}
+
+	return null;
+    }
+
+    /**
+     * @param message
+     * @param queryExecutor
+     * @return the key of the cached count, or <code>null</code> if the count of this message cannot be cached
+     */
+    private String createCountKey(DiscoveryMessage message, IQueryExecutor queryExecutor) {
+
+	if (queryExecutor.getType() != Type.DISTRIBUTED) {
+	    // the database counts are cached by the database, which invalidates them when the sources change
+	    return null;
+	}
+
+	if (!message.getTermFrequencyTargets().isEmpty()) {
+	    // the term frequency maps are not cached
+	    return null;
+	}
+
+	return queryExecutor.getSourceIdentifier() + "|" + //
+		message.getNormalizedBond() + "|" + //
+		message.getPermittedBond() + "|" + //
+		message.isDeletedIncluded() + "|" + //
+		message.isOutputSources() + "|" + //
+		message.getTotalHitsTracking();
+    }
+
+    /**
+     * @param message
+     * @return <code>true</code> if the only executor is the database and the message requires a page of results
+     */
+    private boolean isCountAndRetrieve(DiscoveryMessage message) {
+
+	return queryExecutors.size() == 1 && //
+		queryExecutors.get(0).getType() == Type.DATABASE && //
+		message.getPage().getSize() > 0;
+    }
+
+    /**
+     * Counts and retrieves the results of the database executor with a single request, so that the database can
+     * execute both the queries at once, saving a round trip
+     * 
+     * @param message
+     * @param clazz
+     * @return
+     */
+    private <T> ResultSet<T> countAndRetrieve(DiscoveryMessage message, Class<T> clazz) {
+
+	PerformanceLogger pl = new PerformanceLogger(//
+		PerformanceLogger.PerformancePhase.RESULT_SET_RETRIEVING, //
+		message.getRequestId(), //
+		Optional.ofNullable(message.getWebRequest()));
+
+	IDatabaseQueryExecutor database = (IDatabaseQueryExecutor) queryExecutors.get(0);
+
+	Page page = message.getPage();
+
+	TaskListExecutor<SimpleEntry<DiscoveryCountResponse, ResultSet<T>>> taskList = new TaskListExecutor<>(1);
+	taskList.addTask(() -> database.countAndRetrieve(message, page, clazz));
+
+	List<Future<SimpleEntry<DiscoveryCountResponse, ResultSet<T>>>> futures = taskList.executeAndWait(getTimeout(message));
+
+	pl.logPerformance(GSLoggerFactory.getLogger(getClass()));
+
+	// restores the original page because the data base modifies the page of the message
+	message.setPage(page);
+
+	// as with a failed count, no count pair is provided in case of errors
+	ResultSet<T> failedSet = initResultSet(new CountSet(), page);
+
+	try {
+
+	    SimpleEntry<DiscoveryCountResponse, ResultSet<T>> pair = futures.get(0).get();
+
+	    CountSet countSet = new CountSet();
+	    countSet.addCountPair(new SimpleEntry<>(database.getSourceIdentifier(), pair.getKey()));
+
+	    ResultSet<T> outputSet = initResultSet(countSet, page);
+
+	    outputSet.getResultsList().addAll(pair.getValue().getResultsList());
+
+	    pair.getValue().getSearchAfter().ifPresent(outputSet::setSearchAfter);
+
+	    GSLoggerFactory.getLogger(getClass()).info("Result size: {}", outputSet.getResultsList().size());
+
+	    return outputSet;
+
+	} catch (CancellationException ex) {
+
+	    addTimeoutErrorDuringCount(getTimeout(message));
+
+	    GSLoggerFactory.getLogger(getClass()).warn("Source timed out");
+	    addError(//
+		    failedSet.getException(), //
+		    0, //
+		    DISTRIBUTOR_RETRIEVE_SOURCE_TIMEOUT_ERROR, //
+		    "Source timed out: ");
+
+	} catch (InterruptedException e) {
+
+	    Thread.currentThread().interrupt();
+
+	    addError(//
+		    failedSet.getException(), //
+		    0, //
+		    DISTRIBUTOR_RETRIEVE_JOIN_ERROR, //
+		    "Interrupted exception joining source: ");
+
+	} catch (ExecutionException e) {
+
+	    Throwable cause = e.getCause();
+	    if (cause instanceof GSException) {
+
+		GSException gse = (GSException) cause;
+		failedSet.getException().getErrorInfoList().addAll(gse.getErrorInfoList());
+
+	    } else {
+
+		GSLoggerFactory.getLogger(getClass()).error(e.getMessage(), e);
+
+		addError(//
+			failedSet.getException(), //
+			0, //
+			DISTRIBUTOR_RETRIEVE_JOIN_ERROR, //
+			"Unexpected runtime exception joining source: ");
+	    }
+	}
+
+	return failedSet;
+    }
+
+    /**
+     * @param queryExecutor
+     * @param message
+     * @return the count task of the given executor, or an empty optional if the reduced bond of a distributed source
+     *         cannot be calculated
+     */
+    private Optional<Callable<SimpleEntry<String, DiscoveryCountResponse>>> createCountTask(//
+	    IQueryExecutor queryExecutor, //
+	    DiscoveryMessage message) {
+
+	switch (queryExecutor.getType()) {
+	case DISTRIBUTED:
+
+	    String sourceIdentifier = queryExecutor.getSourceIdentifier();
+	    Bond normalizedBond = message.getNormalizedBond();
+	    // a reduced bond is submitted to the distributed query submitter,
+	    // calculated from the normalized bond
+	    try {
+		Bond reducedBond = bondReducer.getReducedBond(normalizedBond, sourceIdentifier);
+		ReducedDiscoveryMessage reducedMessage = new ReducedDiscoveryMessage(message, reducedBond);
+
+		return Optional.of(() -> ((IDistributedQueryExecutor) queryExecutor).count(reducedMessage));
+
+	    } catch (GSException e) {
+		// the reduced bond couldn't be calculated
+		// e.g. because the source bond is not found
+		log.warn("Can't calculate reduced bond during count for distributed source {}", sourceIdentifier);
+	    }
+
+	    return Optional.empty();
+
+	case DATABASE:
+	default:
+	    // the Database is able to directly execute the normalized bond
+	    return Optional.of(() -> ((IDatabaseQueryExecutor) queryExecutor).count(message));
+	}
+    }
+
+    /**
+     * @param queryExecutor
+     * @param message
+     * @param page
+     * @param clazz
+     * @return the retrieval task of the given executor, or an empty optional if the reduced bond of a distributed source
+     *         cannot be calculated or the result type is not supported
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Optional<Callable<ResultSet<T>>> createRetrieveTask(//
+	    IQueryExecutor queryExecutor, //
+	    DiscoveryMessage message, //
+	    Page page, //
+	    Class<T> clazz) {
+
+	switch (queryExecutor.getType()) {
+	case DISTRIBUTED:
+
+	    String sourceIdentifier = queryExecutor.getSourceIdentifier();
+	    Bond normalizedBond = message.getNormalizedBond();
+	    // a reduced bond is submitted to the distributed query submitter,
+	    // calculated from the normalized bond
+	    ReducedDiscoveryMessage newMessage = null;
+	    try {
+		Bond reducedBond = bondReducer.getReducedBond(normalizedBond, sourceIdentifier);
+		newMessage = new ReducedDiscoveryMessage(message, reducedBond);
+
+	    } catch (GSException e) {
+		// the reduced bond couldn't be calculated
+		// e.g. because the source bond is not found
+		log.warn("Can't calculate reduced bond during retrieval for distributed source {}", sourceIdentifier);
+		return Optional.empty();
+	    }
+
+	    IDistributedQueryExecutor distributed = (IDistributedQueryExecutor) queryExecutor;
+	    ReducedDiscoveryMessage reducedMessage = newMessage;
+
+	    if (clazz.equals(GSResource.class)) {
+
+		return Optional.of(() -> (ResultSet<T>) distributed.retrieve(reducedMessage, page));
+
+	    } else if (clazz.equals(Node.class)) {
+
+		return Optional.of(() -> (ResultSet<T>) distributed.retrieveNodes(reducedMessage, page));
+
+	    } else if (clazz.equals(String.class)) {
+
+		return Optional.of(() -> (ResultSet<T>) distributed.retrieveStrings(reducedMessage, page));
+	    }
+
+	    break;
+
+	case DATABASE:
+	default:
+	    // the Database is able to directly execute the normalized bond
+	    IDatabaseQueryExecutor database = (IDatabaseQueryExecutor) queryExecutor;
+
+	    // the database sets the page of the message, so it gets its own copy since the pipelined counts can be
+	    // reading the original message at the same time
+	    DiscoveryMessage databaseMessage = new DiscoveryMessage(message);
+
+	    if (clazz.equals(GSResource.class)) {
+
+		return Optional.of(() -> (ResultSet<T>) database.retrieve(databaseMessage, page));
+
+	    } else if (clazz.equals(Node.class)) {
+
+		return Optional.of(() -> (ResultSet<T>) database.retrieveNodes(databaseMessage, page));
+
+	    } else if (clazz.equals(String.class)) {
+
+		return Optional.of(() -> (ResultSet<T>) database.retrieveStrings(databaseMessage, page));
+	    }
+
+	    break;
+	}
+
+	log.error("Unexpected result type: {}", clazz.getCanonicalName());
+
+	return Optional.empty();
+    }
+
     private <T> ResultSet<T> initResultSet(CountSet countSet, Page page) {
 
 	ResultSet<T> result = new ResultSet<>();
@@ -0,0 +1,179 @@
+package eu.essi_lab.request.executor.discover;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.essi_lab.messages.bond.Bond;
+
+/**
+ * Memoizes the bonds normalized by the {@link QueryInitializer}. The entries are keyed by a clone of the bond to
+ * normalize, whose hash code and equality do not depend on the order of the logical operands, so the same query
+ * expressed with operands in different order is normalized only once. The normalization only depends on the bond and
+ * on the disjunctive normal form size threshold of the initializer, which are both part of the key, so the entries do
+ * not expire and the least recently used ones are discarded when the cache is full.<br>
+ * Since the bonds are mutable, both the keys and the values are cloned
+ *
+ * @author boldrini
+ */
+public class NormalizedBondCache {
+
+    private static final int DEFAULT_MAX_SIZE = 500;
+
+    private static final NormalizedBondCache INSTANCE = new NormalizedBondCache();
+
+    private Map<Key, Bond> cache;
+    private AtomicLong hits;
+    private AtomicLong misses;
+
+    /**
+     * @return
+     */
+    public static NormalizedBondCache getInstance() {
+
+	return INSTANCE;
+    }
+
+    private NormalizedBondCache() {
+
+	cache = Collections.synchronizedMap(new LinkedHashMap<Key, Bond>(16, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<Key, Bond> eldest) {
+
+		return size() > DEFAULT_MAX_SIZE;
+	    }
+	});
+
+	hits = new AtomicLong();
+	misses = new AtomicLong();
+    }
+
+    /**
+     * @param bond the bond to normalize
+     * @param dnfSizeThreshold the disjunctive normal form size threshold of the normalization
+     * @return a clone of the normalized bond, if present
+     */
+    public Optional<Bond> get(Bond bond, long dnfSizeThreshold) {
+
+	Bond normalized = cache.get(new Key(bond, dnfSizeThreshold));
+
+	if (normalized == null) {
+
+	    misses.incrementAndGet();
+	    return Optional.empty();
+	}
+
+	hits.incrementAndGet();
+
+	return Optional.of(normalized.clone());
+    }
+
+    /**
+     * @param bond a clone of the bond to normalize, taken before the normalization
+     * @param dnfSizeThreshold the disjunctive normal form size threshold of the normalization
+     * @param normalized the normalized bond, it can be <code>null</code>
+     */
+    public void put(Bond bond, long dnfSizeThreshold, Bond normalized) {
+
+	if (normalized != null) {
+
+	    cache.put(new Key(bond, dnfSizeThreshold), normalized.clone());
+	}
+    }
+
+    /**
+     * 
+     */
+    public void clear() {
+
+	cache.clear();
+    }
+
+    /**
+     * @return
+     */
+    public int getSize() {
+
+	return cache.size();
+    }
+
+    /**
+     * @return
+     */
+    public long getHits() {
+
+	return hits.get();
+    }
+
+    /**
+     * @return
+     */
+    public long getMisses() {
+
+	return misses.get();
+    }
+
+    /**
+     * @author boldrini
+     */
+    private static class Key {
+
+	private final Bond bond;
+	private final long dnfSizeThreshold;
+
+	/**
+	 * @param bond
+	 * @param dnfSizeThreshold
+	 */
+	private Key(Bond bond, long dnfSizeThreshold) {
+
+	    this.bond = bond;
+	    this.dnfSizeThreshold = dnfSizeThreshold;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+
+	    if (!(object instanceof Key)) {
+		return false;
+	    }
+
+	    Key other = (Key) object;
+
+	    return dnfSizeThreshold == other.dnfSizeThreshold && bond.equals(other.bond);
+	}
+
+	@Override
+	public int hashCode() {
+
+	    return Objects.hash(bond, dnfSizeThreshold);
+	}
+    }
+}
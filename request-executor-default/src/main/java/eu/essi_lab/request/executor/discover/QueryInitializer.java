@@ -74,6 +74,9 @@ import eu.essi_lab.views.IViewManager;
  * B2)</li>
  * </ol>
  * </ol>
+ * When the disjunctive normal form would be too big (e.g. with several source related ORs in conjunction), the
+ * normalized bond is computed by the {@link SourcePartitionNormalizer}. The normalized bonds are memoized by the
+ * {@link NormalizedBondCache}.
  *
  * @author boldrini
  * @see IQueryInitializer
@@ -84,6 +87,7 @@ public class QueryInitializer implements IQueryInitializer {
     private static final String NORMALIZATION_FAILED_UNEXPECTED_SYNTAX = "Normalization failed because unexpected error";
     private static final String UNEXPECTED_LOGICAL_OPERATOR_MESSAGE_PREFIX = "Not expected logical operator: ";
     private IRequestAuthorizationConverter requestAuthorizationConverter = null;
+    private long dnfSizeThreshold = SourcePartitionNormalizer.DEFAULT_DNF_SIZE_THRESHOLD;
 
     /**
      * @see IQueryInitializer#initializeQuery(DiscoveryMessage)
@@ -300,14 +304,42 @@ public class QueryInitializer implements IQueryInitializer {
     }
 
     /**
-     * Normalizes the given bond, according to the steps described in {@link QueryInitializer}
+     * Normalizes the given bond, according to the steps described in {@link QueryInitializer}. The normalized bonds are
+     * memoized by the {@link NormalizedBondCache}
      *
      * @param bond the bond to normalize
      * @return a normalized bond
      * @throws GSException in case the normalization failed, for whatever reason
      */
     public Bond normalizeBond(Bond bond) throws GSException {
-	// GSLoggerFactory.getLogger(getClass()).trace("Normalization - preliminary simplification");
+
+	if (bond == null) {
+	    return null;
+	}
+
+	NormalizedBondCache cache = NormalizedBondCache.getInstance();
+
+	Optional<Bond> cached = cache.get(bond, dnfSizeThreshold);
+	if (cached.isPresent()) {
+	    return cached.get();
+	}
+
+	// the normalization steps modify the given bond
+	Bond key = bond.clone();
+
+	Bond normalized = normalize(bond);
+
+	cache.put(key, dnfSizeThreshold, normalized);
+
+	return normalized;
+    }
+
+    /**
+     * @param bond
+     * @return
+     * @throws GSException
+     */
+    private Bond normalize(Bond bond) throws GSException {
 	Bond simpleAndsForm = getNestedConjunctionsSimplifiedForm(bond);
 	// GSLoggerFactory.getLogger(getClass()).trace("Normalization - sources simplification");
 	Bond repeatedBondSimplification = getRepeatedBondSimplifiedForm(simpleAndsForm);
@@ -317,6 +349,18 @@ public class QueryInitializer implements IQueryInitializer {
 	Bond negationNormalForm = getNegationNormalForm(simplifiedForm);
 	// GSLoggerFactory.getLogger(getClass()).trace("Normalization - aggregating simple bonds");
 	Bond aggregatedSimpleBonds = getAggregateSimpleBonds(negationNormalForm);
+
+	if (SourcePartitionNormalizer.estimateDisjunctiveNormalFormSize(aggregatedSimpleBonds,
+		dnfSizeThreshold) >= dnfSizeThreshold) {
+
+	    SourcePartitionNormalizer normalizer = new SourcePartitionNormalizer();
+
+	    if (normalizer.getSourceIdentifiers(aggregatedSimpleBonds).size() > 1) {
+
+		// the disjunctive normal form is too big, the per-source conjunctions are computed without it
+		return getLikeSourcesSimplifiedForm(normalizer.normalize(aggregatedSimpleBonds));
+	    }
+	}
 	// GSLoggerFactory.getLogger(getClass()).trace("Normalization - disjunctive form");
 	// using the naive algorithm, as the library based algorithm seems to require more time!
 	Bond disjunctiveNormalForm = getDisjunctiveNormalFormNaive(aggregatedSimpleBonds);
@@ -1455,6 +1499,15 @@ public class QueryInitializer implements IQueryInitializer {
 	return bool;
     }
 
+    /**
+     * Sets the estimated size of the disjunctive normal form above which the {@link SourcePartitionNormalizer} is used
+     *
+     * @param dnfSizeThreshold
+     */
+    public void setDisjunctiveNormalFormSizeThreshold(long dnfSizeThreshold) {
+	this.dnfSizeThreshold = dnfSizeThreshold;
+    }
+
     @Override
     public void setRequestAuthorizationConverter(IRequestAuthorizationConverter requestAuthorizationConverter) {
 	this.requestAuthorizationConverter = requestAuthorizationConverter;
@@ -0,0 +1,400 @@
+package eu.essi_lab.request.executor.discover;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import eu.essi_lab.messages.bond.Bond;
+import eu.essi_lab.messages.bond.BondFactory;
+import eu.essi_lab.messages.bond.BondOperator;
+import eu.essi_lab.messages.bond.LogicalBond;
+import eu.essi_lab.messages.bond.LogicalBond.LogicalOperator;
+import eu.essi_lab.messages.bond.ResourcePropertyBond;
+import eu.essi_lab.model.resource.ResourceProperty;
+
+/**
+ * Normalizes a bond in negation normal form to a disjunction of per-source conjunctions, without computing its
+ * disjunctive normal form. For each source S referenced by the bond, the bond is restricted by replacing S with
+ * <code>true</code> and all the other sources with <code>false</code> (Shannon expansion on the source variables).
+ * The result is the disjunction of <code>S AND restriction(S)</code>, so the executors get the constraints of their
+ * source while the other constraints are left as they are.<br>
+ * The cost is linear in the number of sources times the size of the bond, while the disjunctive normal form of a
+ * conjunction of N disjunctions of M source related terms has M^N conjunctions.<br>
+ * Equal subtrees are shared (hash-consed) and each of them is restricted only once per source
+ *
+ * @author boldrini
+ */
+public class SourcePartitionNormalizer {
+
+    /**
+     * Markers of the constant results of a restriction
+     */
+    private static final Bond TRUE = BondFactory.createAndBond();
+    private static final Bond FALSE = BondFactory.createOrBond();
+
+    /**
+     * Estimated size above which the disjunctive normal form is not computed
+     */
+    public static final long DEFAULT_DNF_SIZE_THRESHOLD = 1024;
+
+    private HashMap<Bond, Bond> interned;
+    private IdentityHashMap<Bond, Boolean> sourceRelated;
+
+    /**
+     * 
+     */
+    public SourcePartitionNormalizer() {
+
+	interned = new HashMap<>();
+	sourceRelated = new IdentityHashMap<>();
+    }
+
+    /**
+     * Estimates the number of conjunctions of the disjunctive normal form of the given bond, computed by distributing
+     * AND over the source related ORs. The estimation stops at <code>limit</code>
+     * 
+     * @param bond a bond in negation normal form
+     * @param limit
+     * @return
+     */
+    public static long estimateDisjunctiveNormalFormSize(Bond bond, long limit) {
+
+	if (!(bond instanceof LogicalBond)) {
+
+	    return 1;
+	}
+
+	LogicalBond logicalBond = (LogicalBond) bond;
+
+	long size = 0;
+
+	switch (logicalBond.getLogicalOperator()) {
+	case OR:
+
+	    for (Bond operand : logicalBond.getOperands()) {
+
+		size = Math.min(limit, size + estimateDisjunctiveNormalFormSize(operand, limit));
+	    }
+
+	    return Math.max(1, size);
+
+	case AND:
+
+	    size = 1;
+
+	    for (Bond operand : logicalBond.getOperands()) {
+
+		if (isSourceRelated(operand)) {
+
+		    long operandSize = estimateDisjunctiveNormalFormSize(operand, limit);
+
+		    size = size > limit / operandSize ? limit : Math.min(limit, size * operandSize);
+		}
+	    }
+
+	    return size;
+
+	default:
+	    return 1;
+	}
+    }
+
+    /**
+     * @param bond a bond in negation normal form
+     * @return the sources referenced by the given bond, in order of appearance
+     */
+    public Set<String> getSourceIdentifiers(Bond bond) {
+
+	LinkedHashSet<String> out = new LinkedHashSet<>();
+
+	collectSourceIdentifiers(bond, out);
+
+	return out;
+    }
+
+    /**
+     * Normalizes the given bond
+     * 
+     * @param bond a bond in negation normal form
+     * @return the disjunction of the per-source conjunctions, or <code>null</code> if the bond is not satisfiable by
+     *         any source
+     */
+    public Bond normalize(Bond bond) {
+
+	Bond root = intern(bond);
+
+	List<Bond> conjunctions = new ArrayList<>();
+
+	for (String sourceId : getSourceIdentifiers(root)) {
+
+	    Bond restriction = restrict(root, sourceId, new IdentityHashMap<>());
+
+	    if (restriction == FALSE) {
+
+		continue;
+	    }
+
+	    Bond sourceBond = BondFactory.createSourceIdentifierBond(sourceId);
+
+	    if (restriction == TRUE) {
+
+		conjunctions.add(sourceBond);
+
+	    } else {
+
+		List<Bond> operands = new ArrayList<>();
+		operands.add(sourceBond);
+		addOperands(LogicalOperator.AND, restriction, operands);
+
+		conjunctions.add(BondFactory.createAndBond(operands));
+	    }
+	}
+
+	switch (conjunctions.size()) {
+	case 0:
+	    return null;
+	case 1:
+	    return conjunctions.get(0);
+	default:
+	    return BondFactory.createOrBond(conjunctions);
+	}
+    }
+
+    /**
+     * Replaces the equal subtrees of the given bond with a single instance
+     * 
+     * @param bond
+     * @return
+     */
+    private Bond intern(Bond bond) {
+
+	if (bond instanceof LogicalBond) {
+
+	    LogicalBond logicalBond = (LogicalBond) bond;
+
+	    List<Bond> operands = new ArrayList<>();
+
+	    for (Bond operand : logicalBond.getOperands()) {
+
+		operands.add(intern(operand));
+	    }
+
+	    bond = BondFactory.createLogicalBond(logicalBond.getLogicalOperator(), operands);
+	}
+
+	Bond existing = interned.putIfAbsent(bond, bond);
+
+	return existing != null ? existing : bond;
+    }
+
+    /**
+     * @param bond an interned bond
+     * @param sourceId
+     * @param memo the restrictions of the subtrees already visited for the given source
+     * @return the restricted bond, {@link #TRUE} or {@link #FALSE}
+     */
+    private Bond restrict(Bond bond, String sourceId, IdentityHashMap<Bond, Bond> memo) {
+
+	if (!isSourceRelatedMemo(bond)) {
+
+	    // shared as it is by all the sources
+	    return bond;
+	}
+
+	if (isSourceIdentifierBond(bond)) {
+
+	    return ((ResourcePropertyBond) bond).getPropertyValue().equals(sourceId) ? TRUE : FALSE;
+	}
+
+	Bond restricted = memo.get(bond);
+
+	if (restricted != null) {
+
+	    return restricted;
+	}
+
+	LogicalBond logicalBond = (LogicalBond) bond;
+
+	switch (logicalBond.getLogicalOperator()) {
+	case NOT:
+
+	    // in negation normal form only the leaves are negated
+	    Bond operand = restrict(logicalBond.getFirstOperand(), sourceId, memo);
+
+	    restricted = operand == TRUE ? FALSE : operand == FALSE ? TRUE : BondFactory.createNotBond(operand);
+	    break;
+
+	case AND:
+	case OR:
+
+	    LogicalOperator operator = logicalBond.getLogicalOperator();
+
+	    // the absorbing and the neutral elements of the operator
+	    Bond absorbing = operator == LogicalOperator.AND ? FALSE : TRUE;
+	    Bond neutral = operator == LogicalOperator.AND ? TRUE : FALSE;
+
+	    List<Bond> operands = new ArrayList<>();
+
+	    for (Bond child : logicalBond.getOperands()) {
+
+		Bond restrictedChild = restrict(child, sourceId, memo);
+
+		if (restrictedChild == absorbing) {
+
+		    operands = null;
+		    break;
+		}
+
+		if (restrictedChild != neutral) {
+
+		    addOperands(operator, restrictedChild, operands);
+		}
+	    }
+
+	    if (operands == null) {
+
+		restricted = absorbing;
+
+	    } else if (operands.isEmpty()) {
+
+		restricted = neutral;
+
+	    } else if (operands.size() == 1) {
+
+		restricted = operands.get(0);
+
+	    } else {
+
+		restricted = BondFactory.createLogicalBond(operator, operands);
+	    }
+	    break;
+
+	default:
+	    restricted = bond;
+	}
+
+	memo.put(bond, restricted);
+
+	return restricted;
+    }
+
+    /**
+     * @param bond
+     * @param out
+     */
+    private void collectSourceIdentifiers(Bond bond, Set<String> out) {
+
+	if (isSourceIdentifierBond(bond)) {
+
+	    out.add(((ResourcePropertyBond) bond).getPropertyValue());
+
+	} else if (bond instanceof LogicalBond) {
+
+	    LogicalBond logicalBond = (LogicalBond) bond;
+
+	    // the negated sources are not collected, since they select no source
+	    if (logicalBond.getLogicalOperator() != LogicalOperator.NOT) {
+
+		logicalBond.getOperands().forEach(operand -> collectSourceIdentifiers(operand, out));
+	    }
+	}
+    }
+
+    /**
+     * Adds the given bond to the operands of the given operator, flattening the nested bonds with the same operator
+     * 
+     * @param operator
+     * @param bond
+     * @param operands
+     */
+    private static void addOperands(LogicalOperator operator, Bond bond, List<Bond> operands) {
+
+	if (bond instanceof LogicalBond && ((LogicalBond) bond).getLogicalOperator() == operator) {
+
+	    operands.addAll(((LogicalBond) bond).getOperands());
+
+	} else {
+
+	    operands.add(bond);
+	}
+    }
+
+    /**
+     * @param bond
+     * @return
+     */
+    private boolean isSourceRelatedMemo(Bond bond) {
+
+	Boolean related = sourceRelated.get(bond);
+
+	if (related == null) {
+
+	    if (bond instanceof LogicalBond) {
+
+		related = false;
+
+		for (Bond operand : ((LogicalBond) bond).getOperands()) {
+
+		    related |= isSourceRelatedMemo(operand);
+		}
+
+	    } else {
+
+		related = isSourceIdentifierBond(bond);
+	    }
+
+	    sourceRelated.put(bond, related);
+	}
+
+	return related;
+    }
+
+    /**
+     * @param bond
+     * @return
+     */
+    private static boolean isSourceRelated(Bond bond) {
+
+	if (bond instanceof LogicalBond) {
+
+	    return ((LogicalBond) bond).getOperands().stream().anyMatch(SourcePartitionNormalizer::isSourceRelated);
+	}
+
+	return isSourceIdentifierBond(bond);
+    }
+
+    /**
+     * @param bond
+     * @return
+     */
+    private static boolean isSourceIdentifierBond(Bond bond) {
+
+	return bond != null && //
+		BondFactory.isResourcePropertyBond(bond, ResourceProperty.SOURCE_ID) && //
+		((ResourcePropertyBond) bond).getOperator().equals(BondOperator.EQUAL);
+    }
+}
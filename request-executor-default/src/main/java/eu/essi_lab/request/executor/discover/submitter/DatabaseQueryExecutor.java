@@ -23,10 +23,13 @@ package eu.essi_lab.request.executor.discover.submitter;
 
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 
 import org.w3c.dom.Node;
 
+import eu.essi_lab.api.database.CountResultsCache;
 import eu.essi_lab.api.database.DatabaseFinder;
 import eu.essi_lab.api.database.factory.DatabaseProviderFactory;
 import eu.essi_lab.lib.servlet.RequestManager;
@@ -67,7 +70,29 @@ public class DatabaseQueryExecutor implements IDatabaseQueryExecutor {
 
 	GSLoggerFactory.getLogger(getClass()).info("Count STARTED");
 
-	DiscoveryCountResponse countResult = finder.count(message);
+	CountResultsCache cache = CountResultsCache.getInstance();
+
+	Optional<String> key = cache.createKey(message);
+
+	// the generations are read before the count, so that a write executed during the count invalidates the entry
+	Optional<HashMap<String, Long>> generations = key.isPresent() ? cache.getGenerations(message, finder) : Optional.empty();
+
+	Optional<DiscoveryCountResponse> cached = generations.flatMap(g -> cache.get(key.get(), g));
+
+	DiscoveryCountResponse countResult = null;
+
+	if (cached.isPresent()) {
+
+	    countResult = cached.get();
+
+	} else {
+
+	    countResult = finder.count(message);
+
+	    DiscoveryCountResponse response = countResult;
+
+	    generations.ifPresent(g -> cache.put(key.get(), g, response));
+	}
 
 	GSLoggerFactory.getLogger(getClass()).info("Count ENDED");
 
@@ -136,6 +161,75 @@ public class DatabaseQueryExecutor implements IDatabaseQueryExecutor {
 	return resultSet;
     }
 
+    @Override
+    public <T> SimpleEntry<DiscoveryCountResponse, ResultSet<T>> countAndRetrieve(DiscoveryMessage message, Page page, Class<T> clazz)
+	    throws GSException {
+
+	GSLoggerFactory.getLogger(getClass()).info("Count and retrieve STARTED");
+
+	RequestManager.getInstance().updateThreadName(getClass(), message.getRequestId());
+
+	StorageInfo uri = message.getDataBaseURI();
+
+	DatabaseFinder finder = DatabaseProviderFactory.getFinder(uri);
+
+	message.setPage(page);
+
+	CountResultsCache cache = CountResultsCache.getInstance();
+
+	Optional<String> key = cache.createKey(message);
+
+	// the generations are read before the count, so that a write executed during the count invalidates the entry
+	Optional<HashMap<String, Long>> generations = key.isPresent() ? cache.getGenerations(message, finder) : Optional.empty();
+
+	Optional<DiscoveryCountResponse> cached = generations.flatMap(g -> cache.get(key.get(), g));
+
+	SimpleEntry<DiscoveryCountResponse, ResultSet<T>> pair = null;
+
+	if (cached.isPresent()) {
+
+	    pair = new SimpleEntry<>(cached.get(), discover(finder, message, clazz));
+
+	} else {
+
+	    pair = finder.countAndDiscover(message, clazz);
+
+	    DiscoveryCountResponse response = pair.getKey();
+
+	    generations.ifPresent(g -> cache.put(key.get(), g, response));
+	}
+
+	GSLoggerFactory.getLogger(getClass()).info("Count and retrieve ENDED");
+
+	return pair;
+    }
+
+    /**
+     * @param finder
+     * @param message
+     * @param clazz
+     * @return
+     * @throws GSException
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ResultSet<T> discover(DatabaseFinder finder, DiscoveryMessage message, Class<T> clazz) throws GSException {
+
+	if (clazz.equals(GSResource.class)) {
+
+	    return (ResultSet<T>) finder.discover(message);
+
+	} else if (clazz.equals(Node.class)) {
+
+	    return (ResultSet<T>) finder.discoverNodes(message);
+
+	} else if (clazz.equals(String.class)) {
+
+	    return (ResultSet<T>) finder.discoverStrings(message);
+	}
+
+	throw new IllegalArgumentException("Unsupported result type: " + clazz.getName());
+    }
+
     @Override
     public Type getType() {
 	return Type.DATABASE;
@@ -23,7 +23,9 @@ package eu.essi_lab.request.executor.discover.submitter;
 
 import java.io.IOException;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.parsers.ParserConfigurationException;
@@ -33,8 +35,6 @@ import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 import eu.essi_lab.adk.distributed.IDistributedAccessor;
-import eu.essi_lab.cfga.gs.ConfigurationWrapper;
-import eu.essi_lab.cfga.gs.setting.driver.DriverSetting;
 import eu.essi_lab.identifierdecorator.IdentifierDecorator;
 import eu.essi_lab.lib.servlet.RequestManager;
 import eu.essi_lab.messages.Page;
@@ -50,8 +50,7 @@ import eu.essi_lab.model.resource.GSResource;
 import eu.essi_lab.model.shared.SharedContent;
 import eu.essi_lab.model.shared.SharedContent.SharedContentType;
 import eu.essi_lab.request.executor.query.IDistributedQueryExecutor;
-import eu.essi_lab.shared.driver.DriverFactory;
-import eu.essi_lab.shared.driver.ISharedRepositoryDriver;
+import eu.essi_lab.shared.driver.SharedCacheChannel;
 
 public class DistributedQueryExecutor implements IDistributedQueryExecutor {
 
@@ -181,22 +180,25 @@ public class DistributedQueryExecutor implements IDistributedQueryExecutor {
 
 	List<GSResource> results = ret.getResultsList();
 
+	List<SharedContent<GSResource>> contents = new ArrayList<>();
+
 	for (GSResource result : results) {
 
 	    getIdentifierDecorator().decorateDistributedIdentifier(result);
 
-	    DriverSetting setting = ConfigurationWrapper.getSharedCacheDriverSetting();
-
-	    ISharedRepositoryDriver<?> driver = DriverFactory.getConfiguredDriver(setting, true);
-
 	    SharedContent<GSResource> sharedContent = new SharedContent<>();
 	    sharedContent.setType(SharedContentType.GS_RESOURCE_TYPE);
 	    sharedContent.setIdentifier(result.getPrivateId());
 	    sharedContent.setContent(result);
 
-	    driver.store(sharedContent);
+	    contents.add(sharedContent);
 	}
 
+	//
+	// the results are written to the shared cache in background
+	//
+	SharedCacheChannel.get().store(contents);
+
 	return ret;
     }
 
@@ -205,6 +207,7 @@ public class DistributedQueryExecutor implements IDistributedQueryExecutor {
      * @return
      * @throws GSException
      */
+    @SuppressWarnings("rawtypes")
     private ResultSet<GSResource> retrieveCached(ReducedDiscoveryMessage message) throws GSException {
 
 	Bond reducedBond = message.getReducedBond();
@@ -213,32 +216,13 @@ public class DistributedQueryExecutor implements IDistributedQueryExecutor {
 
 	List<String> identifiers = parser.getIdentifiers();
 
-	String idString = "";
-	for (String identifier : identifiers) {
-	    idString += identifier + ",";
-	}
-
-	if (idString.endsWith(",")) {
-	    idString = idString.substring(0, idString.length() - 1);
-	}
-
 	ResultSet<GSResource> ret = new ResultSet<>();
 
-	for (String identifier : identifiers) {
-
-	    DriverSetting setting = ConfigurationWrapper.getSharedCacheDriverSetting();
-
-	    ISharedRepositoryDriver<?> driver = DriverFactory.getConfiguredDriver(setting, true);
+	Map<String, SharedContent> contents = SharedCacheChannel.get().read(identifiers, SharedContentType.GS_RESOURCE_TYPE);
 
-	    @SuppressWarnings("unchecked")
-	    SharedContent<GSResource> content = driver.read(identifier, SharedContentType.GS_RESOURCE_TYPE);
-
-	    if (content == null) {
-
-		return ret;
-	    }
+	for (SharedContent content : contents.values()) {
 
-	    GSResource resource = content.getContent();
+	    GSResource resource = (GSResource) content.getContent();
 
 	    String sourceId = null;
 	    GSSource source = resource.getSource();
@@ -0,0 +1,149 @@
+package eu.essi_lab.discover.executor;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.count.DiscoveryCountResponse;
+import eu.essi_lab.model.exceptions.ErrorInfo;
+import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.request.executor.discover.Distributor;
+import eu.essi_lab.request.executor.query.IDatabaseQueryExecutor;
+import eu.essi_lab.request.executor.query.IQueryExecutor.Type;
+
+/**
+ * Tests that the results of a single database executor are counted and retrieved with a single request
+ *
+ * @author Fabrizio
+ */
+public class DistributorCountAndRetrieveTest {
+
+    @Test
+    public void countAndRetrieveTest() throws GSException {
+
+	IDatabaseQueryExecutor executor = createExecutorMock();
+
+	Mockito.when(executor.countAndRetrieve(//
+		ArgumentMatchers.any(DiscoveryMessage.class), //
+		ArgumentMatchers.any(Page.class), //
+		ArgumentMatchers.eq(GSResource.class))).//
+		thenReturn(createPair(42, "1", "2", "3"));
+
+	Distributor distributor = createDistributor(executor);
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setPage(new Page(1, 3));
+
+	ResultSet<GSResource> resultSet = distributor.retrieve(message);
+
+	Assert.assertEquals(3, resultSet.getResultsList().size());
+	Assert.assertEquals(42, resultSet.getCountResponse().getCount());
+	Assert.assertEquals(14, resultSet.getCountResponse().getPageCount());
+
+	Mockito.verify(executor, Mockito.never()).count(ArgumentMatchers.any());
+	Mockito.verify(executor, Mockito.never()).retrieve(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void countOnlyTest() throws GSException {
+
+	IDatabaseQueryExecutor executor = createExecutorMock();
+
+	DiscoveryCountResponse countResponse = new DiscoveryCountResponse();
+	countResponse.setCount(42);
+
+	Mockito.when(executor.count(ArgumentMatchers.any())).thenReturn(new SimpleEntry<>("TheDatabase", countResponse));
+
+	Distributor distributor = createDistributor(executor);
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setPage(new Page(1, 0));
+
+	ResultSet<GSResource> resultSet = distributor.retrieve(message);
+
+	Assert.assertTrue(resultSet.getResultsList().isEmpty());
+	Assert.assertEquals(42, resultSet.getCountResponse().getCount());
+
+	Mockito.verify(executor, Mockito.never()).countAndRetrieve(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void errorTest() throws GSException {
+
+	IDatabaseQueryExecutor executor = createExecutorMock();
+
+	Mockito.when(executor.countAndRetrieve(//
+		ArgumentMatchers.any(DiscoveryMessage.class), //
+		ArgumentMatchers.any(Page.class), //
+		ArgumentMatchers.eq(GSResource.class))).//
+		thenThrow(GSException.createException(getClass(), "error", "error", ErrorInfo.ERRORTYPE_INTERNAL,
+			ErrorInfo.SEVERITY_FATAL, "errorId"));
+
+	Distributor distributor = createDistributor(executor);
+
+	DiscoveryMessage message = new DiscoveryMessage();
+	message.setPage(new Page(1, 3));
+
+	ResultSet<GSResource> resultSet = distributor.retrieve(message);
+
+	Assert.assertTrue(resultSet.getResultsList().isEmpty());
+	Assert.assertEquals(0, resultSet.getCountResponse().getCount());
+	Assert.assertEquals(1, resultSet.getException().getErrorInfoList().size());
+    }
+
+    /**
+     * @param executor
+     * @return
+     */
+    private Distributor createDistributor(IDatabaseQueryExecutor executor) {
+
+	Distributor distributor = new Distributor();
+	distributor.setQuerySubmitters(Arrays.asList(executor));
+
+	return distributor;
+    }
+
+    /**
+     * @return
+     */
+    private IDatabaseQueryExecutor createExecutorMock() {
+
+	IDatabaseQueryExecutor executor = Mockito.mock(IDatabaseQueryExecutor.class);
+	Mockito.when(executor.getType()).thenReturn(Type.DATABASE);
+	Mockito.when(executor.getSourceIdentifier()).thenReturn("TheDatabase");
+
+	return executor;
+    }
+
+    /**
+     * @param count
+     * @param identifiers
+     * @return
+     */
+    private SimpleEntry<DiscoveryCountResponse, ResultSet<GSResource>> createPair(int count, String... identifiers) {
+
+	DiscoveryCountResponse countResponse = new DiscoveryCountResponse();
+	countResponse.setCount(count);
+
+	ResultSet<GSResource> resultSet = new ResultSet<>();
+
+	for (String identifier : identifiers) {
+
+	    Dataset dataset = new Dataset();
+	    dataset.setOriginalId(identifier);
+
+	    resultSet.getResultsList().add(dataset);
+	}
+
+	return new SimpleEntry<>(countResponse, resultSet);
+    }
+}
@@ -0,0 +1,315 @@
+package eu.essi_lab.discover.executor;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+import eu.essi_lab.messages.DiscoveryMessage;
+import eu.essi_lab.messages.Page;
+import eu.essi_lab.messages.ReducedDiscoveryMessage;
+import eu.essi_lab.messages.ResultSet;
+import eu.essi_lab.messages.bond.Bond;
+import eu.essi_lab.messages.bond.BondFactory;
+import eu.essi_lab.messages.bond.LogicalBond;
+import eu.essi_lab.messages.count.DiscoveryCountResponse;
+import eu.essi_lab.model.exceptions.GSException;
+import eu.essi_lab.model.resource.Dataset;
+import eu.essi_lab.model.resource.GSResource;
+import eu.essi_lab.request.executor.discover.Distributor;
+import eu.essi_lab.request.executor.query.IDatabaseQueryExecutor;
+import eu.essi_lab.request.executor.query.IDistributedQueryExecutor;
+import eu.essi_lab.request.executor.query.IQueryExecutor;
+import eu.essi_lab.request.executor.query.IQueryExecutor.Type;
+
+/**
+ * Tests the pipelined retrieval of the {@link Distributor}. The counts of the distributed sources are cached for some
+ * seconds by all the distributors, so each test uses its own source identifiers
+ *
+ * @author boldrini
+ */
+public class DistributorPipelinedTest {
+
+    private static final int WAIT = 10;
+
+    /**
+     * The retrievals of the following sources run at the same time, and the results are kept in the sources order
+     *
+     * @throws Exception
+     */
+    @Test
+    public void orderingTest() throws Exception {
+
+	CountDownLatch secondRetrieved = new CountDownLatch(1);
+
+	IDistributedQueryExecutor first = createDistributedMock("ordering1", createRetrieveAnswer("1", "2", "3"), "1", "2", "3");
+
+	// the first source answers after the second one
+	Mockito.doAnswer(invocation -> {
+
+	    Assert.assertTrue(secondRetrieved.await(WAIT, TimeUnit.SECONDS));
+
+	    return createRetrieveAnswer("1", "2", "3").answer(invocation);
+
+	}).when(first).retrieve(ArgumentMatchers.any(ReducedDiscoveryMessage.class), ArgumentMatchers.any(Page.class));
+
+	IDistributedQueryExecutor second = createDistributedMock("ordering2", invocation -> {
+
+	    secondRetrieved.countDown();
+
+	    return createRetrieveAnswer("4", "5", "6").answer(invocation);
+
+	}, "4", "5", "6");
+
+	IDistributedQueryExecutor third = createDistributedMock("ordering3", createRetrieveAnswer("7", "8", "9"), "7", "8", "9");
+
+	Distributor distributor = createDistributor(first, second, third);
+
+	ResultSet<GSResource> resultSet = distributor.retrieve(createMessage(new Page(1, 6), "ordering1", "ordering2", "ordering3"));
+
+	Assert.assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6"), getIdentifiers(resultSet));
+	Assert.assertEquals(9, resultSet.getCountResponse().getCount());
+	Assert.assertTrue(resultSet.getException().getErrorInfoList().isEmpty());
+
+	// the third source is outside the page
+	Mockito.verify(third, Mockito.never()).retrieve(ArgumentMatchers.any(), ArgumentMatchers.any());
+
+	resultSet = distributor.retrieve(createMessage(new Page(2, 6), "ordering1", "ordering2", "ordering3"));
+
+	Assert.assertEquals(Arrays.asList("2", "3", "4", "5", "6", "7"), getIdentifiers(resultSet));
+
+	resultSet = distributor.retrieve(createMessage(new Page(5, 3), "ordering1", "ordering2", "ordering3"));
+
+	Assert.assertEquals(Arrays.asList("5", "6", "7"), getIdentifiers(resultSet));
+    }
+
+    /**
+     * The speculative retrieval of a source which turns out to be empty is cancelled
+     *
+     * @throws Exception
+     */
+    @Test
+    public void cancellationTest() throws Exception {
+
+	CountDownLatch retrieveStarted = new CountDownLatch(1);
+	CountDownLatch retrieveInterrupted = new CountDownLatch(1);
+
+	IDistributedQueryExecutor first = createDistributedMock("cancel1", createRetrieveAnswer("1", "2", "3"), "1", "2", "3");
+
+	IDistributedQueryExecutor empty = createDistributedMock("cancel2", invocation -> {
+
+	    retrieveStarted.countDown();
+
+	    try {
+
+		// never ends unless cancelled
+		new CountDownLatch(1).await();
+
+	    } catch (InterruptedException ex) {
+
+		retrieveInterrupted.countDown();
+
+		throw ex;
+	    }
+
+	    return new ResultSet<GSResource>();
+	});
+
+	// the count arrives only after the speculative retrieval is started
+	Mockito.doAnswer(invocation -> {
+
+	    Assert.assertTrue(retrieveStarted.await(WAIT, TimeUnit.SECONDS));
+
+	    return createCount("cancel2", 0);
+
+	}).when(empty).count(ArgumentMatchers.any(ReducedDiscoveryMessage.class));
+
+	IDistributedQueryExecutor third = createDistributedMock("cancel3", createRetrieveAnswer("7", "8", "9"), "7", "8", "9");
+
+	Distributor distributor = createDistributor(first, empty, third);
+
+	ResultSet<GSResource> resultSet = distributor.retrieve(createMessage(new Page(1, 6), "cancel1", "cancel2", "cancel3"));
+
+	Assert.assertEquals(Arrays.asList("1", "2", "3", "7", "8", "9"), getIdentifiers(resultSet));
+	Assert.assertEquals(6, resultSet.getCountResponse().getCount());
+	Assert.assertTrue(resultSet.getException().getErrorInfoList().isEmpty());
+
+	Assert.assertTrue(retrieveInterrupted.await(WAIT, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Only the counts of the distributed sources are cached, and the database retrieves a copy of the message
+     *
+     * @throws Exception
+     */
+    @Test
+    public void countTest() throws Exception {
+
+	IDatabaseQueryExecutor database = Mockito.mock(IDatabaseQueryExecutor.class);
+	Mockito.when(database.getType()).thenReturn(Type.DATABASE);
+	Mockito.when(database.getSourceIdentifier()).thenReturn("countDatabase");
+
+	Mockito.when(database.count(ArgumentMatchers.any())).thenReturn(createCount("countDatabase", 2));
+
+	Mockito.doAnswer(invocation -> {
+
+	    // as the database executor does
+	    ((DiscoveryMessage) invocation.getArguments()[0]).setPage((Page) invocation.getArguments()[1]);
+
+	    return createRetrieveAnswer("a", "b").answer(invocation);
+
+	}).when(database).retrieve(ArgumentMatchers.any(DiscoveryMessage.class), ArgumentMatchers.any(Page.class));
+
+	IDistributedQueryExecutor distributed = createDistributedMock("countSource", createRetrieveAnswer("1", "2", "3"), "1", "2",
+		"3");
+
+	Distributor distributor = createDistributor(database, distributed);
+
+	Page page = new Page(1, 4);
+
+	DiscoveryMessage message = createMessage(page, "countSource");
+
+	ResultSet<GSResource> resultSet = distributor.retrieve(message);
+
+	Assert.assertEquals(Arrays.asList("a", "b", "1", "2"), getIdentifiers(resultSet));
+	Assert.assertEquals(5, resultSet.getCountResponse().getCount());
+
+	resultSet = distributor.retrieve(message);
+
+	Assert.assertEquals(Arrays.asList("a", "b", "1", "2"), getIdentifiers(resultSet));
+	Assert.assertEquals(5, resultSet.getCountResponse().getCount());
+
+	// the distributed count is cached, the database one is not
+	Mockito.verify(distributed, Mockito.times(1)).count(ArgumentMatchers.any());
+	Mockito.verify(database, Mockito.times(2)).count(message);
+
+	// the database retrieves its own copy of the message, so the original page is never modified
+	ArgumentCaptor<DiscoveryMessage> captor = ArgumentCaptor.forClass(DiscoveryMessage.class);
+	Mockito.verify(database, Mockito.times(2)).retrieve(captor.capture(), ArgumentMatchers.any(Page.class));
+
+	captor.getAllValues().forEach(copy -> {
+
+	    Assert.assertNotSame(message, copy);
+	    Assert.assertEquals(message.getRequestId(), copy.getRequestId());
+	});
+
+	Assert.assertSame(page, message.getPage());
+    }
+
+    /**
+     * @param executors
+     * @return
+     */
+    private Distributor createDistributor(IQueryExecutor... executors) {
+
+	Distributor distributor = new Distributor();
+	distributor.setQuerySubmitters(Arrays.asList(executors));
+	distributor.setPipelined(true);
+
+	return distributor;
+    }
+
+    /**
+     * @param page
+     * @param sources
+     * @return
+     */
+    private DiscoveryMessage createMessage(Page page, String... sources) {
+
+	DiscoveryMessage message = new DiscoveryMessage();
+
+	LogicalBond bond = BondFactory.createOrBond(//
+		Arrays.stream(sources).//
+			map(BondFactory::createSourceIdentifierBond).//
+			toArray(Bond[]::new));
+
+	message.setUserBond(bond);
+	message.setPermittedBond(bond);
+	message.setNormalizedBond(bond);
+	message.setPage(page);
+
+	return message;
+    }
+
+    /**
+     * @param sourceIdentifier
+     * @param retrieveAnswer
+     * @param identifiers
+     * @return
+     * @throws GSException
+     */
+    private IDistributedQueryExecutor createDistributedMock(String sourceIdentifier, Answer<ResultSet<GSResource>> retrieveAnswer,
+	    String... identifiers) throws GSException {
+
+	IDistributedQueryExecutor executor = Mockito.mock(IDistributedQueryExecutor.class);
+	Mockito.when(executor.getType()).thenReturn(Type.DISTRIBUTED);
+	Mockito.when(executor.getSourceIdentifier()).thenReturn(sourceIdentifier);
+
+	Mockito.doAnswer(invocation -> createCount(sourceIdentifier, identifiers.length)).//
+		when(executor).count(ArgumentMatchers.any(ReducedDiscoveryMessage.class));
+
+	Mockito.doAnswer(retrieveAnswer).//
+		when(executor).retrieve(ArgumentMatchers.any(ReducedDiscoveryMessage.class), ArgumentMatchers.any(Page.class));
+
+	return executor;
+    }
+
+    /**
+     * @param identifiers
+     * @return an answer which returns the requested page of the given identifiers
+     */
+    private Answer<ResultSet<GSResource>> createRetrieveAnswer(String... identifiers) {
+
+	return invocation -> {
+
+	    Page page = (Page) invocation.getArguments()[1];
+
+	    ResultSet<GSResource> resultSet = new ResultSet<>();
+
+	    for (int i = page.getStart() - 1; i < Math.min(page.getStart() - 1 + page.getSize(), identifiers.length); i++) {
+
+		Dataset dataset = new Dataset();
+		dataset.setOriginalId(identifiers[i]);
+
+		resultSet.getResultsList().add(dataset);
+	    }
+
+	    return resultSet;
+	};
+    }
+
+    /**
+     * @param sourceIdentifier
+     * @param count
+     * @return
+     */
+    private SimpleEntry<String, DiscoveryCountResponse> createCount(String sourceIdentifier, int count) {
+
+	DiscoveryCountResponse response = new DiscoveryCountResponse();
+	response.setCount(count);
+
+	return new SimpleEntry<>(sourceIdentifier, response);
+    }
+
+    /**
+     * @param resultSet
+     * @return
+     */
+    private List<String> getIdentifiers(ResultSet<GSResource> resultSet) {
+
+	List<String> out = new ArrayList<>();
+
+	resultSet.getResultsList().forEach(resource -> out.add(resource.getOriginalId()));
+
+	return out;
+    }
+}
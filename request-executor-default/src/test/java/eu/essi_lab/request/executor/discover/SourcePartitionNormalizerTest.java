@@ -0,0 +1,316 @@
+package eu.essi_lab.request.executor.discover;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.essi_lab.messages.bond.Bond;
+import eu.essi_lab.messages.bond.BondFactory;
+import eu.essi_lab.messages.bond.BondOperator;
+import eu.essi_lab.messages.bond.LogicalBond;
+import eu.essi_lab.messages.bond.ResourcePropertyBond;
+import eu.essi_lab.messages.bond.SpatialExtent;
+import eu.essi_lab.model.resource.MetadataElement;
+import eu.essi_lab.model.resource.ResourceProperty;
+
+/**
+ * Checks that the {@link SourcePartitionNormalizer} is equivalent to the disjunctive normal form normalization, and
+ * measures the normalization time of pathological bonds
+ *
+ * @author boldrini
+ */
+public class SourcePartitionNormalizerTest {
+
+    private static final int SOURCES = 5;
+
+    @Before
+    public void init() {
+
+	NormalizedBondCache.getInstance().clear();
+    }
+
+    @Test
+    public void equivalenceTest() throws Exception {
+
+	List<Bond> bonds = Arrays.asList(//
+		pathologicalBond(2, 3), //
+		pathologicalBond(3, 2), //
+		BondFactory.createAndBond(//
+			BondFactory.createOrBond(source(1), source(2), source(3)), //
+			BondFactory.createNotBond(keyword(2)), //
+			BondFactory.createOrBond(BondFactory.createAndBond(source(1), keyword(1)), source(2))), //
+		BondFactory.createOrBond(//
+			BondFactory.createAndBond(source(1), keyword(1)), //
+			BondFactory.createAndBond(source(2), keyword(2)), //
+			keyword(3)));
+
+	for (Bond bond : bonds) {
+
+	    Bond expected = createInitializer(Long.MAX_VALUE).normalizeBond(bond.clone());
+
+	    NormalizedBondCache.getInstance().clear();
+
+	    Bond actual = createInitializer(1).normalizeBond(bond.clone());
+
+	    NormalizedBondCache.getInstance().clear();
+
+	    assertEquivalent(expected, actual);
+	}
+    }
+
+    @Test
+    public void unsatisfiableTest() throws Exception {
+
+	// no source satisfies both the disjunctions
+	Bond bond = BondFactory.createAndBond(//
+		BondFactory.createOrBond(BondFactory.createAndBond(source(1), keyword(1)), BondFactory.createAndBond(source(2), keyword(2))), //
+		BondFactory.createOrBond(BondFactory.createAndBond(source(3), keyword(3)), BondFactory.createAndBond(source(4), keyword(4))));
+
+	Assert.assertNull(createInitializer(1).normalizeBond(bond));
+    }
+
+    @Test
+    public void estimationTest() {
+
+	Assert.assertEquals(1, SourcePartitionNormalizer.estimateDisjunctiveNormalFormSize(keyword(1), 1000));
+
+	// the non source related ORs are not distributed
+	Assert.assertEquals(1, SourcePartitionNormalizer.estimateDisjunctiveNormalFormSize(//
+		BondFactory.createAndBond(BondFactory.createOrBond(keyword(1), keyword(2)), keyword(3)), 1000));
+
+	Assert.assertEquals(125, SourcePartitionNormalizer.estimateDisjunctiveNormalFormSize(pathologicalBond(3, 5), 1000));
+
+	Assert.assertEquals(1000, SourcePartitionNormalizer.estimateDisjunctiveNormalFormSize(pathologicalBond(8, 5), 1000));
+    }
+
+    @Test
+    public void memoizationTest() throws Exception {
+
+	QueryInitializer initializer = createInitializer(SourcePartitionNormalizer.DEFAULT_DNF_SIZE_THRESHOLD);
+
+	Bond normalized = initializer.normalizeBond(pathologicalBond(3, 3));
+
+	long hits = NormalizedBondCache.getInstance().getHits();
+
+	Bond memoized = initializer.normalizeBond(pathologicalBond(3, 3));
+
+	Assert.assertEquals(hits + 1, NormalizedBondCache.getInstance().getHits());
+	Assert.assertEquals(normalized, memoized);
+
+	// the cached bond is not modified by the caller
+	((LogicalBond) memoized).getOperands().clear();
+
+	Assert.assertEquals(normalized, initializer.normalizeBond(pathologicalBond(3, 3)));
+
+	// the same bond normalized with another threshold is not memoized
+	long misses = NormalizedBondCache.getInstance().getMisses();
+
+	createInitializer(1).normalizeBond(pathologicalBond(3, 3));
+
+	Assert.assertEquals(misses + 1, NormalizedBondCache.getInstance().getMisses());
+	//
+	// the spatial bonds with equal extents are memoized
+	//
+
+	initializer.normalizeBond(BondFactory.createSpatialExtentBond(BondOperator.BBOX, new SpatialExtent(10, 10, 20, 20)));
+
+	hits = NormalizedBondCache.getInstance().getHits();
+
+	initializer.normalizeBond(BondFactory.createSpatialExtentBond(BondOperator.BBOX, new SpatialExtent(10, 10, 20, 20)));
+
+	Assert.assertEquals(hits + 1, NormalizedBondCache.getInstance().getHits());
+
+	// the extents equal on the quantization grid have the same hash
+	SpatialExtent extent = new SpatialExtent(0.1 + 0.2, 10, 20, 20);
+
+	Assert.assertEquals(new SpatialExtent(0.3, 10, 20, 20), extent);
+	Assert.assertEquals(new SpatialExtent(0.3, 10, 20, 20).hashCode(), extent.hashCode());
+	Assert.assertNotEquals(new SpatialExtent(0.300001, 10, 20, 20), extent);
+    }
+
+    /**
+     * 8 ORs of 5 terms, whose disjunctive normal form has 5^8 = 390625 conjunctions
+     *
+     * @throws Exception
+     */
+    @Test
+    public void pathologicalBondBenchmarkTest() throws Exception {
+
+	QueryInitializer initializer = createInitializer(SourcePartitionNormalizer.DEFAULT_DNF_SIZE_THRESHOLD);
+
+	long start = System.currentTimeMillis();
+
+	Bond normalized = initializer.normalizeBond(pathologicalBond(8, 5));
+
+	long time = System.currentTimeMillis() - start;
+
+	start = System.nanoTime();
+
+	initializer.normalizeBond(pathologicalBond(8, 5));
+
+	long memoizedTime = System.nanoTime() - start;
+
+	System.out.println("8 ORs of 5 terms normalized in " + time + " ms, memoized in " + memoizedTime / 1000 + " us");
+
+	// one conjunction per source
+	Assert.assertEquals(SOURCES, ((LogicalBond) normalized).getOperands().size());
+
+	Assert.assertTrue(time < 2000);
+
+	//
+	// the disjunctive normal form of a smaller bond, for comparison
+	//
+
+	start = System.currentTimeMillis();
+
+	createInitializer(Long.MAX_VALUE).normalizeBond(pathologicalBond(4, 5));
+
+	System.out.println("4 ORs of 5 terms normalized with the disjunctive normal form in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Checks that the given bonds select the same resources, for each source and each combination of the other terms
+     *
+     * @param expected
+     * @param actual
+     */
+    private void assertEquivalent(Bond expected, Bond actual) {
+
+	Set<Bond> terms = new HashSet<>();
+	collectTerms(expected, terms);
+	collectTerms(actual, terms);
+
+	List<Bond> termsList = new ArrayList<>(terms);
+
+	for (int source = 1; source <= SOURCES; source++) {
+
+	    for (int mask = 0; mask < 1 << termsList.size(); mask++) {
+
+		Set<Bond> trueTerms = new HashSet<>();
+
+		for (int i = 0; i < termsList.size(); i++) {
+
+		    if ((mask & 1 << i) != 0) {
+
+			trueTerms.add(termsList.get(i));
+		    }
+		}
+
+		Assert.assertEquals(expected + " / " + actual, //
+			evaluate(expected, "source" + source, trueTerms), //
+			evaluate(actual, "source" + source, trueTerms));
+	    }
+	}
+    }
+
+    /**
+     * @param bond
+     * @param sourceId
+     * @param trueTerms
+     * @return
+     */
+    private boolean evaluate(Bond bond, String sourceId, Set<Bond> trueTerms) {
+
+	if (bond == null) {
+
+	    return false;
+	}
+
+	if (bond instanceof LogicalBond) {
+
+	    LogicalBond logicalBond = (LogicalBond) bond;
+
+	    switch (logicalBond.getLogicalOperator()) {
+	    case AND:
+		return logicalBond.getOperands().stream().allMatch(b -> evaluate(b, sourceId, trueTerms));
+	    case OR:
+		return logicalBond.getOperands().stream().anyMatch(b -> evaluate(b, sourceId, trueTerms));
+	    default:
+		return !evaluate(logicalBond.getFirstOperand(), sourceId, trueTerms);
+	    }
+	}
+
+	if (BondFactory.isResourcePropertyBond(bond, ResourceProperty.SOURCE_ID)) {
+
+	    return ((ResourcePropertyBond) bond).getPropertyValue().equals(sourceId);
+	}
+
+	return trueTerms.contains(bond);
+    }
+
+    /**
+     * @param bond
+     * @param terms
+     */
+    private void collectTerms(Bond bond, Set<Bond> terms) {
+
+	if (bond instanceof LogicalBond) {
+
+	    ((LogicalBond) bond).getOperands().forEach(b -> collectTerms(b, terms));
+
+	} else if (bond != null && !BondFactory.isResourcePropertyBond(bond, ResourceProperty.SOURCE_ID)) {
+
+	    terms.add(bond);
+	}
+    }
+
+    /**
+     * @param ors
+     * @param terms
+     * @return a conjunction of <code>ors</code> disjunctions of <code>terms</code> (source AND keyword) terms
+     */
+    private Bond pathologicalBond(int ors, int terms) {
+
+	List<Bond> conjunction = new ArrayList<>();
+
+	for (int i = 0; i < ors; i++) {
+
+	    List<Bond> disjunction = new ArrayList<>();
+
+	    for (int j = 1; j <= terms; j++) {
+
+		disjunction.add(BondFactory.createAndBond(source(j), keyword(i * terms + j)));
+	    }
+
+	    conjunction.add(BondFactory.createOrBond(disjunction));
+	}
+
+	return BondFactory.createAndBond(conjunction);
+    }
+
+    /**
+     * @param threshold
+     * @return
+     */
+    private QueryInitializer createInitializer(long threshold) {
+
+	QueryInitializer initializer = new QueryInitializer();
+	initializer.setDisjunctiveNormalFormSizeThreshold(threshold);
+
+	return initializer;
+    }
+
+    /**
+     * @param i
+     * @return
+     */
+    private Bond source(int i) {
+
+	return BondFactory.createSourceIdentifierBond("source" + i);
+    }
+
+    /**
+     * @param i
+     * @return
+     */
+    private Bond keyword(int i) {
+
+	return BondFactory.createSimpleValueBond(BondOperator.EQUAL, MetadataElement.KEYWORD, "k" + i);
+    }
+}
@@ -41,4 +41,17 @@ public interface IDatabaseQueryExecutor extends IQueryExecutor {
     public ResultSet<Node> retrieveNodes(DiscoveryMessage message, Page page) throws GSException;
     
     public ResultSet<String> retrieveStrings(DiscoveryMessage message, Page page) throws GSException;
+
+    /**
+     * Counts the results of the message and retrieves the given page of {@link GSResource}, {@link Node} or
+     * {@link String} according to <code>clazz</code>, with a single request if the database supports it
+     * 
+     * @param message
+     * @param page
+     * @param clazz
+     * @return
+     * @throws GSException
+     */
+    public <T> SimpleEntry<DiscoveryCountResponse, ResultSet<T>> countAndRetrieve(DiscoveryMessage message, Page page, Class<T> clazz)
+	    throws GSException;
 }
@@ -0,0 +1,193 @@
+/**
+ * 
+ */
+package eu.essi_lab.authorization.xacml;
+
+/*-
+ * #%L
+ * Discovery and Access Broker (DAB) Community Edition (CE)
+ * %%
+ * Copyright (C) 2021 - 2025 National Research Council of Italy (CNR)/Institute of Atmospheric Pollution Research (IIA)/ESSI-Lab
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.ow2.authzforce.core.pdp.api.CloseablePdpEngine;
+
+import eu.essi_lab.authorization.DefaultPdpEngineBuilder;
+import eu.essi_lab.authorization.PdpEngineBuilder;
+import eu.essi_lab.authorization.authzforce.ext.IdListRefPolicyProvider;
+import eu.essi_lab.authorization.psloader.PolicySetLoader;
+import eu.essi_lab.cfga.Configuration;
+import eu.essi_lab.cfga.gs.ConfigurationWrapper;
+import eu.essi_lab.lib.utils.ExpiringCache;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
+
+/**
+ * Provides the PDP engine built with the default policies, shared by all the {@link XACMLAuthorizer}s since the engine
+ * evaluation is thread safe. The engine is built once and rebuilt only when the configuration changes.<br>
+ * The decisions of the default engine are cached according to all the attributes of the request (see
+ * {@link PdpEngineWrapper#getRequestKey()}); the cache is discarded together with the engine.<br>
+ * <br>
+ * Engines are built one at a time since the policy provider reads the policies from a static loader
+ * 
+ * @author Fabrizio
+ */
+public class PdpEngineProvider {
+
+    /**
+     * 
+     */
+    private static final int DECISION_CACHE_SIZE = 10000;
+
+    /**
+     * 
+     */
+    private static final long DECISION_CACHE_DURATION = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Object BUILD_LOCK = new Object();
+
+    private static volatile DefaultEngine defaultEngine;
+
+    private static Configuration listenedConfiguration;
+
+    /**
+     * @author Fabrizio
+     */
+    public static class DefaultEngine {
+
+	private final CloseablePdpEngine engine;
+	private final ExpiringCache<DecisionType> decisionCache;
+
+	/**
+	 * @param engine
+	 */
+	private DefaultEngine(CloseablePdpEngine engine) {
+
+	    this.engine = engine;
+	    this.decisionCache = new ExpiringCache<>();
+
+	    decisionCache.setMaxSize(DECISION_CACHE_SIZE);
+	    decisionCache.setDuration(DECISION_CACHE_DURATION);
+	}
+
+	/**
+	 * @return the shared engine, which must not be closed
+	 */
+	public CloseablePdpEngine getEngine() {
+
+	    return engine;
+	}
+
+	/**
+	 * @return
+	 */
+	public ExpiringCache<DecisionType> getDecisionCache() {
+
+	    return decisionCache;
+	}
+    }
+
+    private PdpEngineProvider() {
+    }
+
+    /**
+     * @return
+     * @throws Exception
+     */
+    public static DefaultEngine getDefaultEngine() throws Exception {
+
+	DefaultEngine engine = defaultEngine;
+
+	if (engine == null || configurationReplaced()) {
+
+	    synchronized (BUILD_LOCK) {
+
+		if (defaultEngine == null || configurationReplaced()) {
+
+		    listen();
+
+		    GSLoggerFactory.getLogger(PdpEngineProvider.class).info("Building default PDP engine");
+
+		    defaultEngine = new DefaultEngine(new DefaultPdpEngineBuilder().build());
+		}
+
+		engine = defaultEngine;
+	    }
+	}
+
+	return engine;
+    }
+
+    /**
+     * Builds an engine with the policies of the given <code>loader</code>
+     * 
+     * @param loader
+     * @return
+     * @throws Exception
+     */
+    public static CloseablePdpEngine build(PolicySetLoader loader) throws Exception {
+
+	synchronized (BUILD_LOCK) {
+
+	    IdListRefPolicyProvider.setPolicySetLoader(loader);
+
+	    PdpEngineBuilder builder = new PdpEngineBuilder();
+
+	    builder.addPolicies(loader);
+
+	    return builder.build();
+	}
+    }
+
+    /**
+     * Discards the default engine and its decisions, the engine will be rebuilt by the next
+     * {@link #getDefaultEngine()} call
+     */
+    public static void invalidate() {
+
+	synchronized (BUILD_LOCK) {
+
+	    defaultEngine = null;
+	}
+    }
+
+    /**
+     * @return <code>true</code> if the configuration has been set or replaced after the last build
+     */
+    private static boolean configurationReplaced() {
+
+	return ConfigurationWrapper.getConfiguration().orElse(null) != listenedConfiguration;
+    }
+
+    /**
+     * Listens to the changes of the current configuration; to be called holding the build lock
+     */
+    private static void listen() {
+
+	Configuration configuration = ConfigurationWrapper.getConfiguration().orElse(null);
+
+	if (configuration != null && configuration != listenedConfiguration) {
+
+	    configuration.addChangeEventListener(event -> invalidate());
+	}
+
+	listenedConfiguration = configuration;
+    }
+}
@@ -29,9 +29,12 @@ import static org.ow2.authzforce.xacml.identifiers.XacmlAttributeCategory.XACML_
 import static org.ow2.authzforce.xacml.identifiers.XacmlAttributeCategory.XACML_3_0_RESOURCE;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.ow2.authzforce.core.pdp.api.AttributeFqn;
@@ -60,6 +63,7 @@ public class PdpEngineWrapper {
 
     private CloseablePdpEngine pdp;
     private DecisionRequestBuilder<?> requestBuilder;
+    private TreeMap<String, List<String>> requestAttributes;
 
     /**
      * @param builder
@@ -70,6 +74,7 @@ public class PdpEngineWrapper {
 	this.pdp = pdp;
 
 	this.requestBuilder = pdp.newRequestBuilder(-1, -1);
+	this.requestAttributes = new TreeMap<>();
     }
 
     /**
@@ -87,6 +92,7 @@ public class PdpEngineWrapper {
 		new AnyUriValue("roles;" + role));
 
 	requestBuilder.putNamedAttributeIfAbsent(subjectRoleAttributeId, roleAttributeValues);
+	requestAttributes.putIfAbsent("role", Collections.singletonList(role));
     }
 
     /**
@@ -104,6 +110,7 @@ public class PdpEngineWrapper {
 		new StringValue(action));
 
 	requestBuilder.putNamedAttributeIfAbsent(actionIdAttributeId, actionIdAttributeValues);
+	requestAttributes.putIfAbsent("action", Collections.singletonList(action));
     }
 
     /**
@@ -126,6 +133,7 @@ public class PdpEngineWrapper {
 		collect);
 
 	requestBuilder.putNamedAttributeIfAbsent(resourceIdAttributeId, sourceAttributeValues);
+	requestAttributes.putIfAbsent(Issuer.SOURCE.getId(), new ArrayList<>(Arrays.asList(sources)));
     }
 
     /**
@@ -143,6 +151,7 @@ public class PdpEngineWrapper {
 		new IntegerValue(new MediumInteger(count)));
 
 	requestBuilder.putNamedAttributeIfAbsent(resourceIdAttributeId, resourceIdAttributeValues);
+	requestAttributes.putIfAbsent(Issuer.DOWNLOAD.getId(), Collections.singletonList(String.valueOf(count)));
     }
 
     /**
@@ -160,6 +169,7 @@ public class PdpEngineWrapper {
 		new IntegerValue(new MediumInteger(offset)));
 
 	requestBuilder.putNamedAttributeIfAbsent(resourceIdAttributeId, resourceIdAttributeValues);
+	requestAttributes.putIfAbsent(Issuer.OFFSET.getId(), Collections.singletonList(String.valueOf(offset)));
     }
 
     /**
@@ -177,6 +187,7 @@ public class PdpEngineWrapper {
 		new IntegerValue(new MediumInteger(maxRecords)));
 
 	requestBuilder.putNamedAttributeIfAbsent(resourceIdAttributeId, resourceIdAttributeValues);
+	requestAttributes.putIfAbsent(Issuer.MAX_RECORDS.getId(), Collections.singletonList(String.valueOf(maxRecords)));
     }
 
     /**
@@ -215,6 +226,7 @@ public class PdpEngineWrapper {
 		collect);
 
 	requestBuilder.putNamedAttributeIfAbsent(subjectIdAttributeId, ipAttributeValues);
+	requestAttributes.putIfAbsent(Issuer.ALLOWED_IP.getId(), new ArrayList<>(Arrays.asList(ipList)));
 
 	// setAccessSubject(Issuer.ALLOWED_IP.getId(), ip);
     }
@@ -275,6 +287,7 @@ public class PdpEngineWrapper {
 		new StringValue(value));
 
 	requestBuilder.putNamedAttributeIfAbsent(subjectIdAttributeId, subjectIdAttributeValues);
+	requestAttributes.putIfAbsent(issuer, Collections.singletonList(value));
     }
 
     // private void add(String... users) {
@@ -326,12 +339,55 @@ public class PdpEngineWrapper {
 	return requestBuilder;
     }
 
+    /**
+     * Returns a key which identifies the attributes set since the last {@link #reset()}, so that requests with the same
+     * key have the same decision.<br>
+     * Each attribute name and value is prefixed by its length, and each attribute by the number of its values, so
+     * names and values containing separators cannot make different attributes produce the same key
+     * 
+     * @return
+     */
+    public String getRequestKey() {
+
+	StringBuilder builder = new StringBuilder();
+
+	requestAttributes.forEach((name, values) -> {
+
+	    append(builder, name);
+
+	    builder.append(values.size()).append('#');
+
+	    values.forEach(value -> append(builder, value));
+	});
+
+	return builder.toString();
+    }
+
+    /**
+     * Appends the given string prefixed by its length, or "-" if it is <code>null</code>
+     * 
+     * @param builder
+     * @param value
+     */
+    private static void append(StringBuilder builder, String value) {
+
+	if (value == null) {
+
+	    builder.append('-');
+
+	} else {
+
+	    builder.append(value.length()).append(':').append(value);
+	}
+    }
+
     /**
      * 
      */
     public void reset() {
 
 	requestBuilder.reset();
+	requestAttributes.clear();
     }
 
     public void close() throws IOException {
@@ -37,11 +37,8 @@ import java.util.stream.Collectors;
 import org.ow2.authzforce.core.pdp.api.CloseablePdpEngine;
 
 import eu.essi_lab.authorization.BasicRole;
-import eu.essi_lab.authorization.DefaultPdpEngineBuilder;
 import eu.essi_lab.authorization.MessageAuthorizer;
-import eu.essi_lab.authorization.PdpEngineBuilder;
 import eu.essi_lab.authorization.PolicySetWrapper.Action;
-import eu.essi_lab.authorization.authzforce.ext.IdListRefPolicyProvider;
 import eu.essi_lab.authorization.pps.AbstractGEOSSViewPermissionPolicySet;
 import eu.essi_lab.authorization.pps.AbstractPermissionPolicySet;
 import eu.essi_lab.authorization.pps.GEOSSPrivateWritePermissionPolicySet;
@@ -52,9 +49,11 @@ import eu.essi_lab.authorization.psloader.PolicySetLoader;
 import eu.essi_lab.authorization.rps.GEOSSPrivateWriteRolePolicySet;
 import eu.essi_lab.authorization.rps.GEOSSReadRolePolicySet;
 import eu.essi_lab.authorization.rps.GEOSSWriteRolePolicySet;
+import eu.essi_lab.authorization.xacml.PdpEngineProvider.DefaultEngine;
 import eu.essi_lab.cfga.Configuration;
 import eu.essi_lab.cfga.gs.ConfigurationWrapper;
 import eu.essi_lab.configuration.ExecutionMode;
+import eu.essi_lab.lib.utils.ExpiringCache;
 import eu.essi_lab.lib.utils.GSLoggerFactory;
 import eu.essi_lab.messages.AccessMessage;
 import eu.essi_lab.messages.DiscoveryMessage;
@@ -71,22 +70,28 @@ import eu.essi_lab.model.exceptions.GSException;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
 
 /**
+ * Authorizes a single request at a time, so instances must not be shared by concurrent threads; they are cheap to
+ * create since by default they use the engine shared by all the authorizers (see {@link PdpEngineProvider})
+ * 
  * @author Fabrizio
  */
 public class XACMLAuthorizer implements Closeable, MessageAuthorizer<RequestMessage> {
 
     private PdpEngineWrapper wrapper;
     private StringBuilder logBuilder;
-    private PdpEngineBuilder builder;
+    private ExpiringCache<DecisionType> decisionCache;
+    private boolean sharedEngine;
 
     /**
      * @throws Exception
      */
     public XACMLAuthorizer() throws Exception {
 
-	builder = new DefaultPdpEngineBuilder();
+	DefaultEngine engine = PdpEngineProvider.getDefaultEngine();
 
-	setPdpEngine(builder.build());
+	this.wrapper = new PdpEngineWrapper(engine.getEngine());
+	this.decisionCache = engine.getDecisionCache();
+	this.sharedEngine = true;
     }
 
     @Override
@@ -181,7 +186,10 @@ public class XACMLAuthorizer implements Closeable, MessageAuthorizer<RequestMess
 
 	// GSLoggerFactory.getLogger(getClass()).debug("Closing STARTED");
 
-	wrapper.close();
+	if (!sharedEngine) {
+
+	    wrapper.close();
+	}
 
 	// GSLoggerFactory.getLogger(getClass()).debug("Closing ENDED");
     }
@@ -193,6 +201,8 @@ public class XACMLAuthorizer implements Closeable, MessageAuthorizer<RequestMess
     public void setPdpEngine(CloseablePdpEngine pdp) throws Exception {
 
 	this.wrapper = new PdpEngineWrapper(pdp);
+	this.decisionCache = null;
+	this.sharedEngine = false;
     }
 
     /**
@@ -424,14 +434,9 @@ public class XACMLAuthorizer implements Closeable, MessageAuthorizer<RequestMess
 
 	loader.setPermissionPolicySet(pps);
 
-	IdListRefPolicyProvider.setPolicySetLoader(loader);
-
-	builder = new PdpEngineBuilder();
-
-	builder.addPolicies(loader);
-
 	try {
-	    wrapper = new PdpEngineWrapper(builder.build());
+	    // the engine has the user policies, so its decisions are not cached
+	    setPdpEngine(PdpEngineProvider.build(loader));
 	} catch (Exception e) {
 	    GSLoggerFactory.getLogger(getClass()).error(e.getMessage());
 	}
@@ -451,7 +456,25 @@ public class XACMLAuthorizer implements Closeable, MessageAuthorizer<RequestMess
      */
     private boolean evaluate() {
 
-	DecisionType decision = wrapper.evaluate();
+	if (decisionCache == null) {
+
+	    return wrapper.evaluate() == DecisionType.PERMIT;
+	}
+
+	String key = wrapper.getRequestKey();
+
+	DecisionType decision = decisionCache.get(key);
+
+	if (decision == null) {
+
+	    decision = wrapper.evaluate();
+
+	    decisionCache.put(key, decision);
+
+	} else {
+
+	    logBuilder.append("\n- Cached decision");
+	}
 
 	return decision == DecisionType.PERMIT;
     }
@@ -0,0 +1,150 @@
+/**
+ *
+ */
+package eu.essi_lab.test.authorization.xacmlauthorizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.essi_lab.authorization.xacml.PdpEngineProvider;
+import eu.essi_lab.authorization.xacml.PdpEngineWrapper;
+import eu.essi_lab.authorization.xacml.XACMLAuthorizer;
+import eu.essi_lab.lib.utils.GSLoggerFactory;
+import eu.essi_lab.messages.DiscoveryMessage;
+
+/**
+ * Checks that authorizers sharing the same engine give the expected decisions under concurrent load, and reports the
+ * authorization latency with and without the decisions cache
+ *
+ * @author Fabrizio
+ */
+public class ConcurrentXACMLAuthorizerTest extends AbstractXACMLAuthorizerTest {
+
+    private static final int REQUESTS = 2000;
+
+    @Test
+    public void concurrentTest() throws Exception {
+
+	int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	// cold decisions cache
+	PdpEngineProvider.invalidate();
+
+	long cold = run(threads, true);
+
+	// same requests, decisions are cached
+	long warm = run(threads, false);
+
+	GSLoggerFactory.getLogger(getClass()).info("Threads: {}, requests: {}", threads, REQUESTS);
+	GSLoggerFactory.getLogger(getClass()).info("Avg latency with distinct requests: {} µs", cold / REQUESTS);
+	GSLoggerFactory.getLogger(getClass()).info("Avg latency with cached decisions: {} µs", warm / REQUESTS);
+    }
+
+    @Test
+    public void requestKeyTest() throws Exception {
+
+	PdpEngineWrapper wrapper = new PdpEngineWrapper(PdpEngineProvider.getDefaultEngine().getEngine());
+
+	try {
+
+	    wrapper.setSources("a, b");
+	    String single = wrapper.getRequestKey();
+
+	    wrapper.reset();
+
+	    wrapper.setSources("a", "b");
+	    String pair = wrapper.getRequestKey();
+
+	    // a value containing the separator of the values is not confused with two values
+	    Assert.assertNotEquals(single, pair);
+
+	    wrapper.reset();
+
+	    wrapper.setSources("a", "b");
+	    Assert.assertEquals(pair, wrapper.getRequestKey());
+
+	    wrapper.reset();
+
+	    wrapper.setUserRole("x=y, action=z");
+	    String role = wrapper.getRequestKey();
+
+	    wrapper.reset();
+
+	    wrapper.setUserRole("x=y");
+	    wrapper.setAction("z");
+
+	    // a value containing the separator of the attributes is not confused with two attributes
+	    Assert.assertNotEquals(role, wrapper.getRequestKey());
+
+	} finally {
+
+	    wrapper.reset();
+	}
+    }
+
+    /**
+     * @param threads
+     * @param distinct if <code>true</code> each request has a different set of sources, so its decision is not cached
+     * @return the total authorization time in microseconds
+     * @throws Exception
+     */
+    private long run(int threads, boolean distinct) throws Exception {
+
+	ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+	List<Callable<Long>> tasks = new ArrayList<>();
+
+	for (int i = 0; i < REQUESTS; i++) {
+
+	    final int request = i;
+
+	    tasks.add(() -> {
+
+		DiscoveryMessage message = new DiscoveryMessage();
+
+		setWebRequest(message, "opensearch");
+
+		// offsets greater than 200 are denied to anonymous users
+		boolean expected = request % 2 == 0;
+		setOffset(message, expected ? 1 : 201);
+
+		if (distinct) {
+		    setSources(message, List.of("source" + request));
+		}
+
+		long start = System.nanoTime();
+
+		boolean authorized;
+
+		try (XACMLAuthorizer authorizer = new XACMLAuthorizer()) {
+
+		    authorized = authorizer.isAuthorized(message);
+		}
+
+		long elapsed = (System.nanoTime() - start) / 1000;
+
+		Assert.assertEquals(expected, authorized);
+
+		return elapsed;
+	    });
+	}
+
+	long total = 0;
+
+	for (Future<Long> future : executor.invokeAll(tasks)) {
+
+	    total += future.get();
+	}
+
+	executor.shutdown();
+
+	return total;
+    }
+}